@@ -0,0 +1,71 @@
+package org.simbrain.benchmark;
+
+import kotlin.Unit;
+import kotlin.coroutines.EmptyCoroutineContext;
+import kotlinx.coroutines.BuildersKt;
+import org.openjdk.jmh.annotations.*;
+import org.simbrain.network.NetworkComponent;
+import org.simbrain.network.core.Network;
+import org.simbrain.network.matrix.NeuronArray;
+import org.simbrain.workspace.Workspace;
+import org.simbrain.workspace.couplings.Coupling;
+import org.simbrain.workspace.couplings.CouplingManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to update every coupling from one network to another, each coupling sending the activations of a neuron array
+ * to an array in the other network. {@link CouplingManager#updateCouplings()} updates them concurrently, as the
+ * workspace does; updating them one after the other is measured for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CouplingBenchmark {
+
+    @Param({"10", "100"})
+    public int couplingCount;
+
+    @Param({"100"})
+    public int arraySize;
+
+    private CouplingManager couplingManager;
+
+    private List<Coupling> couplings;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Workspace workspace = new Workspace();
+        Network source = new Network();
+        Network target = new Network();
+        workspace.addWorkspaceComponent(new NetworkComponent("Source", source));
+        workspace.addWorkspaceComponent(new NetworkComponent("Target", target));
+        couplingManager = workspace.getCouplingManager();
+        for (int i = 0; i < couplingCount; i++) {
+            NeuronArray producer = new NeuronArray(source, arraySize);
+            NeuronArray consumer = new NeuronArray(target, arraySize);
+            source.addNetworkModel(producer);
+            target.addNetworkModel(consumer);
+            couplingManager.createCoupling(
+                    couplingManager.getProducer(producer, "getActivationArray"),
+                    couplingManager.getConsumer(consumer, "addInputs"));
+        }
+        couplings = new ArrayList<>(couplingManager.getCouplings());
+    }
+
+    @Benchmark
+    public void updateCouplings() throws InterruptedException {
+        BuildersKt.<Unit>runBlocking(EmptyCoroutineContext.INSTANCE,
+                (scope, continuation) -> couplingManager.updateCouplings(continuation));
+    }
+
+    @Benchmark
+    public void updateCouplingsSequentially() {
+        couplingManager.updateCouplings(couplings);
+    }
+}
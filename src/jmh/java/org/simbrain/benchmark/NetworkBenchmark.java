@@ -0,0 +1,83 @@
+package org.simbrain.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.simbrain.network.core.Network;
+import org.simbrain.network.core.Neuron;
+import org.simbrain.network.core.Synapse;
+import org.simbrain.network.matrix.NeuronArray;
+import org.simbrain.network.matrix.WeightMatrix;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of a {@link Network#update} for a network of neuron arrays and weight matrices, and for a network of free
+ * neurons and synapses of the same size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NetworkBenchmark {
+
+    /**
+     * Number of neurons in each array, and of free neurons.
+     */
+    @Param({"100", "1000"})
+    public int size;
+
+    /**
+     * Incoming synapses per free neuron.
+     */
+    @Param({"10"})
+    public int fanIn;
+
+    private Network arrayNetwork;
+
+    private Network neuronNetwork;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Two recurrently connected arrays, so activity keeps going
+        arrayNetwork = new Network();
+        NeuronArray na1 = new NeuronArray(arrayNetwork, size);
+        NeuronArray na2 = new NeuronArray(arrayNetwork, size);
+        arrayNetwork.addNetworkModels(List.of(na1, na2,
+                new WeightMatrix(arrayNetwork, na1, na2), new WeightMatrix(arrayNetwork, na2, na1)));
+        na1.randomize();
+
+        Random random = new Random(42);
+        neuronNetwork = new Network();
+        List<Neuron> neurons = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Neuron neuron = new Neuron(neuronNetwork);
+            neuron.forceSetActivation(random.nextGaussian());
+            neurons.add(neuron);
+        }
+        neuronNetwork.addNetworkModels(neurons);
+        List<Synapse> synapses = new ArrayList<>();
+        for (Neuron target : neurons) {
+            for (int i = 0; i < fanIn; i++) {
+                Neuron source = neurons.get(random.nextInt(size));
+                synapses.add(new Synapse(source, target, random.nextGaussian() / fanIn));
+            }
+        }
+        neuronNetwork.addNetworkModels(synapses);
+    }
+
+    @Benchmark
+    public Network updateArrays() {
+        arrayNetwork.update();
+        return arrayNetwork;
+    }
+
+    @Benchmark
+    public Network updateNeurons() {
+        neuronNetwork.update();
+        return neuronNetwork;
+    }
+}
@@ -0,0 +1,90 @@
+package org.simbrain.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.simbrain.network.NetworkComponent;
+import org.simbrain.network.core.Network;
+import org.simbrain.network.core.Neuron;
+import org.simbrain.network.core.Synapse;
+import org.simbrain.network.matrix.NeuronArray;
+import org.simbrain.network.matrix.WeightMatrix;
+import org.simbrain.workspace.Workspace;
+import org.simbrain.workspace.serialization.WorkspaceSerializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to save a workspace with {@link WorkspaceSerializer} and to open it again. The workspace has two networks,
+ * one of free neurons and synapses and one of neuron arrays and weight matrices, and a coupling.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"100", "1000"})
+    public int size;
+
+    private Workspace workspace;
+
+    private ByteArrayOutputStream output;
+
+    private byte[] saved;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workspace = new Workspace();
+
+        Random random = new Random(42);
+        Network neuronNetwork = new Network();
+        List<Neuron> neurons = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            neurons.add(new Neuron(neuronNetwork));
+        }
+        neuronNetwork.addNetworkModels(neurons);
+        List<Synapse> synapses = new ArrayList<>();
+        for (Neuron target : neurons) {
+            for (int i = 0; i < 10; i++) {
+                synapses.add(new Synapse(neurons.get(random.nextInt(size)), target, random.nextGaussian()));
+            }
+        }
+        neuronNetwork.addNetworkModels(synapses);
+
+        Network arrayNetwork = new Network();
+        NeuronArray na1 = new NeuronArray(arrayNetwork, size);
+        NeuronArray na2 = new NeuronArray(arrayNetwork, size);
+        arrayNetwork.addNetworkModels(List.of(na1, na2, new WeightMatrix(arrayNetwork, na1, na2)));
+
+        workspace.addWorkspaceComponent(new NetworkComponent("Neurons", neuronNetwork));
+        workspace.addWorkspaceComponent(new NetworkComponent("Arrays", arrayNetwork));
+        workspace.getCouplingManager().createCoupling(
+                workspace.getCouplingManager().getProducer(neurons.get(0), "getActivation"),
+                workspace.getCouplingManager().getConsumer(neurons.get(1), "addInputValue"));
+
+        output = new ByteArrayOutputStream();
+        new WorkspaceSerializer(workspace).serialize(output);
+        saved = output.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        output.reset();
+        new WorkspaceSerializer(workspace).serialize(output);
+        return output.toByteArray();
+    }
+
+    @Benchmark
+    public Workspace deserialize() throws IOException {
+        Workspace opened = new Workspace();
+        new WorkspaceSerializer(opened).deserialize(new ByteArrayInputStream(saved));
+        return opened;
+    }
+}
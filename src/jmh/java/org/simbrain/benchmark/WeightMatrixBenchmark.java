@@ -0,0 +1,44 @@
+package org.simbrain.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.simbrain.network.core.Network;
+import org.simbrain.network.matrix.NeuronArray;
+import org.simbrain.network.matrix.WeightMatrix;
+import smile.math.matrix.Matrix;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of {@link WeightMatrix#getOutput}, the product of a weight matrix and its source activations, for square
+ * matrices.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WeightMatrixBenchmark {
+
+    @Param({"100", "500", "2000"})
+    public int size;
+
+    private WeightMatrix weightMatrix;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Network net = new Network();
+        NeuronArray source = new NeuronArray(net, size);
+        NeuronArray target = new NeuronArray(net, size);
+        weightMatrix = new WeightMatrix(net, source, target);
+        net.addNetworkModels(List.of(source, target, weightMatrix));
+        source.randomize();
+        weightMatrix.randomize();
+    }
+
+    @Benchmark
+    public Matrix getOutput() {
+        return weightMatrix.getOutput();
+    }
+}
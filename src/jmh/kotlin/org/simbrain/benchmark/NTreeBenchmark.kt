@@ -0,0 +1,76 @@
+package org.simbrain.benchmark
+
+import org.openjdk.jmh.annotations.*
+import org.simbrain.util.projection.DataPoint
+import org.simbrain.util.projection.NTree
+import java.util.concurrent.TimeUnit
+import kotlin.random.Random
+
+/**
+ * Compares building an [NTree] one point at a time with building it in bulk, and tree searches with a linear scan.
+ * Searches run a batch of 1000 queries, or 100 for the linear scan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+open class NTreeBenchmark {
+
+    @Param("10000", "100000")
+    @JvmField
+    var points = 0
+
+    @Param("2", "50")
+    @JvmField
+    var dimensions = 0
+
+    /**
+     * Number of neighbors to search for.
+     */
+    @Param("1", "10")
+    @JvmField
+    var k = 0
+
+    private var data = listOf<DataPoint>()
+
+    private var queries = listOf<DataPoint>()
+
+    private var incremental = NTree(1)
+
+    private var bulk = NTree(1)
+
+    private fun randomPoints(random: Random, n: Int) = List(n) {
+        DataPoint(DoubleArray(dimensions) { random.nextDouble() })
+    }
+
+    @Setup(Level.Trial)
+    fun setUp() {
+        val random = Random(1)
+        data = randomPoints(random, points)
+        queries = randomPoints(random, 1000)
+        incremental = NTree(dimensions).apply { data.forEach { add(it) } }
+        bulk = NTree(dimensions, data)
+    }
+
+    @Benchmark
+    fun addOneAtATime() = NTree(dimensions).apply { data.forEach { add(it) } }
+
+    @Benchmark
+    fun bulkBuild() = NTree(dimensions, data)
+
+    @Benchmark
+    fun nearestIncrementallyBuilt() = queries.sumOf { incremental.getClosestIndices(k, it).sum() }
+
+    @Benchmark
+    fun nearestBulkBuilt() = queries.sumOf { bulk.getClosestIndices(k, it).sum() }
+
+    @Benchmark
+    fun nearestLinearScan() = queries.take(100).sumOf { query ->
+        data.indices.sortedBy { NTree.getDistance(data[it], query) }.take(k).sum()
+    }
+
+    @Benchmark
+    fun isUnique() = queries.count { bulk.isUnique(it, 0.001) != null }
+}
@@ -0,0 +1,88 @@
+package org.simbrain.benchmark
+
+import org.openjdk.jmh.annotations.*
+import org.simbrain.network.connections.AllToAll
+import org.simbrain.network.core.Network
+import org.simbrain.network.core.Neuron
+import org.simbrain.network.core.Synapse
+import org.simbrain.network.core.SynapseGroup2
+import org.simbrain.network.groups.NeuronGroup
+import java.util.*
+import java.util.concurrent.TimeUnit
+
+/**
+ * Time to build a network of free neurons and synapses one model at a time. Comparing the sizes shows whether the
+ * build scales linearly, including when the flat lists are read after every model is added, as a script or a
+ * modelAdded handler might, when the network already has a neuron group and a synapse group, and inside a batch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = ["-Xmx24g"])
+open class NetworkBuildBenchmark {
+
+    /**
+     * Number of neurons.
+     */
+    @Param("10000", "100000")
+    @JvmField
+    var neurons = 0
+
+    /**
+     * Incoming synapses per neuron, so 10M synapses for 100k neurons.
+     */
+    @Param("100")
+    @JvmField
+    var fanIn = 0
+
+    /**
+     * Whether the network has a neuron group and a synapse group before the free models are added.
+     */
+    @Param("false", "true")
+    @JvmField
+    var withGroups = false
+
+    private var network = Network()
+
+    @Setup(Level.Invocation)
+    fun setUp() {
+        network = Network()
+        if (withGroups) {
+            val source = NeuronGroup(network, 10).also { network.addNetworkModel(it) }
+            val target = NeuronGroup(network, 10).also { network.addNetworkModel(it) }
+            network.addNetworkModel(SynapseGroup2(source, target, AllToAll()))
+        }
+    }
+
+    /**
+     * Build the network, returning the sizes of the lists read along the way.
+     */
+    private fun build(readLists: Boolean): Long {
+        val random = Random(42)
+        var listed = 0L
+        val added = List(neurons) {
+            Neuron(network).also {
+                network.addNetworkModel(it)
+                if (readLists) listed += network.flatNeuronList.size
+            }
+        }
+        for (target in added) {
+            repeat(fanIn) {
+                network.addNetworkModel(Synapse(added[random.nextInt(neurons)], target, random.nextGaussian()))
+                if (readLists) listed += network.flatNeuronList.size + network.flatSynapseList.size
+            }
+        }
+        return listed + network.flatSynapseList.size
+    }
+
+    @Benchmark
+    fun build() = build(false)
+
+    @Benchmark
+    fun buildReadingLists() = build(true)
+
+    @Benchmark
+    fun buildReadingListsInBatch() = network.batch { build(true) }
+}
@@ -0,0 +1,93 @@
+package org.simbrain.benchmark
+
+import org.openjdk.jmh.annotations.*
+import org.simbrain.network.core.Network
+import org.simbrain.network.core.Neuron
+import org.simbrain.network.core.Synapse
+import org.simbrain.world.odorworld.OdorWorld
+import org.simbrain.world.odorworld.OdorWorldBatch
+import org.simbrain.world.odorworld.effectors.StraightMovement
+import org.simbrain.world.odorworld.effectors.Turning
+import org.simbrain.world.odorworld.entities.EntityType
+import org.simbrain.world.odorworld.sensors.ObjectSensor
+import org.simbrain.world.odorworld.sensors.SmellSensor
+import java.util.concurrent.TimeUnit
+
+/**
+ * Time to evaluate a population of agents for an episode with [OdorWorldBatch], and by updating each agent's world
+ * and network one at a time, on one thread, with the bindings the default couplings would make. The batch uses a
+ * thread per processor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+open class OdorWorldBatchBenchmark {
+
+    /**
+     * Number of agents, each in its own world.
+     */
+    @Param("10", "100")
+    @JvmField
+    var lanes = 0
+
+    /**
+     * Iterations per episode.
+     */
+    @Param("1000")
+    @JvmField
+    var iterations = 0
+
+    private val batch = OdorWorldBatch()
+
+    private var sequential = listOf<OdorWorldBatch.Lane>()
+
+    private fun createLane(index: Int): OdorWorldBatch.Lane {
+        val world = OdorWorld()
+        val mouse = world.addEntity(100, 100, EntityType.MOUSE).apply { heading = index.toDouble() }
+        repeat(10) { world.addEntity(50.0 + 40 * it, 50.0 + 25 * (it % 4), EntityType.SWISS) }
+        world.addEntity(200, 200, EntityType.FLOWER, doubleArrayOf(1.0, 0.5))
+        val sensors = listOf(ObjectSensor(EntityType.SWISS, 20.0, 45.0), SmellSensor(theta = -45.0, radius = 20.0))
+        val effectors = listOf(StraightMovement(), Turning(Turning.LEFT))
+        sensors.forEach(mouse::addSensor)
+        effectors.forEach(mouse::addEffector)
+        val network = Network()
+        val inputs = List(2) { Neuron(network) }
+        val outputs = List(2) { Neuron(network) }
+        network.addNetworkModels(inputs + outputs)
+        network.addNetworkModels(listOf(Synapse(inputs[0], outputs[0], 2.0), Synapse(inputs[1], outputs[1], 5.0)))
+        return OdorWorldBatch.Lane(world, mouse, network, sensors, inputs, outputs, effectors)
+    }
+
+    @Setup(Level.Invocation)
+    fun setUp() {
+        batch.clear()
+        repeat(lanes) { batch.addLane(createLane(it)) }
+        sequential = List(lanes) { createLane(it) }
+    }
+
+    @Benchmark
+    fun batch(): Double {
+        batch.runBlocking(iterations)
+        return batch.x[0]
+    }
+
+    @Benchmark
+    fun sequential(): Double {
+        for (lane in sequential) {
+            val objectSensor = lane.sensors[0] as ObjectSensor
+            val smellSensor = lane.sensors[1] as SmellSensor
+            repeat(iterations) {
+                lane.inputs[0].addInputValue(objectSensor.currentValue)
+                lane.inputs[1].addInputValue(smellSensor.currentScalarValue)
+                (lane.effectors[0] as StraightMovement).amount = lane.outputs[0].activation
+                (lane.effectors[1] as Turning).amount = lane.outputs[1].activation
+                lane.world.update()
+                lane.network.update()
+            }
+        }
+        return sequential[0].agent.x
+    }
+}
@@ -0,0 +1,255 @@
+package org.simbrain.benchmark
+
+import kotlinx.coroutines.CoroutineStart
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.runBlocking
+import org.simbrain.custom_sims.NewSimulation
+import org.simbrain.custom_sims.SimulationScope
+import org.simbrain.custom_sims.simulations
+import org.simbrain.workspace.updater.PerformanceMonitor
+import java.io.File
+import java.lang.management.ManagementFactory
+import java.time.Instant
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Statistics of the [PerformanceMonitor] timings with one name, e.g. "Updating Component Network 1".
+ */
+class TimingStats(val name: String) {
+    var count = 0L
+        private set
+    var totalNanos = 0L
+        private set
+    var minNanos = Long.MAX_VALUE
+        private set
+    var maxNanos = 0L
+        private set
+    val meanNanos get() = if (count == 0L) 0.0 else totalNanos.toDouble() / count
+
+    @Synchronized
+    fun add(nanos: Long) {
+        count++
+        totalNanos += nanos
+        minNanos = minOf(minNanos, nanos)
+        maxNanos = maxOf(maxNanos, nanos)
+    }
+}
+
+/**
+ * The result of running one simulation. [status] is "ok", "unsupported" for simulations that can't run without the
+ * desktop, or "failed".
+ */
+class SimulationResult(
+    val name: String,
+    val status: String,
+    val message: String = "",
+    val setupMillis: Double = 0.0,
+    val warmupIterations: Int = 0,
+    val iterations: Int = 0,
+    val seconds: Double = 0.0,
+    val allocatedBytes: Long = 0,
+    val gcCount: Long = 0,
+    val gcMillis: Long = 0,
+    val timings: List<TimingStats> = listOf()
+) {
+    val iterationsPerSecond get() = if (seconds > 0) iterations / seconds else 0.0
+    val bytesPerIteration get() = if (iterations > 0) allocatedBytes / iterations else 0L
+    val allocationRate get() = if (seconds > 0) allocatedBytes / seconds else 0.0
+}
+
+private val threadBean = ManagementFactory.getThreadMXBean() as com.sun.management.ThreadMXBean
+
+/**
+ * Bytes allocated so far by the live threads. Allocations of threads that end while measuring are not counted, but
+ * the workspace updates on the coroutine dispatcher threads, which are kept alive.
+ */
+private fun allocatedBytes(): Long = threadBean.getThreadAllocatedBytes(threadBean.allThreadIds).filter { it > 0 }.sum()
+
+private fun gcCount() = ManagementFactory.getGarbageCollectorMXBeans().sumOf { maxOf(it.collectionCount, 0L) }
+
+private fun gcMillis() = ManagementFactory.getGarbageCollectorMXBeans().sumOf { maxOf(it.collectionTime, 0L) }
+
+/**
+ * Build a simulation without the desktop, update its workspace [warmup] times and then measure [iterations]
+ * updates, collecting the [PerformanceMonitor] timings of the measured updates.
+ */
+fun benchmark(name: String, sim: NewSimulation, warmup: Int, iterations: Int): SimulationResult = runBlocking {
+    val scope = SimulationScope()
+    val workspace = scope.workspace
+    val timings = ConcurrentHashMap<String, TimingStats>()
+    // Unconfined and undispatched, so the collector subscribes right away and each timing is added before the update
+    // that measured it goes on
+    val collector = launch(Dispatchers.Unconfined, start = CoroutineStart.UNDISPATCHED) {
+        PerformanceMonitor.flow.collect { timings.getOrPut(it.name) { TimingStats(it.name) }.add(it.nanoTime) }
+    }
+    try {
+        val setupStart = System.nanoTime()
+        sim.task(scope)
+        val setupMillis = (System.nanoTime() - setupStart) / 1e6
+        workspace.iterateSuspend(warmup)
+
+        PerformanceMonitor.enabled = true
+        val gcCountBefore = gcCount()
+        val gcMillisBefore = gcMillis()
+        val allocatedBefore = allocatedBytes()
+        val start = System.nanoTime()
+        try {
+            workspace.iterateSuspend(iterations)
+        } finally {
+            PerformanceMonitor.enabled = false
+        }
+        val seconds = (System.nanoTime() - start) / 1e9
+        val allocated = allocatedBytes() - allocatedBefore
+
+        SimulationResult(
+            name, "ok",
+            setupMillis = setupMillis,
+            warmupIterations = warmup,
+            iterations = iterations,
+            seconds = seconds,
+            allocatedBytes = allocated,
+            gcCount = gcCount() - gcCountBefore,
+            gcMillis = gcMillis() - gcMillisBefore,
+            timings = timings.values.sortedByDescending { it.totalNanos }
+        )
+    } catch (e: Throwable) {
+        SimulationResult(name, "failed", e.toString())
+    } finally {
+        collector.cancel()
+        workspace.clearWorkspace()
+    }
+}
+
+private fun String.json() = buildString {
+    append('"')
+    for (c in this@json) {
+        when {
+            c == '"' -> append("\\\"")
+            c == '\\' -> append("\\\\")
+            c == '\n' -> append("\\n")
+            c < ' ' -> append("\\u%04x".format(c.code))
+            else -> append(c)
+        }
+    }
+    append('"')
+}
+
+private fun String.csv() = if (any { it == ',' || it == '"' || it == '\n' }) "\"${replace("\"", "\"\"")}\"" else this
+
+fun writeJson(file: File, results: List<SimulationResult>) {
+    val runtime = ManagementFactory.getRuntimeMXBean()
+    file.writeText(buildString {
+        appendLine("{")
+        appendLine("  \"timestamp\": ${Instant.now().toString().json()},")
+        appendLine("  \"jvm\": ${"${runtime.vmName} ${runtime.vmVersion}".json()},")
+        appendLine("  \"processors\": ${Runtime.getRuntime().availableProcessors()},")
+        appendLine("  \"maxHeapBytes\": ${Runtime.getRuntime().maxMemory()},")
+        appendLine("  \"simulations\": [")
+        results.forEachIndexed { i, r ->
+            appendLine("    {")
+            appendLine("      \"name\": ${r.name.json()},")
+            appendLine("      \"status\": ${r.status.json()},")
+            appendLine("      \"message\": ${r.message.json()},")
+            appendLine("      \"setupMillis\": ${r.setupMillis},")
+            appendLine("      \"warmupIterations\": ${r.warmupIterations},")
+            appendLine("      \"iterations\": ${r.iterations},")
+            appendLine("      \"seconds\": ${r.seconds},")
+            appendLine("      \"iterationsPerSecond\": ${r.iterationsPerSecond},")
+            appendLine("      \"allocatedBytes\": ${r.allocatedBytes},")
+            appendLine("      \"bytesPerIteration\": ${r.bytesPerIteration},")
+            appendLine("      \"allocationBytesPerSecond\": ${r.allocationRate},")
+            appendLine("      \"gcCount\": ${r.gcCount},")
+            appendLine("      \"gcMillis\": ${r.gcMillis},")
+            appendLine("      \"timings\": [")
+            r.timings.forEachIndexed { j, t ->
+                append("        {\"name\": ${t.name.json()}, \"count\": ${t.count}, \"totalNanos\": ${t.totalNanos}, ")
+                append("\"meanNanos\": ${t.meanNanos}, \"minNanos\": ${t.minNanos}, \"maxNanos\": ${t.maxNanos}}")
+                appendLine(if (j < r.timings.size - 1) "," else "")
+            }
+            appendLine("      ]")
+            appendLine(if (i < results.size - 1) "    }," else "    }")
+        }
+        appendLine("  ]")
+        appendLine("}")
+    })
+}
+
+fun writeCsv(results: File, timings: File, simulationResults: List<SimulationResult>) {
+    results.writeText(buildString {
+        appendLine(
+            "name,status,setupMillis,warmupIterations,iterations,seconds,iterationsPerSecond,allocatedBytes," +
+                    "bytesPerIteration,allocationBytesPerSecond,gcCount,gcMillis,message"
+        )
+        simulationResults.forEach { r ->
+            appendLine(
+                listOf(
+                    r.name.csv(), r.status, r.setupMillis, r.warmupIterations, r.iterations, r.seconds,
+                    r.iterationsPerSecond, r.allocatedBytes, r.bytesPerIteration, r.allocationRate, r.gcCount,
+                    r.gcMillis, r.message.csv()
+                ).joinToString(",")
+            )
+        }
+    })
+    timings.writeText(buildString {
+        appendLine("simulation,name,count,totalNanos,meanNanos,minNanos,maxNanos")
+        simulationResults.forEach { r ->
+            r.timings.forEach { t ->
+                appendLine(
+                    listOf(r.name.csv(), t.name.csv(), t.count, t.totalNanos, t.meanNanos, t.minNanos, t.maxNanos)
+                        .joinToString(",")
+                )
+            }
+        }
+    })
+}
+
+/**
+ * Called by build.gradle#benchmarkSims. Arguments are the names of registered simulations to run, and optionally
+ * `--iterations n`, `--warmup n` and `--out directory`.
+ *
+ * Only simulations made with [org.simbrain.custom_sims.newSim] can be built without the desktop; other simulations,
+ * and simulations that fail without the desktop, are listed in the results with their status.
+ */
+fun main(args: Array<String>) {
+    var iterations = 1000
+    var warmup = 100
+    var out = File("build/reports/benchmarks")
+    val names = ArrayList<String>()
+    val arguments = args.iterator()
+    for (arg in arguments) {
+        when (arg) {
+            "--iterations" -> iterations = arguments.next().toInt()
+            "--warmup" -> warmup = arguments.next().toInt()
+            "--out" -> out = File(arguments.next())
+            else -> names.add(arg)
+        }
+    }
+
+    val headless = simulations.items.filter { (_, sim) -> sim is NewSimulation }.map { (name, _) -> name }.toList()
+    if (names.isEmpty()) throw IllegalArgumentException(
+        "Please supply the names of the simulations to benchmark. Simulations that can run headless are:\n" +
+                headless.joinToString("\n") { "\t$it" }
+    )
+
+    val results = names.map { name ->
+        val sim = simulations.items.firstOrNull { (key, _) -> key == name }?.second
+        println("Benchmarking $name")
+        when (sim) {
+            null -> SimulationResult(name, "failed", "Simulation $name not found")
+            is NewSimulation -> benchmark(name, sim, warmup, iterations)
+            else -> SimulationResult(name, "unsupported", "Only simulations made with newSim can run headless")
+        }.also {
+            println(
+                if (it.status == "ok") "\t%.1f iterations/s, %d bytes/iteration, %d GCs".format(
+                    it.iterationsPerSecond, it.bytesPerIteration, it.gcCount
+                ) else "\t${it.status}: ${it.message}"
+            )
+        }
+    }
+
+    out.mkdirs()
+    writeJson(File(out, "results.json"), results)
+    writeCsv(File(out, "results.csv"), File(out, "timings.csv"), results)
+    println("Results written to ${out.absolutePath}")
+}
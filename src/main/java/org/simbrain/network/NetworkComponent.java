@@ -138,6 +138,11 @@ public final class NetworkComponent extends WorkspaceComponent {
         network.update(getName());
     }
 
+    @Override
+    public void setRandomSeed(long seed) {
+        network.setRandomSeed(seed);
+    }
+
     @Override
     public String getXML() {
         return XStreamUtils.getSimbrainXStream().toXML(network);
@@ -30,6 +30,7 @@ import org.simbrain.network.neuron_update_rules.interfaces.ClippableUpdateRule;
 import org.simbrain.network.util.EmptyScalarData;
 import org.simbrain.network.util.ScalarDataHolder;
 import org.simbrain.network.util.SpikingScalarData;
+import org.simbrain.util.RandomStream;
 import org.simbrain.util.SimbrainConstants.Polarity;
 import org.simbrain.util.UserParameter;
 import org.simbrain.util.math.SimbrainMath;
@@ -116,20 +117,16 @@ public class Neuron extends LocatableModel implements EditableObject, AttributeC
     private final Network parent;
 
     /**
-     * Pre-allocates the number of bins in this neuron's fanIn/Out for
-     * efficiency.
+     * Fan-out in the form of a map from target neurons to synapses. Created with the default capacity, so that its
+     * table is only allocated when the first synapse is added and grows with the fan-out.
      */
-    public static final int PRE_ALLOCATED_NUM_SYNAPSES = (int) Math.ceil(500 / 0.75);
+    private transient Map<Neuron, Synapse> fanOut = new HashMap<>();
 
     /**
-     * Fan-out in the form of a map from target neurons to synapses.
+     * List of synapses attaching to this neuron. Like {@link #fanOut}, storage is allocated when the first synapse is
+     * added.
      */
-    private transient Map<Neuron, Synapse> fanOut = new HashMap<>(PRE_ALLOCATED_NUM_SYNAPSES);
-
-    /**
-     * List of synapses attaching to this neuron.
-     */
-    private transient ArrayList<Synapse> fanIn = new ArrayList<>(PRE_ALLOCATED_NUM_SYNAPSES);
+    private transient ArrayList<Synapse> fanIn = new ArrayList<>();
 
     /**
      * Central x-coordinate of this neuron in 2-space.
@@ -201,7 +198,7 @@ public class Neuron extends LocatableModel implements EditableObject, AttributeC
      * Local data holder for neuron update rule.
      */
     @UserParameter(label = "State variables", useSetter = true, isEmbeddedObject = true, order = 100)
-    private ScalarDataHolder dataHolder = new EmptyScalarData();
+    private ScalarDataHolder dataHolder = EmptyScalarData.INSTANCE;
 
     /**
      * Construct a specific type of neuron.
@@ -528,7 +525,14 @@ public class Neuron extends LocatableModel implements EditableObject, AttributeC
 
     @Override
     public void randomize() {
-        forceSetActivation(this.getUpdateRule().getRandomValue());
+        forceSetActivation(this.getUpdateRule().getRandomValue(getRandom()));
+    }
+
+    /**
+     * The stream this neuron draws random numbers from. See {@link Network#getRandom}.
+     */
+    public RandomStream getRandom() {
+        return getNetwork().getRandom(this);
     }
 
     /**
@@ -779,7 +783,7 @@ public class Neuron extends LocatableModel implements EditableObject, AttributeC
      */
     public void randomizeBias(double lower, double upper) {
         if (this.getUpdateRule() instanceof BiasedUpdateRule) {
-            ((BiasedUpdateRule) this.getUpdateRule()).setBias((upper - lower) * Math.random() + lower);
+            ((BiasedUpdateRule) this.getUpdateRule()).setBias((upper - lower) * getRandom().nextDouble() + lower);
         }
     }
 
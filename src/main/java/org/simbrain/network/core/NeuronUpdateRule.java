@@ -28,6 +28,7 @@ import org.simbrain.network.util.BiasedMatrixData;
 import org.simbrain.network.util.BiasedScalarData;
 import org.simbrain.network.util.MatrixDataHolder;
 import org.simbrain.network.util.ScalarDataHolder;
+import org.simbrain.util.RandomStream;
 import org.simbrain.util.UserParameter;
 import org.simbrain.util.Utils;
 import org.simbrain.util.propertyeditor.CopyableObject;
@@ -191,13 +192,14 @@ public abstract class NeuronUpdateRule implements CopyableObject {
      * Returns a random value between the upper and lower bounds of this neuron. Update rules that require special
      * randomization should override this method.
      *
+     * @param random the stream of the neuron being randomized
      * @return the random value.
      */
-    public double getRandomValue() {
+    public double getRandomValue(RandomStream random) {
         if (this instanceof BoundedUpdateRule) {
-            return (((BoundedUpdateRule) this).getUpperBound() - ((BoundedUpdateRule) this).getLowerBound()) * Math.random() + ((BoundedUpdateRule) this).getLowerBound();
+            return (((BoundedUpdateRule) this).getUpperBound() - ((BoundedUpdateRule) this).getLowerBound()) * random.nextDouble() + ((BoundedUpdateRule) this).getLowerBound();
         } else {
-            return 2 * Math.random() - 1;
+            return 2 * random.nextDouble() - 1;
         }
 
     }
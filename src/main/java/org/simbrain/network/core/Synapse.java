@@ -26,6 +26,7 @@ import org.simbrain.network.synapse_update_rules.StaticSynapseRule;
 import org.simbrain.network.synapse_update_rules.spikeresponders.SpikeResponder;
 import org.simbrain.network.util.EmptyScalarData;
 import org.simbrain.network.util.ScalarDataHolder;
+import org.simbrain.util.RandomStream;
 import org.simbrain.util.UserParameter;
 import org.simbrain.util.Utils;
 import org.simbrain.util.math.SimbrainMath;
@@ -46,12 +47,13 @@ import java.util.*;
 public class Synapse extends NetworkModel implements EditableObject, AttributeContainer {
 
     /**
-     * A default update rule for the synapse.
+     * A default update rule for the synapse. Static rules have no state, so all synapses with a static rule share this
+     * one.
      */
     private static final SynapseUpdateRule DEFAULT_LEARNING_RULE = new StaticSynapseRule();
 
     /**
-     * A default spike responder.
+     * A default spike responder, shared by all synapses that use it.
      */
     public static final SpikeResponder DEFAULT_SPIKE_RESPONDER = new NonResponder();
 
@@ -199,13 +201,13 @@ public class Synapse extends NetworkModel implements EditableObject, AttributeCo
      * Data holder for synapse
      */
     @UserParameter(label = "Learning data", isEmbeddedObject = true, order = 100)
-    private ScalarDataHolder dataHolder = new EmptyScalarData();
+    private ScalarDataHolder dataHolder = EmptyScalarData.INSTANCE;
 
     /**
      * Data holder for spiker responder.
      */
     @UserParameter(label = "Spike data", isEmbeddedObject = true, order = 110)
-    private ScalarDataHolder spikeResponderData = new EmptyScalarData();
+    private ScalarDataHolder spikeResponderData = EmptyScalarData.INSTANCE;
 
     /**
      * Support for property change events.
@@ -577,10 +579,17 @@ public class Synapse extends NetworkModel implements EditableObject, AttributeCo
 
     @Override
     public void randomize() {
-        double newStrength = (getUpperBound() - getLowerBound()) * Math.random() + getLowerBound();
+        double newStrength = (getUpperBound() - getLowerBound()) * getRandom().nextDouble() + getLowerBound();
         forceSetStrength(newStrength);
     }
 
+    /**
+     * The stream this synapse draws random numbers from. See {@link Network#getRandom}.
+     */
+    public RandomStream getRandom() {
+        return getNetwork().getRandom(this);
+    }
+
     /**
      * If weight value is above or below its bounds set it to those bounds.
      */
@@ -740,7 +749,11 @@ public class Synapse extends NetworkModel implements EditableObject, AttributeCo
      */
     public void setLearningRule(SynapseUpdateRule newLearningRule) {
         SynapseUpdateRule oldRule = learningRule;
-        this.learningRule = newLearningRule.deepCopy();
+        if (newLearningRule.getClass() == StaticSynapseRule.class) {
+            this.learningRule = DEFAULT_LEARNING_RULE;
+        } else {
+            this.learningRule = newLearningRule.deepCopy();
+        }
         // TODO: Needed for calls to SynapseGroup.postOpenInit, which calls
         // SynapseGroup.setAndComformToTemplate. Template synapses don't seem to have
         // change support initialized.
@@ -853,6 +866,13 @@ public class Synapse extends NetworkModel implements EditableObject, AttributeCo
     @Override
     public void postOpenInit() {
         events = new SynapseEvents2();
+        // Saved synapses each have their own copy of the default rule and responder
+        if (learningRule.getClass() == StaticSynapseRule.class) {
+            learningRule = DEFAULT_LEARNING_RULE;
+        }
+        if (spikeResponder.getClass() == NonResponder.class) {
+            spikeResponder = DEFAULT_SPIKE_RESPONDER;
+        }
         if (getTarget() != null) {
             if (getTarget().getFanIn() != null) {
                 getTarget().addToFanIn(this);
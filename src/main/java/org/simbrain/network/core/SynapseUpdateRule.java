@@ -61,7 +61,7 @@ public abstract class SynapseUpdateRule implements CopyableObject {
     /**
      * Default data holder for scalar data.
      */
-    private static final ScalarDataHolder DEFAULT_SCALAR_DATA = new EmptyScalarData();
+    private static final ScalarDataHolder DEFAULT_SCALAR_DATA = EmptyScalarData.INSTANCE;
 
     /**
      * Default data holder for matrix data.
@@ -260,16 +260,35 @@ public abstract class AbstractNeuronCollection extends Layer implements Copyable
      */
     protected void addNeuron(Neuron neuron) {
         neuronList.add(neuron);
+        initializeNeuron(neuron);
+        neuronsChanged();
+    }
+
+    /**
+     * Give a neuron that has been added to the collection an id and listen to it.
+     */
+    protected void initializeNeuron(Neuron neuron) {
         neuron.setId(getParentNetwork().getIdManager().getAndIncrementId(Neuron.class));
         addListener(neuron);
     }
 
     /**
-     * Add a collection of neurons.
+     * Add a collection of neurons. The neuron list is copied once for all of them rather than once per neuron.
      */
     protected void addNeurons(Collection<Neuron> neurons) {
-        neurons.forEach(this::addNeuron);
+        neuronList.addAll(neurons);
+        neurons.forEach(this::initializeNeuron);
         subsamplingManager.resetIndices();
+        neuronsChanged();
+    }
+
+    /**
+     * Let the network know that the neurons of this collection have changed, so that its flat neuron list is rebuilt.
+     */
+    protected void neuronsChanged() {
+        if (parentNetwork != null) {
+            parentNetwork.invalidateCachedLists();
+        }
     }
 
     /**
@@ -284,6 +303,7 @@ public abstract class AbstractNeuronCollection extends Layer implements Copyable
         });
         n.getEvents().getDeleted().on(neuron-> {
             neuronList.remove(neuron);
+            neuronsChanged();
             if (isEmpty()) {
                 delete();
             }
@@ -297,6 +317,7 @@ public abstract class AbstractNeuronCollection extends Layer implements Copyable
      */
     public void removeNeuron(Neuron neuron) {
         neuronList.remove(neuron);
+        neuronsChanged();
     }
 
     /**
@@ -304,6 +325,7 @@ public abstract class AbstractNeuronCollection extends Layer implements Copyable
      */
     public void removeAllNeurons() {
         neuronList.clear();
+        neuronsChanged();
     }
 
     /**
@@ -442,10 +464,10 @@ public abstract class AbstractNeuronCollection extends Layer implements Copyable
 
     @Override
     public void update() {
+        invalidateCachedActivations();
         if (activationRecorder.isRecording()) {
             activationRecorder.writeActsToFile();
         }
-        invalidateCachedActivations();
     }
 
     @Producible(arrayDescriptionMethod = "getLabelArray")
@@ -460,6 +482,18 @@ public abstract class AbstractNeuronCollection extends Layer implements Copyable
         return activations;
     }
 
+    /**
+     * Which neurons spiked on the last update, in the order of the neuron list. Can be coupled to a raster plot.
+     */
+    @Producible(description = "Spikes")
+    public boolean[] getSpikes() {
+        boolean[] spikes = new boolean[neuronList.size()];
+        for (int i = 0; i < spikes.length; i++) {
+            spikes[i] = neuronList.get(i).isSpike();
+        }
+        return spikes;
+    }
+
     /**
      * Returns true if all the neurons in this group are clamped.
      *
@@ -131,8 +131,13 @@ public class NeuronCollection extends AbstractNeuronCollection {
 
     @Override
     public void addNeuron(Neuron neuron) {
-        // These neurons already have ids and listeners
         neuronList.add(neuron);
+        initializeNeuron(neuron);
+    }
+
+    @Override
+    protected void initializeNeuron(Neuron neuron) {
+        // These neurons already have ids
         addListener(neuron);
     }
 
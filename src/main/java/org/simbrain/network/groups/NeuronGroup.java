@@ -107,10 +107,8 @@ public class NeuronGroup extends AbstractNeuronCollection {
      */
     public NeuronGroup(final Network net, final List<Neuron> neurons) {
         this(net);
-        neurons.forEach(n -> {
-            super.addNeuron(n);
-            n.setParentGroup(this);
-        });
+        neuronList.addAll(neurons);
+        neurons.forEach(this::initializeNeuron);
         prototypeRule = neurons.get(0).getUpdateRule();
         setNeuronType(prototypeRule);
         dataHolder = prototypeRule.createScalarData();
@@ -150,10 +148,11 @@ public class NeuronGroup extends AbstractNeuronCollection {
     }
 
     /**
-     * Add a neuron to the neuron group and designate parent group properly.
+     * Designate the parent group of an added neuron properly.
      */
-    protected void addNeuron(Neuron neuron) {
-        super.addNeuron(neuron);
+    @Override
+    protected void initializeNeuron(Neuron neuron) {
+        super.initializeNeuron(neuron);
         neuron.setParentGroup(this);
     }
 
@@ -77,6 +77,7 @@ public abstract class Subnetwork extends LocatableModel implements EditableObjec
 
     public final void addModel(NetworkModel model) {
         modelList.add(model);
+        modelsChanged();
         model.setId(getParentNetwork().getIdManager().getAndIncrementId(model.getClass()));
         if (model instanceof LocatableModel) {
             ((LocatableModel) model).getEvents().getLocationChanged().on(() -> {
@@ -86,6 +87,7 @@ public abstract class Subnetwork extends LocatableModel implements EditableObjec
         getEvents().getLocationChanged().fireAndForget();
         model.getEvents().getDeleted().on(null, true, m -> {
             modelList.remove(m);
+            modelsChanged();
             if (modelList.getSize() == 0) {
                 delete();
             }
@@ -100,9 +102,19 @@ public abstract class Subnetwork extends LocatableModel implements EditableObjec
             modelList.remove(m);
             m.delete();
         });
+        modelsChanged();
         events.getDeleted().fireAndForget(this);
     }
 
+    /**
+     * Let the network know that the models of this subnetwork have changed, so that its flat lists are rebuilt.
+     */
+    private void modelsChanged() {
+        if (parentNetwork != null) {
+            parentNetwork.invalidateCachedLists();
+        }
+    }
+
     public NetworkModelList getModelList() {
         return modelList;
     }
@@ -421,6 +421,7 @@ public class SynapseGroup extends NetworkModel implements EditableObject, Attrib
             toDelete.getTarget().removeFromFanIn(toDelete);
         }
         this.excitatoryRatio = getExcitatoryRatioPrecise();
+        synapsesChanged();
         if (isDisplaySynapses()) {
             fireSynapseRemoved(toDelete);
         }
@@ -462,10 +463,21 @@ public class SynapseGroup extends NetworkModel implements EditableObject, Attrib
     // TODO: Checks.
     public void addExcitatorySynapse(final Synapse s) {
         exSynapseSet.add(s);
+        synapsesChanged();
     }
 
     public void addInhibitorySynapse(final Synapse s) {
         inSynapseSet.add(s);
+        synapsesChanged();
+    }
+
+    /**
+     * Let the network know that the synapses of this group have changed, so that its flat synapse list is rebuilt.
+     */
+    private void synapsesChanged() {
+        if (parentNetwork != null) {
+            parentNetwork.invalidateCachedLists();
+        }
     }
 
     /**
@@ -514,6 +526,7 @@ public class SynapseGroup extends NetworkModel implements EditableObject, Attrib
         // synapse.setLowerBound(excitatoryPrototype.getLowerBound());
         // synapse.setSpikeResponder(excitatoryPrototype.getSpikeResponder());
         exSynapseSet.add(synapse);
+        synapsesChanged();
         fireSynapseAdded(synapse);
     }
 
@@ -538,6 +551,7 @@ public class SynapseGroup extends NetworkModel implements EditableObject, Attrib
         // synapse.setLowerBound(inhibitoryPrototype.getLowerBound());
         // synapse.setSpikeResponder(inhibitoryPrototype.getSpikeResponder());
         inSynapseSet.add(synapse);
+        synapsesChanged();
         fireSynapseAdded(synapse);
     }
 
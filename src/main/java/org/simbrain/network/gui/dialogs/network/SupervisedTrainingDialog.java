@@ -22,9 +22,11 @@ import org.simbrain.network.gui.NetworkPanel;
 import org.simbrain.network.gui.dialogs.TestInputPanel;
 import org.simbrain.network.trainers.Trainable2;
 import org.simbrain.util.StandardDialog;
-import org.simbrain.util.table.BasicDataWrapperKt;
+import org.simbrain.util.table.ColumnarDataWrapper;
+import org.simbrain.util.table.ColumnarDataWrapperKt;
 import org.simbrain.util.table.SimbrainDataViewer;
 import org.simbrain.util.widgets.ShowHelpAction;
+import smile.math.matrix.Matrix;
 
 import javax.swing.*;
 import javax.swing.event.ChangeEvent;
@@ -34,6 +36,7 @@ import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * <b>SupervisedTrainingDialog</b> is the superclass of edit dialogs associated
@@ -94,6 +97,16 @@ public abstract class SupervisedTrainingDialog extends StandardDialog {
      */
     protected abstract void stopTrainer();
 
+    /**
+     * Have the trainer use a view of a table's numeric columns, so that edits and imports in the data tabs are what
+     * it trains on. The view is renewed whenever the table changes, since adding rows or columns or changing a column
+     * type moves its storage.
+     */
+    private static void trainOn(ColumnarDataWrapper table, Consumer<Matrix> setter) {
+        setter.accept(table.asMatrix());
+        table.addTableModelListener(e -> setter.accept(table.asMatrix()));
+    }
+
     /**
      * This method initializes the components on the panel.
      */
@@ -103,15 +116,17 @@ public abstract class SupervisedTrainingDialog extends StandardDialog {
         setModalityType(ModalityType.MODELESS);
 
         // Input data tab
-        inputPanel =
-                new SimbrainDataViewer(BasicDataWrapperKt.createFromMatrix(trainable.getTrainingSet().getInputs()), true);
+        ColumnarDataWrapper inputTable = ColumnarDataWrapperKt.createFromMatrix(trainable.getTrainingSet().getInputs());
+        trainOn(inputTable, trainable.getTrainingSet()::setInputs);
+        inputPanel = new SimbrainDataViewer(inputTable, true);
         // inputPanel = new DataPanel(trainable.getInputNeurons(), trainable.getTrainingSet().getInputDataMatrix(), 5, "Input");
         // inputPanel.setFrame(this);
         addTab("Input data", inputPanel);
 
         // Training data tab
-        trainingPanel =
-                new SimbrainDataViewer(BasicDataWrapperKt.createFromMatrix(trainable.getTrainingSet().getTargets()), true);
+        ColumnarDataWrapper targetTable = ColumnarDataWrapperKt.createFromMatrix(trainable.getTrainingSet().getTargets());
+        trainOn(targetTable, trainable.getTrainingSet()::setTargets);
+        trainingPanel = new SimbrainDataViewer(targetTable, true);
         // trainingPanel.setFrame(this);
         addTab("Target data", trainingPanel);
 
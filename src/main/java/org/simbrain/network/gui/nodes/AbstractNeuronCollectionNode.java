@@ -5,6 +5,7 @@ import org.simbrain.network.events.NeuronCollectionEvents2;
 import org.simbrain.network.events.NeuronEvents2;
 import org.simbrain.network.groups.AbstractNeuronCollection;
 import org.simbrain.network.gui.NetworkPanel;
+import org.simbrain.network.util.ActivationRecorder;
 import org.simbrain.util.SFileChooser;
 import org.simbrain.util.Utils;
 import org.simbrain.util.piccolo.Outline;
@@ -188,6 +189,7 @@ public abstract class AbstractNeuronCollectionNode extends ScreenElement {
                     nc.getActivationRecorder().stopRecording();
                 } else {
                     SFileChooser chooser = new SFileChooser(".", "comma-separated-values (csv)", "csv");
+                    chooser.addExtension("binary recording (sbr)", ActivationRecorder.BINARY_EXTENSION);
                         File theFile = chooser.showSaveDialog("Recording_" + Utils.getTimeString() + ".csv");
                     if (theFile != null) {
                         nc.getActivationRecorder().startRecording(theFile);
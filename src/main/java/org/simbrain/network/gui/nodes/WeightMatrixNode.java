@@ -17,7 +17,7 @@ import org.simbrain.util.ImageKt;
 import org.simbrain.util.ResourceManager;
 import org.simbrain.util.StandardDialog;
 import org.simbrain.util.propertyeditor.AnnotatedPropertyEditor;
-import org.simbrain.util.table.BasicDataWrapperKt;
+import org.simbrain.util.table.ColumnarDataWrapperKt;
 import org.simbrain.util.table.SimbrainDataViewer;
 import org.simbrain.util.table.TableActionsKt;
 
@@ -234,7 +234,7 @@ public class WeightMatrixNode extends ScreenElement implements PropertyChangeLis
 
         // Weight matrix
         if (weightMatrix instanceof WeightMatrix) {
-            var wm = BasicDataWrapperKt.createFromMatrix(((WeightMatrix) weightMatrix).getWeightMatrix());
+            var wm = ColumnarDataWrapperKt.createFromMatrix(((WeightMatrix) weightMatrix).getWeightMatrix());
             var wmViewer = new SimbrainDataViewer(wm, false);
             TableActionsKt.addSimpleDefaults(wmViewer);
             tabs.addTab("Weight Matrix", wmViewer);
@@ -0,0 +1,282 @@
+package org.simbrain.network.matrix;
+
+import org.simbrain.network.core.Network;
+import org.simbrain.network.subnetworks.CompetitiveGroup;
+import org.simbrain.network.subnetworks.CompetitiveGroup.UpdateMethod;
+import org.simbrain.util.UserParameter;
+import smile.math.matrix.Matrix;
+
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.simbrain.network.matrix.WinnerTakeAllArray.winnerVector;
+
+/**
+ * Array version of {@link CompetitiveGroup}. Trains the rows of its incoming {@link WeightMatrix}, one row per
+ * component of the array. The winner is found from the weighted inputs computed by the weight matrix, and the
+ * weights are updated a row at a time rather than a synapse at a time.
+ * <p>
+ * Weights are not clipped, since weight matrices have no bounds.
+ */
+public class CompetitiveArray extends NeuronArray {
+
+    @UserParameter(label = "Update method", order = 30)
+    private UpdateMethod updateMethod = CompetitiveGroup.DEFAULT_UPDATE_METHOD;
+
+    @UserParameter(label = "Learning rate", order = 40)
+    private double learningRate = CompetitiveGroup.DEFAULT_LEARNING_RATE;
+
+    @UserParameter(label = "Winner Value", order = 50)
+    private double winValue = CompetitiveGroup.DEFAULT_WIN_VALUE;
+
+    @UserParameter(label = "Lose Value", order = 60)
+    private double loseValue = CompetitiveGroup.DEFAULT_LOSE_VALUE;
+
+    @UserParameter(label = "Normalize inputs", order = 70)
+    private boolean normalizeInputs = CompetitiveGroup.DEFAULT_NORM_INPUTS;
+
+    @UserParameter(label = "Use Leaky learning", order = 80)
+    private boolean useLeakyLearning = CompetitiveGroup.DEFAULT_USE_LEAKY;
+
+    @UserParameter(label = "Leaky learning rate", conditionalEnablingMethod = "usesLeakyLearning", order = 90)
+    private double leakyLearningRate = CompetitiveGroup.DEFAULT_LEAKY_RATE;
+
+    /**
+     * Percentage by which to decay weights on each update for Alvarez-Squire update.
+     */
+    @UserParameter(label = "Decay percent", order = 100)
+    private double synapseDecayPercent = CompetitiveGroup.DEFAULT_DECAY_PERCENT;
+
+    /**
+     * Index of the last winner.
+     */
+    private int winner;
+
+    /**
+     * Construct a competitive array.
+     *
+     * @param net  parent net
+     * @param size number of components in the array
+     */
+    public CompetitiveArray(Network net, int size) {
+        super(net, size);
+    }
+
+    @Override
+    public CompetitiveArray deepCopy(Network newParent) {
+        var copy = new CompetitiveArray(newParent, size());
+        copy.setLocation(getLocation());
+        copy.setGridMode(isGridMode());
+        copy.setActivations(getActivations().clone());
+        copy.setUpdateRule(getUpdateRule());
+        copy.setDataHolder(getDataHolder().copy());
+        copy.updateMethod = updateMethod;
+        copy.learningRate = learningRate;
+        copy.winValue = winValue;
+        copy.loseValue = loseValue;
+        copy.normalizeInputs = normalizeInputs;
+        copy.useLeakyLearning = useLeakyLearning;
+        copy.leakyLearningRate = leakyLearningRate;
+        copy.synapseDecayPercent = synapseDecayPercent;
+        copy.winner = winner;
+        return copy;
+    }
+
+    @Override
+    public void update() {
+        if (isClamped()) {
+            return;
+        }
+        getUpdateRule().apply(this, getDataHolder());
+        getInputs().mul(0); // clear inputs
+
+        // As in the group, the winner must have a positive activation, otherwise the first component wins
+        double[] activations = getActivationArray();
+        double max = 0;
+        winner = 0;
+        for (int i = 0; i < activations.length; i++) {
+            if (activations[i] > max) {
+                max = activations[i];
+                winner = i;
+            }
+        }
+        setActivations(winnerVector(size(), winner, winValue, loseValue));
+
+        var weightMatrix = getIncomingWeightMatrix();
+        if (weightMatrix != null) {
+            updateWeights(weightMatrix);
+            weightMatrix.getEvents().getUpdated().fireAndForget();
+        }
+    }
+
+    /**
+     * Update the winner's row of the weight matrix, and the other rows if leaky learning is used. Losers before the
+     * winner learn before the Alvarez-Squire decay and the ones after it learn after the decay, as in the group.
+     */
+    private void updateWeights(WeightMatrix weightMatrix) {
+        var weights = weightMatrix.getWeightMatrix();
+        double[] inputs = weightMatrix.getSource().getOutputs().col(0);
+        double sumOfInputs = 0;
+        for (double input : inputs) {
+            sumOfInputs += input;
+        }
+        double[] normalizedInputs = inputs;
+        if (normalizeInputs && sumOfInputs != 0) {
+            normalizedInputs = new double[inputs.length];
+            for (int j = 0; j < inputs.length; j++) {
+                normalizedInputs[j] = inputs[j] / sumOfInputs;
+            }
+        }
+
+        if (useLeakyLearning) {
+            moveRows(weights, 0, winner, normalizedInputs, leakyLearningRate);
+        }
+        if (updateMethod == UpdateMethod.RUMM_ZIPSER) {
+            // PDP 1, p. 179
+            moveRows(weights, winner, winner + 1, normalizedInputs, learningRate);
+        } else if (updateMethod == UpdateMethod.ALVAREZ_SQUIRE) {
+            // Alvarez and Squire 1994, eq 2 and 3
+            double averageInput = sumOfInputs / inputs.length;
+            for (int j = 0; j < inputs.length; j++) {
+                weights.add(winner, j, learningRate * winValue * (inputs[j] - averageInput));
+            }
+            weights.mul(1 - synapseDecayPercent);
+        }
+        if (useLeakyLearning) {
+            moveRows(weights, winner + 1, weights.nrows(), normalizedInputs, leakyLearningRate);
+        }
+    }
+
+    /**
+     * Move rows {@code from} (inclusive) to {@code to} (exclusive) of the weights towards the inputs by the given
+     * rate. Goes down the columns, since the matrix is stored by column.
+     */
+    static void moveRows(Matrix weights, int from, int to, double[] inputs, double rate) {
+        for (int j = 0; j < inputs.length; j++) {
+            for (int i = from; i < to; i++) {
+                double w = weights.get(i, j);
+                weights.set(i, j, w + rate * (inputs[j] - w));
+            }
+        }
+    }
+
+    /**
+     * Normalize the incoming weights, separately for each row.
+     */
+    public void normalizeIncomingWeights() {
+        var weightMatrix = getIncomingWeightMatrix();
+        if (weightMatrix == null) {
+            return;
+        }
+        var weights = weightMatrix.getWeightMatrix();
+        double[] rowSums = weights.rowSums();
+        for (int j = 0; j < weights.ncols(); j++) {
+            for (int i = 0; i < weights.nrows(); i++) {
+                weights.set(i, j, weights.get(i, j) / rowSums[i]);
+            }
+        }
+        weightMatrix.getEvents().getUpdated().fireAndForget();
+    }
+
+    /**
+     * Randomize the incoming weights between 0 and 1 and normalize them.
+     */
+    public void randomizeIncomingWeights() {
+        var weightMatrix = getIncomingWeightMatrix();
+        if (weightMatrix == null) {
+            return;
+        }
+        var weights = weightMatrix.getWeightMatrix();
+        double[] values = new double[(int) weights.size()];
+        getNetwork().getRandom(this).fillUniform(values, 0, 1);
+        for (int j = 0, k = 0; j < weights.ncols(); j++) {
+            for (int i = 0; i < weights.nrows(); i++) {
+                weights.set(i, j, values[k++]);
+            }
+        }
+        normalizeIncomingWeights();
+    }
+
+    /**
+     * Index of the last winner.
+     */
+    public int getWinner() {
+        return winner;
+    }
+
+    public UpdateMethod getUpdateMethod() {
+        return updateMethod;
+    }
+
+    public void setUpdateMethod(UpdateMethod updateMethod) {
+        this.updateMethod = updateMethod;
+    }
+
+    public double getLearningRate() {
+        return learningRate;
+    }
+
+    public void setLearningRate(double learningRate) {
+        this.learningRate = learningRate;
+    }
+
+    public double getWinValue() {
+        return winValue;
+    }
+
+    public void setWinValue(double winValue) {
+        this.winValue = winValue;
+    }
+
+    public double getLoseValue() {
+        return loseValue;
+    }
+
+    public void setLoseValue(double loseValue) {
+        this.loseValue = loseValue;
+    }
+
+    public boolean isNormalizeInputs() {
+        return normalizeInputs;
+    }
+
+    public void setNormalizeInputs(boolean normalizeInputs) {
+        this.normalizeInputs = normalizeInputs;
+    }
+
+    public boolean isUseLeakyLearning() {
+        return useLeakyLearning;
+    }
+
+    public void setUseLeakyLearning(boolean useLeakyLearning) {
+        this.useLeakyLearning = useLeakyLearning;
+    }
+
+    public double getLeakyLearningRate() {
+        return leakyLearningRate;
+    }
+
+    public void setLeakyLearningRate(double leakyLearningRate) {
+        this.leakyLearningRate = leakyLearningRate;
+    }
+
+    public double getSynapseDecayPercent() {
+        return synapseDecayPercent;
+    }
+
+    public void setSynapseDecayPercent(double synapseDecayPercent) {
+        this.synapseDecayPercent = synapseDecayPercent;
+    }
+
+    /**
+     * Called by reflection via {@link UserParameter#conditionalEnablingMethod()}
+     */
+    public Function<Map<String, Object>, Boolean> usesLeakyLearning() {
+        return (map) -> (Boolean) map.get("Use Leaky learning");
+    }
+
+    @Override
+    public String getName() {
+        return "Competitive Array";
+    }
+}
@@ -7,8 +7,10 @@ import org.simbrain.network.core.Layer;
 import org.simbrain.network.core.Network;
 import org.simbrain.network.core.NeuronUpdateRule;
 import org.simbrain.network.events.NeuronArrayEvents2;
+import org.simbrain.network.neuron_update_rules.KuramotoRule;
 import org.simbrain.network.neuron_update_rules.LinearRule;
 import org.simbrain.network.util.MatrixDataHolder;
+import org.simbrain.network.util.SpikingMatrixData;
 import org.simbrain.util.UserParameter;
 import org.simbrain.util.Utils;
 import org.simbrain.util.math.SimbrainMath;
@@ -16,7 +18,6 @@ import org.simbrain.util.propertyeditor.EditableObject;
 import org.simbrain.workspace.AttributeContainer;
 import org.simbrain.workspace.Producible;
 import smile.math.matrix.Matrix;
-import smile.stat.distribution.GaussianDistribution;
 
 import java.awt.geom.Rectangle2D;
 
@@ -83,6 +84,17 @@ public class NeuronArray extends ArrayLayer implements EditableObject, Attribute
     @Producible
     public double[] getActivationArray() {return activations.col(0);}
 
+    /**
+     * Which neurons spiked on the last update, for rules with spiking data. Arrays with non-spiking rules never spike.
+     */
+    @Producible(description = "Spikes")
+    public boolean[] getSpikes() {
+        if (dataHolder instanceof SpikingMatrixData) {
+            return ((SpikingMatrixData) dataHolder).getSpikes();
+        }
+        return new boolean[size()];
+    }
+
     public Matrix getActivations() {
         return activations;
     }
@@ -94,8 +106,9 @@ public class NeuronArray extends ArrayLayer implements EditableObject, Attribute
 
     @Override
     public void randomize() {
-        activations = Matrix.rand(size(),1,
-                new GaussianDistribution(0, 1));
+        double[] values = new double[size()];
+        getNetwork().getRandom(this).fillGaussian(values);
+        activations = new Matrix(values);
         getEvents().getUpdated().fireAndForget();
     }
 
@@ -169,6 +182,15 @@ public class NeuronArray extends ArrayLayer implements EditableObject, Attribute
         }
     }
 
+    @Override
+    public void updateInputs() {
+        // Kuramoto oscillators read the phases of their sources themselves, so skip the weighted sums
+        if (updateRule instanceof KuramotoRule) {
+            return;
+        }
+        super.updateInputs();
+    }
+
     @Override
     public void update() {
         if (isClamped()) {
@@ -269,6 +291,19 @@ public class NeuronArray extends ArrayLayer implements EditableObject, Attribute
         return this;
     }
 
+    /**
+     * The first weight matrix connected to this array, or null if there is none. Used by arrays that train their
+     * incoming weights.
+     */
+    protected WeightMatrix getIncomingWeightMatrix() {
+        for (var connector : getIncomingConnectors()) {
+            if (connector instanceof WeightMatrix) {
+                return (WeightMatrix) connector;
+            }
+        }
+        return null;
+    }
+
     public double[] getExcitatoryInputs() {
         return getIncomingConnectors().stream()
                 .filter(wm -> wm instanceof WeightMatrix)
@@ -0,0 +1,409 @@
+package org.simbrain.network.matrix;
+
+import org.simbrain.network.core.Network;
+import org.simbrain.network.layouts.HexagonalGridLayout;
+import org.simbrain.network.subnetworks.SOMGroup;
+import org.simbrain.util.UserParameter;
+import smile.math.matrix.Matrix;
+
+import java.util.Arrays;
+
+import static org.simbrain.network.matrix.WinnerTakeAllArray.winnerVector;
+
+/**
+ * Array version of {@link SOMGroup}. Each row of the incoming {@link WeightMatrix} is the weight vector of one
+ * component of the map. The components are placed on the same hexagonal grid the group uses, and neighborhoods are
+ * measured on that grid.
+ * <p>
+ * The winner is the row closest to the input. Since |w - x|^2 = |w|^2 - 2 w.x + |x|^2 and the last term is the same
+ * for every row, the distances come from one matrix-vector product and the squared row norms.
+ * <p>
+ * In batch mode the inputs of {@link #getBatchSize()} updates are collected, and then each row is set to the mean of
+ * the inputs whose winners are within its neighborhood (the batch map). Alpha is not used in batch mode and the
+ * neighborhood shrinks once per batch.
+ */
+public class SOMArray extends NeuronArray {
+
+    /**
+     * Initial Learning Rate.
+     */
+    @UserParameter(label = "Initial alpha", order = 50)
+    private double initAlpha = SOMGroup.DEFAULT_ALPHA;
+
+    /**
+     * Learning rate.
+     */
+    @UserParameter(label = "alpha", order = 60)
+    private double alpha = SOMGroup.DEFAULT_ALPHA;
+
+    /**
+     * Current Neighborhood Size. With a circular neighborhood, neighborhoodSize connotes radius.
+     */
+    @UserParameter(label = "Neighborhood size", order = 70)
+    private double neighborhoodSize = SOMGroup.DEFAULT_INIT_NSIZE;
+
+    /**
+     * The initial neighborhoodSize. neighborhoodSize is set back to this whenever the map is reset.
+     */
+    @UserParameter(label = "Initial neighborhood size", order = 80)
+    private double initNeighborhoodSize = SOMGroup.DEFAULT_INIT_NSIZE;
+
+    /**
+     * The rate at which the learning rate decays.
+     */
+    @UserParameter(label = "Alpha decay rate", order = 90)
+    private double alphaDecayRate = SOMGroup.DEFAULT_DECAY_RATE;
+
+    /**
+     * The amount that the neighborhood decrements.
+     */
+    @UserParameter(label = "Neighborhood decay rate", order = 100)
+    private double neighborhoodDecayAmount = SOMGroup.DEFAULT_NEIGHBORHOOD_DECAY_AMOUNT;
+
+    /**
+     * If true, train on batches of inputs instead of after each input.
+     */
+    @UserParameter(label = "Batch mode", order = 110)
+    private boolean batchMode = false;
+
+    /**
+     * Number of inputs in each batch, in batch mode.
+     */
+    @UserParameter(label = "Batch size", minimumValue = 1, order = 120)
+    private int batchSize = SOMGroup.DEFAULT_BATCH_SIZE;
+
+    /**
+     * Layout giving the position of each component on the map.
+     */
+    private HexagonalGridLayout layout = (HexagonalGridLayout) SOMGroup.DEFAULT_LAYOUT.copy();
+
+    /**
+     * Index of the last winner, or -1 if there is none.
+     */
+    private int winner = -1;
+
+    /**
+     * Positions of the components, from the layout. Built when first needed.
+     */
+    private transient double[] xPositions, yPositions;
+
+    /**
+     * Inputs collected for the current batch.
+     */
+    private transient double[][] batchInputs;
+
+    /**
+     * Number of inputs collected for the current batch.
+     */
+    private transient int batchCount;
+
+    /**
+     * Construct a self organizing map.
+     *
+     * @param net  parent net
+     * @param size number of components in the map
+     */
+    public SOMArray(Network net, int size) {
+        super(net, size);
+        setGridMode(true);
+    }
+
+    @Override
+    public SOMArray deepCopy(Network newParent) {
+        var copy = new SOMArray(newParent, size());
+        copy.setLocation(getLocation());
+        copy.setGridMode(isGridMode());
+        copy.setActivations(getActivations().clone());
+        copy.initAlpha = initAlpha;
+        copy.alpha = alpha;
+        copy.neighborhoodSize = neighborhoodSize;
+        copy.initNeighborhoodSize = initNeighborhoodSize;
+        copy.alphaDecayRate = alphaDecayRate;
+        copy.neighborhoodDecayAmount = neighborhoodDecayAmount;
+        copy.batchMode = batchMode;
+        copy.batchSize = batchSize;
+        copy.layout = layout.copy();
+        copy.winner = winner;
+        return copy;
+    }
+
+    /**
+     * The winner is found from the incoming weights directly, so the weighted inputs are not needed.
+     */
+    @Override
+    public void updateInputs() {
+    }
+
+    @Override
+    public void update() {
+        if (isClamped()) {
+            return;
+        }
+        var weightMatrix = getIncomingWeightMatrix();
+        if (weightMatrix == null) {
+            return;
+        }
+        var weights = weightMatrix.getWeightMatrix();
+        double[] inputs = weightMatrix.getSource().getOutputs().col(0);
+        winner = closestRow(squaredRowNorms(weights), new Matrix(weights.mv(inputs)), 0);
+        setActivations(winnerVector(size(), winner, 1, 0));
+        if (winner < 0) {
+            return;
+        }
+
+        if (batchMode) {
+            if (batchInputs == null || batchInputs.length != batchSize) {
+                batchInputs = new double[batchSize][];
+                batchCount = 0;
+            }
+            batchInputs[batchCount++] = inputs;
+            if (batchCount == batchSize) {
+                batchCount = 0;
+                trainBatch(batchInputs);
+            }
+            return;
+        }
+
+        // Update the rows within the neighborhood of the winner
+        int[] neighborhood = neighborhood(winner);
+        for (int j = 0; j < inputs.length; j++) {
+            for (int i : neighborhood) {
+                double w = weights.get(i, j);
+                weights.set(i, j, w + alpha * (inputs[j] - w));
+            }
+        }
+
+        // Update alpha and neighborhood size
+        alpha -= alpha * alphaDecayRate;
+        decayNeighborhood();
+        weightMatrix.getEvents().getUpdated().fireAndForget();
+    }
+
+    /**
+     * Run one step of the batch map: find the winner for each input, then set each row to the mean of the inputs
+     * whose winners are within its neighborhood. Rows with no such inputs are unchanged. The neighborhood shrinks
+     * afterwards.
+     *
+     * @param inputs the inputs, one per row, each the size of the source layer
+     */
+    public void trainBatch(double[][] inputs) {
+        var weightMatrix = getIncomingWeightMatrix();
+        if (weightMatrix == null || inputs.length == 0) {
+            return;
+        }
+        var weights = weightMatrix.getWeightMatrix();
+        var batch = new Matrix(inputs);
+        var products = weights.mt(batch);
+        double[] norms = squaredRowNorms(weights);
+
+        // Which rows are in the neighborhood of the winner for each input
+        var neighborhoods = new Matrix(size(), inputs.length);
+        double[] counts = new double[size()];
+        for (int k = 0; k < inputs.length; k++) {
+            int batchWinner = closestRow(norms, products, k);
+            if (batchWinner < 0) {
+                continue;
+            }
+            for (int i : neighborhood(batchWinner)) {
+                neighborhoods.set(i, k, 1);
+                counts[i]++;
+            }
+        }
+
+        var sums = neighborhoods.mm(batch);
+        for (int j = 0; j < weights.ncols(); j++) {
+            for (int i = 0; i < weights.nrows(); i++) {
+                if (counts[i] > 0) {
+                    weights.set(i, j, sums.get(i, j) / counts[i]);
+                }
+            }
+        }
+        decayNeighborhood();
+        weightMatrix.getEvents().getUpdated().fireAndForget();
+    }
+
+    /**
+     * Index of the closest row to column {@code k} of the inputs, given the squared row norms and the products of
+     * the rows with the inputs, or -1 if no distance can be computed. As in the group, the first of several equally
+     * close rows wins.
+     */
+    private static int closestRow(double[] norms, Matrix products, int k) {
+        int closest = -1;
+        double minDistance = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < norms.length; i++) {
+            double distance = norms[i] - 2 * products.get(i, k);
+            if (distance < minDistance) {
+                minDistance = distance;
+                closest = i;
+            }
+        }
+        return closest;
+    }
+
+    private static double[] squaredRowNorms(Matrix weights) {
+        double[] norms = new double[weights.nrows()];
+        for (int j = 0; j < weights.ncols(); j++) {
+            for (int i = 0; i < norms.length; i++) {
+                double w = weights.get(i, j);
+                norms[i] += w * w;
+            }
+        }
+        return norms;
+    }
+
+    /**
+     * Indices of the components within {@link #neighborhoodSize} of the given one on the map.
+     */
+    private int[] neighborhood(int center) {
+        if (xPositions == null || xPositions.length != size()) {
+            updatePositions();
+        }
+        int[] indices = new int[size()];
+        int count = 0;
+        for (int i = 0; i < indices.length; i++) {
+            double distance = Math.sqrt(Math.pow(xPositions[i] - xPositions[center], 2)
+                    + Math.pow(yPositions[i] - yPositions[center], 2));
+            if (distance <= neighborhoodSize) {
+                indices[count++] = i;
+            }
+        }
+        return Arrays.copyOf(indices, count);
+    }
+
+    /**
+     * Compute the positions of the components as {@link HexagonalGridLayout} would lay out neurons.
+     */
+    private void updatePositions() {
+        int numColumns = Math.max(1, layout.isAutoColumns() ? (int) Math.sqrt(size()) : layout.getNumColumns());
+        xPositions = new double[size()];
+        yPositions = new double[size()];
+        for (int i = 0; i < size(); i++) {
+            int rowNum = i / numColumns;
+            double offset = rowNum % 2 == 0 ? layout.getHSpacing() / 2 : 0;
+            xPositions[i] = offset + (i % numColumns) * layout.getHSpacing();
+            yPositions[i] = rowNum * layout.getVSpacing();
+        }
+    }
+
+    private void decayNeighborhood() {
+        if (neighborhoodSize - neighborhoodDecayAmount > 0) {
+            neighborhoodSize -= neighborhoodDecayAmount;
+        } else {
+            neighborhoodSize = 0;
+        }
+    }
+
+    /**
+     * Randomize the incoming weights between 0 and 1.
+     */
+    public void randomizeIncomingWeights() {
+        var weightMatrix = getIncomingWeightMatrix();
+        if (weightMatrix == null) {
+            return;
+        }
+        var weights = weightMatrix.getWeightMatrix();
+        double[] values = new double[(int) weights.size()];
+        getNetwork().getRandom(this).fillUniform(values, 0, 1);
+        for (int j = 0, k = 0; j < weights.ncols(); j++) {
+            for (int i = 0; i < weights.nrows(); i++) {
+                weights.set(i, j, values[k++]);
+            }
+        }
+        weightMatrix.getEvents().getUpdated().fireAndForget();
+    }
+
+    /**
+     * Resets the map to its initial alpha and neighborhood size, and discards the current batch.
+     */
+    public void reset() {
+        alpha = initAlpha;
+        neighborhoodSize = initNeighborhoodSize;
+        batchCount = 0;
+    }
+
+    /**
+     * Index of the last winner, or -1 if there is none.
+     */
+    public int getWinner() {
+        return winner;
+    }
+
+    public double getAlpha() {
+        return alpha;
+    }
+
+    public double getInitAlpha() {
+        return initAlpha;
+    }
+
+    /**
+     * Set the initial value for alpha (learning rate).
+     */
+    public void setInitAlpha(double initAlpha) {
+        this.initAlpha = initAlpha;
+        alpha = initAlpha;
+    }
+
+    public double getNeighborhoodSize() {
+        return neighborhoodSize;
+    }
+
+    public double getInitNeighborhoodSize() {
+        return initNeighborhoodSize;
+    }
+
+    /**
+     * Set the initial neighborhood size, and the current size along with it.
+     */
+    public void setInitNeighborhoodSize(double initNeighborhoodSize) {
+        this.initNeighborhoodSize = initNeighborhoodSize;
+        neighborhoodSize = initNeighborhoodSize;
+    }
+
+    public double getAlphaDecayRate() {
+        return alphaDecayRate;
+    }
+
+    public void setAlphaDecayRate(double alphaDecayRate) {
+        this.alphaDecayRate = alphaDecayRate;
+    }
+
+    public double getNeighborhoodDecayAmount() {
+        return neighborhoodDecayAmount;
+    }
+
+    public void setNeighborhoodDecayAmount(double neighborhoodDecayAmount) {
+        this.neighborhoodDecayAmount = neighborhoodDecayAmount;
+    }
+
+    public boolean isBatchMode() {
+        return batchMode;
+    }
+
+    public void setBatchMode(boolean batchMode) {
+        this.batchMode = batchMode;
+        batchCount = 0;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public HexagonalGridLayout getLayout() {
+        return layout;
+    }
+
+    public void setLayout(HexagonalGridLayout layout) {
+        this.layout = layout;
+        xPositions = null;
+    }
+
+    @Override
+    public String getName() {
+        return "Self Organizing Map";
+    }
+}
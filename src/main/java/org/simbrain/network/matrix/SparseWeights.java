@@ -0,0 +1,159 @@
+package org.simbrain.network.matrix;
+
+import smile.math.matrix.Matrix;
+
+/**
+ * The nonzero entries of a weight matrix in compressed sparse row form: for each row, the columns and values of its
+ * nonzero entries, with the entries of row i at positions {@code rowStarts[i]} to {@code rowStarts[i + 1]}. Lets
+ * array rules that only need the nonzero weights of a mostly empty matrix skip the zeros.
+ * <br>
+ * Matrices with more than {@link #MAX_DENSITY} of their entries nonzero are faster to multiply as dense matrices, and
+ * storing their entries again would take more memory than the matrix, so for those only the number of nonzero
+ * entries in each row is kept; see {@link #isCompressed()}.
+ * <br>
+ * A snapshot: it does not change when the matrix does. See {@link WeightMatrix#getSparseWeights()}.
+ */
+public class SparseWeights {
+
+    /**
+     * Largest fraction of nonzero entries for which the entries are stored.
+     */
+    public static final double MAX_DENSITY = 0.25;
+
+    private final int rows;
+
+    private final int columns;
+
+    private final int[] rowStarts;
+
+    private final int[] columnIndices;
+
+    private final double[] values;
+
+    /**
+     * Collect the nonzero entries of a matrix.
+     */
+    public SparseWeights(Matrix matrix) {
+        rows = matrix.nrows();
+        columns = matrix.ncols();
+
+        // Smile matrices are stored by column, so both passes go column by column. Columns of a row then come in
+        // increasing order.
+        rowStarts = new int[rows + 1];
+        for (int j = 0; j < columns; j++) {
+            for (int i = 0; i < rows; i++) {
+                if (matrix.get(i, j) != 0) {
+                    rowStarts[i + 1]++;
+                }
+            }
+        }
+        for (int i = 0; i < rows; i++) {
+            rowStarts[i + 1] += rowStarts[i];
+        }
+        if (rowStarts[rows] > MAX_DENSITY * rows * columns) {
+            columnIndices = null;
+            values = null;
+            return;
+        }
+        columnIndices = new int[rowStarts[rows]];
+        values = new double[rowStarts[rows]];
+        int[] next = new int[rows];
+        System.arraycopy(rowStarts, 0, next, 0, rows);
+        for (int j = 0; j < columns; j++) {
+            for (int i = 0; i < rows; i++) {
+                double value = matrix.get(i, j);
+                if (value != 0) {
+                    columnIndices[next[i]] = j;
+                    values[next[i]++] = value;
+                }
+            }
+        }
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Number of nonzero entries.
+     */
+    public int getNonzeroCount() {
+        return rowStarts[rows];
+    }
+
+    /**
+     * Number of nonzero entries in a row, i.e. the number of connections into a target node.
+     */
+    public int getNonzeroCount(int row) {
+        return rowStarts[row + 1] - rowStarts[row];
+    }
+
+    /**
+     * Fraction of entries that are nonzero.
+     */
+    public double getDensity() {
+        long size = (long) rows * columns;
+        return size == 0 ? 0 : (double) rowStarts[rows] / size;
+    }
+
+    /**
+     * True if the nonzero entries are stored, false if only their number is.
+     */
+    public boolean isCompressed() {
+        return values != null;
+    }
+
+    private void requireCompressed() {
+        if (values == null) {
+            throw new IllegalStateException("Only the number of nonzero weights is kept for a dense matrix");
+        }
+    }
+
+    /**
+     * Where the entries of each row start, plus the total number of entries at the end. Not a copy, so it should not
+     * be modified.
+     */
+    public int[] getRowStarts() {
+        return rowStarts;
+    }
+
+    /**
+     * Column of each nonzero entry, if the entries are stored. Not a copy, so it should not be modified.
+     */
+    public int[] getColumnIndices() {
+        requireCompressed();
+        return columnIndices;
+    }
+
+    /**
+     * Value of each nonzero entry, if the entries are stored. Not a copy, so it should not be modified.
+     */
+    public double[] getValues() {
+        requireCompressed();
+        return values;
+    }
+
+    /**
+     * The product of the matrix and a vector, if the entries are stored.
+     */
+    public double[] multiply(double[] vector) {
+        requireCompressed();
+        if (vector.length != columns) {
+            throw new IllegalArgumentException("Vector of length " + vector.length + " does not match " + columns
+                    + " columns");
+        }
+        double[] result = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            double sum = 0;
+            for (int k = rowStarts[i]; k < rowStarts[i + 1]; k++) {
+                sum += values[k] * vector[columnIndices[k]];
+            }
+            result[i] = sum;
+        }
+        return result;
+    }
+}
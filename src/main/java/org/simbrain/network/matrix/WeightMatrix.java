@@ -10,7 +10,6 @@ import org.simbrain.util.UserParameter;
 import org.simbrain.workspace.Consumable;
 import org.simbrain.workspace.Producible;
 import smile.math.matrix.Matrix;
-import smile.stat.distribution.GaussianDistribution;
 
 import java.util.Arrays;
 
@@ -76,6 +75,18 @@ public class WeightMatrix extends Connector {
      */
     private transient Matrix inhibitoryMask;
 
+    /**
+     * The nonzero weights, built by {@link #getSparseWeights()} when first needed and discarded when the weights
+     * change.
+     */
+    private transient SparseWeights sparseWeights;
+
+    /**
+     * The weight matrix {@link #sparseWeights} was built from. Methods that replace the weight matrix don't need to
+     * discard the sparse weights.
+     */
+    private transient Matrix sparseWeightsSource;
+
     /**
      * Construct the matrix.
      *
@@ -95,6 +106,7 @@ public class WeightMatrix extends Connector {
         psrMatrix = new Matrix(target.inputSize(), source.outputSize());
 
         getEvents().getUpdated().on(null, true, () -> {
+           sparseWeights = null;
            updateExcitatoryMask();
            updateInhibitoryMask();
         });
@@ -106,6 +118,22 @@ public class WeightMatrix extends Connector {
         return weightMatrix;
     }
 
+    /**
+     * The nonzero weights in compressed sparse row form, or for dense matrices the number of nonzero weights in each
+     * row, for rules that only need those. They are kept until the
+     * weights are changed by this class or the updated event is fired, so code that changes
+     * {@link #getWeightMatrix()} directly should fire the updated event.
+     */
+    public SparseWeights getSparseWeights() {
+        SparseWeights sparse = sparseWeights;
+        if (sparse == null || sparseWeightsSource != weightMatrix) {
+            sparse = new SparseWeights(weightMatrix);
+            sparseWeights = sparse;
+            sparseWeightsSource = weightMatrix;
+        }
+        return sparse;
+    }
+
     @Producible
     public double[] getWeights() {
         return Arrays.stream(weightMatrix.toArray())
@@ -122,6 +150,7 @@ public class WeightMatrix extends Connector {
                 weightMatrix.set(i,j,newWeights[i][j]);
             }
         }
+        sparseWeights = null;
     }
 
     @Consumable
@@ -130,6 +159,7 @@ public class WeightMatrix extends Connector {
         for (int i = 0; i < len; i++) {
             weightMatrix.set(i / weightMatrix.ncols(), i % weightMatrix.ncols(), newWeights[i]);
         }
+        sparseWeights = null;
         getEvents().getUpdated().fireAndForget();
     }
 
@@ -149,6 +179,7 @@ public class WeightMatrix extends Connector {
 
         if (!(prototypeRule instanceof StaticSynapseRule)){
             prototypeRule.apply(this, dataHolder);
+            sparseWeights = null;
             getEvents().getUpdated().fireAndForget();
         }
     }
@@ -246,20 +277,31 @@ public class WeightMatrix extends Connector {
     @Override
     public void
     randomize() {
-        weightMatrix = Matrix.rand(getTarget().inputSize(), getSource().outputSize(),
-                new GaussianDistribution(0, 1));
+        int rows = getTarget().inputSize();
+        int columns = getSource().outputSize();
+        double[] values = new double[rows * columns];
+        parent.getRandom(this).fillGaussian(values);
+        var randomized = new Matrix(rows, columns);
+        for (int j = 0, k = 0; j < columns; j++) {
+            for (int i = 0; i < rows; i++) {
+                randomized.set(i, j, values[k++]);
+            }
+        }
+        weightMatrix = randomized;
         getEvents().getUpdated().fireAndForget();
     }
 
     @Override
     public void increment() {
         weightMatrix.add(increment);
+        sparseWeights = null;
         getEvents().getUpdated().fireAndForget();
     }
 
     @Override
     public void decrement() {
         weightMatrix.sub(increment);
+        sparseWeights = null;
         getEvents().getUpdated().fireAndForget();
     }
 
@@ -0,0 +1,167 @@
+package org.simbrain.network.matrix;
+
+import org.simbrain.network.core.Network;
+import org.simbrain.util.RandomStream;
+import org.simbrain.util.UserParameter;
+import smile.math.matrix.Matrix;
+
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Array version of {@link org.simbrain.network.subnetworks.WinnerTakeAll}. The component with the highest weighted
+ * input takes on the win value and all others take on the lose value. The weighted inputs are the product of the
+ * incoming weight matrices and their sources, so no per-neuron work is done to find the winner. In case of a tie a
+ * randomly chosen member of the winners is used.
+ */
+public class WinnerTakeAllArray extends NeuronArray {
+
+    /**
+     * Winning value.
+     */
+    @UserParameter(label = "Win value", order = 50)
+    private double winValue = 1;
+
+    /**
+     * Losing value.
+     */
+    @UserParameter(label = "Lose value", order = 60)
+    private double loseValue = 0;
+
+    /**
+     * If true, sometimes set the winner randomly.
+     */
+    @UserParameter(label = "Random winner", order = 70)
+    private boolean useRandom;
+
+    /**
+     * Probability of setting the winner randomly, when useRandom is true.
+     */
+    @UserParameter(label = "Random prob", conditionalEnablingMethod = "useRandomWinner", order = 80)
+    private double randomProb = .1;
+
+    /**
+     * Index of the last winner, or -1 before the first update.
+     */
+    private int winner = -1;
+
+    /**
+     * Construct a winner take all array.
+     *
+     * @param net  parent net
+     * @param size number of components in the array
+     */
+    public WinnerTakeAllArray(Network net, int size) {
+        super(net, size);
+    }
+
+    @Override
+    public WinnerTakeAllArray deepCopy(Network newParent) {
+        var copy = new WinnerTakeAllArray(newParent, size());
+        copy.setLocation(getLocation());
+        copy.setGridMode(isGridMode());
+        copy.setActivations(getActivations().clone());
+        copy.winValue = winValue;
+        copy.loseValue = loseValue;
+        copy.useRandom = useRandom;
+        copy.randomProb = randomProb;
+        return copy;
+    }
+
+    @Override
+    public void update() {
+        if (isClamped()) {
+            return;
+        }
+        var random = getNetwork().getRandom(this);
+        winner = argMax(getInputs().col(0), random);
+        if (useRandom && random.nextDouble() < randomProb) {
+            winner = random.nextInt(size());
+        }
+        setActivations(winnerVector(size(), winner, winValue, loseValue));
+        getInputs().mul(0);
+    }
+
+    /**
+     * Index of the largest value, with ties broken randomly.
+     */
+    static int argMax(double[] values, RandomStream random) {
+        int winner = 0;
+        int ties = 1;
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] > values[winner]) {
+                winner = i;
+                ties = 1;
+            } else if (values[i] == values[winner]) {
+                // Reservoir sampling gives each tied index the same chance of winning
+                ties++;
+                if (random.nextInt(ties) == 0) {
+                    winner = i;
+                }
+            }
+        }
+        return winner;
+    }
+
+    /**
+     * A column vector holding the lose value everywhere except at the winner.
+     */
+    static Matrix winnerVector(int size, int winner, double winValue, double loseValue) {
+        var activations = new Matrix(size, 1, loseValue);
+        if (winner >= 0) {
+            activations.set(winner, 0, winValue);
+        }
+        return activations;
+    }
+
+    /**
+     * Index of the last winner, or -1 before the first update.
+     */
+    public int getWinner() {
+        return winner;
+    }
+
+    public double getWinValue() {
+        return winValue;
+    }
+
+    public void setWinValue(double winValue) {
+        this.winValue = winValue;
+    }
+
+    public double getLoseValue() {
+        return loseValue;
+    }
+
+    public void setLoseValue(double loseValue) {
+        this.loseValue = loseValue;
+    }
+
+    public boolean isUseRandom() {
+        return useRandom;
+    }
+
+    public void setUseRandom(boolean useRandom) {
+        this.useRandom = useRandom;
+    }
+
+    public double getRandomProb() {
+        return randomProb;
+    }
+
+    public void setRandomProb(double randomProb) {
+        this.randomProb = randomProb;
+    }
+
+    /**
+     * Called by reflection via {@link UserParameter#conditionalEnablingMethod()}
+     */
+    public Function<Map<String, Object>, Boolean> useRandomWinner() {
+        return (map) -> (Boolean) map.get("Random winner");
+    }
+
+    @Override
+    public String getName() {
+        return "Winner Take All Array";
+    }
+}
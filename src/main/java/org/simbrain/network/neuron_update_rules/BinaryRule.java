@@ -27,10 +27,10 @@ import org.simbrain.network.util.BiasedMatrixData;
 import org.simbrain.network.util.BiasedScalarData;
 import org.simbrain.network.util.MatrixDataHolder;
 import org.simbrain.network.util.ScalarDataHolder;
+import org.simbrain.util.RandomStream;
 import org.simbrain.util.UserParameter;
 import smile.math.matrix.Matrix;
 
-import java.util.Random;
 
 /**
  * <b>BinaryNeuron</b> takes one of two values.
@@ -125,9 +125,8 @@ public class BinaryRule extends NeuronUpdateRule {
     }
 
     @Override
-    public double getRandomValue() {
-        Random rand = new Random();
-        return rand.nextBoolean() ? getUpperBound() : getLowerBound();
+    public double getRandomValue(RandomStream random) {
+        return random.nextBoolean() ? getUpperBound() : getLowerBound();
     }
 
     public void setThreshold(final double threshold) {
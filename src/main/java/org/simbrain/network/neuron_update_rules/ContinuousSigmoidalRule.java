@@ -125,7 +125,7 @@ public class ContinuousSigmoidalRule extends AbstractSigmoidalRule {
         double dt = neuron.getNetwork().getTimeStep();
 
         if (addNoise) {
-            inputTerm = (dt / tau) * (neuron.getInput() + bias + noiseGenerator.sampleDouble());
+            inputTerm = (dt / tau) * (neuron.getInput() + bias + noiseGenerator.sampleDouble(neuron.getRandom()));
         } else {
             inputTerm = (dt / tau) * (neuron.getInput() + bias);
         }
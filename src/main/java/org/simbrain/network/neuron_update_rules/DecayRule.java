@@ -30,6 +30,7 @@ import org.simbrain.network.util.BiasedMatrixData;
 import org.simbrain.network.util.BiasedScalarData;
 import org.simbrain.network.util.MatrixDataHolder;
 import org.simbrain.network.util.ScalarDataHolder;
+import org.simbrain.util.RandomStream;
 import org.simbrain.util.UserParameter;
 import org.simbrain.util.stats.ProbabilityDistribution;
 import org.simbrain.util.stats.distributions.UniformRealDistribution;
@@ -119,9 +120,10 @@ public class DecayRule extends NeuronUpdateRule implements BoundedUpdateRule, Cl
         var array = (NeuronArray) arr;
         // TODO: Implement using matrix operations
         double[] vals = new double[array.size()];
+        var random = array.getNetwork().getRandom(array);
         for (int i = 0; i < vals.length ; i++) {
             vals[i] = decayRule(array.getInputs().col(0)[i],
-                    array.getActivations().col(0)[i], ((BiasedMatrixData)data).getBiases()[i]);
+                    array.getActivations().col(0)[i], ((BiasedMatrixData)data).getBiases()[i], random);
         }
         array.setActivations(new Matrix(vals));
     }
@@ -129,10 +131,10 @@ public class DecayRule extends NeuronUpdateRule implements BoundedUpdateRule, Cl
     @Override
     public void apply(Neuron neuron, ScalarDataHolder data) {
         neuron.setActivation(decayRule(neuron.getInput(),
-                neuron.getActivation(), ((BiasedScalarData)data).getBias()));
+                neuron.getActivation(), ((BiasedScalarData)data).getBias(), neuron.getRandom()));
     }
 
-    public double decayRule(double in, double activation, double bias) {
+    public double decayRule(double in, double activation, double bias, RandomStream random) {
         double val = in  + activation + bias;
         double decayVal = 0;
         if (updateType == UpdateType.Relative) {
@@ -152,7 +154,7 @@ public class DecayRule extends NeuronUpdateRule implements BoundedUpdateRule, Cl
             }
         }
         if (addNoise) {
-            val += noiseGenerator.sampleDouble();
+            val += noiseGenerator.sampleDouble(random);
         }
         if (clipping) {
             val = clip(val);
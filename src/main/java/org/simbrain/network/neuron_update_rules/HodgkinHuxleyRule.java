@@ -18,30 +18,61 @@
  */
 package org.simbrain.network.neuron_update_rules;
 
+import org.simbrain.network.core.Layer;
 import org.simbrain.network.core.Network.TimeType;
 import org.simbrain.network.core.Neuron;
 import org.simbrain.network.core.NeuronUpdateRule;
+import org.simbrain.network.matrix.NeuronArray;
 import org.simbrain.network.neuron_update_rules.interfaces.NoisyUpdateRule;
+import org.simbrain.network.updaterules.IntegrationMethod;
+import org.simbrain.network.updaterules.LinearizedOdeSystem;
+import org.simbrain.network.updaterules.LookupTable;
+import org.simbrain.network.updaterules.OdeIntegrator;
+import org.simbrain.network.util.HodgkinHuxleyData;
+import org.simbrain.network.util.HodgkinHuxleyMatrixData;
+import org.simbrain.network.util.MatrixDataHolder;
 import org.simbrain.network.util.ScalarDataHolder;
 import org.simbrain.util.UserParameter;
 import org.simbrain.util.stats.ProbabilityDistribution;
 import org.simbrain.util.stats.distributions.UniformRealDistribution;
 
-// TODO: deal with ENa, EK
 /**
  * Hodgkin-Huxley Neuron.
  * <p>
  * Adapted from software written by Anthony Fodor, with help from Jonathan
  * Vickrey.
+ * <p>
+ * The activation is the membrane potential in mV, using the present day convention (resting near -65 mV), and the
+ * input is the injected current in uA/cm^2. The gating variables m, h and n are kept with each neuron's data, or for
+ * a neuron array in the array's data, so that neurons sharing the rule have their own state.
+ * <p>
+ * The potential and the gating variables are advanced together by the chosen {@link IntegrationMethod}. Each
+ * equation is linear in its own variable, so exponential Euler can take time steps of 0.05 ms or more, where Euler
+ * needs around 0.01 ms. The voltage dependent rates can be looked up in a table sampled every 0.05 mV instead of
+ * computed with several exponentials each time.
  */
 public class HodgkinHuxleyRule extends NeuronUpdateRule implements NoisyUpdateRule {
 
+    /**
+     * Rates at which the gating variables open (alpha) and close (beta), in that order for m, h and n.
+     */
+    private static final LookupTable RATES = new LookupTable(-150, 100, 0.05,
+            HodgkinHuxleyRule::alphaM, HodgkinHuxleyRule::betaM,
+            HodgkinHuxleyRule::alphaH, HodgkinHuxleyRule::betaH,
+            HodgkinHuxleyRule::alphaN, HodgkinHuxleyRule::betaN);
+
+    /**
+     * Potential the gating variables start in steady state at.
+     */
+    private static final double RESTING_V = -65;
+
     /**
      * Sodium Channels
      */
     @UserParameter(
             label = "Sodium Channels",
-            description = "Sodium Channels",
+            description = "Percentage of the standard sodium conductance of 120 mS/cm^2",
+            useSetter = true,
             order = 1)
     private float perNaChannels = 100f;
 
@@ -50,72 +81,65 @@ public class HodgkinHuxleyRule extends NeuronUpdateRule implements NoisyUpdateRu
      */
     @UserParameter(
             label = "Potassium Channels",
-            description = "Sodium Channels",
+            description = "Percentage of the standard potassium conductance of 36 mS/cm^2",
+            useSetter = true,
             order = 2)
     private float perKChannels = 100f;
 
     /**
-     * Resting Membrane Potential
+     * Numerical method used to advance the membrane potential and gating variables.
      */
-    private double resting_v = 65;
-
-    /** */
-    private double dv;
-
-    /**
-     * Membrane Capacitance
-     */
-    private double cm;
+    @UserParameter(
+            label = "Integration method",
+            description = "Numerical method used to advance the membrane potential and gating variables.",
+            order = 3)
+    private IntegrationMethod integrationMethod = IntegrationMethod.EXPONENTIAL_EULER;
 
     /**
-     * Constant leak permeabilities
+     * If true, look up the gating rates in a table instead of computing them.
      */
-    private double gk, gna, gl;
+    @UserParameter(
+            label = "Tabulated rates",
+            description = "Look up the voltage dependent gating rates in a table instead of computing them.",
+            order = 4)
+    private boolean useRateTables = true;
 
     /**
-     * voltage-dependent gating parameters
+     * Relative error allowed per substep by the adaptive integration method.
      */
-    private double n, m, h;
+    @UserParameter(
+            label = "Tolerance",
+            description = "Relative error allowed per substep by the adaptive integration method.",
+            minimumValue = 0, increment = .0001, order = 5)
+    private double tolerance = 1e-4;
 
     /**
-     * corresponding deltas
+     * Membrane Capacitance (uF/cm^2)
      */
-    private double dn, dm, dh;
+    private double cm = 1.0;
 
     /**
-     * // rate constants
+     * Maximum conductances (mS/cm^2)
      */
-    private double an, bn, am, bm, ah, bh;
+    private double gk = 36, gna = 120, gl = 0.3;
 
     /**
-     * Ek-Er, Ena - Er, Eleak - Er
+     * Reversal potentials of the potassium, sodium and leak currents (mV)
      */
-    private double vk, vna, vl;
+    private double ek = -77, ena = 50, el = -54.387;
 
     /** */
-    private double n4;
-
-    /** */
-    private double m3h;
+    private double temp = 0;
 
     /**
-     * Sodium current
+     * If true the membrane potential is held at {@link #vClampValue}.
      */
-    private double na_current;
+    private boolean vClampOn = false;
 
     /**
-     * Potassium current
+     * Clamped membrane potential (mV)
      */
-    private double k_current;
-
-    /** */
-    private double temp = 0;
-
-    /** */
-    private boolean vClampOn = false;
-
-    /** */
-    float vClampValue = convertV(0F);
+    private double vClampValue = 0;
 
     /**
      * Noise generator.
@@ -129,106 +153,202 @@ public class HodgkinHuxleyRule extends NeuronUpdateRule implements NoisyUpdateRu
 
     @Override
     public void apply(Neuron neuron, ScalarDataHolder data) {
+        var hh = (HodgkinHuxleyData) data;
+        double current = neuron.getInput();
+        if (addNoise) {
+            current += noiseGenerator.sampleDouble(neuron.getRandom());
+        }
+        double[] y = {vClampOn ? vClampValue : neuron.getActivation(), hh.getM(), hh.getH(), hh.getN()};
+        step(hh.getIntegrator(), new Equations(new double[]{current}), y, neuron.getNetwork().getTimeStep());
+        hh.setM(y[1]);
+        hh.setH(y[2]);
+        hh.setN(y[3]);
+        neuron.setActivation(y[0]);
+    }
 
-        // Advances the model by dt and returns the new voltage
+    @Override
+    public void apply(Layer layer, MatrixDataHolder dataHolder) {
+        var array = (NeuronArray) layer;
+        var hh = (HodgkinHuxleyMatrixData) dataHolder;
+        double[] v = array.getActivations().col(0);
+        double[] current = array.getInputs().col(0);
+        int n = v.length;
+        if (addNoise) {
+            var random = array.getNetwork().getRandom(array);
+            for (int i = 0; i < n; i++) {
+                current[i] += noiseGenerator.sampleDouble(random);
+            }
+        }
+        double[] y = new double[4 * n];
+        for (int i = 0; i < n; i++) {
+            y[i] = vClampOn ? vClampValue : v[i];
+        }
+        System.arraycopy(hh.getM(), 0, y, n, n);
+        System.arraycopy(hh.getH(), 0, y, 2 * n, n);
+        System.arraycopy(hh.getN(), 0, y, 3 * n, n);
+        step(hh.getIntegrator(), new Equations(current), y, array.getNetwork().getTimeStep());
+        System.arraycopy(y, n, hh.getM(), 0, n);
+        System.arraycopy(y, 2 * n, hh.getH(), 0, n);
+        System.arraycopy(y, 3 * n, hh.getN(), 0, n);
+        double[] next = new double[n];
+        System.arraycopy(y, 0, next, 0, n);
+        array.setActivations(next);
+    }
 
-        double v = neuron.getInput();
-        bh = 1 / (Math.exp((v + 30) / 10) + 1);
-        ah = 0.07 * Math.exp(v / 20);
-        dh = (ah * (1 - h) - bh * h) * neuron.getNetwork().getTimeStep();
-        bm = 4 * Math.exp(v / 18);
-        am = 0.1 * (v + 25) / (Math.exp((v + 25) / 10) - 1);
-        bn = 0.125 * Math.exp(v / 80);
-        an = 0.01 * (v + 10) / (Math.exp((v + 10) / 10) - 1);
-        dm = (am * (1 - m) - bm * m) * neuron.getNetwork().getTimeStep();
-        dn = (an * (1 - n) - bn * n) * neuron.getNetwork().getTimeStep();
+    private void step(OdeIntegrator integrator, Equations equations, double[] y, double dt) {
+        integrator.setRelativeTolerance(tolerance);
+        integrator.step(equations, integrationMethod, 0, y, dt);
+    }
 
-        n4 = n * n * n * n;
-        m3h = m * m * m * h;
+    /**
+     * The membrane equation and gating equations of a group of neurons, with the state laid out as all potentials,
+     * then all m, all h and all n.
+     */
+    private class Equations implements LinearizedOdeSystem {
 
-        na_current = gna * m3h * (v - vna);
-        k_current = gk * n4 * (v - vk);
+        /**
+         * Injected current into each neuron, held over the time step.
+         */
+        private final double[] current;
 
-        dv = -1 * neuron.getNetwork().getTimeStep() * (k_current + na_current + gl * (v - vl)) / cm;
+        private final double[] rates = new double[6];
 
-        neuron.setActivation(-1 * (v + dv + resting_v));
-        h += dh;
-        m += dm;
-        n += dn;
+        Equations(double[] current) {
+            this.current = current;
+        }
 
-        // if (vClampOn)
-        // v = vClampValue;
+        private void rates(double v) {
+            if (useRateTables) {
+                RATES.lookup(v, rates);
+            } else {
+                rates[0] = alphaM(v);
+                rates[1] = betaM(v);
+                rates[2] = alphaH(v);
+                rates[3] = betaH(v);
+                rates[4] = alphaN(v);
+                rates[5] = betaN(v);
+            }
+        }
 
-        // getV() converts the model's v to present day convention
+        @Override
+        public void derivatives(double t, double[] y, double[] dydt) {
+            int n = current.length;
+            for (int i = 0; i < n; i++) {
+                double v = y[i];
+                double m = y[n + i];
+                double h = y[2 * n + i];
+                double k = y[3 * n + i];
+                rates(v);
+                double gNa = gna * m * m * m * h;
+                double gK = gk * k * k * k * k;
+                dydt[i] = vClampOn ? 0
+                        : (current[i] - gNa * (v - ena) - gK * (v - ek) - gl * (v - el)) / cm;
+                dydt[n + i] = rates[0] * (1 - m) - rates[1] * m;
+                dydt[2 * n + i] = rates[2] * (1 - h) - rates[3] * h;
+                dydt[3 * n + i] = rates[4] * (1 - k) - rates[5] * k;
+            }
+        }
 
+        @Override
+        public void coefficients(double t, double[] y, double[] a, double[] b) {
+            int n = current.length;
+            for (int i = 0; i < n; i++) {
+                double m = y[n + i];
+                double h = y[2 * n + i];
+                double k = y[3 * n + i];
+                rates(y[i]);
+                double gNa = gna * m * m * m * h;
+                double gK = gk * k * k * k * k;
+                if (vClampOn) {
+                    a[i] = 0;
+                    b[i] = 0;
+                } else {
+                    a[i] = (current[i] + gNa * ena + gK * ek + gl * el) / cm;
+                    b[i] = (gNa + gK + gl) / cm;
+                }
+                a[n + i] = rates[0];
+                b[n + i] = rates[0] + rates[1];
+                a[2 * n + i] = rates[2];
+                b[2 * n + i] = rates[2] + rates[3];
+                a[3 * n + i] = rates[4];
+                b[3 * n + i] = rates[4] + rates[5];
+            }
+        }
     }
 
-    // Initializer quickly hacked from old init. Zoë this is in your hands to fix! :)
-    {
-        cm = 1.0;
-        double v = -70; // Arbitrary starting voltage
-        double dv = .001; // Arbitrary starting dv.  Not sure how to set.
-        vna = -115;
-        vk = 12;
-        vl = -10.613;
-        gna = perNaChannels * 120 / 100;
-        gk = perKChannels * 36 / 100;
-        gl = 0.3;
+    /**
+     * x / (exp(x / y) - 1), which is y - x / 2 in the limit where x / y goes to 0.
+     */
+    private static double vtrap(double x, double y) {
+        if (Math.abs(x / y) < 1e-6) {
+            return y - x / 2;
+        }
+        return x / (Math.exp(x / y) - 1);
+    }
+
+    public static double alphaM(double v) {
+        return 0.1 * vtrap(-(v + 40), 10);
+    }
+
+    public static double betaM(double v) {
+        return 4 * Math.exp(-(v + 65) / 18);
+    }
+
+    public static double alphaH(double v) {
+        return 0.07 * Math.exp(-(v + 65) / 20);
+    }
 
-        bh = 1 / (Math.exp((v + 30) / 10) + 1);
-        ah = 0.07 * Math.exp(v / 20);
-        bm = 4 * Math.exp(v / 18);
-        am = 0.1 * (v + 25) / (Math.exp((v + 25) / 10) - 1);
-        bn = 0.125 * Math.exp(v / 80);
-        an = 0.01 * (v + 10) / (Math.exp((v + 10) / 10) - 1);
-        dh = (ah * (1 - h) - bh * h) * dv;
-        dm = (am * (1 - m) - bm * m) * dv;
-        dn = (an * (1 - n) - bn * n) * dv;
+    public static double betaH(double v) {
+        return 1 / (1 + Math.exp(-(v + 35) / 10));
+    }
 
-        // start these parameters in steady state
-        n = an / (an + bn);
-        m = am / (am + bm);
-        h = ah / (ah + bh);
+    public static double alphaN(double v) {
+        return 0.01 * vtrap(-(v + 55), 10);
+    }
 
+    public static double betaN(double v) {
+        return 0.125 * Math.exp(-(v + 65) / 80);
     }
 
     @Override
-    public TimeType getTimeType() {
-        return TimeType.CONTINUOUS;
+    public ScalarDataHolder createScalarData() {
+        return new HodgkinHuxleyData(
+                steadyState(alphaM(RESTING_V), betaM(RESTING_V)),
+                steadyState(alphaH(RESTING_V), betaH(RESTING_V)),
+                steadyState(alphaN(RESTING_V), betaN(RESTING_V)));
+    }
+
+    @Override
+    public MatrixDataHolder createMatrixData(int size) {
+        return new HodgkinHuxleyMatrixData(size,
+                steadyState(alphaM(RESTING_V), betaM(RESTING_V)),
+                steadyState(alphaH(RESTING_V), betaH(RESTING_V)),
+                steadyState(alphaN(RESTING_V), betaN(RESTING_V)));
     }
 
-    public double get_n4() {
-        return n4;
+    private static double steadyState(double alpha, double beta) {
+        return alpha / (alpha + beta);
     }
 
-    public double get_m3h() {
-        return m3h;
+    @Override
+    public TimeType getTimeType() {
+        return TimeType.CONTINUOUS;
     }
 
     public synchronized float getEna() {
-        return (float) (-1 * (vna + resting_v));
+        return (float) ena;
     }
 
     public synchronized float getEk() {
-        return (float) (-1 * (vk + resting_v));
+        return (float) ek;
     }
 
     public synchronized void setEna(float Ena) {
-        vna = -1 * Ena - resting_v;
+        ena = Ena;
     }
 
     public synchronized void setEk(float Ek) {
-        vk = -1 * Ek - resting_v;
-    }
-
-    // The -1 is to correct for the fact that in the H & H paper, the currents
-    // are reversed.
-    public double get_na_current() {
-        return -1 * na_current;
-    }
-
-    public double get_k_current() {
-        return -1 * k_current;
+        ek = Ek;
     }
 
     // negative values set to zero
@@ -256,13 +376,6 @@ public class HodgkinHuxleyRule extends NeuronUpdateRule implements NoisyUpdateRu
         return perKChannels;
     }
 
-    // remember that H&H voltages are -1 * present convention
-    // TODO: should eventually calculate this instead of setting it
-
-    // convert between internal use of V and the user's expectations
-    // the V will be membrane voltage using present day conventions
-    // see p. 505 of Hodgkin & Huxley, J Physiol. 1952, 117:500-544
-
     public void setCm(double inCm) {
         cm = inCm;
     }
@@ -271,43 +384,44 @@ public class HodgkinHuxleyRule extends NeuronUpdateRule implements NoisyUpdateRu
         return cm;
     }
 
-    public double getN() {
-        return n;
+    public boolean getVClampOn() {
+        return vClampOn;
+    }
+
+    public void setVClampOn(boolean vClampOn) {
+        this.vClampOn = vClampOn;
     }
 
-    public double getM() {
-        return m;
+    public double getVClampValue() {
+        return vClampValue;
     }
 
-    public double getH() {
-        return h;
+    public void setVClampValue(double vClampValue) {
+        this.vClampValue = vClampValue;
     }
 
-    /**
-     * Converts a voltage from the modern convention to the convention used by
-     * the program.
-     *
-     * @param voltage
-     * @return
-     */
-    public float convertV(float voltage) {
-        return (float) (-1 * voltage - resting_v);
+    public IntegrationMethod getIntegrationMethod() {
+        return integrationMethod;
     }
 
-    public boolean getVClampOn() {
-        return vClampOn;
+    public void setIntegrationMethod(IntegrationMethod integrationMethod) {
+        this.integrationMethod = integrationMethod;
     }
 
-    public void setVClampOn(boolean vClampOn) {
-        this.vClampOn = vClampOn;
+    public boolean isUseRateTables() {
+        return useRateTables;
+    }
+
+    public void setUseRateTables(boolean useRateTables) {
+        this.useRateTables = useRateTables;
     }
 
-    float get_vClampValue() {
-        return (float) (-1 * (vClampValue + resting_v));
+    public double getTolerance() {
+        return tolerance;
     }
 
-    void set_vClampValue(float vClampValue) {
-        this.vClampValue = convertV(vClampValue);
+    public void setTolerance(double tolerance) {
+        this.tolerance = tolerance;
     }
 
     public double getTemp() {
@@ -321,16 +435,19 @@ public class HodgkinHuxleyRule extends NeuronUpdateRule implements NoisyUpdateRu
     @Override
     public NeuronUpdateRule deepCopy() {
         HodgkinHuxleyRule hhr = new HodgkinHuxleyRule();
-        hhr.set_vClampValue(this.get_vClampValue());
+        hhr.setVClampValue(this.getVClampValue());
         hhr.setAddNoise(this.getAddNoise());
         hhr.setCm(this.getCm());
         hhr.setEk(this.getEk());
         hhr.setEna(this.getEna());
-        hhr.setNoiseGenerator(this.getNoiseGenerator());
+        hhr.setNoiseGenerator(this.getNoiseGenerator().deepCopy());
         hhr.setPerKChannels(this.getPerKChannels());
         hhr.setPerNaChannels(this.getPerNaChannels());
         hhr.setTemp(this.getTemp());
         hhr.setVClampOn(this.getVClampOn());
+        hhr.setIntegrationMethod(this.getIntegrationMethod());
+        hhr.setUseRateTables(this.isUseRateTables());
+        hhr.setTolerance(this.getTolerance());
         return hhr;
     }
 
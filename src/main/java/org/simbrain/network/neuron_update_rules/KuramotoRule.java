@@ -1,14 +1,17 @@
 package org.simbrain.network.neuron_update_rules;
 
-import org.simbrain.network.core.Network;
-import org.simbrain.network.core.Neuron;
-import org.simbrain.network.core.NeuronUpdateRule;
-import org.simbrain.network.core.Synapse;
+import org.simbrain.network.core.*;
+import org.simbrain.network.matrix.NeuronArray;
+import org.simbrain.network.matrix.SparseWeights;
+import org.simbrain.network.matrix.WeightMatrix;
 import org.simbrain.network.neuron_update_rules.interfaces.*;
+import org.simbrain.network.util.KuramotoMatrixData;
+import org.simbrain.network.util.MatrixDataHolder;
 import org.simbrain.network.util.ScalarDataHolder;
 import org.simbrain.util.UserParameter;
 import org.simbrain.util.stats.ProbabilityDistribution;
 import org.simbrain.util.stats.distributions.UniformRealDistribution;
+import smile.math.matrix.Matrix;
 
 /**
  * TODO
@@ -17,6 +20,13 @@ import org.simbrain.util.stats.distributions.UniformRealDistribution;
  * <p>
  * K is weight N = number of fan-in nodes
  * <p>
+ * On a {@link NeuronArray} all oscillators update at once, each using the phases from before the update. They are
+ * coupled either through the weight matrices coming into the array, as free neurons are through their fan-in, or,
+ * with mean field coupling, all to all with the same strength. Since sin(a - b) = sin(a)cos(b) - cos(a)sin(b), the
+ * coupling sums only need the sines and cosines of the phases: with mean field coupling they come from the complex
+ * order parameter, the mean of e^(i theta) over the array, in one pass over the oscillators; with weight matrices
+ * they are two matrix products, over only the nonzero weights when the matrix is sparse.
+ * <p>
  * TODO: Contextual increment.  Proper randomize and bounds.
  * Remove un-needed overrides.  Finish GUI.   Include time step in gui.
  */
@@ -46,6 +56,26 @@ public class KuramotoRule extends NeuronUpdateRule implements BiasedUpdateRule,
             increment = .1, order = 1)
     public double naturalFrequency = 1;
 
+    /**
+     * Coupling between each pair of oscillators in a neuron array, with mean field coupling.
+     */
+    @UserParameter(
+            label = "Coupling strength",
+            description = "Coupling between each pair of oscillators in a neuron array, with mean field coupling.",
+            increment = .1, order = 2)
+    public double couplingStrength = 1;
+
+    /**
+     * If true, the oscillators in a neuron array are all coupled to each other with {@link #couplingStrength}, as
+     * if fully connected without self connections, and weight matrices into the array are ignored.
+     */
+    @UserParameter(
+            label = "Mean field coupling",
+            description = "Couple all oscillators in a neuron array to each other with the coupling strength, " +
+                    "instead of through incoming weight matrices.",
+            order = 3)
+    public boolean meanField = false;
+
     /**
      * Bias.
      */
@@ -106,6 +136,118 @@ public class KuramotoRule extends NeuronUpdateRule implements BiasedUpdateRule,
         neuron.setActivation(theta);
     }
 
+    @Override
+    public void apply(Layer layer, MatrixDataHolder dataHolder) {
+        var array = (NeuronArray) layer;
+        var data = (KuramotoMatrixData) dataHolder;
+        double[] theta = array.getActivations().col(0);
+        int n = theta.length;
+
+        double[] sin = new double[n];
+        double[] cos = new double[n];
+        double sinSum = 0;
+        double cosSum = 0;
+        for (int i = 0; i < n; i++) {
+            sin[i] = Math.sin(theta[i]);
+            cos[i] = Math.cos(theta[i]);
+            sinSum += sin[i];
+            cosSum += cos[i];
+        }
+        if (n > 0) {
+            data.setOrderParameter(Math.hypot(sinSum, cosSum) / n);
+            data.setMeanPhase(Math.atan2(sinSum, cosSum));
+        }
+
+        // Sum over j of K_ij sin(theta_j - theta_i), divided by the number of oscillators coupled to i, is
+        // (cos(theta_i) * sum of K_ij sin(theta_j) - sin(theta_i) * sum of K_ij cos(theta_j)) / N_i
+        double[] coupling = new double[n];
+        if (meanField) {
+            // The term for j = i is 0, so summing over all j gives the sum over the others
+            double scale = couplingStrength / Math.max(n - 1, 1);
+            for (int i = 0; i < n; i++) {
+                coupling[i] = scale * (cos[i] * sinSum - sin[i] * cosSum);
+            }
+        } else {
+            double[] sinInputs = new double[n];
+            double[] cosInputs = new double[n];
+            int[] fanIn = new int[n];
+            for (Connector connector : array.getIncomingConnectors()) {
+                if (connector instanceof WeightMatrix) {
+                    var wm = (WeightMatrix) connector;
+                    if (wm.getSource() == array) {
+                        addWeightedPhases(wm, sin, cos, sinInputs, cosInputs, fanIn);
+                    } else {
+                        double[] sourcePhases = wm.getSource().getOutputs().col(0);
+                        double[] sourceSin = new double[sourcePhases.length];
+                        double[] sourceCos = new double[sourcePhases.length];
+                        for (int j = 0; j < sourcePhases.length; j++) {
+                            sourceSin[j] = Math.sin(sourcePhases[j]);
+                            sourceCos[j] = Math.cos(sourcePhases[j]);
+                        }
+                        addWeightedPhases(wm, sourceSin, sourceCos, sinInputs, cosInputs, fanIn);
+                    }
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                coupling[i] = (cos[i] * sinInputs[i] - sin[i] * cosInputs[i]) / Math.max(fanIn[i], 1);
+            }
+        }
+
+        double[] frequencies = data.getNaturalFrequencies();
+        double step = array.getNetwork().getTimeStep();
+        double[] next = new double[n];
+        for (int i = 0; i < n; i++) {
+            double phase = (theta[i] + step * (frequencies[i] + coupling[i])) % (2 * Math.PI);
+            // Neuron.setActivation clips, so do the same here
+            next[i] = clipping ? clip(phase) : phase;
+        }
+        array.setActivations(next);
+    }
+
+    /**
+     * Add the weighted sums of the sines and cosines of a weight matrix's source phases to each target's sums, and
+     * the number of nonzero weights into each target to its fan-in.
+     */
+    private static void addWeightedPhases(WeightMatrix wm, double[] sourceSin, double[] sourceCos,
+                                          double[] sinInputs, double[] cosInputs, int[] fanIn) {
+        SparseWeights sparse = wm.getSparseWeights();
+        int[] rowStarts = sparse.getRowStarts();
+        if (sparse.isCompressed()) {
+            int[] columns = sparse.getColumnIndices();
+            double[] values = sparse.getValues();
+            for (int i = 0; i < sinInputs.length; i++) {
+                double sinSum = 0;
+                double cosSum = 0;
+                for (int k = rowStarts[i]; k < rowStarts[i + 1]; k++) {
+                    sinSum += values[k] * sourceSin[columns[k]];
+                    cosSum += values[k] * sourceCos[columns[k]];
+                }
+                sinInputs[i] += sinSum;
+                cosInputs[i] += cosSum;
+            }
+        } else {
+            // Both products in one pass over the matrix
+            Matrix sourceTrig = new Matrix(sourceSin.length, 2);
+            for (int j = 0; j < sourceSin.length; j++) {
+                sourceTrig.set(j, 0, sourceSin[j]);
+                sourceTrig.set(j, 1, sourceCos[j]);
+            }
+            Matrix products = wm.getWeightMatrix().mm(sourceTrig);
+            for (int i = 0; i < sinInputs.length; i++) {
+                sinInputs[i] += products.get(i, 0);
+                cosInputs[i] += products.get(i, 1);
+            }
+        }
+        for (int i = 0; i < fanIn.length; i++) {
+            fanIn[i] += rowStarts[i + 1] - rowStarts[i];
+        }
+    }
+
+    @Override
+    public MatrixDataHolder createMatrixData(int size) {
+        return new KuramotoMatrixData(size, naturalFrequency);
+    }
+
     @Override
     public double clip(double val) {
         if (val > getUpperBound()) {
@@ -127,6 +269,8 @@ public class KuramotoRule extends NeuronUpdateRule implements BiasedUpdateRule,
         KuramotoRule kr = new KuramotoRule();
         kr.setBias(getBias());
         kr.setSlope(getSlope());
+        kr.couplingStrength = couplingStrength;
+        kr.meanField = meanField;
         kr.setClipped(isClipped());
         kr.setAddNoise(getAddNoise());
         kr.setUpperBound(getUpperBound());
@@ -31,6 +31,7 @@ import org.simbrain.network.util.BiasedMatrixData;
 import org.simbrain.network.util.BiasedScalarData;
 import org.simbrain.network.util.MatrixDataHolder;
 import org.simbrain.network.util.ScalarDataHolder;
+import org.simbrain.util.RandomStream;
 import org.simbrain.util.UserParameter;
 import org.simbrain.util.stats.ProbabilityDistribution;
 import org.simbrain.util.stats.distributions.UniformRealDistribution;
@@ -96,22 +97,24 @@ public class LinearRule extends NeuronUpdateRule implements DifferentiableUpdate
         var array = (NeuronArray) arr;
         // TODO: Implement using matrix operations
         double[] vals = new double[array.size()];
+        double[] inputs = array.getInputs().col(0);
+        double[] biases = ((BiasedMatrixData)data).getBiases();
+        var random = array.getNetwork().getRandom(array);
         for (int i = 0; i < vals.length ; i++) {
-            vals[i] = linearRule(array.getInputs().col(0)[i],
-                    ((BiasedMatrixData)data).getBiases()[i]);
+            vals[i] = linearRule(inputs[i], biases[i], random);
         }
         array.setActivations(new Matrix(vals));
     }
 
     @Override
     public void apply(Neuron neuron, ScalarDataHolder data) {
-        neuron.setActivation(linearRule(neuron.getInput(), ((BiasedScalarData)data).getBias()));
+        neuron.setActivation(linearRule(neuron.getInput(), ((BiasedScalarData)data).getBias(), neuron.getRandom()));
     }
 
-    public double linearRule(double input, double bias) {
+    public double linearRule(double input, double bias, RandomStream random) {
         double ret = input * slope + bias;
         if (addNoise) {
-            ret  += noiseGenerator.sampleDouble();
+            ret  += noiseGenerator.sampleDouble(random);
         }
         if (clipping) {
             ret  = clip(ret);
@@ -29,6 +29,7 @@ import org.simbrain.network.util.MatrixDataHolder;
 import org.simbrain.network.util.NakaMatrixData;
 import org.simbrain.network.util.NakaScalarData;
 import org.simbrain.network.util.ScalarDataHolder;
+import org.simbrain.util.RandomStream;
 import org.simbrain.util.UserParameter;
 import org.simbrain.util.stats.ProbabilityDistribution;
 import org.simbrain.util.stats.distributions.UniformRealDistribution;
@@ -158,12 +159,14 @@ public class NakaRushtonRule extends NeuronUpdateRule implements BoundedUpdateRu
     public void apply(Layer arr, MatrixDataHolder data) {
         var array = (NeuronArray) arr;
         double[] vals = new double[array.size()];
+        var random = array.getNetwork().getRandom(array);
         for (int i = 0; i < vals.length ; i++) {
             vals[i] = nakaRushtonRule(
                     array.getInputs().col(0)[i],
                     array.getActivations().col(0)[i],
                     array.getNetwork().getTimeStep(),
-                    ((NakaMatrixData)data).getA()[i]);
+                    ((NakaMatrixData)data).getA()[i],
+                    random);
         }
         array.setActivations(new Matrix(vals));
     }
@@ -171,10 +174,10 @@ public class NakaRushtonRule extends NeuronUpdateRule implements BoundedUpdateRu
     @Override
     public void apply(Neuron neuron, ScalarDataHolder data) {
         neuron.setActivation(nakaRushtonRule(neuron.getInput(), neuron.getActivation(),
-                neuron.getNetwork().getTimeStep(), ((NakaScalarData)data).getA()));
+                neuron.getNetwork().getTimeStep(), ((NakaScalarData)data).getA(), neuron.getRandom()));
     }
 
-    public double nakaRushtonRule(double input, double activation, double timeStep, double a) {
+    public double nakaRushtonRule(double input, double activation, double timeStep, double a, RandomStream random) {
 
         double val = activation;
 
@@ -195,7 +198,7 @@ public class NakaRushtonRule extends NeuronUpdateRule implements BoundedUpdateRu
         }
 
         if (addNoise) {
-            val += (timeStep * (((1 / timeConstant) * (-val + s)) + noiseGenerator.sampleDouble()));
+            val += (timeStep * (((1 / timeConstant) * (-val + s)) + noiseGenerator.sampleDouble(random)));
         } else {
             val += (timeStep * ((1 / timeConstant) * (-val + s)));
         }
@@ -24,10 +24,10 @@ import org.simbrain.network.core.NeuronUpdateRule;
 import org.simbrain.network.core.Synapse;
 import org.simbrain.network.neuron_update_rules.interfaces.BiasedUpdateRule;
 import org.simbrain.network.util.ScalarDataHolder;
+import org.simbrain.util.RandomStream;
 import org.simbrain.util.math.SimbrainMath;
 
 import java.util.ArrayList;
-import java.util.Random;
 
 /**
  * <b>PointNeuron</b> from O'Reilley and Munakata, Computational Explorations in
@@ -350,19 +350,18 @@ public class PointNeuronRule extends NeuronUpdateRule implements BiasedUpdateRul
     }
 
     @Override
-    public double getRandomValue() {
-        Random rand = new Random();
+    public double getRandomValue(RandomStream random) {
         if (outputFunction == OutputFunction.DISCRETE_SPIKING) {
-            return rand.nextBoolean() ? 1.0 : 0.0;
+            return random.nextBoolean() ? 1.0 : 0.0;
         } else if (outputFunction == OutputFunction.RATE_CODE) {
-            return rand.nextDouble();
+            return random.nextDouble();
         } else if (outputFunction == OutputFunction.LINEAR) {
             // TODO: better value for this?
-            return gain * thresholdPotential * rand.nextDouble();
+            return gain * thresholdPotential * random.nextDouble();
         } else if (outputFunction == OutputFunction.NOISY_RATE_CODE) {
             return 0; // TODO: COmplete implementation
         } else {
-            return rand.nextDouble(); // TODO: Better value for this?
+            return random.nextDouble(); // TODO: Better value for this?
         }
     }
 
@@ -77,7 +77,7 @@ public class ProductRule extends LinearRule {
         }
 
         if (this.getAddNoise()) {
-            val += getNoiseGenerator().sampleDouble();
+            val += getNoiseGenerator().sampleDouble(neuron.getRandom());
         }
 
         if (this.isClipped()) {
@@ -61,7 +61,7 @@ public class SigmoidalRule extends AbstractSigmoidalRule {
         double val = neuron.getInput() + bias;
 
         if (addNoise) {
-            val += noiseGenerator.sampleDouble();
+            val += noiseGenerator.sampleDouble(neuron.getRandom());
         }
 
         val = sFunction.valueOf(val, getUpperBound(), getLowerBound(), getSlope());
@@ -26,12 +26,12 @@ import org.simbrain.network.neuron_update_rules.interfaces.NoisyUpdateRule;
 import org.simbrain.network.util.MatrixDataHolder;
 import org.simbrain.network.util.ScalarDataHolder;
 import org.simbrain.network.util.SpikingMatrixData;
+import org.simbrain.util.RandomStream;
 import org.simbrain.util.UserParameter;
 import org.simbrain.util.stats.ProbabilityDistribution;
 import org.simbrain.util.stats.distributions.UniformRealDistribution;
 import smile.math.matrix.Matrix;
 
-import java.util.Random;
 
 /**
  * A simple spiking neuron that fires when weighted inputs exceed a threshold.
@@ -72,8 +72,9 @@ public class SpikingThresholdRule extends SpikingNeuronUpdateRule implements Noi
         var array = (NeuronArray) arr;
         // TODO: Implement using matrix operations
         double[] vals = new double[array.size()];
+        var random = array.getNetwork().getRandom(array);
         for (int i = 0; i < vals.length; i++) {
-            if (spikingThresholdRule(array.getInputs().col(0)[i])) {
+            if (spikingThresholdRule(array.getInputs().col(0)[i], random)) {
                 ((SpikingMatrixData) data).setHasSpiked(i, true, array.getNetwork().getTime());
                 vals[i] = 1;
             } else {
@@ -86,7 +87,7 @@ public class SpikingThresholdRule extends SpikingNeuronUpdateRule implements Noi
 
     @Override
     public void apply(Neuron neuron, ScalarDataHolder data) {
-        if (spikingThresholdRule(neuron.getInput())) {
+        if (spikingThresholdRule(neuron.getInput(), neuron.getRandom())) {
             neuron.setSpike(true);
             neuron.setActivation(1);
         } else {
@@ -95,8 +96,8 @@ public class SpikingThresholdRule extends SpikingNeuronUpdateRule implements Noi
         }
     }
 
-    public boolean spikingThresholdRule(double in) {
-        final double input = in + (addNoise ? noiseGenerator.sampleDouble() : 0);
+    public boolean spikingThresholdRule(double in, RandomStream random) {
+        final double input = in + (addNoise ? noiseGenerator.sampleDouble(random) : 0);
         if (input >= threshold) {
             return true;
         } else {
@@ -105,9 +106,8 @@ public class SpikingThresholdRule extends SpikingNeuronUpdateRule implements Noi
     }
 
     @Override
-    public double getRandomValue() {
-        Random rand = new Random();
-        return rand.nextBoolean() ? 1 : 0;
+    public double getRandomValue(RandomStream random) {
+        return random.nextBoolean() ? 1 : 0;
     }
 
     public double getThreshold() {
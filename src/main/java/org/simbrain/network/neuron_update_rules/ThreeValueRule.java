@@ -22,9 +22,9 @@ import org.simbrain.network.core.Network.TimeType;
 import org.simbrain.network.core.Neuron;
 import org.simbrain.network.core.NeuronUpdateRule;
 import org.simbrain.network.util.ScalarDataHolder;
+import org.simbrain.util.RandomStream;
 import org.simbrain.util.UserParameter;
 
-import java.util.Random;
 
 /**
  * <b>ThreeValuedNeuron</b> is a natural extension of a binary neuron, which
@@ -126,9 +126,8 @@ public class ThreeValueRule extends NeuronUpdateRule {
     }
 
     @Override
-    public double getRandomValue() {
-        Random rand = new Random();
-        int d = rand.nextInt(3);
+    public double getRandomValue(RandomStream random) {
+        int d = random.nextInt(3);
         if (d == 0) {
             return lowerValue;
         } else if (d == 1) {
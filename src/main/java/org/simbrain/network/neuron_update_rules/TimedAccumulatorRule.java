@@ -5,7 +5,6 @@ import org.simbrain.network.core.Neuron;
 import org.simbrain.network.util.ScalarDataHolder;
 import org.simbrain.util.UserParameter;
 
-import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * A stochastic spiking neuron often used in cortical branching simulations. The timed accumulator normalizes its inputs
@@ -109,7 +108,7 @@ public class TimedAccumulatorRule extends SpikingThresholdRule {
             neuron.setSpike(false);
             return;
         }
-        if (ThreadLocalRandom.current().nextDouble() < baseProb) {
+        if (neuron.getRandom().nextDouble() < baseProb) {
             currentState++;
             neuron.setActivation(1);
             neuron.setSpike(true);
@@ -126,7 +125,7 @@ public class TimedAccumulatorRule extends SpikingThresholdRule {
                 // Using the exp weight value stored in the PSR from before
                 // divide that by the exp sum to get the softmax value
                 // then set this to a 1 state from a 0 with that probability.
-                if (ThreadLocalRandom.current().nextDouble() < kappa * neuron.getFanInUnsafe().get(ii).getPsr() / expSum) {
+                if (neuron.getRandom().nextDouble() < kappa * neuron.getFanInUnsafe().get(ii).getPsr() / expSum) {
                     currentState++;
                     neuron.setActivation(1);
                     neuron.setSpike(true);
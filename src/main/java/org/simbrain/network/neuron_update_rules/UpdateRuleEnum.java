@@ -20,6 +20,7 @@ public enum UpdateRuleEnum {
     BINARY(BinaryRule.class),
     DECAY(DecayRule.class),
     FITZHUGHNAGUMO(FitzhughNagumo.class),
+    HODGKINHUXLEY(HodgkinHuxleyRule.class),
     IAC(IACRule.class),
     INTEGRATEANDFIRE(IntegrateAndFireRule.class),
     IZHIKEVICH(IzhikevichRule.class),
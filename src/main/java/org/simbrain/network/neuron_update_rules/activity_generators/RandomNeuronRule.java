@@ -25,6 +25,7 @@ import org.simbrain.network.neuron_update_rules.interfaces.ActivityGenerator;
 import org.simbrain.network.neuron_update_rules.interfaces.BoundedUpdateRule;
 import org.simbrain.network.neuron_update_rules.interfaces.NoisyUpdateRule;
 import org.simbrain.network.util.ScalarDataHolder;
+import org.simbrain.util.RandomStream;
 import org.simbrain.util.stats.ProbabilityDistribution;
 import org.simbrain.util.stats.distributions.UniformRealDistribution;
 
@@ -65,7 +66,7 @@ public class RandomNeuronRule extends NeuronUpdateRule implements ActivityGenera
 
     @Override
     public void apply(Neuron neuron, ScalarDataHolder data) {
-        neuron.setActivation(randomizer.sampleDouble());
+        neuron.setActivation(randomizer.sampleDouble(neuron.getRandom()));
     }
 
     @Override
@@ -74,8 +75,8 @@ public class RandomNeuronRule extends NeuronUpdateRule implements ActivityGenera
     }
 
     @Override
-    public double getRandomValue() {
-        return randomizer.sampleDouble();
+    public double getRandomValue(RandomStream random) {
+        return randomizer.sampleDouble(random);
     }
 
     @Override
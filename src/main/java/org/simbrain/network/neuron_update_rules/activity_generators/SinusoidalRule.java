@@ -25,6 +25,7 @@ import org.simbrain.network.neuron_update_rules.interfaces.ActivityGenerator;
 import org.simbrain.network.neuron_update_rules.interfaces.BoundedUpdateRule;
 import org.simbrain.network.neuron_update_rules.interfaces.NoisyUpdateRule;
 import org.simbrain.network.util.ScalarDataHolder;
+import org.simbrain.util.RandomStream;
 import org.simbrain.util.UserParameter;
 import org.simbrain.util.stats.ProbabilityDistribution;
 import org.simbrain.util.stats.distributions.UniformRealDistribution;
@@ -95,7 +96,7 @@ public class SinusoidalRule extends NeuronUpdateRule implements ActivityGenerato
         double val = ((range / 2) * Math.sin(frequency * neuron.getNetwork().getTime() + phase)) + ((upperBound + lowerBound) / 2);
 
         if (addNoise) {
-            val += noiseGenerator.sampleDouble();
+            val += noiseGenerator.sampleDouble(neuron.getRandom());
         }
 
         neuron.setActivation(val);
@@ -151,8 +152,8 @@ public class SinusoidalRule extends NeuronUpdateRule implements ActivityGenerato
     }
 
     @Override
-    public double getRandomValue() {
-        double rand = (2 * Math.PI) * Math.random();
+    public double getRandomValue(RandomStream random) {
+        double rand = (2 * Math.PI) * random.nextDouble();
         double range = getUpperBound() - getLowerBound();
         return ((range / 2) * Math.sin(frequency * rand + phase)) + ((getUpperBound() + getLowerBound()) / 2);
     }
@@ -63,7 +63,7 @@ public class StochasticRule extends SpikingNeuronUpdateRule implements ActivityG
 
     @Override
     public void apply(Neuron neuron, ScalarDataHolder data) {
-        double rand = Math.random();
+        double rand = neuron.getRandom().nextDouble();
         if (rand > 1 - firingProbability) {
             neuron.setSpike(true);
             neuron.setActivation(1);
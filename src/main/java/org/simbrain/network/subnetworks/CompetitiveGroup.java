@@ -167,12 +167,9 @@ public class CompetitiveGroup extends NeuronGroup {
         max = 0;
         winner = 0;
 
-        // Determine Winner
+        // Determine Winner. The neurons were updated by super.update(), which also cleared their inputs.
         for (int i = 0; i < getNeuronList().size(); i++) {
             Neuron n = getNeuronList().get(i);
-            if (!n.isClamped()) {
-                n.update();
-            }
             if (n.getActivation() > max) {
                 max = n.getActivation();
                 winner = i;
@@ -27,7 +27,6 @@ import org.simbrain.util.UserParameter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
 import java.util.function.Function;
 
 /**
@@ -62,11 +61,6 @@ public class WinnerTakeAll extends NeuronGroup {
     @UserParameter(label = "Random prob", conditionalEnablingMethod = "useRandomWinner", order = 80)
     private double randomProb = .1;
 
-    /**
-     * Random number generator.
-     */
-    private static Random rand = new Random();
-
     /**
      * Copy constructor.
      *
@@ -111,8 +105,9 @@ public class WinnerTakeAll extends NeuronGroup {
     public void update() {
         Neuron winner = getWinner();
         if (useRandom) {
-            if (Math.random() < randomProb) {
-                winner = getNeuronList().get(rand.nextInt(getNeuronList().size()));
+            var random = getNetwork().getRandom(this);
+            if (random.nextDouble() < randomProb) {
+                winner = getNeuronList().get(random.nextInt(getNeuronList().size()));
             }
         }
         for (Neuron neuron : getNeuronList()) {
@@ -176,7 +171,8 @@ public class WinnerTakeAll extends NeuronGroup {
         if (winners.size() == 1) {
             return winner;
         } else {
-            return winners.get(rand.nextInt(winners.size()));
+            // Break ties with the stream of the first neuron, so they are broken the same way in runs with the same seed
+            return winners.get(neuronList.get(0).getRandom().nextInt(winners.size()));
         }
 
     }
@@ -101,7 +101,7 @@ public class LogSTDPRule extends STDPRule {
         //        }
 
         if (s.getStrength() >= 0) {
-            double noise = 1 + dist.sampleDouble();
+            double noise = 1 + dist.sampleDouble(s.getRandom());
             if (delta_t < 0) {
                 calcW_plusTerm(s);
                 delta_w = timeStep * learningRate * (W_plus * Math.exp(delta_t / tau_plus)) * (1 + noise);
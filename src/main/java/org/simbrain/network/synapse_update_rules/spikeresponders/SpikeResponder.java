@@ -75,7 +75,7 @@ public abstract class SpikeResponder implements CopyableObject {
      * Override to return an appropriate data holder for a given responder.
      */
     public ScalarDataHolder createResponderData() {
-        return new EmptyScalarData();
+        return EmptyScalarData.INSTANCE;
     }
 
     /**
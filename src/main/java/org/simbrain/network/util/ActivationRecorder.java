@@ -2,14 +2,21 @@ package org.simbrain.network.util;
 
 import org.simbrain.network.core.Neuron;
 import org.simbrain.network.groups.AbstractNeuronCollection;
+import org.simbrain.util.SFileChooser;
 
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.List;
 
 /**
  * Manages recording activations or spike histories.
+ * <br>
+ * Recordings are written as text, or, for files with the {@link #BINARY_EXTENSION} extension, in a compact binary
+ * format that is written on a background thread and can be read with {@link RecordingReader}. Binary recording is
+ * much faster for large groups, since each update only copies values into a buffer.
  */
 public class ActivationRecorder {
 
@@ -19,6 +26,11 @@ public class ActivationRecorder {
      */
     public static final int FLUSH_FREQUENCY = 1000;
 
+    /**
+     * Extension of files recorded in the binary format.
+     */
+    public static final String BINARY_EXTENSION = "sbr";
+
     /**
      * Whether or not {@link #writeActsToFile()} will write activations as a
      * state matrix or a spike train.
@@ -30,6 +42,16 @@ public class ActivationRecorder {
      */
     private PrintWriter valueWriter;
 
+    /**
+     * Writer for binary recordings, or null if recording as text.
+     */
+    private BinaryRecordingWriter binaryWriter;
+
+    /**
+     * Whether binary recordings store activations as doubles rather than floats.
+     */
+    private boolean doublePrecision = false;
+
     /**
      * Whether or not this group is in a state that allows recording.
      */
@@ -65,6 +87,9 @@ public class ActivationRecorder {
      * activations differently if the neuron group contains only spiking
      * neurons.
      *
+     * The file is written in the binary format if it has the {@link #BINARY_EXTENSION} extension, and as text
+     * otherwise.
+     *
      * @param outputFile the file to write the activations to
      */
     public void startRecording(final File outputFile) {
@@ -77,12 +102,15 @@ public class ActivationRecorder {
         }
         recordAsSpikes = spikeRecord;
         recording = true;
+        closeWriters();
         try {
-            if (valueWriter != null) {
-                valueWriter.close();
+            if (BINARY_EXTENSION.equalsIgnoreCase(SFileChooser.getExtension(outputFile))) {
+                binaryWriter = new BinaryRecordingWriter(outputFile, recordAsSpikes, nc.size(),
+                        doublePrecision ? Double.BYTES : Float.BYTES);
+            } else {
+                FileWriter fw = new FileWriter(outputFile);
+                valueWriter = new PrintWriter(fw);
             }
-            FileWriter fw = new FileWriter(outputFile);
-            valueWriter = new PrintWriter(fw);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -94,10 +122,7 @@ public class ActivationRecorder {
      * Halts recording of activations. Closes all involved output streams.
      */
     public void stopRecording() {
-        if (valueWriter != null) {
-            valueWriter.close();
-            valueWriter = null;
-        }
+        closeWriters();
         recording = false;
         nc.getEvents().getRecordingStopped().fireAndBlock();
     }
@@ -110,41 +135,44 @@ public class ActivationRecorder {
      * id][spk time] couplets. Otherwise it writes the neurons' activation
      * values as a state matrix to the file. Flushes the output stream every
      * {@link #FLUSH_FREQUENCY} invocations.
+     * <br>
+     * Binary recordings only copy the values into a buffer; they are written
+     * to the file on a background thread.
      */
     public void writeActsToFile() {
+        if (binaryWriter != null) {
+            writeBinary();
+            return;
+        }
         try {
             if (writeCounter >= FLUSH_FREQUENCY) {
                 valueWriter.flush();
                 writeCounter = 0;
             }
-            boolean write = false;
+            List<Neuron> neurons = nc.getNeuronList();
             if (recordAsSpikes) {
-                int start = 0;
-                for (int i = 0, n = nc.size(); i < n; i++) {
-                    if (nc.getNeuron(i).isSpike()) {
-                        write = true;
-                        start = i;
-                        break;
-                    }
-                }
-                if (write) {
-                    valueWriter.print(nc.getParentNetwork().getTime());
-                    valueWriter.print(" ");
-                    for (int i = start, n = nc.size(); i < n; i++) {
-                        if (nc.getNeuron(i).isSpike()) {
-                            valueWriter.print(i);
-                            valueWriter.print(" ");
+                StringBuilder line = null;
+                for (int i = 0, n = neurons.size(); i < n; i++) {
+                    if (neurons.get(i).isSpike()) {
+                        if (line == null) {
+                            line = new StringBuilder();
+                            line.append(nc.getParentNetwork().getTime()).append(' ');
                         }
+                        line.append(i).append(' ');
                     }
-                    valueWriter.println();
+                }
+                if (line != null) {
+                    valueWriter.println(line);
                     writeCounter++;
                 }
             } else {
-                for (int i = 0, n = nc.size() - 1; i < n; i++) {
-                    valueWriter.print(nc.getNeuron(i).getActivation() + ", ");
+                StringBuilder line = new StringBuilder();
+                double[] activations = nc.getActivations();
+                for (int i = 0, n = activations.length - 1; i < n; i++) {
+                    line.append(activations[i]).append(", ");
                 }
-                valueWriter.print(nc.getNeuron(nc.size() - 1).getActivation());
-                valueWriter.println();
+                line.append(activations[activations.length - 1]);
+                valueWriter.println(line);
                 writeCounter++;
             }
         } catch (NullPointerException e) {
@@ -152,6 +180,40 @@ public class ActivationRecorder {
         }
     }
 
+    private void writeBinary() {
+        try {
+            double time = nc.getParentNetwork().getTime();
+            if (recordAsSpikes) {
+                List<Neuron> neurons = nc.getNeuronList();
+                binaryWriter.addSpikes(time, i -> neurons.get(i).isSpike());
+            } else {
+                binaryWriter.addActivations(time, nc.getActivations());
+            }
+        } catch (UncheckedIOException e) {
+            e.printStackTrace();
+            stopRecording();
+        }
+    }
+
+    /**
+     * Close the text or binary writer, if any. Closing a binary writer waits
+     * for buffered rows to be written.
+     */
+    private void closeWriters() {
+        if (valueWriter != null) {
+            valueWriter.close();
+            valueWriter = null;
+        }
+        if (binaryWriter != null) {
+            try {
+                binaryWriter.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            binaryWriter = null;
+        }
+    }
+
     public boolean isRecording() {
         return recording;
     }
@@ -167,4 +229,16 @@ public class ActivationRecorder {
     public void setRecordAsSpikes(boolean recordAsSpikes) {
         this.recordAsSpikes = recordAsSpikes;
     }
+
+    public boolean isDoublePrecision() {
+        return doublePrecision;
+    }
+
+    /**
+     * Set whether binary recordings store activations as doubles. Takes effect
+     * the next time recording starts.
+     */
+    public void setDoublePrecision(boolean doublePrecision) {
+        this.doublePrecision = doublePrecision;
+    }
 }
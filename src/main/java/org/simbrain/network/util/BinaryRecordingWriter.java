@@ -0,0 +1,251 @@
+package org.simbrain.network.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.IntPredicate;
+
+import static org.simbrain.network.util.RecordingReader.*;
+
+/**
+ * Writes a recording in the binary format described in {@link RecordingReader}.
+ * <br>
+ * Rows are copied into off-heap blocks that are allocated once. Full blocks are handed to a background thread that
+ * writes them to the file, so the thread adding rows only copies values. If the writer falls more than a few blocks
+ * behind, adding a row waits for a block to be free.
+ */
+class BinaryRecordingWriter implements Closeable {
+
+    /**
+     * Number of blocks shared between the two threads.
+     */
+    private static final int BLOCK_COUNT = 3;
+
+    /**
+     * Target size of activation blocks.
+     */
+    private static final int TARGET_BLOCK_BYTES = 1 << 20;
+
+    /**
+     * Rows per spike block.
+     */
+    private static final int SPIKE_BLOCK_ROWS = 1024;
+
+    private final FileChannel channel;
+
+    private final boolean spikes;
+
+    private final int neuronCount;
+
+    private final int valueBytes;
+
+    private final int blockRows;
+
+    /**
+     * Capacity of a spike block's index section.
+     */
+    private final int spikeCapacity;
+
+    private final BlockingQueue<ByteBuffer> free = new ArrayBlockingQueue<>(BLOCK_COUNT);
+
+    /**
+     * Blocks waiting to be written, each flipped so its limit is the length to write.
+     */
+    private final BlockingQueue<ByteBuffer> full = new ArrayBlockingQueue<>(BLOCK_COUNT + 1);
+
+    /**
+     * Queued after the last block to stop the writer thread.
+     */
+    private final ByteBuffer endOfRecording = ByteBuffer.allocate(0);
+
+    private final Thread writerThread;
+
+    private ByteBuffer current;
+
+    private int rows;
+
+    private int spikeCount;
+
+    private volatile IOException failure;
+
+    /**
+     * Create the file and write its header.
+     *
+     * @param file        the file to write
+     * @param spikes      true to record spike indices, false to record activations
+     * @param neuronCount number of neurons recorded
+     * @param valueBytes  4 to store activations as floats, 8 to store them as doubles
+     */
+    BinaryRecordingWriter(File file, boolean spikes, int neuronCount, int valueBytes) throws IOException {
+        if (valueBytes != Float.BYTES && valueBytes != Double.BYTES) {
+            throw new IllegalArgumentException("Values must be 4 or 8 bytes");
+        }
+        this.spikes = spikes;
+        this.neuronCount = neuronCount;
+        this.valueBytes = spikes ? 0 : valueBytes;
+        if (spikes) {
+            blockRows = SPIKE_BLOCK_ROWS;
+            spikeCapacity = Math.max(4 * neuronCount, 1 << 16);
+        } else {
+            long rowBytes = Double.BYTES + (long) neuronCount * valueBytes;
+            blockRows = (int) Math.max(16, Math.min(4096, TARGET_BLOCK_BYTES / rowBytes));
+            spikeCapacity = 0;
+        }
+        int blockBytes = (int) Math.min(Integer.MAX_VALUE, spikes
+                ? spikeIndicesStart(blockRows) + (long) spikeCapacity * Integer.BYTES
+                : activationBlockBytes(blockRows, neuronCount, valueBytes));
+        for (int i = 0; i < BLOCK_COUNT; i++) {
+            free.add(ByteBuffer.allocateDirect(blockBytes).order(ByteOrder.LITTLE_ENDIAN));
+        }
+
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(spikes ? KIND_SPIKES : KIND_ACTIVATIONS)
+                .putInt(this.valueBytes).putInt(neuronCount).putInt(blockRows);
+        header.clear();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+
+        writerThread = new Thread(this::writeBlocks, "Activation recorder: " + file.getName());
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Add a row of activations. Only the first neuronCount values are recorded.
+     */
+    void addActivations(double time, double[] values) {
+        if (spikes) {
+            throw new IllegalStateException("This recording stores spikes");
+        }
+        ByteBuffer block = currentBlock();
+        block.putDouble(BLOCK_HEADER_BYTES + rows * Double.BYTES, time);
+        int base = activationValuesStart(blockRows);
+        if (valueBytes == Float.BYTES) {
+            for (int i = 0; i < neuronCount; i++) {
+                block.putFloat(base + (i * blockRows + rows) * Float.BYTES, (float) values[i]);
+            }
+        } else {
+            for (int i = 0; i < neuronCount; i++) {
+                block.putDouble(base + (i * blockRows + rows) * Double.BYTES, values[i]);
+            }
+        }
+        rows++;
+        if (rows == blockRows) {
+            submit();
+        }
+    }
+
+    /**
+     * Add a row with the indices of the neurons for which spiked is true.
+     */
+    void addSpikes(double time, IntPredicate spiked) {
+        if (!spikes) {
+            throw new IllegalStateException("This recording stores activations");
+        }
+        ByteBuffer block = currentBlock();
+        if (rows == 0) {
+            block.putInt(spikeOffsetsStart(blockRows), 0);
+        }
+        block.putDouble(BLOCK_HEADER_BYTES + rows * Double.BYTES, time);
+        int indices = spikeIndicesStart(blockRows);
+        for (int i = 0; i < neuronCount; i++) {
+            if (spiked.test(i)) {
+                block.putInt(indices + spikeCount * Integer.BYTES, i);
+                spikeCount++;
+            }
+        }
+        rows++;
+        block.putInt(spikeOffsetsStart(blockRows) + rows * Integer.BYTES, spikeCount);
+        if (rows == blockRows || spikeCapacity - spikeCount < neuronCount) {
+            submit();
+        }
+    }
+
+    /**
+     * The block rows are added to, taken from the free blocks when needed.
+     */
+    private ByteBuffer currentBlock() {
+        if (failure != null) {
+            throw new UncheckedIOException(failure);
+        }
+        if (current == null) {
+            try {
+                current = free.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the recording to be written", e);
+            }
+            current.clear();
+            rows = 0;
+            spikeCount = 0;
+        }
+        return current;
+    }
+
+    /**
+     * Hand the current block to the writer thread.
+     */
+    private void submit() {
+        current.putInt(0, rows);
+        current.putInt(Integer.BYTES, spikeCount);
+        int length = spikes ? spikeIndicesStart(blockRows) + spikeCount * Integer.BYTES : current.capacity();
+        current.limit(length);
+        current.position(0);
+        full.add(current);
+        current = null;
+    }
+
+    private void writeBlocks() {
+        while (true) {
+            ByteBuffer block;
+            try {
+                block = full.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (block == endOfRecording) {
+                return;
+            }
+            try {
+                if (failure == null) {
+                    while (block.hasRemaining()) {
+                        channel.write(block);
+                    }
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+            free.add(block);
+        }
+    }
+
+    /**
+     * Write any partial block, wait for the writer thread to finish, and close the file.
+     */
+    @Override
+    public void close() throws IOException {
+        if (current != null && rows > 0) {
+            submit();
+        }
+        full.add(endOfRecording);
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
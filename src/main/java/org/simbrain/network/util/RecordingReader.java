@@ -0,0 +1,322 @@
+package org.simbrain.network.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Reads a binary recording made by {@link ActivationRecorder}, memory-mapping the file so that only the parts being
+ * read take up memory.
+ * <br>
+ * The file is little-endian. It starts with a {@value #HEADER_BYTES} byte header: a magic number, the format version,
+ * the kind of recording (activations or spikes), the bytes per activation (4 or 8, or 0 for spikes), the number of
+ * neurons and the number of rows per block. Rows, one per network update, follow in blocks. Every block starts with
+ * its row count and spike count, then the time of each row.
+ * <ul>
+ * <li>Activation blocks all have the same size. After the times come the activations, column by column: the
+ * activations of neuron 0 for each row, then of neuron 1, and so on. Reading one neuron's history therefore reads
+ * contiguous values.</li>
+ * <li>Spike blocks store, after the times, an offset for each row into the spike indices that follow, plus one final
+ * offset, and then the indices of the neurons that spiked. Their size depends on the number of spikes.</li>
+ * </ul>
+ */
+public class RecordingReader implements Closeable {
+
+    static final int MAGIC = 0x52414253; // "SBAR"
+    static final int VERSION = 1;
+    static final int KIND_ACTIVATIONS = 0;
+    static final int KIND_SPIKES = 1;
+    static final int HEADER_BYTES = 32;
+
+    /**
+     * Row count and spike count.
+     */
+    static final int BLOCK_HEADER_BYTES = 2 * Integer.BYTES;
+
+    static int activationValuesStart(int blockRows) {
+        return BLOCK_HEADER_BYTES + blockRows * Double.BYTES;
+    }
+
+    static long activationBlockBytes(int blockRows, int neuronCount, int valueBytes) {
+        return activationValuesStart(blockRows) + (long) blockRows * neuronCount * valueBytes;
+    }
+
+    static int spikeOffsetsStart(int blockRows) {
+        return BLOCK_HEADER_BYTES + blockRows * Double.BYTES;
+    }
+
+    static int spikeIndicesStart(int blockRows) {
+        return spikeOffsetsStart(blockRows) + (blockRows + 1) * Integer.BYTES;
+    }
+
+    private final FileChannel channel;
+
+    private final boolean spikes;
+
+    private final int valueBytes;
+
+    private final int neuronCount;
+
+    private final int blockRows;
+
+    /**
+     * File position and length of each block.
+     */
+    private final long[] blockPositions;
+    private final long[] blockLengths;
+
+    /**
+     * Number of rows before each block, plus the total number of rows at the end.
+     */
+    private final long[] rowsBefore;
+
+    /**
+     * Blocks mapped so far.
+     */
+    private final MappedByteBuffer[] mapped;
+
+    /**
+     * Open a recording.
+     *
+     * @throws IOException if the file can't be read or is not a recording
+     */
+    public RecordingReader(File file) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(header, 0);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException(file.getName() + " is not a binary activation recording");
+            }
+            if (header.getInt(4) != VERSION) {
+                throw new IOException("Unsupported recording version " + header.getInt(4));
+            }
+            spikes = header.getInt(8) == KIND_SPIKES;
+            valueBytes = header.getInt(12);
+            neuronCount = header.getInt(16);
+            blockRows = header.getInt(20);
+
+            // Find the blocks. A block cut short, e.g. if the simulation crashed while recording, is left out.
+            List<Long> positions = new ArrayList<>();
+            List<Long> lengths = new ArrayList<>();
+            List<Long> rowCounts = new ArrayList<>();
+            long size = channel.size();
+            long position = HEADER_BYTES;
+            ByteBuffer blockHeader = ByteBuffer.allocate(BLOCK_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (position + BLOCK_HEADER_BYTES <= size) {
+                blockHeader.clear();
+                readFully(blockHeader, position);
+                int rows = blockHeader.getInt(0);
+                long length = spikes
+                        ? spikeIndicesStart(blockRows) + (long) blockHeader.getInt(4) * Integer.BYTES
+                        : activationBlockBytes(blockRows, neuronCount, valueBytes);
+                if (position + length > size) {
+                    break;
+                }
+                positions.add(position);
+                lengths.add(length);
+                rowCounts.add((long) rows);
+                position += length;
+            }
+            blockPositions = positions.stream().mapToLong(Long::longValue).toArray();
+            blockLengths = lengths.stream().mapToLong(Long::longValue).toArray();
+            rowsBefore = new long[blockPositions.length + 1];
+            for (int i = 0; i < blockPositions.length; i++) {
+                rowsBefore[i + 1] = rowsBefore[i] + rowCounts.get(i);
+            }
+            mapped = new MappedByteBuffer[blockPositions.length];
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of recording");
+            }
+        }
+    }
+
+    /**
+     * True if the recording holds spike indices, false if it holds activations.
+     */
+    public boolean isSpikes() {
+        return spikes;
+    }
+
+    public int getNeuronCount() {
+        return neuronCount;
+    }
+
+    /**
+     * Number of rows, i.e. network updates, recorded.
+     */
+    public long getRowCount() {
+        return rowsBefore[rowsBefore.length - 1];
+    }
+
+    /**
+     * Network time of a row.
+     */
+    public double getTime(long row) {
+        int block = blockOf(row);
+        return block(block).getDouble(BLOCK_HEADER_BYTES + (int) (row - rowsBefore[block]) * Double.BYTES);
+    }
+
+    /**
+     * Activation of a neuron in a row.
+     */
+    public double getValue(long row, int neuron) {
+        requireActivations();
+        int block = blockOf(row);
+        return value(block(block), neuron * blockRows + (int) (row - rowsBefore[block]));
+    }
+
+    /**
+     * Activations of all neurons in a row.
+     */
+    public double[] getRow(long row) {
+        requireActivations();
+        int block = blockOf(row);
+        ByteBuffer buffer = block(block);
+        int inBlock = (int) (row - rowsBefore[block]);
+        double[] result = new double[neuronCount];
+        for (int i = 0; i < neuronCount; i++) {
+            result[i] = value(buffer, i * blockRows + inBlock);
+        }
+        return result;
+    }
+
+    /**
+     * Activations of rows from (inclusive) to (exclusive), one array per row, e.g. to add to a projection.
+     */
+    public double[][] getRows(long from, long to) {
+        requireActivations();
+        checkRange(from, to);
+        double[][] result = new double[(int) (to - from)][neuronCount];
+        for (long row = from; row < to; ) {
+            int block = blockOf(row);
+            ByteBuffer buffer = block(block);
+            int first = (int) (row - rowsBefore[block]);
+            int last = (int) (Math.min(to, rowsBefore[block + 1]) - rowsBefore[block]);
+            // Read column by column, since values of a neuron are contiguous in a block
+            for (int i = 0; i < neuronCount; i++) {
+                for (int r = first; r < last; r++) {
+                    result[(int) (rowsBefore[block] + r - from)][i] = value(buffer, i * blockRows + r);
+                }
+            }
+            row = rowsBefore[block] + last;
+        }
+        return result;
+    }
+
+    /**
+     * Activations of one neuron over all rows.
+     */
+    public double[] getColumn(int neuron) {
+        requireActivations();
+        Objects.checkIndex(neuron, neuronCount);
+        double[] result = new double[(int) getRowCount()];
+        int n = 0;
+        for (int block = 0; block < blockPositions.length; block++) {
+            ByteBuffer buffer = block(block);
+            int rows = (int) (rowsBefore[block + 1] - rowsBefore[block]);
+            for (int r = 0; r < rows; r++) {
+                result[n++] = value(buffer, neuron * blockRows + r);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Indices of the neurons that spiked in a row.
+     */
+    public int[] getSpikes(long row) {
+        if (!spikes) {
+            throw new IllegalStateException("This recording stores activations");
+        }
+        int block = blockOf(row);
+        ByteBuffer buffer = block(block);
+        int inBlock = (int) (row - rowsBefore[block]);
+        int offsets = spikeOffsetsStart(blockRows);
+        int start = buffer.getInt(offsets + inBlock * Integer.BYTES);
+        int end = buffer.getInt(offsets + (inBlock + 1) * Integer.BYTES);
+        int[] result = new int[end - start];
+        int indices = spikeIndicesStart(blockRows);
+        for (int i = 0; i < result.length; i++) {
+            result[i] = buffer.getInt(indices + (start + i) * Integer.BYTES);
+        }
+        return result;
+    }
+
+    private double value(ByteBuffer buffer, int index) {
+        int base = activationValuesStart(blockRows);
+        return valueBytes == Float.BYTES
+                ? buffer.getFloat(base + index * Float.BYTES)
+                : buffer.getDouble(base + index * Double.BYTES);
+    }
+
+    private void requireActivations() {
+        if (spikes) {
+            throw new IllegalStateException("This recording stores spikes");
+        }
+    }
+
+    private void checkRange(long from, long to) {
+        if (from < 0 || to > getRowCount() || from > to) {
+            throw new IndexOutOfBoundsException("Rows " + from + " to " + to + " out of " + getRowCount());
+        }
+    }
+
+    /**
+     * Block containing a row.
+     */
+    private int blockOf(long row) {
+        if (row < 0 || row >= getRowCount()) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of " + getRowCount());
+        }
+        int block = Arrays.binarySearch(rowsBefore, row);
+        if (block < 0) {
+            return -block - 2;
+        }
+        // Skip empty blocks that start at the same row
+        while (rowsBefore[block + 1] == row) {
+            block++;
+        }
+        return block;
+    }
+
+    private synchronized ByteBuffer block(int block) {
+        if (mapped[block] == null) {
+            try {
+                mapped[block] = channel.map(FileChannel.MapMode.READ_ONLY, blockPositions[block],
+                        blockLengths[block]);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            mapped[block].order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return mapped[block];
+    }
+
+    /**
+     * Unmap the blocks and close the file.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        Arrays.fill(mapped, null);
+        channel.close();
+    }
+}
@@ -153,6 +153,8 @@ public class ProjectionComponent extends WorkspaceComponent implements Attribute
 
     @Consumable
     public void setLabel(String text) {
+        // Label the point most recently added, not the last one the ingestion worker got to
+        projector.awaitIngestion();
         if (projector.getCurrentPoint() != null) {
             String currentText = projector.getCurrentPoint().getLabel();
              // Don't empty filled text
@@ -533,13 +533,13 @@ public class ProjectionDesktopComponent extends DesktopComponent<ProjectionCompo
 
         @Override
         public Paint getItemPaint(int row, int column) {
-            Projector projector = getWorkspaceComponent().getProjector();
-            if (column >= projector.getNumPoints()) {
+            ProjectionSnapshot snapshot = getWorkspaceComponent().getProjector().getSnapshot();
+            if (column >= snapshot.getSize()) {
                 return Color.green;
             }
-            DataPointColored point = ((DataPointColored) projector.getUpstairs().getPoint(column));
-            if (point != null) {
-                return point.getColor();
+            Color color = snapshot.getColor(column);
+            if (color != null) {
+                return color;
             } else {
                 return Color.green;
             }
@@ -555,15 +555,11 @@ public class ProjectionDesktopComponent extends DesktopComponent<ProjectionCompo
 
         @Override
         public String generateLabel(XYDataset dataset, int series, int item) {
-            Projector projector = getWorkspaceComponent().getProjector();
-            if (item >= projector.getNumPoints()) {
+            ProjectionSnapshot snapshot = getWorkspaceComponent().getProjector().getSnapshot();
+            if (item >= snapshot.getSize()) {
                 return null;
             }
-            DataPointColored point = ((DataPointColored) projector.getUpstairs().getPoint(item));
-            if (point != null) {
-                return point.getLabel();
-            }
-            return null;
+            return snapshot.getLabel(item);
         }
     }
 
@@ -574,11 +570,11 @@ public class ProjectionDesktopComponent extends DesktopComponent<ProjectionCompo
     private class CustomToolTipGenerator extends CustomXYToolTipGenerator {
         @Override
         public String generateToolTip(XYDataset data, int series, int item) {
-            Projector projector = getWorkspaceComponent().getProjector();
-            if (item >= projector.getNumPoints()) {
+            ProjectionSnapshot snapshot = getWorkspaceComponent().getProjector().getSnapshot();
+            if (item >= snapshot.getSize()) {
                 return null;
             }
-            DataPoint point = projector.getUpstairs().getPoint(item);
+            DataPoint point = snapshot.getPoint(item);
             if (point != null) {
                 return Utils.doubleArrayToString(point.getVector());
             } else {
@@ -588,12 +584,14 @@ public class ProjectionDesktopComponent extends DesktopComponent<ProjectionCompo
     }
 
     public void resetData() {
-        xyCollection.getSeries(0).clear();
-        int size = getWorkspaceComponent().getProjector().getNumPoints();
-        for (int i = 0; i < size; i++) {
-            DataPoint point = getWorkspaceComponent().getProjector().getDownstairs().getPoint(i);
-            xyCollection.getSeries(0).add(point.get(0), point.get(1));
+        ProjectionSnapshot snapshot = getWorkspaceComponent().getProjector().getSnapshot();
+        XYSeries series = xyCollection.getSeries(0);
+        series.setNotify(false);
+        series.clear();
+        for (int i = 0; i < snapshot.getSize(); i++) {
+            series.add(snapshot.getX(i), snapshot.getY(i), false);
         }
+        series.setNotify(true);
     }
 
 }
@@ -43,6 +43,11 @@ public class ProjectionPreferencesDialog extends StandardDialog {
      */
     private JCheckBox autoFind = new JCheckBox();
 
+    /**
+     * Checkbox for adding points on a background thread.
+     */
+    private JCheckBox asynchronousIngestion = new JCheckBox();
+
     /**
      * Reference to projector being represented.
      */
@@ -60,6 +65,12 @@ public class ProjectionPreferencesDialog extends StandardDialog {
         tolerance.setToolTipText(toleranceToolTip);
         toleranceLabel.setToolTipText(toleranceToolTip);
         mainPanel.addItemLabel(toleranceLabel, tolerance);
+        String asyncToolTip = "Queue new datapoints and add them on a background thread, so that simulations "
+                + "do not wait for the projection";
+        JLabel asyncLabel = new JLabel("Add datapoints in background");
+        asyncLabel.setToolTipText(asyncToolTip);
+        asynchronousIngestion.setToolTipText(asyncToolTip);
+        mainPanel.addItemLabel(asyncLabel, asynchronousIngestion);
         if (projector.getProjectionMethod() instanceof ProjectCoordinate) {
             mainPanel.addItem("Coordinate projection auto-find mode", autoFind);
         }
@@ -72,6 +83,7 @@ public class ProjectionPreferencesDialog extends StandardDialog {
      */
     private void fillFieldValues() {
         tolerance.setText("" + projector.getTolerance());
+        asynchronousIngestion.setSelected(projector.isAsynchronousIngestion());
         if (projector.getProjectionMethod() instanceof ProjectCoordinate) {
             autoFind.setSelected(((ProjectCoordinate) projector.getProjectionMethod()).isAutoFind());
         }
@@ -80,6 +92,7 @@ public class ProjectionPreferencesDialog extends StandardDialog {
     @Override
     protected void closeDialogOk() {
         projector.setTolerance(Double.parseDouble(tolerance.getText()));
+        projector.setAsynchronousIngestion(asynchronousIngestion.isSelected());
         if (projector.getProjectionMethod() instanceof ProjectCoordinate) {
             ((ProjectCoordinate) projector.getProjectionMethod()).setAutoFind(autoFind.isSelected());
         }
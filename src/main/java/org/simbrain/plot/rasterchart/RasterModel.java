@@ -19,8 +19,6 @@
 package org.simbrain.plot.rasterchart;
 
 import com.thoughtworks.xstream.XStream;
-import org.jfree.data.xy.XYSeries;
-import org.jfree.data.xy.XYSeriesCollection;
 import org.simbrain.util.UserParameter;
 import org.simbrain.util.XStreamUtils;
 import org.simbrain.util.propertyeditor.EditableObject;
@@ -52,9 +50,15 @@ public class RasterModel implements AttributeContainer, EditableObject {
     private transient Supplier<Integer> timeSupplier;
 
     /**
-     * Raster Data.
+     * Raster data. Its steps are saved in {@link #savedSteps} and it is rebuilt from them when the model is opened.
      */
-    private XYSeriesCollection dataset = new XYSeriesCollection();
+    private transient SpikeRasterDataset dataset = new SpikeRasterDataset(100);
+
+    /**
+     * Steps of each series of the dataset, in order. Only set while the model is being saved, see
+     * {@link #storeSteps()}, and restored in {@link #readResolve()}.
+     */
+    private SpikeRasterStore.Steps[] savedSteps;
 
     /**
      * Should the range automatically change to reflect the data.
@@ -71,9 +75,16 @@ public class RasterModel implements AttributeContainer, EditableObject {
     /**
      * Size of window.
      */
-    @UserParameter(label = "Window Size", order = 5)
+    @UserParameter(label = "Window Size", useSetter = true, order = 5)
     private int windowSize = 100;
 
+    /**
+     * Number of time steps kept when the chart is not fixed width.
+     */
+    @UserParameter(label = "History Size", description = "Number of time steps kept when fixed width is off. " +
+            "Older steps are dropped.", minimumValue = 1, useSetter = true, order = 40)
+    private int historySize = 10_000;
+
     /**
      * Upper bound of the chart range.
      */
@@ -89,7 +100,7 @@ public class RasterModel implements AttributeContainer, EditableObject {
     /**
      * Whether this chart if fixed width or not.
      */
-    @UserParameter(label = "Fixed width", order = 30)
+    @UserParameter(label = "Fixed width", useSetter = true, order = 30)
     private boolean fixedWidth = true;
 
     /**
@@ -98,6 +109,7 @@ public class RasterModel implements AttributeContainer, EditableObject {
     public RasterModel(Supplier<Integer> timeSupplier) {
         addDataSources(INITIAL_DATA_SOURCES);
         this.timeSupplier = timeSupplier;
+        updateMaxSteps();
     }
 
     /**
@@ -116,7 +128,7 @@ public class RasterModel implements AttributeContainer, EditableObject {
      * Removes a data source from the chart.
      */
     public void removeDataSource() {
-        Integer lastSeriesIndex = dataset.getSeriesCount() - 1;
+        int lastSeriesIndex = dataset.getSeriesCount() - 1;
         if (lastSeriesIndex > 0) {
             dataset.removeSeries(lastSeriesIndex);
             rasterConsumerList.remove(lastSeriesIndex);
@@ -128,8 +140,8 @@ public class RasterModel implements AttributeContainer, EditableObject {
      * Adds a data source to the chart.
      */
     public void addDataSource() {
-        Integer currentSize = dataset.getSeriesCount();
-        dataset.addSeries(new XYSeries(currentSize + 1));
+        int currentSize = dataset.getSeriesCount();
+        dataset.addSeries(String.valueOf(currentSize + 1));
         rasterConsumerList.add(new RasterConsumer(currentSize));
     }
 
@@ -137,16 +149,34 @@ public class RasterModel implements AttributeContainer, EditableObject {
      * Clears the plot.
      */
     public void clearData() {
-        int seriesCount = dataset.getSeriesCount();
-        for (int i = 0; seriesCount > i; ++i) {
-            dataset.getSeries(i).clear();
-        }
+        dataset.clear();
+    }
+
+    /**
+     * Fixed width charts keep only the window, other charts keep the history.
+     */
+    private void updateMaxSteps() {
+        dataset.setMaxSteps(fixedWidth ? windowSize : historySize);
     }
 
-    public XYSeriesCollection getDataset() {
+    public SpikeRasterDataset getDataset() {
         return dataset;
     }
 
+    /**
+     * Copy the steps of the dataset to arrays saved with the model. Call {@link #clearStoredSteps()} once it is saved.
+     */
+    void storeSteps() {
+        savedSteps = new SpikeRasterStore.Steps[dataset.getSeriesCount()];
+        for (int i = 0; i < savedSteps.length; i++) {
+            savedSteps[i] = dataset.getStore(i).getSteps();
+        }
+    }
+
+    void clearStoredSteps() {
+        savedSteps = null;
+    }
+
     /**
      * Returns a properly initialized xstream object.
      *
@@ -161,6 +191,22 @@ public class RasterModel implements AttributeContainer, EditableObject {
      * See {@link org.simbrain.workspace.serialization.WorkspaceComponentDeserializer}
      */
     private Object readResolve() {
+        if (historySize == 0) {
+            // Saved before history size was added
+            historySize = 10_000;
+        }
+        dataset = new SpikeRasterDataset(100);
+        for (int i = 0; i < rasterConsumerList.size(); i++) {
+            dataset.addSeries(String.valueOf(i + 1));
+        }
+        updateMaxSteps();
+        if (savedSteps != null) {
+            int n = Math.min(dataset.getSeriesCount(), savedSteps.length);
+            for (int i = 0; i < n; i++) {
+                dataset.addSteps(i, savedSteps[i]);
+            }
+            clearStoredSteps();
+        }
         return this;
     }
 
@@ -170,6 +216,7 @@ public class RasterModel implements AttributeContainer, EditableObject {
 
     public void setFixedWidth(final boolean fixedWidth) {
         this.fixedWidth = fixedWidth;
+        updateMaxSteps();
     }
 
 
@@ -181,6 +228,10 @@ public class RasterModel implements AttributeContainer, EditableObject {
         return timeSupplier;
     }
 
+    public void setTimeSupplier(Supplier<Integer> timeSupplier) {
+        this.timeSupplier = timeSupplier;
+    }
+
     public int getDotSize() {
         return dotSize;
     }
@@ -191,6 +242,16 @@ public class RasterModel implements AttributeContainer, EditableObject {
 
     public void setWindowSize(final int windowSize) {
         this.windowSize = windowSize;
+        updateMaxSteps();
+    }
+
+    public int getHistorySize() {
+        return historySize;
+    }
+
+    public void setHistorySize(int historySize) {
+        this.historySize = historySize;
+        updateMaxSteps();
     }
 
     public boolean isAutoRange() {
@@ -218,29 +279,56 @@ public class RasterModel implements AttributeContainer, EditableObject {
     }
 
     /**
-     *  Objects that represent separate sets of raster points, shown in a different color in the
-     *      chart.
+     * Objects that represent separate sets of raster points, shown in a different color in the chart. Each time step's
+     * spikes can be sent as indices or as one flag per neuron, and are stored compactly in the
+     * {@link SpikeRasterDataset}.
      */
     public class RasterConsumer implements AttributeContainer {
 
         /**
-         * Index of this consumer in an {@link XYSeriesCollection}
+         * Index of this consumer's series in the {@link SpikeRasterDataset}.
          */
         int index = 0;
 
+        /**
+         * Indices converted from doubles.
+         */
+        private transient int[] indexBuffer;
+
         RasterConsumer(int index) {
             this.index = index;
         }
 
+        /**
+         * Add a time step with the indices of the neurons that spiked, e.g. from
+         * {@link org.simbrain.network.groups.NeuronGroup#getSpikeIndexes()}. Values are rounded to whole indices.
+         */
         @Consumable()
         public void setValues(final double[] values) {
-            if (values.length == 0) {
-                getDataset().getSeries(index).add(timeSupplier.get(), null);
-                return;
+            if (indexBuffer == null || indexBuffer.length < values.length) {
+                indexBuffer = new int[values.length];
             }
-            for (int i = 0, n = values.length; i < n; i++) {
-                getDataset().getSeries(index).add(timeSupplier.get(), (Double) values[i]);
+            for (int i = 0; i < values.length; i++) {
+                indexBuffer[i] = (int) Math.round(values[i]);
             }
+            dataset.add(index, timeSupplier.get(), indexBuffer, values.length);
+        }
+
+        /**
+         * Add a time step with the indices of the neurons that spiked.
+         */
+        @Consumable(description = "Spike indices")
+        public void setSpikeIndices(final int[] indices) {
+            dataset.add(index, timeSupplier.get(), indices, indices.length);
+        }
+
+        /**
+         * Add a time step where the neurons whose entries are true spiked, e.g. from
+         * {@link org.simbrain.network.matrix.NeuronArray#getSpikes()}.
+         */
+        @Consumable(description = "Spikes")
+        public void setSpikes(final boolean[] spikes) {
+            dataset.add(index, timeSupplier.get(), spikes);
         }
 
         @Override
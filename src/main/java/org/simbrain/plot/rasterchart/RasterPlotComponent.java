@@ -56,6 +56,7 @@ public class RasterPlotComponent extends WorkspaceComponent {
     public RasterPlotComponent(final String name, final RasterModel model) {
         super(name);
         this.model = model;
+        model.setTimeSupplier(() -> getWorkspace().getTime());
     }
 
     public RasterModel getModel() {
@@ -84,7 +85,12 @@ public class RasterPlotComponent extends WorkspaceComponent {
 
     @Override
     public void save(final OutputStream output, final String format) {
-        RasterModel.getXStream().toXML(model, output);
+        model.storeSteps();
+        try {
+            RasterModel.getXStream().toXML(model, output);
+        } finally {
+            model.clearStoredSteps();
+        }
     }
 
     @Override
@@ -94,7 +100,12 @@ public class RasterPlotComponent extends WorkspaceComponent {
 
     @Override
     public String getXML() {
-        return RasterModel.getXStream().toXML(model);
+        model.storeSteps();
+        try {
+            return RasterModel.getXStream().toXML(model);
+        } finally {
+            model.clearStoredSteps();
+        }
     }
 
     @Override
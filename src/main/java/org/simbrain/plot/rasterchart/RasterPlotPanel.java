@@ -21,9 +21,8 @@ package org.simbrain.plot.rasterchart;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
-import org.jfree.chart.plot.PlotOrientation;
-import org.jfree.chart.plot.XYPlot;
-import org.jfree.chart.renderer.xy.XYItemRenderer;
+import org.jfree.chart.axis.NumberAxis;
+import org.jfree.chart.renderer.xy.XYLineAndShapeRenderer;
 import org.simbrain.util.StandardDialog;
 import org.simbrain.util.propertyeditor.AnnotatedPropertyEditor;
 
@@ -64,9 +63,15 @@ public class RasterPlotPanel extends JPanel {
     private JPanel buttonPanel = new JPanel();
 
     /**
-     * Renderer object where things like dot color and size are set.
+     * Renderer object where things like dot color and legend shapes are set. Spikes themselves are drawn by the
+     * {@link SpikeRasterPlot}.
      */
-    private XYItemRenderer renderer;
+    private XYLineAndShapeRenderer renderer;
+
+    /**
+     * Plot that rasterizes the spikes.
+     */
+    private SpikeRasterPlot plot;
 
 
     /**
@@ -95,17 +100,15 @@ public class RasterPlotPanel extends JPanel {
      */
     public void init() {
 
-        // Generate the graph
-        chart = ChartFactory.createScatterPlot("", // Title
-            "Iterations", // x-axis Label
-            "Value(s)", // y-axis Label
-            model.getDataset(), // Dataset
-            PlotOrientation.VERTICAL, // Plot Orientation
-            true, // Show Legend
-            true, // Use tooltips
-            false // Configure chart to generate URLs?
-        );
-        renderer = ((XYPlot) chart.getPlot()).getRenderer();
+        // Generate the graph, set up like a scatter plot
+        NumberAxis xAxis = new NumberAxis("Iterations");
+        xAxis.setAutoRangeIncludesZero(false);
+        NumberAxis yAxis = new NumberAxis("Value(s)");
+        yAxis.setAutoRangeIncludesZero(false);
+        renderer = new XYLineAndShapeRenderer(false, true);
+        plot = new SpikeRasterPlot(model.getDataset(), xAxis, yAxis, renderer);
+        chart = new JFreeChart("", JFreeChart.DEFAULT_TITLE_FONT, plot, true);
+        ChartFactory.getChartTheme().apply(chart);
         updateChartSettings();
         chartPanel.setChart(chart);
         chart.setBackgroundPaint(null);
@@ -123,6 +126,7 @@ public class RasterPlotPanel extends JPanel {
         renderer.setSeriesShape(1, shape2);
         renderer.setSeriesShape(2, shape1);
         renderer.setSeriesShape(3, shape2);
+        plot.setDotSize(model.getDotSize());
 
         // Handle range properties
         chart.getXYPlot().getRangeAxis().setAutoRange(model.isAutoRange());
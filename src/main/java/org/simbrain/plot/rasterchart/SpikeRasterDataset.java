@@ -0,0 +1,220 @@
+package org.simbrain.plot.rasterchart;
+
+import org.jfree.data.DomainInfo;
+import org.jfree.data.DomainOrder;
+import org.jfree.data.Range;
+import org.jfree.data.RangeInfo;
+import org.jfree.data.xy.AbstractXYDataset;
+import org.jfree.data.xy.XYDomainInfo;
+import org.jfree.data.xy.XYRangeInfo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The series of a raster plot, each backed by a {@link SpikeRasterStore}.
+ * <br>
+ * Spikes are not exposed to JFreeChart as items: every series reports no items, so the chart's renderer only draws
+ * the legend, and {@link SpikeRasterPlot} draws the spikes itself. The dataset reports domain and range bounds from
+ * the stores so that the axes still auto-range.
+ */
+public class SpikeRasterDataset extends AbstractXYDataset implements DomainInfo, RangeInfo, XYDomainInfo,
+        XYRangeInfo {
+
+    private final List<String> keys = new ArrayList<>();
+
+    private final List<SpikeRasterStore> stores = new ArrayList<>();
+
+    /**
+     * Maximum number of steps kept by each series.
+     */
+    private int maxSteps;
+
+    public SpikeRasterDataset(int maxSteps) {
+        this.maxSteps = maxSteps;
+    }
+
+    public void addSeries(String key) {
+        synchronized (this) {
+            keys.add(key);
+            stores.add(new SpikeRasterStore(maxSteps));
+        }
+        fireDatasetChanged();
+    }
+
+    public void removeSeries(int series) {
+        synchronized (this) {
+            keys.remove(series);
+            stores.remove(series);
+        }
+        fireDatasetChanged();
+    }
+
+    /**
+     * Add a time step to a series with the first count entries of indices as the neurons that spiked.
+     */
+    public void add(int series, double time, int[] indices, int count) {
+        getStore(series).add(time, indices, count);
+        fireDatasetChanged();
+    }
+
+    /**
+     * Add a time step to a series where the neurons whose entries are true spiked.
+     */
+    public void add(int series, double time, boolean[] spiked) {
+        getStore(series).add(time, spiked);
+        fireDatasetChanged();
+    }
+
+    public void clear() {
+        synchronized (this) {
+            stores.forEach(SpikeRasterStore::clear);
+        }
+        fireDatasetChanged();
+    }
+
+    synchronized SpikeRasterStore getStore(int series) {
+        return stores.get(series);
+    }
+
+    /**
+     * Add saved steps to a series, see {@link SpikeRasterStore#getSteps()}.
+     */
+    void addSteps(int series, SpikeRasterStore.Steps steps) {
+        getStore(series).addSteps(steps);
+        fireDatasetChanged();
+    }
+
+    public synchronized int getMaxSteps() {
+        return maxSteps;
+    }
+
+    /**
+     * Set the number of steps each series keeps, dropping the oldest steps of series that have more.
+     */
+    public void setMaxSteps(int maxSteps) {
+        synchronized (this) {
+            this.maxSteps = maxSteps;
+            stores.forEach(s -> s.setMaxSteps(maxSteps));
+        }
+        fireDatasetChanged();
+    }
+
+    @Override
+    public synchronized int getSeriesCount() {
+        return stores.size();
+    }
+
+    @Override
+    public synchronized Comparable getSeriesKey(int series) {
+        return keys.get(series);
+    }
+
+    @Override
+    public DomainOrder getDomainOrder() {
+        return DomainOrder.ASCENDING;
+    }
+
+    /**
+     * Spikes are drawn by {@link SpikeRasterPlot}, so no items are reported.
+     */
+    @Override
+    public int getItemCount(int series) {
+        return 0;
+    }
+
+    @Override
+    public Number getX(int series, int item) {
+        throw new IndexOutOfBoundsException("Raster series have no items");
+    }
+
+    @Override
+    public Number getY(int series, int item) {
+        throw new IndexOutOfBoundsException("Raster series have no items");
+    }
+
+    @Override
+    public double getDomainLowerBound(boolean includeInterval) {
+        Range range = getDomainBounds(includeInterval);
+        return range == null ? Double.NaN : range.getLowerBound();
+    }
+
+    @Override
+    public double getDomainUpperBound(boolean includeInterval) {
+        Range range = getDomainBounds(includeInterval);
+        return range == null ? Double.NaN : range.getUpperBound();
+    }
+
+    @Override
+    public synchronized Range getDomainBounds(boolean includeInterval) {
+        return getDomainBounds(stores);
+    }
+
+    @Override
+    public synchronized Range getDomainBounds(List visibleSeriesKeys, boolean includeInterval) {
+        return getDomainBounds(visibleStores(visibleSeriesKeys));
+    }
+
+    @Override
+    public double getRangeLowerBound(boolean includeInterval) {
+        Range range = getRangeBounds(includeInterval);
+        return range == null ? Double.NaN : range.getLowerBound();
+    }
+
+    @Override
+    public double getRangeUpperBound(boolean includeInterval) {
+        Range range = getRangeBounds(includeInterval);
+        return range == null ? Double.NaN : range.getUpperBound();
+    }
+
+    /**
+     * Range of the indices in the stored steps.
+     */
+    @Override
+    public synchronized Range getRangeBounds(boolean includeInterval) {
+        return getRangeBounds(stores, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Range of the indices in the stored steps of the visible series whose time is in the x range.
+     */
+    @Override
+    public synchronized Range getRangeBounds(List visibleSeriesKeys, Range xRange, boolean includeInterval) {
+        return getRangeBounds(visibleStores(visibleSeriesKeys), xRange.getLowerBound(), xRange.getUpperBound());
+    }
+
+    private List<SpikeRasterStore> visibleStores(List<?> visibleKeys) {
+        List<SpikeRasterStore> visible = new ArrayList<>();
+        for (int i = 0; i < stores.size(); i++) {
+            if (visibleKeys.contains(keys.get(i))) {
+                visible.add(stores.get(i));
+            }
+        }
+        return visible;
+    }
+
+    private static Range getDomainBounds(List<SpikeRasterStore> stores) {
+        double lower = Double.POSITIVE_INFINITY;
+        double upper = Double.NEGATIVE_INFINITY;
+        for (SpikeRasterStore store : stores) {
+            if (store.getStepCount() > 0) {
+                lower = Math.min(lower, store.getFirstTime());
+                upper = Math.max(upper, store.getLastTime());
+            }
+        }
+        return lower > upper ? null : new Range(lower, upper);
+    }
+
+    private static Range getRangeBounds(List<SpikeRasterStore> stores, double from, double to) {
+        double lower = Double.POSITIVE_INFINITY;
+        double upper = Double.NEGATIVE_INFINITY;
+        for (SpikeRasterStore store : stores) {
+            int[] bounds = store.getIndexBounds(from, to);
+            if (bounds != null) {
+                lower = Math.min(lower, bounds[0]);
+                upper = Math.max(upper, bounds[1]);
+            }
+        }
+        return lower > upper ? null : new Range(lower, upper);
+    }
+}
@@ -0,0 +1,129 @@
+package org.simbrain.plot.rasterchart;
+
+import org.jfree.chart.axis.ValueAxis;
+import org.jfree.chart.plot.CrosshairState;
+import org.jfree.chart.plot.PlotRenderingInfo;
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.chart.renderer.xy.XYItemRenderer;
+import org.jfree.chart.ui.RectangleEdge;
+import org.jfree.data.xy.XYDataset;
+
+import java.awt.*;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * A plot that draws a {@link SpikeRasterDataset} by writing spikes straight into the pixels of an image the size of
+ * the data area, which is then drawn in one call. Drawing cost depends on the number of spikes in view and the size
+ * of the plot, not on shapes: a spike is a square of {@link #getDotSize()} pixels, and spikes that land on the same
+ * pixels simply overwrite each other.
+ * <br>
+ * Colors and series visibility come from the plot's renderer, so the spikes match the legend.
+ */
+class SpikeRasterPlot extends XYPlot {
+
+    /**
+     * Width and height of the square drawn for each spike, in pixels.
+     */
+    private int dotSize = 4;
+
+    /**
+     * Image the spikes are drawn into, reused while the data area keeps its size.
+     */
+    private transient BufferedImage image;
+
+    private transient int[] pixels;
+
+    SpikeRasterPlot(SpikeRasterDataset dataset, ValueAxis domainAxis, ValueAxis rangeAxis,
+                    XYItemRenderer renderer) {
+        super(dataset, domainAxis, rangeAxis, renderer);
+    }
+
+    int getDotSize() {
+        return dotSize;
+    }
+
+    void setDotSize(int dotSize) {
+        this.dotSize = Math.max(1, dotSize);
+        fireChangeEvent();
+    }
+
+    @Override
+    public boolean render(Graphics2D g2, Rectangle2D dataArea, int index, PlotRenderingInfo info,
+                          CrosshairState crosshairState) {
+        XYDataset dataset = getDataset(index);
+        if (!(dataset instanceof SpikeRasterDataset)) {
+            return super.render(g2, dataArea, index, info, crosshairState);
+        }
+        int width = (int) Math.ceil(dataArea.getWidth());
+        int height = (int) Math.ceil(dataArea.getHeight());
+        if (width <= 0 || height <= 0) {
+            return false;
+        }
+        if (image == null || image.getWidth() != width || image.getHeight() != height) {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        } else {
+            Arrays.fill(pixels, 0);
+        }
+
+        ValueAxis xAxis = getDomainAxisForDataset(index);
+        ValueAxis yAxis = getRangeAxisForDataset(index);
+        RectangleEdge xEdge = getDomainAxisEdge();
+        RectangleEdge yEdge = getRangeAxisEdge();
+
+        // Both axes are linear, so map values to pixels with an offset and a scale
+        double xOffset = xAxis.valueToJava2D(0, dataArea, xEdge) - dataArea.getX();
+        double xScale = xAxis.valueToJava2D(1, dataArea, xEdge) - dataArea.getX() - xOffset;
+        double yOffset = yAxis.valueToJava2D(0, dataArea, yEdge) - dataArea.getY();
+        double yScale = yAxis.valueToJava2D(1, dataArea, yEdge) - dataArea.getY() - yOffset;
+
+        // Include spikes just outside the domain whose dots reach into the data area
+        double margin = Math.abs(dotSize / xScale);
+        double from = xAxis.getLowerBound() - margin;
+        double to = xAxis.getUpperBound() + margin;
+
+        SpikeRasterDataset rasterDataset = (SpikeRasterDataset) dataset;
+        XYItemRenderer renderer = getRendererForDataset(dataset);
+        int half = dotSize / 2;
+        boolean foundData = false;
+        for (int series = 0; series < rasterDataset.getSeriesCount(); series++) {
+            if (renderer != null && !renderer.isSeriesVisible(series)) {
+                continue;
+            }
+            SpikeRasterStore store = rasterDataset.getStore(series);
+            foundData |= store.getStepCount() > 0;
+            int rgb = seriesColor(renderer, series).getRGB() | 0xFF000000;
+            store.visit(from, to, (time, neuron) -> {
+                int x = (int) Math.round(xOffset + xScale * time) - half;
+                int y = (int) Math.round(yOffset + yScale * neuron) - half;
+                fill(x, y, width, height, rgb);
+            });
+        }
+        g2.drawImage(image, (int) Math.round(dataArea.getX()), (int) Math.round(dataArea.getY()), null);
+        return foundData;
+    }
+
+    /**
+     * Fill a dot whose top left corner is at (x, y), clipped to the image.
+     */
+    private void fill(int x, int y, int width, int height, int rgb) {
+        int x0 = Math.max(x, 0);
+        int x1 = Math.min(x + dotSize, width);
+        int y0 = Math.max(y, 0);
+        int y1 = Math.min(y + dotSize, height);
+        for (int row = y0; row < y1; row++) {
+            int offset = row * width;
+            for (int column = x0; column < x1; column++) {
+                pixels[offset + column] = rgb;
+            }
+        }
+    }
+
+    private static Color seriesColor(XYItemRenderer renderer, int series) {
+        Paint paint = renderer == null ? null : renderer.getItemPaint(series, 0);
+        return paint instanceof Color ? (Color) paint : Color.black;
+    }
+}
@@ -0,0 +1,354 @@
+package org.simbrain.plot.rasterchart;
+
+/**
+ * Spike raster data for one source: for each time step, the indices of the neurons that spiked.
+ * <br>
+ * Steps are kept in a ring buffer in compressed sparse row form. Each step is a time, a start position and a length,
+ * and the spike indices of all steps are packed one after another in a single circular int array. A step therefore
+ * costs a few array entries plus one int per spike, rather than an object per spike. When more than
+ * {@link #getMaxSteps()} steps have been added the oldest are dropped.
+ * <br>
+ * Methods are synchronized so steps can be added from the workspace thread while the plot reads them.
+ */
+class SpikeRasterStore {
+
+    /**
+     * Maximum number of steps kept.
+     */
+    private int maxSteps;
+
+    /**
+     * Ring of steps, oldest at {@link #firstStep}, with the smallest and largest index that spiked in each step. The
+     * arrays grow up to maxSteps.
+     */
+    private double[] times = new double[64];
+    private long[] starts = new long[64];
+    private int[] lengths = new int[64];
+    private int[] minIndices = new int[64];
+    private int[] maxIndices = new int[64];
+    private int firstStep;
+    private int stepCount;
+
+    /**
+     * Spike indices, addressed by absolute position masked to the array length, which is a power of two.
+     */
+    private int[] spikes = new int[1024];
+    private long spikeStart;
+    private long spikeEnd;
+
+    /**
+     * Smallest and largest index in the step being added.
+     */
+    private int minIndex;
+    private int maxIndex;
+
+    /**
+     * Called with each spike found by {@link #visit}.
+     */
+    interface SpikeVisitor {
+        void spike(double time, int index);
+    }
+
+    /**
+     * The steps of a store in compressed sparse row form, oldest first: the spikes of step i are
+     * indices[starts[i]] to indices[starts[i + 1] - 1]. Used to save a store, see {@link #getSteps()}.
+     */
+    static class Steps {
+        double[] times;
+        int[] starts;
+        int[] indices;
+    }
+
+    SpikeRasterStore(int maxSteps) {
+        this.maxSteps = Math.max(1, maxSteps);
+    }
+
+    /**
+     * Add a time step with the first count entries of indices as the neurons that spiked.
+     */
+    synchronized void add(double time, int[] indices, int count) {
+        reserve(count);
+        int mask = spikes.length - 1;
+        for (int i = 0; i < count; i++) {
+            putSpike(spikeEnd + i, mask, indices[i]);
+        }
+        commit(time, count);
+    }
+
+    /**
+     * Add a time step where the neurons whose entries are true spiked.
+     */
+    synchronized void add(double time, boolean[] spiked) {
+        int count = 0;
+        for (boolean value : spiked) {
+            if (value) {
+                count++;
+            }
+        }
+        reserve(count);
+        int mask = spikes.length - 1;
+        int n = 0;
+        for (int i = 0; i < spiked.length; i++) {
+            if (spiked[i]) {
+                putSpike(spikeEnd + n++, mask, i);
+            }
+        }
+        commit(time, count);
+    }
+
+    /**
+     * Make room for a step with count spikes, dropping the oldest step if the store is full.
+     */
+    private void reserve(int count) {
+        if (stepCount == maxSteps) {
+            dropOldest();
+        }
+        if (stepCount == times.length) {
+            growSteps(Math.min(maxSteps, 2 * times.length));
+        }
+        ensureSpikeCapacity(spikeEnd - spikeStart + count);
+        minIndex = Integer.MAX_VALUE;
+        maxIndex = Integer.MIN_VALUE;
+    }
+
+    private void putSpike(long position, int mask, int index) {
+        spikes[(int) position & mask] = index;
+        if (index < minIndex) {
+            minIndex = index;
+        }
+        if (index > maxIndex) {
+            maxIndex = index;
+        }
+    }
+
+    /**
+     * Record a step whose count spikes have been written after the current end.
+     */
+    private void commit(double time, int count) {
+        int slot = stepSlot(stepCount);
+        times[slot] = time;
+        starts[slot] = spikeEnd;
+        lengths[slot] = count;
+        minIndices[slot] = minIndex;
+        maxIndices[slot] = maxIndex;
+        spikeEnd += count;
+        stepCount++;
+    }
+
+    private void dropOldest() {
+        spikeStart += lengths[firstStep];
+        firstStep = stepSlot(1);
+        stepCount--;
+    }
+
+    private int stepSlot(int step) {
+        int slot = firstStep + step;
+        return slot >= times.length ? slot - times.length : slot;
+    }
+
+    private void growSteps(int length) {
+        double[] newTimes = new double[length];
+        long[] newStarts = new long[length];
+        int[] newLengths = new int[length];
+        int[] newMinIndices = new int[length];
+        int[] newMaxIndices = new int[length];
+        for (int i = 0; i < stepCount; i++) {
+            int slot = stepSlot(i);
+            newTimes[i] = times[slot];
+            newStarts[i] = starts[slot];
+            newLengths[i] = lengths[slot];
+            newMinIndices[i] = minIndices[slot];
+            newMaxIndices[i] = maxIndices[slot];
+        }
+        times = newTimes;
+        starts = newStarts;
+        lengths = newLengths;
+        minIndices = newMinIndices;
+        maxIndices = newMaxIndices;
+        firstStep = 0;
+    }
+
+    private void ensureSpikeCapacity(long needed) {
+        if (needed <= spikes.length) {
+            return;
+        }
+        int length = spikes.length;
+        while (length < needed) {
+            length *= 2;
+        }
+        int[] newSpikes = new int[length];
+        int oldMask = spikes.length - 1;
+        int newMask = length - 1;
+        for (long position = spikeStart; position < spikeEnd; position++) {
+            newSpikes[(int) position & newMask] = spikes[(int) position & oldMask];
+        }
+        spikes = newSpikes;
+    }
+
+    /**
+     * Call the visitor with each spike in steps whose time is in [from, to], oldest first.
+     */
+    synchronized void visit(double from, double to, SpikeVisitor visitor) {
+        int mask = spikes.length - 1;
+        for (int step = firstStepAtOrAfter(from); step < stepCount; step++) {
+            int slot = stepSlot(step);
+            double time = times[slot];
+            if (time > to) {
+                break;
+            }
+            long start = starts[slot];
+            for (int i = 0; i < lengths[slot]; i++) {
+                visitor.spike(time, spikes[(int) (start + i) & mask]);
+            }
+        }
+    }
+
+    /**
+     * First step with a time of at least the given value. Times are assumed to increase.
+     */
+    private int firstStepAtOrAfter(double time) {
+        int low = 0;
+        int high = stepCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (times[stepSlot(mid)] < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    synchronized void clear() {
+        firstStep = 0;
+        stepCount = 0;
+        spikeStart = 0;
+        spikeEnd = 0;
+    }
+
+    synchronized int getStepCount() {
+        return stepCount;
+    }
+
+    synchronized long getSpikeCount() {
+        return spikeEnd - spikeStart;
+    }
+
+    /**
+     * Time of a stored step, oldest first.
+     */
+    synchronized double getTime(int step) {
+        return times[stepSlot(step)];
+    }
+
+    /**
+     * Indices of the neurons that spiked in a stored step, oldest first.
+     */
+    synchronized int[] getSpikes(int step) {
+        int slot = stepSlot(step);
+        int[] result = new int[lengths[slot]];
+        int mask = spikes.length - 1;
+        for (int i = 0; i < result.length; i++) {
+            result[i] = spikes[(int) (starts[slot] + i) & mask];
+        }
+        return result;
+    }
+
+    synchronized double getFirstTime() {
+        return stepCount == 0 ? Double.NaN : times[firstStep];
+    }
+
+    synchronized double getLastTime() {
+        return stepCount == 0 ? Double.NaN : times[stepSlot(stepCount - 1)];
+    }
+
+    /**
+     * Smallest and largest index that spiked in the stored steps whose time is in [from, to], or null if none did.
+     */
+    synchronized int[] getIndexBounds(double from, double to) {
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int step = firstStepAtOrAfter(from); step < stepCount; step++) {
+            int slot = stepSlot(step);
+            if (times[slot] > to) {
+                break;
+            }
+            if (lengths[slot] > 0) {
+                min = Math.min(min, minIndices[slot]);
+                max = Math.max(max, maxIndices[slot]);
+            }
+        }
+        return min > max ? null : new int[]{min, max};
+    }
+
+    /**
+     * Smallest index in the stored steps, or {@link Integer#MAX_VALUE} if they have no spikes.
+     */
+    synchronized int getMinIndex() {
+        int[] bounds = getIndexBounds(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+        return bounds == null ? Integer.MAX_VALUE : bounds[0];
+    }
+
+    /**
+     * Largest index in the stored steps, or {@link Integer#MIN_VALUE} if they have no spikes.
+     */
+    synchronized int getMaxIndex() {
+        int[] bounds = getIndexBounds(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+        return bounds == null ? Integer.MIN_VALUE : bounds[1];
+    }
+
+    /**
+     * Copy of the stored steps, for saving.
+     */
+    synchronized Steps getSteps() {
+        Steps steps = new Steps();
+        steps.times = new double[stepCount];
+        steps.starts = new int[stepCount + 1];
+        steps.indices = new int[(int) (spikeEnd - spikeStart)];
+        int mask = spikes.length - 1;
+        int n = 0;
+        for (int step = 0; step < stepCount; step++) {
+            int slot = stepSlot(step);
+            steps.times[step] = times[slot];
+            steps.starts[step] = n;
+            for (int i = 0; i < lengths[slot]; i++) {
+                steps.indices[n++] = spikes[(int) (starts[slot] + i) & mask];
+            }
+        }
+        steps.starts[stepCount] = n;
+        return steps;
+    }
+
+    /**
+     * Add saved steps after the stored ones, see {@link #getSteps()}.
+     */
+    synchronized void addSteps(Steps steps) {
+        int[] indices = new int[0];
+        for (int step = 0; step < steps.times.length; step++) {
+            int count = steps.starts[step + 1] - steps.starts[step];
+            if (indices.length < count) {
+                indices = new int[count];
+            }
+            System.arraycopy(steps.indices, steps.starts[step], indices, 0, count);
+            add(steps.times[step], indices, count);
+        }
+    }
+
+    synchronized int getMaxSteps() {
+        return maxSteps;
+    }
+
+    /**
+     * Set the number of steps kept, dropping the oldest if there are more.
+     */
+    synchronized void setMaxSteps(int maxSteps) {
+        this.maxSteps = Math.max(1, maxSteps);
+        while (stepCount > this.maxSteps) {
+            dropOldest();
+        }
+        if (times.length > this.maxSteps) {
+            growSteps(Math.max(stepCount, this.maxSteps));
+        }
+    }
+}
@@ -0,0 +1,824 @@
+package org.simbrain.plot.timeseries;
+
+import org.jfree.data.DomainInfo;
+import org.jfree.data.DomainOrder;
+import org.jfree.data.Range;
+import org.jfree.data.RangeInfo;
+import org.jfree.data.xy.AbstractXYDataset;
+import org.jfree.data.xy.XYDomainInfo;
+import org.jfree.data.xy.XYRangeInfo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An {@link org.jfree.data.xy.XYDataset} for long time series. Each series keeps its most recent points in a ring
+ * buffer of primitive doubles, so adding a point is O(1) and allocates nothing once the buffer is full. Points that
+ * fall out of the buffer are dropped, or if {@link #setSpillToDisk(boolean) spilling} is on, moved to a memory-mapped
+ * file so they can still be scrolled back to.
+ * <br>
+ * The chart does not see the stored points directly. Instead each series presents a view of the points in the
+ * current domain range, {@link #setView(double, double, int) decimated} to about the width of the plot in pixels.
+ * Views are rebuilt when the chart asks for them after the data or the view changes, so a plot showing a million
+ * points per series draws about as fast as one showing a thousand. Domain and range bounds for auto-ranging are
+ * computed from the points in memory without building views.
+ * <br>
+ * The dataset is synchronized so points can be added from the workspace thread while the chart is drawn on the
+ * Swing thread.
+ */
+public class RingBufferXYDataset extends AbstractXYDataset implements DomainInfo, RangeInfo, XYDomainInfo,
+        XYRangeInfo {
+
+    /**
+     * How the points in view are reduced to the plot width.
+     */
+    public enum Decimation {
+
+        /**
+         * Show every point.
+         */
+        NONE("None"),
+
+        /**
+         * Keep the smallest and largest value in each pixel column, so spikes are never lost.
+         */
+        MIN_MAX("Min / max"),
+
+        /**
+         * Largest-triangle-three-buckets: keep the point in each pixel column that best preserves the shape of the
+         * line.
+         */
+        LTTB("Largest triangle");
+
+        private final String description;
+
+        Decimation(String description) {
+            this.description = description;
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+
+    /**
+     * Default number of points kept in memory per series.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    /**
+     * View width used until {@link #setView(double, double, int)} is called.
+     */
+    public static final int DEFAULT_VIEW_WIDTH = 1000;
+
+    /**
+     * Points per block in the summaries used for range bounds, a power of two.
+     */
+    private static final int BLOCK_SHIFT = 8;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+
+    private final List<Series> seriesList = new ArrayList<>();
+
+    private int capacity;
+
+    private boolean spillToDisk = false;
+
+    private Decimation decimation = Decimation.MIN_MAX;
+
+    private double viewLower = Double.NEGATIVE_INFINITY;
+
+    private double viewUpper = Double.POSITIVE_INFINITY;
+
+    private int viewWidth = DEFAULT_VIEW_WIDTH;
+
+    /**
+     * Dataset keeping {@link #DEFAULT_CAPACITY} points per series in memory.
+     */
+    public RingBufferXYDataset() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Dataset keeping the given number of points per series in memory.
+     */
+    public RingBufferXYDataset(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    /**
+     * Add an empty series with the given key and return it.
+     */
+    public Series addSeries(String key) {
+        Series series = new Series(key);
+        synchronized (this) {
+            seriesList.add(series);
+        }
+        fireDatasetChanged();
+        return series;
+    }
+
+    public void removeSeries(Series series) {
+        synchronized (this) {
+            if (!seriesList.remove(series)) {
+                return;
+            }
+            series.closeSpill();
+        }
+        fireDatasetChanged();
+    }
+
+    public void removeAllSeries() {
+        synchronized (this) {
+            seriesList.forEach(Series::closeSpill);
+            seriesList.clear();
+        }
+        fireDatasetChanged();
+    }
+
+    public synchronized Series getSeries(int index) {
+        return seriesList.get(index);
+    }
+
+    public synchronized List<Series> getSeriesList() {
+        return new ArrayList<>(seriesList);
+    }
+
+    /**
+     * Add a point to a series and notify the chart.
+     */
+    public void add(Series series, double x, double y) {
+        synchronized (this) {
+            series.append(x, y);
+        }
+        fireDatasetChanged();
+    }
+
+    /**
+     * Add points to a series in order and notify the chart once.
+     */
+    public void addPoints(Series series, double[] xs, double[] ys) {
+        synchronized (this) {
+            int n = Math.min(xs.length, ys.length);
+            for (int i = 0; i < n; i++) {
+                series.append(xs[i], ys[i]);
+            }
+        }
+        fireDatasetChanged();
+    }
+
+    /**
+     * Add a point with the same x value to each of the first values.length series, and notify the chart once.
+     */
+    public void addAll(double x, double[] values) {
+        synchronized (this) {
+            int n = Math.min(values.length, seriesList.size());
+            for (int i = 0; i < n; i++) {
+                seriesList.get(i).append(x, values[i]);
+            }
+        }
+        fireDatasetChanged();
+    }
+
+    /**
+     * Remove all points from all series.
+     */
+    public void clear() {
+        synchronized (this) {
+            seriesList.forEach(Series::clear);
+        }
+        fireDatasetChanged();
+    }
+
+    /**
+     * Set the part of the domain shown and the width it is drawn at in pixels. Series views are reduced to about
+     * this many points according to the {@link Decimation}.
+     */
+    public synchronized void setView(double lower, double upper, int width) {
+        width = Math.max(1, width);
+        if (lower == viewLower && upper == viewUpper && width == viewWidth) {
+            return;
+        }
+        viewLower = lower;
+        viewUpper = upper;
+        viewWidth = width;
+        seriesList.forEach(s -> s.viewValid = false);
+    }
+
+    public synchronized int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Set the number of points kept in memory per series. If it is reduced, the oldest points are dropped or
+     * spilled.
+     */
+    public void setCapacity(int capacity) {
+        synchronized (this) {
+            capacity = Math.max(1, capacity);
+            if (capacity == this.capacity) {
+                return;
+            }
+            this.capacity = capacity;
+            seriesList.forEach(Series::resize);
+        }
+        fireDatasetChanged();
+    }
+
+    public synchronized boolean isSpillToDisk() {
+        return spillToDisk;
+    }
+
+    /**
+     * If true, points that no longer fit in memory are written to a temporary memory-mapped file instead of being
+     * dropped. Turning it off deletes any spilled points.
+     */
+    public void setSpillToDisk(boolean spillToDisk) {
+        synchronized (this) {
+            if (this.spillToDisk == spillToDisk) {
+                return;
+            }
+            this.spillToDisk = spillToDisk;
+            if (!spillToDisk) {
+                seriesList.forEach(Series::closeSpill);
+            }
+        }
+        fireDatasetChanged();
+    }
+
+    public synchronized Decimation getDecimation() {
+        return decimation;
+    }
+
+    public void setDecimation(Decimation decimation) {
+        synchronized (this) {
+            this.decimation = decimation;
+            seriesList.forEach(s -> s.viewValid = false);
+        }
+        fireDatasetChanged();
+    }
+
+    @Override
+    public synchronized int getSeriesCount() {
+        return seriesList.size();
+    }
+
+    @Override
+    public synchronized Comparable getSeriesKey(int series) {
+        return seriesList.get(series).key;
+    }
+
+    @Override
+    public synchronized DomainOrder getDomainOrder() {
+        for (Series s : seriesList) {
+            if (!s.ascending) {
+                return DomainOrder.NONE;
+            }
+        }
+        return DomainOrder.ASCENDING;
+    }
+
+    /**
+     * Number of points in the series' current view, which is rebuilt here if needed.
+     */
+    @Override
+    public synchronized int getItemCount(int series) {
+        Series s = seriesList.get(series);
+        s.updateView();
+        return s.viewSize;
+    }
+
+    @Override
+    public synchronized double getXValue(int series, int item) {
+        Series s = seriesList.get(series);
+        return s.viewX[Math.min(item, s.viewSize - 1)];
+    }
+
+    @Override
+    public synchronized double getYValue(int series, int item) {
+        Series s = seriesList.get(series);
+        return s.viewY[Math.min(item, s.viewSize - 1)];
+    }
+
+    @Override
+    public Number getX(int series, int item) {
+        return getXValue(series, item);
+    }
+
+    @Override
+    public Number getY(int series, int item) {
+        return getYValue(series, item);
+    }
+
+    @Override
+    public double getDomainLowerBound(boolean includeInterval) {
+        Range range = getDomainBounds(includeInterval);
+        return range == null ? Double.NaN : range.getLowerBound();
+    }
+
+    @Override
+    public double getDomainUpperBound(boolean includeInterval) {
+        Range range = getDomainBounds(includeInterval);
+        return range == null ? Double.NaN : range.getUpperBound();
+    }
+
+    @Override
+    public synchronized Range getDomainBounds(boolean includeInterval) {
+        return getDomainBounds(seriesList);
+    }
+
+    @Override
+    public synchronized Range getDomainBounds(List visibleSeriesKeys, boolean includeInterval) {
+        return getDomainBounds(visibleSeries(visibleSeriesKeys));
+    }
+
+    @Override
+    public double getRangeLowerBound(boolean includeInterval) {
+        Range range = getRangeBounds(includeInterval);
+        return range == null ? Double.NaN : range.getLowerBound();
+    }
+
+    @Override
+    public double getRangeUpperBound(boolean includeInterval) {
+        Range range = getRangeBounds(includeInterval);
+        return range == null ? Double.NaN : range.getUpperBound();
+    }
+
+    @Override
+    public synchronized Range getRangeBounds(boolean includeInterval) {
+        return getRangeBounds(seriesList);
+    }
+
+    /**
+     * Range of the visible series. The x range is not used, so the bounds cover all points in memory.
+     */
+    @Override
+    public synchronized Range getRangeBounds(List visibleSeriesKeys, Range xRange, boolean includeInterval) {
+        return getRangeBounds(visibleSeries(visibleSeriesKeys));
+    }
+
+    private List<Series> visibleSeries(List<?> keys) {
+        List<Series> visible = new ArrayList<>();
+        for (Series s : seriesList) {
+            if (keys.contains(s.key)) {
+                visible.add(s);
+            }
+        }
+        return visible;
+    }
+
+    private static Range getDomainBounds(List<Series> series) {
+        double lower = Double.POSITIVE_INFINITY;
+        double upper = Double.NEGATIVE_INFINITY;
+        for (Series s : series) {
+            if (s.count == 0) {
+                continue;
+            }
+            if (s.ascending) {
+                lower = Math.min(lower, s.memoryX(0));
+                upper = Math.max(upper, s.memoryX(s.count - 1));
+            } else {
+                for (int i = 0; i < s.count; i++) {
+                    double x = s.memoryX(i);
+                    lower = Math.min(lower, x);
+                    upper = Math.max(upper, x);
+                }
+            }
+        }
+        return lower > upper ? null : new Range(lower, upper);
+    }
+
+    private static Range getRangeBounds(List<Series> series) {
+        double lower = Double.POSITIVE_INFINITY;
+        double upper = Double.NEGATIVE_INFINITY;
+        for (Series s : series) {
+            if (s.count == 0) {
+                continue;
+            }
+            // The block holding the oldest point may also hold dropped points, so its live points are scanned. When
+            // the capacity is less than a block this covers every point.
+            long oldest = s.appended - s.count;
+            long first = (oldest + BLOCK_SIZE - 1) >>> BLOCK_SHIFT;
+            int scanned = (int) Math.min(s.count, (first << BLOCK_SHIFT) - oldest);
+            for (int i = 0; i < scanned; i++) {
+                double y = s.memoryY(i);
+                if (y < lower) {
+                    lower = y;
+                }
+                if (y > upper) {
+                    upper = y;
+                }
+            }
+            long last = (s.appended - 1) >>> BLOCK_SHIFT;
+            for (long block = first; block <= last; block++) {
+                int slot = (int) (block % s.blockMin.length);
+                lower = Math.min(lower, s.blockMin[slot]);
+                upper = Math.max(upper, s.blockMax[slot]);
+            }
+        }
+        return lower > upper ? null : new Range(lower, upper);
+    }
+
+    /**
+     * One series of the dataset. Points are read through the dataset, which handles synchronization.
+     */
+    public final class Series {
+
+        private final String key;
+
+        /**
+         * Ring buffer of the points in memory. The oldest is at {@link #head}. The arrays grow up to the capacity.
+         */
+        private double[] xs = new double[64];
+        private double[] ys = new double[64];
+        private int head;
+        private int count;
+
+        /**
+         * Total number of points ever appended, used to place points in summary blocks.
+         */
+        private long appended;
+
+        /**
+         * Smallest and largest y value of each block of 2^{@link #BLOCK_SHIFT} points in memory, by block number
+         * mod length. The oldest block may include values that have been dropped, so range bounds don't use its
+         * summary.
+         */
+        private double[] blockMin;
+        private double[] blockMax;
+        private int currentBlock;
+
+        /**
+         * True while every x value is at least the previous one.
+         */
+        private boolean ascending = true;
+
+        private TimeSeriesSpill spill;
+
+        private double[] viewX = new double[0];
+        private double[] viewY = new double[0];
+        private int viewSize;
+        private boolean viewValid;
+
+        private Series(String key) {
+            this.key = key;
+            allocateBlocks();
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * Number of points in memory.
+         */
+        public int getItemCount() {
+            synchronized (RingBufferXYDataset.this) {
+                return count;
+            }
+        }
+
+        /**
+         * Number of points spilled to disk.
+         */
+        public long getSpilledCount() {
+            synchronized (RingBufferXYDataset.this) {
+                return spilled();
+            }
+        }
+
+        /**
+         * X value of a point in memory, oldest first.
+         */
+        public double getX(int index) {
+            synchronized (RingBufferXYDataset.this) {
+                checkIndex(index);
+                return memoryX(index);
+            }
+        }
+
+        /**
+         * Y value of a point in memory, oldest first.
+         */
+        public double getY(int index) {
+            synchronized (RingBufferXYDataset.this) {
+                checkIndex(index);
+                return memoryY(index);
+            }
+        }
+
+        /**
+         * Copy of the x values of the points in memory, oldest first.
+         */
+        public double[] getXValues() {
+            synchronized (RingBufferXYDataset.this) {
+                double[] values = new double[count];
+                for (int i = 0; i < count; i++) {
+                    values[i] = memoryX(i);
+                }
+                return values;
+            }
+        }
+
+        /**
+         * Copy of the y values of the points in memory, oldest first.
+         */
+        public double[] getYValues() {
+            synchronized (RingBufferXYDataset.this) {
+                double[] values = new double[count];
+                for (int i = 0; i < count; i++) {
+                    values[i] = memoryY(i);
+                }
+                return values;
+            }
+        }
+
+        private void checkIndex(int index) {
+            if (index < 0 || index >= count) {
+                throw new IndexOutOfBoundsException("Index " + index + " with " + count + " points");
+            }
+        }
+
+        private void allocateBlocks() {
+            int blocks = (capacity >>> BLOCK_SHIFT) + 2;
+            blockMin = new double[blocks];
+            blockMax = new double[blocks];
+        }
+
+        private void append(double x, double y) {
+            if (count == capacity) {
+                evictOldest();
+            }
+            if (count == xs.length) {
+                grow();
+            }
+            if (count > 0 && x < xs[ringIndex(count - 1)]) {
+                ascending = false;
+            }
+            int slot = ringIndex(count);
+            xs[slot] = x;
+            ys[slot] = y;
+            count++;
+
+            if ((appended & (BLOCK_SIZE - 1)) == 0) {
+                currentBlock = (int) ((appended >>> BLOCK_SHIFT) % blockMin.length);
+                blockMin[currentBlock] = Double.POSITIVE_INFINITY;
+                blockMax[currentBlock] = Double.NEGATIVE_INFINITY;
+            }
+            if (y < blockMin[currentBlock]) {
+                blockMin[currentBlock] = y;
+            }
+            if (y > blockMax[currentBlock]) {
+                blockMax[currentBlock] = y;
+            }
+            appended++;
+            viewValid = false;
+        }
+
+        private void evictOldest() {
+            if (spillToDisk) {
+                if (spill == null) {
+                    spill = new TimeSeriesSpill();
+                }
+                spill.append(xs[head], ys[head]);
+            }
+            head = ringIndex(1);
+            count--;
+        }
+
+        private void grow() {
+            int length = (int) Math.min(capacity, 2L * xs.length);
+            double[] newXs = new double[length];
+            double[] newYs = new double[length];
+            for (int i = 0; i < count; i++) {
+                newXs[i] = memoryX(i);
+                newYs[i] = memoryY(i);
+            }
+            xs = newXs;
+            ys = newYs;
+            head = 0;
+        }
+
+        /**
+         * Apply a new capacity, keeping the newest points.
+         */
+        private void resize() {
+            while (count > capacity) {
+                evictOldest();
+            }
+            double[] oldXs = new double[count];
+            double[] oldYs = new double[count];
+            for (int i = 0; i < count; i++) {
+                oldXs[i] = memoryX(i);
+                oldYs[i] = memoryY(i);
+            }
+            int length = Math.max(64, Math.min(capacity, count));
+            xs = new double[length];
+            ys = new double[length];
+            head = 0;
+            count = 0;
+            appended = 0;
+            allocateBlocks();
+            for (int i = 0; i < oldXs.length; i++) {
+                append(oldXs[i], oldYs[i]);
+            }
+        }
+
+        private void clear() {
+            head = 0;
+            count = 0;
+            appended = 0;
+            ascending = true;
+            closeSpill();
+            viewValid = false;
+        }
+
+        private void closeSpill() {
+            if (spill != null) {
+                spill.close();
+                spill = null;
+            }
+            viewValid = false;
+        }
+
+        private long spilled() {
+            return spill == null ? 0 : spill.size();
+        }
+
+        /**
+         * Position in the ring arrays of the point at the given index, oldest first.
+         */
+        private int ringIndex(int index) {
+            int slot = head + index;
+            return slot >= xs.length ? slot - xs.length : slot;
+        }
+
+        private double memoryX(int index) {
+            return xs[ringIndex(index)];
+        }
+
+        private double memoryY(int index) {
+            return ys[ringIndex(index)];
+        }
+
+        /**
+         * X value of a point counting spilled points first.
+         */
+        private double x(long index) {
+            long spilled = spilled();
+            return index < spilled ? spill.getX(index) : memoryX((int) (index - spilled));
+        }
+
+        private double y(long index) {
+            long spilled = spilled();
+            return index < spilled ? spill.getY(index) : memoryY((int) (index - spilled));
+        }
+
+        /**
+         * First index whose x value is at least the given value, for ascending series.
+         */
+        private long lowerBound(double value) {
+            long low = 0;
+            long high = spilled() + count;
+            while (low < high) {
+                long mid = (low + high) >>> 1;
+                if (x(mid) < value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private void updateView() {
+            if (viewValid) {
+                return;
+            }
+            long total = spilled() + count;
+            long from = 0;
+            long to = total;
+            if (ascending && total > 0) {
+                // One point on either side so lines run to the edges of the plot
+                if (viewLower > Double.NEGATIVE_INFINITY) {
+                    from = Math.max(0, lowerBound(viewLower) - 1);
+                }
+                if (viewUpper < Double.POSITIVE_INFINITY) {
+                    to = Math.min(total, lowerBound(viewUpper) + 1);
+                }
+            } else if (!ascending) {
+                // Without a domain order the view can't be cut to the visible range
+                from = spilled();
+            }
+            long n = Math.max(0, to - from);
+            if (decimation == Decimation.NONE || n <= 2L * viewWidth) {
+                ensureViewCapacity((int) n);
+                for (int i = 0; i < n; i++) {
+                    viewX[i] = x(from + i);
+                    viewY[i] = y(from + i);
+                }
+                viewSize = (int) n;
+            } else if (decimation == Decimation.MIN_MAX) {
+                decimateMinMax(from, n);
+            } else {
+                decimateLttb(from, n);
+            }
+            viewValid = true;
+        }
+
+        private void ensureViewCapacity(int size) {
+            if (viewX.length < size) {
+                viewX = new double[size];
+                viewY = new double[size];
+            }
+        }
+
+        private void addToView(long index) {
+            viewX[viewSize] = x(index);
+            viewY[viewSize] = y(index);
+            viewSize++;
+        }
+
+        /**
+         * Split the points into one bucket per pixel and keep the smallest and largest of each, in order.
+         */
+        private void decimateMinMax(long from, long n) {
+            ensureViewCapacity(2 * viewWidth);
+            viewSize = 0;
+            for (int bucket = 0; bucket < viewWidth; bucket++) {
+                long start = from + n * bucket / viewWidth;
+                long end = from + n * (bucket + 1) / viewWidth;
+                if (start == end) {
+                    continue;
+                }
+                long min = start;
+                long max = start;
+                double minY = y(start);
+                double maxY = minY;
+                for (long i = start + 1; i < end; i++) {
+                    double y = y(i);
+                    if (y < minY) {
+                        min = i;
+                        minY = y;
+                    } else if (y > maxY) {
+                        max = i;
+                        maxY = y;
+                    }
+                }
+                addToView(Math.min(min, max));
+                if (min != max) {
+                    addToView(Math.max(min, max));
+                }
+            }
+        }
+
+        /**
+         * Largest-triangle-three-buckets (Steinarsson 2013). Keeps the first and last points, and from each bucket
+         * in between the point forming the largest triangle with the point kept from the previous bucket and the
+         * average of the next bucket.
+         */
+        private void decimateLttb(long from, long n) {
+            int threshold = Math.max(3, viewWidth);
+            ensureViewCapacity(threshold);
+            viewSize = 0;
+            addToView(from);
+            double bucketSize = (double) (n - 2) / (threshold - 2);
+            long previous = from;
+            for (int bucket = 0; bucket < threshold - 2; bucket++) {
+                long start = from + 1 + (long) (bucket * bucketSize);
+                long end = from + 1 + (long) ((bucket + 1) * bucketSize);
+                long nextStart = end;
+                long nextEnd = Math.min(from + n, from + 1 + (long) ((bucket + 2) * bucketSize));
+                double averageX = 0;
+                double averageY = 0;
+                for (long i = nextStart; i < nextEnd; i++) {
+                    averageX += x(i);
+                    averageY += y(i);
+                }
+                long nextCount = nextEnd - nextStart;
+                if (nextCount > 0) {
+                    averageX /= nextCount;
+                    averageY /= nextCount;
+                } else {
+                    averageX = x(from + n - 1);
+                    averageY = y(from + n - 1);
+                }
+                double previousX = x(previous);
+                double previousY = y(previous);
+                long best = start;
+                double bestArea = -1;
+                for (long i = start; i < end; i++) {
+                    double area = Math.abs((previousX - averageX) * (y(i) - previousY)
+                            - (previousX - x(i)) * (averageY - previousY));
+                    if (area > bestArea) {
+                        bestArea = area;
+                        best = i;
+                    }
+                }
+                addToView(best);
+                previous = best;
+            }
+            addToView(from + n - 1);
+        }
+    }
+}
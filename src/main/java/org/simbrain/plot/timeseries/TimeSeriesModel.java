@@ -19,7 +19,7 @@
 package org.simbrain.plot.timeseries;
 
 import org.jfree.data.xy.XYSeries;
-import org.jfree.data.xy.XYSeriesCollection;
+import org.simbrain.plot.timeseries.RingBufferXYDataset.Decimation;
 import org.simbrain.util.UserParameter;
 import org.simbrain.util.propertyeditor.EditableObject;
 import org.simbrain.workspace.AttributeContainer;
@@ -36,13 +36,16 @@ import java.util.function.Supplier;
  * doubles, with one component for each member of the time series. There is no
  * support currently for representing separate scalar values in a single time
  * series.
+ * <br>
+ * Data are stored in a {@link RingBufferXYDataset}, which keeps a bounded number of points per series in memory and
+ * decimates what is drawn to the width of the plot.
  */
 public class TimeSeriesModel implements AttributeContainer, EditableObject {
 
     /**
      * Time Series Data.
      */
-    private transient XYSeriesCollection dataset = new XYSeriesCollection();
+    private transient RingBufferXYDataset dataset = new RingBufferXYDataset();
 
     /**
      * Lambda to supply time to the time series model.
@@ -81,6 +84,30 @@ public class TimeSeriesModel implements AttributeContainer, EditableObject {
             "when fixedWidth is turned on", minimumValue = 10, useSetter = true, increment = 10, order = 60)
     private int windowSize = 100;
 
+    /**
+     * Points kept in memory per series when the plot is not fixed width.
+     */
+    @UserParameter(label = "History Size", description = "Number of time points per series kept in memory when " +
+            "fixed width is off. Older points are dropped, or spilled to disk if that is on.", minimumValue = 100,
+            useSetter = true, order = 70)
+    private int historySize = RingBufferXYDataset.DEFAULT_CAPACITY;
+
+    /**
+     * Whether points beyond the history size are kept in a temporary file.
+     */
+    @UserParameter(label = "Spill History To Disk", description = "When fixed width is off, keep points that no " +
+            "longer fit in memory in a temporary file so the plot can be scrolled back to them", useSetter = true,
+            order = 80)
+    private boolean spillToDisk = false;
+
+    /**
+     * How points are reduced to the width of the plot when there are more than it can show.
+     */
+    @UserParameter(label = "Decimation", description = "How points are reduced when there are more than the " +
+            "plot is wide. Min / max keeps spikes, largest triangle keeps the overall shape.", useSetter = true,
+            order = 90)
+    private Decimation decimation = Decimation.MIN_MAX;
+
     /**
      * Names for the time series.  Set via coupling events.
      */
@@ -91,6 +118,14 @@ public class TimeSeriesModel implements AttributeContainer, EditableObject {
      */
     private List<ScalarTimeSeries> timeSeriesList = new ArrayList<ScalarTimeSeries>();
 
+    /**
+     * Key and points in memory of each series of the dataset, in order. Only set while the model is being saved,
+     * see {@link #storePoints()}, and restored in {@link #readResolve()}. Spilled points are not saved.
+     */
+    private String[] savedKeys;
+    private double[][] savedX;
+    private double[][] savedY;
+
     /**
      * Support for property change events.
      */
@@ -131,10 +166,7 @@ public class TimeSeriesModel implements AttributeContainer, EditableObject {
      * Clears the plot.
      */
     public void clearData() {
-        int seriesCount = dataset.getSeriesCount();
-        for (int i = 0; seriesCount > i; ++i) {
-            dataset.getSeries(i).clear();
-        }
+        dataset.clear();
     }
 
     /**
@@ -147,7 +179,7 @@ public class TimeSeriesModel implements AttributeContainer, EditableObject {
      */
     public void addData(int seriesIndex, double time, double value) {
         if (seriesIndex < dataset.getSeriesCount()) {
-            dataset.getSeries(seriesIndex).add(time, value);
+            dataset.add(dataset.getSeries(seriesIndex), time, value);
         }
     }
 
@@ -199,9 +231,7 @@ public class TimeSeriesModel implements AttributeContainer, EditableObject {
         }
 
         // Write the data
-        for (int i = 0; i < vector.length; i++) {
-            dataset.getSeries(i).add(timeSupplier.get(), (Double) vector[i]);
-        }
+        dataset.addAll(timeSupplier.get(), vector);
     }
 
     /**
@@ -245,12 +275,8 @@ public class TimeSeriesModel implements AttributeContainer, EditableObject {
     /**
      * Adds an xy series to the chart with the specified description.
      */
-    private XYSeries addXYSeries(String description) {
-        XYSeries xy = new XYSeries(description);
-        xy.setMaximumItemCount(windowSize);
-        xy.setDescription(description);
-        dataset.addSeries(xy);
-        return xy;
+    private RingBufferXYDataset.Series addXYSeries(String description) {
+        return dataset.addSeries(description);
     }
 
     /**
@@ -290,9 +316,49 @@ public class TimeSeriesModel implements AttributeContainer, EditableObject {
      */
     public void setWindowSize(int value) {
         windowSize = value;
+        updateCapacity();
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public int getHistorySize() {
+        return historySize;
+    }
+
+    public void setHistorySize(int historySize) {
+        this.historySize = historySize;
+        updateCapacity();
+    }
+
+    public boolean isSpillToDisk() {
+        return spillToDisk;
+    }
+
+    public void setSpillToDisk(boolean spillToDisk) {
+        this.spillToDisk = spillToDisk;
+        updateCapacity();
+    }
+
+    public Decimation getDecimation() {
+        return decimation;
+    }
+
+    public void setDecimation(Decimation decimation) {
+        this.decimation = decimation;
+        dataset.setDecimation(decimation);
     }
 
-    public XYSeriesCollection getDataset() {
+    /**
+     * Fixed width plots keep only the window, other plots keep the history and possibly spill.
+     */
+    private void updateCapacity() {
+        dataset.setCapacity(fixedWidth ? windowSize : historySize);
+        dataset.setSpillToDisk(!fixedWidth && spillToDisk);
+    }
+
+    public RingBufferXYDataset getDataset() {
         return dataset;
     }
 
@@ -334,15 +400,7 @@ public class TimeSeriesModel implements AttributeContainer, EditableObject {
 
     public void setFixedWidth(boolean fixedWidth) {
         this.fixedWidth = fixedWidth;
-        if(fixedWidth) {
-            for (Object s : dataset.getSeries()) {
-                ((XYSeries) s).setMaximumItemCount(windowSize);
-            }
-        } else {
-            for (Object s : dataset.getSeries()) {
-                ((XYSeries) s).setMaximumItemCount(Integer.MAX_VALUE);
-            }
-        }
+        updateCapacity();
     }
 
     /**
@@ -352,13 +410,70 @@ public class TimeSeriesModel implements AttributeContainer, EditableObject {
         return "TimeSeriesPlot";
     }
 
+    /**
+     * Copy the points in memory to arrays saved with the model. Call {@link #clearStoredPoints()} once it is saved.
+     */
+    void storePoints() {
+        List<RingBufferXYDataset.Series> seriesList = dataset.getSeriesList();
+        savedKeys = new String[seriesList.size()];
+        savedX = new double[seriesList.size()][];
+        savedY = new double[seriesList.size()][];
+        for (int i = 0; i < seriesList.size(); i++) {
+            savedKeys[i] = seriesList.get(i).getKey();
+            savedX[i] = seriesList.get(i).getXValues();
+            savedY[i] = seriesList.get(i).getYValues();
+        }
+    }
+
+    void clearStoredPoints() {
+        savedKeys = null;
+        savedX = null;
+        savedY = null;
+    }
+
     /**
      * See {@link org.simbrain.workspace.serialization.WorkspaceComponentDeserializer}
      */
     private Object readResolve() {
         changeSupport = new PropertyChangeSupport(this);
-        dataset = new XYSeriesCollection();
-        timeSeriesList.forEach(ts -> dataset.addSeries(ts.series));
+        dataset = new RingBufferXYDataset();
+        if (historySize == 0) {
+            // Saved before history size was added
+            historySize = RingBufferXYDataset.DEFAULT_CAPACITY;
+        }
+        if (decimation == null) {
+            decimation = Decimation.MIN_MAX;
+        }
+        dataset.setDecimation(decimation);
+        updateCapacity();
+        for (int i = 0; i < timeSeriesList.size(); i++) {
+            ScalarTimeSeries ts = timeSeriesList.get(i);
+            if (ts.legacySeries != null) {
+                // Saved before the ring buffer dataset, when each series was an XYSeries keyed by its description
+                ts.description = ts.legacySeries.getDescription();
+                double[][] points = ts.legacySeries.toArray();
+                ts.series = dataset.addSeries(ts.description);
+                dataset.addPoints(ts.series, points[0], points[1]);
+                ts.legacySeries = null;
+                continue;
+            }
+            if (ts.description == null) {
+                ts.description = "Series " + (i + 1);
+            }
+            ts.series = dataset.addSeries(ts.description);
+        }
+        if (savedKeys != null) {
+            if (isArrayMode) {
+                for (String key : savedKeys) {
+                    dataset.addSeries(key);
+                }
+            }
+            int n = Math.min(dataset.getSeriesCount(), savedKeys.length);
+            for (int i = 0; i < n; i++) {
+                dataset.addPoints(dataset.getSeries(i), savedX[i], savedY[i]);
+            }
+            clearStoredPoints();
+        }
         return this;
     }
 
@@ -376,18 +491,27 @@ public class TimeSeriesModel implements AttributeContainer, EditableObject {
     public class ScalarTimeSeries implements AttributeContainer {
 
         /**
-         * The represented time series
+         * The represented time series. Its points are saved by the model.
+         */
+        transient RingBufferXYDataset.Series series;
+
+        private String description;
+
+        /**
+         * Series saved by older versions, read in {@link #readResolve()} and then discarded. Serialized under the
+         * name "series", see {@link TimeSeriesPlotComponent#getTimeSeriesXStream()}.
          */
-        XYSeries series;
+        XYSeries legacySeries;
 
         /**
          * Construct the time series.
          */
-        public ScalarTimeSeries(XYSeries xy) {
-            series = xy;
+        public ScalarTimeSeries(RingBufferXYDataset.Series series) {
+            this.series = series;
+            description = series.getKey();
         }
 
-        public XYSeries getSeries() {
+        public RingBufferXYDataset.Series getSeries() {
             return series;
         }
 
@@ -395,12 +519,12 @@ public class TimeSeriesModel implements AttributeContainer, EditableObject {
          * Get the description.
          */
         public String getDescription() {
-            return series.getDescription();
+            return description;
         }
 
         @Consumable()
         public void setValue(double value) {
-            series.add(timeSupplier.get(), (Number) value);
+            dataset.add(series, timeSupplier.get(), value);
         }
 
         @Override
@@ -125,7 +125,12 @@ public class TimeSeriesPlotComponent extends WorkspaceComponent {
 
     @Override
     public void save(final OutputStream output, final String format) {
-        getTimeSeriesXStream().toXML(model, output);
+        model.storePoints();
+        try {
+            getTimeSeriesXStream().toXML(model, output);
+        } finally {
+            model.clearStoredPoints();
+        }
     }
 
     @Override
@@ -135,13 +140,20 @@ public class TimeSeriesPlotComponent extends WorkspaceComponent {
 
     @Override
     public String getXML() {
-        return getTimeSeriesXStream().toXML(model);
+        model.storePoints();
+        try {
+            return getTimeSeriesXStream().toXML(model);
+        } finally {
+            model.clearStoredPoints();
+        }
     }
 
     public static XStream getTimeSeriesXStream() {
         var xstream = XStreamUtils.getSimbrainXStream();
         xstream.registerConverter(new DoubleArrayConverter());
         xstream.registerConverter(new XYSeriesConverter());
+        // Older versions saved each scalar time series as an XYSeries
+        xstream.aliasField("series", TimeSeriesModel.ScalarTimeSeries.class, "legacySeries");
         return xstream;
     }
 
@@ -21,12 +21,16 @@ package org.simbrain.plot.timeseries;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
+import org.jfree.chart.axis.ValueAxis;
 import org.jfree.chart.plot.PlotOrientation;
 import org.simbrain.util.StandardDialog;
 import org.simbrain.util.propertyeditor.AnnotatedPropertyEditor;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.geom.Rectangle2D;
 
 /**
  * Display a TimeSeriesPlot. This component can be used independently of the
@@ -98,6 +102,12 @@ public class TimeSeriesPlotPanel extends JPanel {
 
         add("Center", chartPanel);
         add("South", buttonPanel);
+        chartPanel.addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                updateView();
+            }
+        });
 
         init();
 
@@ -137,7 +147,27 @@ public class TimeSeriesPlotPanel extends JPanel {
         chart = ChartFactory.createXYLineChart(title, xLabel, yLabel, model.getDataset(), PlotOrientation.VERTICAL, true, true, false);
         chartPanel.setChart(chart);
         chart.setBackgroundPaint(null);
+        // Pan with ctrl-drag to scroll back through history
+        chart.getXYPlot().setDomainPannable(true);
+        chart.getXYPlot().getDomainAxis().addChangeListener(e -> updateView());
+        updateView();
+    }
 
+    /**
+     * Tell the dataset which part of the time axis is visible and how many pixels wide it is, so that it only
+     * passes the chart about one point per pixel.
+     */
+    private void updateView() {
+        if (chart == null) {
+            return;
+        }
+        ValueAxis domainAxis = chart.getXYPlot().getDomainAxis();
+        Rectangle2D dataArea = chartPanel.getScreenDataArea();
+        int width = (int) Math.ceil(dataArea.getWidth());
+        if (width <= 0) {
+            width = chartPanel.getWidth() > 0 ? chartPanel.getWidth() : RingBufferXYDataset.DEFAULT_VIEW_WIDTH;
+        }
+        model.getDataset().setView(domainAxis.getLowerBound(), domainAxis.getUpperBound(), width);
     }
 
     public void updateChartSettings() {
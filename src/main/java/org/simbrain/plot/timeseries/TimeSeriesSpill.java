@@ -0,0 +1,128 @@
+package org.simbrain.plot.timeseries;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only storage of (x, y) points in a memory-mapped temporary file. Used by {@link RingBufferXYDataset} to
+ * keep points that no longer fit in memory, so that long runs can be scrolled back through.
+ * <br>
+ * The file is mapped in chunks as it grows, so the operating system pages points in and out as they are read and
+ * only the parts being viewed take up memory. Chunks are unmapped when the spill is closed, so the file can be
+ * deleted and its address space released without waiting for the buffers to be garbage collected.
+ */
+class TimeSeriesSpill {
+
+    /**
+     * Points per mapped chunk, a power of two. Chunks are 1 MB, so a short spill maps little.
+     */
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_POINTS = 1 << CHUNK_SHIFT;
+    private static final int POINT_BYTES = 2 * Double.BYTES;
+
+    /**
+     * The JDK's {@code Unsafe.invokeCleaner}, which unmaps a mapped buffer, or null if it is not available. Then
+     * chunks are unmapped when they are garbage collected.
+     */
+    private static final Method INVOKE_CLEANER;
+    private static final Object UNSAFE;
+
+    static {
+        Method invokeCleaner = null;
+        Object unsafe = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            invokeCleaner = null;
+        }
+        INVOKE_CLEANER = invokeCleaner;
+        UNSAFE = unsafe;
+    }
+
+    private final Path file;
+
+    private final FileChannel channel;
+
+    private final List<MappedByteBuffer> chunks = new ArrayList<>();
+
+    private long size;
+
+    TimeSeriesSpill() {
+        try {
+            file = Files.createTempFile("simbrain-timeseries", ".bin");
+            file.toFile().deleteOnExit();
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void append(double x, double y) {
+        int offset = (int) (size & (CHUNK_POINTS - 1)) * POINT_BYTES;
+        if (offset == 0) {
+            try {
+                MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_WRITE,
+                        (long) chunks.size() * CHUNK_POINTS * POINT_BYTES, (long) CHUNK_POINTS * POINT_BYTES);
+                chunk.order(ByteOrder.nativeOrder());
+                chunks.add(chunk);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        MappedByteBuffer chunk = chunks.get(chunks.size() - 1);
+        chunk.putDouble(offset, x);
+        chunk.putDouble(offset + Double.BYTES, y);
+        size++;
+    }
+
+    double getX(long index) {
+        return chunks.get((int) (index >>> CHUNK_SHIFT)).getDouble((int) (index & (CHUNK_POINTS - 1)) * POINT_BYTES);
+    }
+
+    double getY(long index) {
+        return chunks.get((int) (index >>> CHUNK_SHIFT))
+                .getDouble((int) (index & (CHUNK_POINTS - 1)) * POINT_BYTES + Double.BYTES);
+    }
+
+    long size() {
+        return size;
+    }
+
+    /**
+     * Unmap the chunks, then close and delete the file. The spill can't be used afterwards.
+     */
+    void close() {
+        if (INVOKE_CLEANER != null) {
+            for (MappedByteBuffer chunk : chunks) {
+                try {
+                    INVOKE_CLEANER.invoke(UNSAFE, chunk);
+                } catch (ReflectiveOperationException e) {
+                    // Unmapped when garbage collected
+                }
+            }
+        }
+        chunks.clear();
+        size = 0;
+        try {
+            channel.close();
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // The file is also deleted on exit
+        }
+    }
+}
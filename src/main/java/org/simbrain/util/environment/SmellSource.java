@@ -160,6 +160,17 @@ public class SmellSource implements EditableObject {
         return stimulusVector;
     }
 
+    /**
+     * Distance beyond which this source contributes nothing to a stimulus. Infinite when noise is added, since noise
+     * is added at any distance.
+     */
+    public double getMaxDistance() {
+        if (addNoise) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return decayFunction.getMaxDistance();
+    }
+
     /**
      * Called by reflection via {@link UserParameter#conditionalEnablingMethod()}
      */
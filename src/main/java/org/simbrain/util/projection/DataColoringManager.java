@@ -21,7 +21,11 @@ package org.simbrain.util.projection;
 import org.simbrain.util.Utils;
 
 import java.awt.*;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Manage the coloring of datapoints.
@@ -133,6 +137,63 @@ public class DataColoringManager {
         }
     }
 
+    /**
+     * Update colors after a batch of visits (points that became the current point, in order), with the same result
+     * as calling {@link #updateDataPointColors(Dataset)} after each visit. Only decay trail coloring has to touch
+     * every point, and it does so once per batch. Bayesian coloring is handled by {@link #updateBayes()}.
+     *
+     * @param data            the dataset whose points should be colored
+     * @param visits          the points visited in this batch, in order
+     * @param previousCurrent the current point before the batch, which may need to lose its hot color
+     */
+    public void updateDataPointColors(Dataset data, List<DataPointColored> visits, DataPointColored previousCurrent) {
+        if (visits.isEmpty()) {
+            return;
+        }
+        if (coloringMethod == ColoringMethod.DecayTrail) {
+            // Step at which each point was last visited
+            IdentityHashMap<DataPointColored, Integer> lastVisit = new IdentityHashMap<>();
+            for (int step = 0; step < visits.size(); step++) {
+                lastVisit.put(visits.get(step), step);
+            }
+            for (int i = 0; i < data.getNumPoints(); i++) {
+                DataPointColored point = (DataPointColored) data.getPoint(i);
+                Integer visit = lastVisit.get(point);
+                // Decrements are linear with a floor, so several steps can be applied at once
+                int decaySteps = visit == null ? visits.size() : visits.size() - 1 - visit;
+                if (visit != null) {
+                    point.spikeActivation(ceiling);
+                }
+                if (decaySteps > 0) {
+                    point.decrementActivation(floor, decrementAmount * decaySteps);
+                }
+                if (point == projector.getCurrentPoint()) {
+                    setHotPoint(point);
+                } else {
+                    point.setColorBasedOnVal(Utils.colorToFloat(baseColor));
+                }
+            }
+            return;
+        }
+        if (coloringMethod == ColoringMethod.Frequency) {
+            for (DataPointColored point : visits) {
+                point.incrementActivation(incrementAmount, ceiling);
+            }
+        }
+        Set<DataPointColored> touched = Collections.newSetFromMap(new IdentityHashMap<>());
+        touched.addAll(visits);
+        if (previousCurrent != null) {
+            touched.add(previousCurrent);
+        }
+        for (DataPointColored point : touched) {
+            if (coloringMethod == ColoringMethod.Frequency && point != projector.getCurrentPoint()) {
+                point.setColorBasedOnVal(Utils.colorToFloat(baseColor));
+            } else {
+                setHotPoint(point);
+            }
+        }
+    }
+
     /**
      * Update the color of the specified point in the dataset.
      *
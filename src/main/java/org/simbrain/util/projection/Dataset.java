@@ -122,6 +122,9 @@ public class Dataset {
     private void ensureDistances() {
         if (getDistanceEnd() > distances.length) {
             int newLength = distances.length * 4;
+            while (getDistanceEnd() > newLength) {
+                newLength *= 4;
+            }
             double[] newDistances = new double[newLength];
             System.arraycopy(distances, 0, newDistances, 0, distances.length);
             Arrays.fill(newDistances, distances.length, newLength, -1);
@@ -324,6 +327,7 @@ public class Dataset {
             }
             getPoint(i).setData(data);
         }
+        rebuildTree();
 
         Arrays.fill(distances, -1);
 
@@ -403,6 +407,7 @@ public class Dataset {
     public void perturbOverlappingPoints(final double factor) {
         double distance;
         boolean repeat;
+        boolean perturbed = false;
         int numPoints = getNumPoints();
 
         for (int i = 0; i < numPoints; i++) {
@@ -428,10 +433,14 @@ public class Dataset {
                     newPoint[k] = getComponent(i, k) + ((Math.random() - 0.5) * factor);
                     getPoint(i).setData(newPoint);
                 }
+                perturbed = true;
             } else {
                 continue;
             }
         }
+        if (perturbed) {
+            rebuildTree();
+        }
     }
 
     /**
@@ -504,8 +513,7 @@ public class Dataset {
      * @return the index of the point closest to this one in the dataset
      */
     public int getClosestIndex(final DataPoint point) {
-        DataPoint closest = ntree.getClosestPoint(point);
-        return ntree.getIndex(closest);
+        return ntree.getClosestIndices(1, point)[0];
     }
 
     /**
@@ -520,13 +528,7 @@ public class Dataset {
             return null;
         }
 
-        int[] nearest = new int[k];
-        List<DataPoint> neighbors = ntree.getClosestPoints(k, point);
-        for (int i = 0; i < k; i++) {
-            nearest[i] = ntree.getIndex(neighbors.get(i));
-        }
-
-        return nearest;
+        return ntree.getClosestIndices(k, point);
     }
 
     /**
@@ -810,9 +812,27 @@ public class Dataset {
      */
     public void setData(final double[][] data) {
         clear();
+        List<DataPoint> points = new ArrayList<>(data.length);
         for (double[] row : data) {
-            this.addPoint(new DataPoint(row));
+            DataPoint point = new DataPoint(row);
+            checkDimension(point);
+            points.add(point);
+        }
+        ntree = new NTree(dimensions, points);
+        ensureDistances();
+        if (!points.isEmpty()) {
+            // Same current and last points as adding the points one at a time
+            lastPoint = points.size() > 1 ? points.get(points.size() - 2) : null;
+            currentPoint = points.get(points.size() - 1);
+            lastAddedPoint = currentPoint;
         }
     }
 
+    /**
+     * Rebuild the tree after the data of points in it was changed in place.
+     */
+    private void rebuildTree() {
+        ntree = new NTree(dimensions, ntree.asArrayList());
+    }
+
 }
\ No newline at end of file
@@ -26,61 +26,111 @@ import java.util.*;
  * Related to https://en.wikipedia.org/wiki/K-d_tree
  *
  * An n-dimensional generalization of a simple QuadTree structure. This is a
- * binary tree that splits elements based on successive dimensions, repeating as
- * necessary. There are two types of nodes in the structure, branches and
- * leaves. The leaf nodes are a n-dimensional 'space' that contains a number of
+ * binary tree that splits elements based on a single dimension at each
+ * branch. There are two types of nodes in the structure, branches and leaves.
+ * The leaf nodes are a n-dimensional 'space' that contains a number of
  * elements. When an element is added that increases the number of points in
  * that leaf beyond the threshold specified by MAX, the leaf is split into two
- * new leaves attached to a new branch that replaces the old leaf. In splitting
- * a leaf, a mid-point is determined which places approximately half of the
- * points from the old leaf elements in each new leaf.
+ * new leaves attached to a branch that replaces the old leaf. Leaves are split
+ * at the median of the dimension along which their points are most spread
+ * out, so that about half the points end up in each new leaf.
  * <p>
+ * A tree can also be built from a whole collection of points at once (see
+ * {@link #NTree(int, Collection)}), by recursively splitting at the median.
+ * This is much faster than adding the points one at a time and gives a
+ * balanced tree.
  * <p>
  * In searching for an element, the mid-point of each branch is used to
- * determine the path through the tree. When the point to be searched is closer
- * than the given tolerance to the midpoint, the other branch is also followed
- * for correctness.
+ * determine the path through the tree. The other branch is only followed when
+ * it could contain a closer point than the ones found so far (or for
+ * {@link #isUnique(DataPoint, double)}, a point within the tolerance).
  * <p>
- * <p>
- * A couple of other standard collections are used to provide efficient
- * index-based access and for reverse lookups of leafs.
+ * Nodes are stored in flat arrays indexed by node number rather than as
+ * objects, and each leaf keeps a packed copy of its points' coordinates, so
+ * that searches scan contiguous memory. Coordinates are copied when a point is
+ * added or set. If the data of a point in the tree is changed afterwards, the
+ * point must be set again (or the tree rebuilt) for searches to see the change.
  *
  * @author James Matthew Watson - July 2, 2007
  */
 public class NTree implements Iterable<DataPoint> {
 
     /**
-     * An enumeration for quick switching on the node type
+     * The number of dimensions this structure supports.
      */
-    private enum Type {
-        branch, leaf
-    }
+    public final int dimensions;
 
     /**
-     * The root node, initialized to a leaf
+     * Indexed list of all elements
      */
-    private Node root = new Leaf();
+    private final List<DataPoint> list = new ArrayList<>();
 
     /**
-     * The number of dimensions this structure supports.
+     * The number of elements to allow in a leaf before splitting
+     * (Determined by ad hoc testing and hand-waving optimization theories
      */
-    public final int dimensions;
+    static final int MAX = 50;
 
     /**
-     * Indexed list of all elements
+     * Initial capacity of the node arrays.
      */
-    private List<DataPoint> list = new ArrayList<>();
+    private static final int INITIAL_NODES = 16;
 
     /**
-     * Map of all elements mapped to their leafs
+     * The root node.
      */
-    private Map<DataPoint, Leaf> all = new LinkedHashMap<DataPoint, Leaf>();
+    private int root;
 
     /**
-     * The number of elements to allow in a leaf before splitting
-     * (Determined by ad hoc testing and hand-waving optimization theories
+     * Number of nodes in use.
      */
-    static final int MAX = 50;
+    private int nodeCount;
+
+    /**
+     * Dimension each branch splits on, or -1 for leaves.
+     */
+    private int[] splitDimension = new int[INITIAL_NODES];
+
+    /**
+     * Split value of each branch. Points less than it go left, others go right.
+     */
+    private double[] midPoint = new double[INITIAL_NODES];
+
+    /**
+     * Children of each branch.
+     */
+    private int[] left = new int[INITIAL_NODES];
+
+    private int[] right = new int[INITIAL_NODES];
+
+    /**
+     * Indices (in {@link #list}) of the points in each leaf. Null for branches.
+     */
+    private int[][] leafPoints = new int[INITIAL_NODES][];
+
+    /**
+     * Packed coordinates of the points in each leaf, in the same order as
+     * {@link #leafPoints}. Null for branches.
+     */
+    private double[][] leafCoordinates = new double[INITIAL_NODES][];
+
+    /**
+     * Number of points in each leaf.
+     */
+    private int[] leafSize = new int[INITIAL_NODES];
+
+    /**
+     * Size above which a leaf is split. Raised for leaves whose points are all
+     * the same, since those can't be split.
+     */
+    private int[] leafLimit = new int[INITIAL_NODES];
+
+    /**
+     * For each point, the leaf that holds it and its position in that leaf.
+     */
+    private int[] leafOf = new int[INITIAL_NODES];
+
+    private int[] slotOf = new int[INITIAL_NODES];
 
     /**
      * Constructs an NTree with the given number of dimensions.
@@ -90,6 +140,22 @@ public class NTree implements Iterable<DataPoint> {
     public NTree(int dimensions) {
         Logger.debug("Creating an NTree with " + dimensions + " dimensions.");
         this.dimensions = dimensions;
+        root = newNode();
+        makeLeaf(root, new int[0], new double[0], 0, 0);
+    }
+
+    /**
+     * Constructs an NTree containing the given points, in order. Much faster
+     * than adding the points one at a time.
+     *
+     * @param dimensions the number of dimensions
+     * @param points     the points to add
+     */
+    public NTree(int dimensions, Collection<? extends DataPoint> points) {
+        this(dimensions);
+        points.forEach(this::checkDimension);
+        list.addAll(points);
+        rebuild();
     }
 
     /**
@@ -105,173 +171,277 @@ public class NTree implements Iterable<DataPoint> {
      * Adds a point to the set.
      *
      * @param point the point to add
-     * @return
+     * @return null. Uniqueness is checked separately using {@link #isUnique(DataPoint, double)}.
      */
     public DataPoint add(DataPoint point) {
-        //System.out.println(point.getDimension());
-        Logger.debug("adding point " + point);
+        checkDimension(point);
+        int index = list.size();
+        list.add(point);
+        ensurePointCapacity(index + 1);
+        insert(index, point.getData());
+        return null;
+    }
 
-        /* Keeps track of the most recent parent branch, if any */
-        Branch parent = null;
+    /**
+     * Put a point that is in {@link #list} into the leaf its coordinates fall
+     * in, splitting the leaf if it gets too big.
+     */
+    private void insert(int index, double[] data) {
+        int node = root;
+        while (splitDimension[node] >= 0) {
+            node = data[splitDimension[node]] < midPoint[node] ? left[node] : right[node];
+        }
 
-        /* The current node in the search, initialized to the root */
-        Node current = root;
-        /*
-         * Keeps track of whether the current node is on the left or right of
-         * it's parent.
-         */
-        boolean onLeft = true;
+        int size = leafSize[node];
+        if (size == leafPoints[node].length) {
+            int capacity = Math.max(MAX + 1, size * 2);
+            leafPoints[node] = Arrays.copyOf(leafPoints[node], capacity);
+            leafCoordinates[node] = Arrays.copyOf(leafCoordinates[node], capacity * dimensions);
+        }
+        leafPoints[node][size] = index;
+        System.arraycopy(data, 0, leafCoordinates[node], size * dimensions, dimensions);
+        leafOf[index] = node;
+        slotOf[index] = size;
+        leafSize[node] = size + 1;
+
+        if (leafSize[node] > leafLimit[node]) {
+            Logger.debug("splitting leaf " + node);
+            int[] points = leafPoints[node];
+            double[] coordinates = leafCoordinates[node];
+            build(node, points, coordinates, 0, leafSize[node]);
+        }
+    }
 
-        /*
-         * Iterates as long as the current node is a branch setting current to
-         * left or right based on the midpoint of the branches split dimension.
-         */
-        while (current.type == Type.branch) {
-            /* Cast current to Branch and set the parent */
-            Branch branch = (Branch) current;
-            parent = branch;
+    /**
+     * Remove the point at the given index from its leaf, by moving the last
+     * point in the leaf into its place.
+     */
+    private void removeFromLeaf(int index) {
+        int node = leafOf[index];
+        int slot = slotOf[index];
+        int last = leafSize[node] - 1;
+        if (slot != last) {
+            int moved = leafPoints[node][last];
+            leafPoints[node][slot] = moved;
+            System.arraycopy(leafCoordinates[node], last * dimensions, leafCoordinates[node], slot * dimensions,
+                    dimensions);
+            slotOf[moved] = slot;
+        }
+        leafSize[node] = last;
+    }
 
-            if (point.get(branch.splitDimension) < branch.midPoint) {
-                Logger.debug("at branch : " + branch + " - going left");
+    /**
+     * Rebuild the whole tree from {@link #list}.
+     */
+    private void rebuild() {
+        int size = list.size();
+        ensurePointCapacity(size);
+        int[] indices = new int[size];
+        double[] coordinates = new double[size * dimensions];
+        for (int i = 0; i < size; i++) {
+            indices[i] = i;
+            System.arraycopy(list.get(i).getData(), 0, coordinates, i * dimensions, dimensions);
+        }
+        Arrays.fill(leafPoints, 0, nodeCount, null);
+        Arrays.fill(leafCoordinates, 0, nodeCount, null);
+        nodeCount = 0;
+        root = newNode();
+        build(root, indices, coordinates, 0, size);
+    }
 
-                /* To the left */
-                current = branch.left;
-                onLeft = true;
-            } else {
-                Logger.debug("at branch : " + branch + " - going right");
+    /**
+     * Makes the given node the root of a subtree holding the points in the given
+     * range, recursively splitting at the median until each leaf holds at most
+     * MAX points. The indices and coordinates are reordered.
+     *
+     * @param node        the node to build into. Any previous contents are discarded.
+     * @param indices     indices of the points
+     * @param coordinates packed coordinates of the points, in the same order as the indices
+     * @param from        start of the range (inclusive)
+     * @param to          end of the range (exclusive)
+     */
+    private void build(int node, int[] indices, double[] coordinates, int from, int to) {
+        int size = to - from;
+        if (size <= MAX) {
+            makeLeaf(node, indices, coordinates, from, to);
+            return;
+        }
 
-                /* To the right */
-                current = branch.right;
-                onLeft = false;
+        /* Split on the dimension with the greatest spread */
+        int splitOn = 0;
+        double greatestSpread = 0;
+        for (int d = 0; d < dimensions; d++) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = from; i < to; i++) {
+                double value = coordinates[i * dimensions + d];
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            if (max - min > greatestSpread) {
+                greatestSpread = max - min;
+                splitOn = d;
             }
         }
+        if (!(greatestSpread > 0)) {
+            /* All points are the same and can't be separated */
+            makeLeaf(node, indices, coordinates, from, to);
+            leafLimit[node] = 2 * size;
+            return;
+        }
 
-        /* Cast the current node to a leaf */
-        Leaf leaf = (Leaf) current;
-
-        Logger.debug("adding point to leaf : " + leaf);
-
-
-        /* Add the point to the leaf and the list and map */
-        leaf.points.add(point);
-        list.add(point);
-        all.put(point, leaf);
-
-        /* check the number of points in the leaf */
-        int size = leaf.points.size();
-
-        Logger.debug("leaf size : " + size);
-
-        if (size > MAX) {
-            /*
-             * the leaf has more elements than the threshold. The leaf will be
-             * split
-             */
-            int splitOn = parent == null ? 0 : (parent.splitDimension + 1) % dimensions;
-            Logger.debug("splitting leaf on dimension: " + splitOn);
-
-
-            /* Get the middle point index */
-            int middle = size / 2;
-            Logger.trace("middle: " + middle);
-
-
-            /* Sort the points based on the split dimension */
-            Collections.sort(leaf.points, new PointComparator(splitOn));
+        /* Points less than the median go left, the rest go right */
+        double median = select(indices, coordinates, from, to, (from + to) >>> 1, splitOn);
+        int split = partition(indices, coordinates, from, to, splitOn, median);
+        if (split == from) {
+            /* The median is the smallest value; split just above it instead */
+            double next = Double.POSITIVE_INFINITY;
+            for (int i = from; i < to; i++) {
+                double value = coordinates[i * dimensions + splitOn];
+                if (value > median && value < next) {
+                    next = value;
+                }
+            }
+            median = next;
+            split = partition(indices, coordinates, from, to, splitOn, median);
+        }
 
-            /*
-             * Take the right most point on the left the left most point on the
-             * right
-             */
-            DataPoint leftPoint = leaf.points.get(middle);
-            Logger.trace("leftPoint: " + leftPoint);
+        /* Put the split half way between the two halves */
+        double leftMax = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < split; i++) {
+            leftMax = Math.max(leftMax, coordinates[i * dimensions + splitOn]);
+        }
+        double mid = (leftMax + median) / 2;
+        if (!(mid > leftMax && mid <= median)) {
+            mid = median;
+        }
+        Logger.trace("split on: " + splitOn + ", midPoint: " + mid);
+
+        splitDimension[node] = splitOn;
+        midPoint[node] = mid;
+        leafPoints[node] = null;
+        leafCoordinates[node] = null;
+        leafSize[node] = 0;
+        int leftNode = newNode();
+        int rightNode = newNode();
+        left[node] = leftNode;
+        right[node] = rightNode;
+        build(leftNode, indices, coordinates, from, split);
+        build(rightNode, indices, coordinates, split, to);
+    }
 
-            DataPoint rightPoint = leaf.points.get(middle + 1);
-            Logger.trace("rightPoint: " + rightPoint);
+    /**
+     * Make a leaf holding the points in the given range.
+     */
+    private void makeLeaf(int node, int[] indices, double[] coordinates, int from, int to) {
+        int size = to - from;
+        int capacity = Math.max(MAX + 1, size);
+        splitDimension[node] = -1;
+        leafPoints[node] = Arrays.copyOf(Arrays.copyOfRange(indices, from, to), capacity);
+        leafCoordinates[node] = Arrays.copyOf(Arrays.copyOfRange(coordinates, from * dimensions, to * dimensions),
+                capacity * dimensions);
+        leafSize[node] = size;
+        leafLimit[node] = MAX;
+        for (int slot = 0; slot < size; slot++) {
+            int index = indices[from + slot];
+            leafOf[index] = node;
+            slotOf[index] = slot;
+        }
+    }
 
-            /*
-             * Get the average between the points on the split dimension. this
-             * is the midpoint
-             */
-            double midPoint = (leftPoint.get(splitOn) + rightPoint.get(splitOn)) / 2;
-            Logger.trace("midPoint: " + midPoint);
-
-            /* instantiate the new branch with the midpoint and split-dimension */
-            Branch newBranch = new Branch(midPoint, splitOn);
-
-            /* create the new leaves */
-            Leaf left = new Leaf();
-            Leaf right = new Leaf();
-
-            /* loop through all the points and add to the appropriate leaf */
-            for (int i = 0; i < size; i++) {
-                DataPoint p = leaf.points.get(i);
-
-                if (p.get(splitOn) < midPoint) {
-                    Logger.trace("adding to left: " + p);
-                    left.points.add(p);
-                    all.put(p, left);
-                } else {
-                    Logger.trace("adding to right: " + p);
-                    right.points.add(p);
-                    all.put(p, right);
+    /**
+     * Quickselect: reorder the range so that position k holds the value that
+     * would be there if the range were sorted on the given dimension, and
+     * return that value.
+     */
+    private double select(int[] indices, double[] coordinates, int from, int to, int k, int dimension) {
+        int lo = from;
+        int hi = to - 1;
+        while (hi > lo) {
+            double pivot = coordinates[((lo + hi) >>> 1) * dimensions + dimension];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (coordinates[i * dimensions + dimension] < pivot) {
+                    i++;
+                }
+                while (coordinates[j * dimensions + dimension] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(indices, coordinates, i++, j--);
                 }
             }
-
-            /* set the new branches */
-            newBranch.left = left;
-            newBranch.right = right;
-
-            /*
-             * Set the branch on it's parent, unless there is none: then it's
-             * the new root
-             */
-            if (parent == null) {
-                Logger.debug("setting new branch as root");
-                root = newBranch;
-            } else if (onLeft) {
-                Logger.debug("setting new branch as left");
-                parent.left = newBranch;
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
             } else {
-                Logger.debug("setting new branch as right");
-                parent.right = newBranch;
+                break;
             }
         }
-
-        return null;
+        return coordinates[k * dimensions + dimension];
     }
 
     /**
-     * Comparator used to compare two points on a single dimension
+     * Move the points whose value on the given dimension is less than the
+     * split value to the start of the range, and return where the rest start.
      */
-    private static final class PointComparator implements Comparator<DataPoint> {
+    private int partition(int[] indices, double[] coordinates, int from, int to, int dimension, double value) {
+        int split = from;
+        for (int i = from; i < to; i++) {
+            if (coordinates[i * dimensions + dimension] < value) {
+                swap(indices, coordinates, i, split++);
+            }
+        }
+        return split;
+    }
 
-        /**
-         * The dimension to compare on
-         */
-        final int dimension;
+    private void swap(int[] indices, double[] coordinates, int a, int b) {
+        if (a == b) {
+            return;
+        }
+        int index = indices[a];
+        indices[a] = indices[b];
+        indices[b] = index;
+        int offsetA = a * dimensions;
+        int offsetB = b * dimensions;
+        for (int d = 0; d < dimensions; d++) {
+            double value = coordinates[offsetA + d];
+            coordinates[offsetA + d] = coordinates[offsetB + d];
+            coordinates[offsetB + d] = value;
+        }
+    }
 
-        /**
-         * Constructs a new comparator on the given dimension
-         *
-         * @param dimension the dimension to compare on
-         */
-        PointComparator(int dimension) {
-            this.dimension = dimension;
+    /**
+     * Allocate a new node and return its number.
+     */
+    private int newNode() {
+        if (nodeCount == splitDimension.length) {
+            int capacity = nodeCount * 2;
+            splitDimension = Arrays.copyOf(splitDimension, capacity);
+            midPoint = Arrays.copyOf(midPoint, capacity);
+            left = Arrays.copyOf(left, capacity);
+            right = Arrays.copyOf(right, capacity);
+            leafPoints = Arrays.copyOf(leafPoints, capacity);
+            leafCoordinates = Arrays.copyOf(leafCoordinates, capacity);
+            leafSize = Arrays.copyOf(leafSize, capacity);
+            leafLimit = Arrays.copyOf(leafLimit, capacity);
         }
+        return nodeCount++;
+    }
 
-        /**
-         * compares two points on one dimension
-         */
-        public int compare(DataPoint o1, DataPoint o2) {
-            double difference = o1.get(dimension) - o2.get(dimension);
-            if (difference < 0) {
-                return -1;
-            } else if (difference > 0) {
-                return 1;
-            } else {
-                return 0;
-            }
+    private void ensurePointCapacity(int size) {
+        if (size > leafOf.length) {
+            int capacity = Math.max(size, leafOf.length * 2);
+            leafOf = Arrays.copyOf(leafOf, capacity);
+            slotOf = Arrays.copyOf(slotOf, capacity);
+        }
+    }
+
+    private void checkDimension(DataPoint point) {
+        if (point.getDimension() != dimensions) {
+            throw new IllegalArgumentException("Point has " + point.getDimension() + " dimensions. This tree requires " + dimensions);
         }
     }
 
@@ -292,74 +462,58 @@ public class NTree implements Iterable<DataPoint> {
      * @return the matching datapoint if it exists, null if the datapoint is unique
      */
     public DataPoint isUnique(final DataPoint point, final double tolerance) {
-        return isUnique(root, point, tolerance);
+        if (!(tolerance > 0) || list.isEmpty()) {
+            return null;
+        }
+        checkDimension(point);
+        int match = findWithin(root, point.getData(), tolerance);
+        return match < 0 ? null : list.get(match);
     }
 
     /**
-     * Checks whether the given point already exists in the tree with the
-     * specified tolerance.
+     * Returns the index of a point closer than the tolerance to the given
+     * point, or -1 if there is none.
      *
-     * @param from      the node to start from
+     * @param node      the node to start from
      * @param point     the point to search for
      * @param tolerance the tolerance for determining uniqueness
-     * @return the matching datapoint if it exists, null if the datapoint is unique
      */
-    private DataPoint isUnique(Node from, DataPoint point, double tolerance) {
+    private int findWithin(int node, double[] point, double tolerance) {
 
-        Logger.debug("is unique? tolerance " + tolerance + " - " + point);
-
-        /* loop over the from node while it's a branch */
-        while (from.type == Type.branch) {
-
-            /* cast to a branch */
-            Branch branch = (Branch) from;
-            /* get the split dimension */
-            double d = point.get(branch.splitDimension);
+        /* loop over the node while it's a branch */
+        while (splitDimension[node] >= 0) {
+            double difference = point[splitDimension[node]] - midPoint[node];
+            int near = difference < 0 ? left[node] : right[node];
 
             /*
-             * If the point is within tolerance of the split, recurse both paths
+             * If the point is within tolerance of the split, check both paths
              * otherwise continue branching
              */
-            if (Math.abs(d - branch.midPoint) < tolerance) {
-                Logger.debug("at branch : " + branch + " - recursing both paths");
-                DataPoint leftCheck = isUnique(branch.left, point, tolerance);
-                DataPoint rightCheck = isUnique(branch.right, point, tolerance);
-                if ((leftCheck == null) && (rightCheck == null)) {
-                    return null;
-                } else {
-                    if (leftCheck != null) {
-                        return leftCheck;
-                    } else {
-                        return rightCheck;
-                    }
+            if (Math.abs(difference) < tolerance) {
+                int match = findWithin(near, point, tolerance);
+                if (match >= 0) {
+                    return match;
                 }
-            } else if (point.getVector()[branch.splitDimension] < branch.midPoint) {
-                Logger.debug("at branch : " + branch + " - going left");
-                from = branch.left;
+                node = difference < 0 ? right[node] : left[node];
             } else {
-                Logger.debug("at branch : " + branch + " - going right");
-                from = branch.right;
+                node = near;
             }
         }
 
-        /* cast to leaf */
-        Leaf leaf = (Leaf) from;
-
         /*
-         * loop over the points. if each of the elements in the point is within
-         * a tolerance of the given point, check the distance. otherwise, the
-         * point cannot be within a tolerance distance of the given point.
+         * Loop over the points, giving up on a point as soon as its partial
+         * distance reaches the tolerance.
          */
-        for (DataPoint p : leaf.points) {
-            for (int i = 0; i < p.getDimension(); i++) {
-                if (Math.abs(p.get(i) - point.get(i)) >= tolerance) {
-                    break;
-                }
+        double toleranceSquared = tolerance * tolerance;
+        double[] coordinates = leafCoordinates[node];
+        for (int slot = 0, offset = 0; slot < leafSize[node]; slot++, offset += dimensions) {
+            double sum = 0;
+            for (int d = 0; d < dimensions && sum < toleranceSquared; d++) {
+                double difference = coordinates[offset + d] - point[d];
+                sum += difference * difference;
             }
-
-            /* If the distance is less than tolerance, this point is not unique */
-            if (getDistance(p, point) < tolerance) {
-                return p;
+            if (sum < toleranceSquared) {
+                return leafPoints[node][slot];
             }
         }
 
@@ -367,7 +521,7 @@ public class NTree implements Iterable<DataPoint> {
          * All possibilities in the current path have been exhausted and no
          * duplicates were found.
          */
-        return null;
+        return -1;
     }
 
     /**
@@ -398,109 +552,166 @@ public class NTree implements Iterable<DataPoint> {
      *
      * @param number the number of points to collect
      * @param point  the point to find points close to
-     * @return the closest points
+     * @return the closest points, closest first
      */
     public List<DataPoint> getClosestPoints(int number, DataPoint point) {
-        List<DataPoint> points = new ArrayList<DataPoint>();
-        for (DistancePoint dp : getClosestPoints(root, number, point)) {
-            points.add(dp.point);
-            // TODO: Returning multiple copies of same number
-            //System.out.println(Arrays.asList(dp.point));
+        int[] indices = getClosestIndices(number, point);
+        List<DataPoint> points = new ArrayList<>(indices.length);
+        for (int index : indices) {
+            points.add(list.get(index));
         }
-
         return points;
     }
 
     /**
-     * Gets the closest points to the passed in point. The amount of points to
-     * determine is specified by the number argument
+     * Gets the indices of the closest points to the passed in point, closest
+     * first. Each point in the tree appears at most once; points at the same
+     * distance are ordered by index.
      *
-     * @param from   the node to start from
      * @param number the number of points to collect
      * @param point  the point to find points close to
-     * @return the closest points
+     * @return the indices of the closest points. Fewer than number if the tree is smaller than that.
      */
-    private List<DistancePoint> getClosestPoints(Node from, int number, DataPoint point) {
-        List<DistancePoint> points;
-
-        /*
-         * If from is a branch, recurse otherwise get the closest points in the
-         * leaf
-         */
-        if (from.type == Type.branch) {
-
-            /* Cast to Branch */
-            Branch branch = (Branch) from;
-
-            /* The point's value on the splitDimension */
-            double d = point.get(branch.splitDimension);
-
-            /* Determine whether the normal path is left or right */
-            boolean left = d < branch.midPoint;
+    public int[] getClosestIndices(int number, DataPoint point) {
+        checkDimension(point);
+        int k = Math.min(number, list.size());
+        if (k <= 0) {
+            return new int[0];
+        }
+        NeighborHeap heap = new NeighborHeap(k);
+        search(root, point.getData(), heap);
+        return heap.toSortedIndices();
+    }
 
-            /* Recurse on branch determined above */
-            points = getClosestPoints(left ? branch.left : branch.right, number, point);
+    /**
+     * Collect the closest points under the given node into the heap.
+     *
+     * @param node  the node to start from
+     * @param point the point to find points close to
+     * @param heap  the closest points found so far
+     */
+    private void search(int node, double[] point, NeighborHeap heap) {
+        while (splitDimension[node] >= 0) {
+            double difference = point[splitDimension[node]] - midPoint[node];
+            int near = difference < 0 ? left[node] : right[node];
+            int far = difference < 0 ? right[node] : left[node];
+            search(near, point, heap);
 
             /*
-             * Determine whether to recurse on the other path. if the farthest
-             * out point from the main branch is less than the distance to the
-             * split, get the n points from the other branch
+             * Only search the other path if a point on the other side of the
+             * split could be closer than the farthest point collected so far
              */
-            if (points.size() < number || points.get(number - 1).distance > Math.abs(d - branch.midPoint)) {
-                points.addAll(getClosestPoints(left ? branch.right : branch.left, number, point));
-
-                /* combine the points and sort */
-                Collections.sort(points, new Comparator<DistancePoint>() {
-                    public int compare(DistancePoint o1, DistancePoint o2) {
-                        if (o1.distance < o2.distance)
-                            return -1;
-                        else if (o1.distance > o2.distance)
-                            return 1;
-                        else
-                            return 0;
-                    }
-                });
+            if (heap.isFull() && difference * difference > heap.maxDistance()) {
+                return;
             }
-        } else {
-            points = new ArrayList<DistancePoint>();
-            /* Cast to Leaf */
-            Leaf leaf = (Leaf) from;
+            node = far;
+        }
 
-            /*
-             * Loop over the points in the leaf adding any that are less than
-             * the current or adding if there are less than n
-             */
-            for (DataPoint d : leaf.points) {
-                double distance = getDistance(d, point);
-
-                for (int i = 0; i < number; i++) {
-                    if (i >= points.size()) {
-                        points.add(new DistancePoint(distance, d));
-                    } else if (distance < points.get(i).distance) {
-                        points.add(i, new DistancePoint(distance, d));
-                    }
-                }
+        double[] coordinates = leafCoordinates[node];
+        int[] points = leafPoints[node];
+        for (int slot = 0, offset = 0; slot < leafSize[node]; slot++, offset += dimensions) {
+            double bound = heap.isFull() ? heap.maxDistance() : Double.POSITIVE_INFINITY;
+            double sum = 0;
+            for (int d = 0; d < dimensions && sum <= bound; d++) {
+                double difference = coordinates[offset + d] - point[d];
+                sum += difference * difference;
+            }
+            if (sum <= bound) {
+                heap.offer(sum, points[slot]);
             }
         }
-
-        /* Trim the list to size, if necessary */
-        return points.size() < number ? points : points.subList(0, number);
     }
 
     /**
-     * A tuple of a point and the distance to that point
+     * Bounded max-heap of the k closest points found so far, by squared
+     * distance and then index. The root is the farthest of them, which is the
+     * one replaced when a closer point is found.
      */
-    private static class DistancePoint {
-        double distance;
-        DataPoint point;
+    private static final class NeighborHeap {
+
+        private final double[] distances;
+
+        private final int[] indices;
+
+        private int size;
+
+        NeighborHeap(int capacity) {
+            distances = new double[capacity];
+            indices = new int[capacity];
+        }
+
+        boolean isFull() {
+            return size == distances.length;
+        }
+
+        double maxDistance() {
+            return distances[0];
+        }
 
         /**
-         * @param distance the distance to the given point
-         * @param point    a point
+         * Returns true if a is farther than b.
          */
-        DistancePoint(final double distance, final DataPoint point) {
-            this.distance = distance;
-            this.point = point;
+        private boolean farther(double distanceA, int indexA, double distanceB, int indexB) {
+            return distanceA > distanceB || (distanceA == distanceB && indexA > indexB);
+        }
+
+        void offer(double distance, int index) {
+            if (!isFull()) {
+                /* Sift up */
+                int i = size++;
+                while (i > 0) {
+                    int parent = (i - 1) >>> 1;
+                    if (!farther(distance, index, distances[parent], indices[parent])) {
+                        break;
+                    }
+                    distances[i] = distances[parent];
+                    indices[i] = indices[parent];
+                    i = parent;
+                }
+                distances[i] = distance;
+                indices[i] = index;
+            } else if (farther(distances[0], indices[0], distance, index)) {
+                siftDown(distance, index, size);
+            }
+        }
+
+        /**
+         * Replace the root with the given entry and restore the heap in the
+         * first n entries.
+         */
+        private void siftDown(double distance, int index, int n) {
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= n) {
+                    break;
+                }
+                if (child + 1 < n && farther(distances[child + 1], indices[child + 1], distances[child],
+                        indices[child])) {
+                    child++;
+                }
+                if (!farther(distances[child], indices[child], distance, index)) {
+                    break;
+                }
+                distances[i] = distances[child];
+                indices[i] = indices[child];
+                i = child;
+            }
+            distances[i] = distance;
+            indices[i] = index;
+        }
+
+        /**
+         * Empty the heap into an array, closest first.
+         */
+        int[] toSortedIndices() {
+            int[] sorted = new int[size];
+            for (int n = size; n > 0; n--) {
+                sorted[n - 1] = indices[0];
+                siftDown(distances[n - 1], indices[n - 1], n - 1);
+            }
+            size = 0;
+            return sorted;
         }
     }
 
@@ -537,8 +748,10 @@ public class NTree implements Iterable<DataPoint> {
      */
     public void addAll(NTree other) {
         for (DataPoint d : other) {
-            add(d);
+            checkDimension(d);
         }
+        list.addAll(other.list);
+        rebuild();
     }
 
     /**
@@ -555,59 +768,9 @@ public class NTree implements Iterable<DataPoint> {
      * @param point the point to set
      */
     public void set(int index, DataPoint point) {
-        DataPoint old = list.get(index);
-        Leaf leaf = all.get(old); // leaf can be null sometimes..
-        if (leaf == null) {
-            System.out.println(index);
-        }
-        int leafIndex = leaf.points.indexOf(old);
-        leaf.points.set(leafIndex, point);
-        all.put(point, leaf);
-        all.remove(old);
+        checkDimension(point);
         list.set(index, point);
+        removeFromLeaf(index);
+        insert(index, point.getData());
     }
-
-    /*----------------------------------------------*/
-
-    /**
-     * Base class for nodes.
-     */
-    private abstract static class Node {
-        Type type;
-    }
-
-    /**
-     * Class for branches.
-     */
-    private static class Branch extends Node {
-        Node left;
-        Node right;
-        final double midPoint;
-        final int splitDimension;
-
-        Branch(double midPoint, int splitDimension) {
-            type = Type.branch;
-            this.midPoint = midPoint;
-            this.splitDimension = splitDimension;
-        }
-
-        public String toString() {
-            return "split on: " + splitDimension + ", midPoint: " + midPoint;
-        }
-    }
-
-    /**
-     * Class for leaves.
-     */
-    private static class Leaf extends Node {
-        {
-            type = Type.leaf;
-        }
-
-        List<DataPoint> points = new ArrayList<DataPoint>();
-
-        public String toString() {
-            return "size: " + points.size();
-        }
-    }
-}
\ No newline at end of file
+}
@@ -40,9 +40,7 @@ public class NTreeConverter implements Converter {
         List<DataPoint> datapoints = (List<DataPoint>) context.convertAnother(reader.getValue(), ArrayList.class);
         reader.moveUp();
 
-        var ntree = new NTree(dims);
-        datapoints.forEach(ntree::add);
-        return ntree;
+        return new NTree(dims, datapoints);
     }
 
 }
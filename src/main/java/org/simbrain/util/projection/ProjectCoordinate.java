@@ -75,6 +75,7 @@ public class ProjectCoordinate extends ProjectionMethod {
             projector.getDownstairs().getPoint(i).setData(newLowDPoint);
         }
 
+        projector.publishSnapshot();
         projector.getEvents().getDataChanged().fireAndBlock();
 
         // System.out.println("-->" + hiD1);
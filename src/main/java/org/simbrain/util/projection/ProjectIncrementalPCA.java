@@ -0,0 +1,392 @@
+/*
+ * Part of Simbrain--a java-based neural network kit
+ * Copyright (C) 2005,2007 The Authors.  See http://www.simbrain.net/credits
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.simbrain.util.projection;
+
+import java.util.Arrays;
+
+/**
+ * <B>ProjectIncrementalPCA</B> projects along the two principal components of the high-dimensional dataset, like
+ * {@link ProjectPCA}, but without refitting the whole dataset each time a point is added.
+ * <br>
+ * A running mean and scatter matrix are updated with each new point (Welford's method), which costs O(d^2) per
+ * point. The principal components are only recomputed every {@link #refitInterval} points, or sooner if the mean has
+ * drifted by more than {@link #driftThreshold} standard deviations since the last fit. In between, new points are
+ * projected onto the current components in O(d). When the components are recomputed all points are projected again,
+ * so the plot always shows a single consistent projection. Since that costs O(n), refits are also spaced at least
+ * {@link #refitFraction} times the number of points apart, so the interval grows with the dataset and the cost of
+ * reprojecting stays constant per added point.
+ * <br>
+ * Components are found by power iteration started from the previous components, which usually converges in a few
+ * steps since the components change slowly, and their signs are kept consistent across refits so the plot does not
+ * flip.
+ */
+public class ProjectIncrementalPCA extends ProjectionMethod {
+
+    /**
+     * Number of components projected onto.
+     */
+    private static final int NUM_COMPONENTS = 2;
+
+    /**
+     * Maximum power iterations per component.
+     */
+    private static final int MAX_ITERATIONS = 500;
+
+    /**
+     * Power iteration stops when successive estimates of a component differ by less than this.
+     */
+    private static final double CONVERGENCE_TOLERANCE = 1e-12;
+
+    /**
+     * Number of added points after which the principal components are recomputed.
+     */
+    private int refitInterval = 50;
+
+    /**
+     * Minimum number of added points between refits, as a fraction of the number of points. Applies to refits caused
+     * by drift too.
+     */
+    private double refitFraction = .1;
+
+    /**
+     * Distance the mean can move since the last fit, in standard deviations of the data, before the principal
+     * components are recomputed.
+     */
+    private double driftThreshold = .25;
+
+    /**
+     * The dataset the statistics were accumulated from. If the projector's dataset is replaced, start over.
+     */
+    private Dataset source;
+
+    /**
+     * Number of upstairs points included in the running statistics.
+     */
+    private int numAbsorbed;
+
+    private double[] mean;
+
+    /**
+     * Sum of outer products of deviations from the mean. Divided by n - 1 this is the covariance matrix.
+     */
+    private double[][] scatter;
+
+    /**
+     * Current principal components, or null if they have not been fit yet.
+     */
+    private double[][] components;
+
+    /**
+     * The mean when the components were fit. Points are centered on this mean when projected.
+     */
+    private double[] fitMean;
+
+    private int pointsSinceFit;
+
+    /**
+     * Number of times the components were fit since the statistics were last reset.
+     */
+    private int fitCount;
+
+    /**
+     * Default incremental PCA projection.
+     *
+     * @param projector parent projector
+     */
+    public ProjectIncrementalPCA(Projector projector) {
+        super(projector);
+    }
+
+    @Override
+    public void init() {
+        reset(projector.getUpstairs());
+    }
+
+    private void reset(Dataset dataset) {
+        source = dataset;
+        numAbsorbed = 0;
+        pointsSinceFit = 0;
+        fitCount = 0;
+        components = null;
+        int dims = dataset == null ? 0 : dataset.getDimensions();
+        mean = new double[dims];
+        fitMean = new double[dims];
+        scatter = new double[dims][dims];
+    }
+
+    @Override
+    public void project() {
+        projector.publishSnapshot(projectIncremental());
+        projector.getEvents().getDataChanged().fireAndBlock();
+    }
+
+    /**
+     * Project the points added since the last call, and all points if the components were recomputed.
+     *
+     * @return index of the first downstairs point that changed
+     */
+    private int projectIncremental() {
+        Dataset upstairs = projector.getUpstairs();
+        if (upstairs == null) {
+            return 0;
+        }
+        if (upstairs != source || upstairs.getNumPoints() < numAbsorbed) {
+            // The dataset was replaced or cleared
+            reset(upstairs);
+        }
+        int numPoints = upstairs.getNumPoints();
+        int firstNew = numAbsorbed;
+        for (int i = firstNew; i < numPoints; i++) {
+            absorb(upstairs.getPoint(i).getData());
+        }
+        pointsSinceFit += numPoints - firstNew;
+
+        if (numPoints < 3) {
+            // Too few points to define components. Same as ProjectPCA.
+            for (int i = 0; i < numPoints; i++) {
+                projector.getDownstairs().getPoint(i).setData(new double[]{upstairs.getComponent(i, 0),
+                        upstairs.getDimensions() > 1 ? upstairs.getComponent(i, 1) : 0});
+            }
+            return 0;
+        }
+
+        int minSpacing = (int) (numPoints * refitFraction);
+        if (components == null || pointsSinceFit >= Math.max(refitInterval, minSpacing)
+                || (pointsSinceFit >= minSpacing && getDrift() > driftThreshold)) {
+            fit();
+            double[][] projected = new double[numPoints][];
+            for (int i = 0; i < numPoints; i++) {
+                projected[i] = projectPoint(upstairs.getPoint(i).getData());
+            }
+            projector.getDownstairs().setData(projected);
+            return 0;
+        }
+        for (int i = firstNew; i < numPoints; i++) {
+            projector.getDownstairs().getPoint(i).setData(projectPoint(upstairs.getPoint(i).getData()));
+        }
+        return firstNew;
+    }
+
+    /**
+     * Welford update of the mean and scatter matrix.
+     */
+    private void absorb(double[] point) {
+        numAbsorbed++;
+        int dims = mean.length;
+        double[] delta = new double[dims];
+        for (int j = 0; j < dims; j++) {
+            delta[j] = point[j] - mean[j];
+            mean[j] += delta[j] / numAbsorbed;
+        }
+        for (int j = 0; j < dims; j++) {
+            double newDelta = point[j] - mean[j];
+            double[] row = scatter[j];
+            for (int k = 0; k < dims; k++) {
+                row[k] += delta[k] * newDelta;
+            }
+        }
+    }
+
+    /**
+     * Distance between the current mean and the mean at the last fit, relative to the standard deviation of the data.
+     */
+    private double getDrift() {
+        double trace = 0;
+        double distanceSquared = 0;
+        for (int j = 0; j < mean.length; j++) {
+            trace += scatter[j][j];
+            double diff = mean[j] - fitMean[j];
+            distanceSquared += diff * diff;
+        }
+        double variance = trace / (numAbsorbed - 1);
+        if (variance == 0) {
+            return 0;
+        }
+        return Math.sqrt(distanceSquared / variance);
+    }
+
+    /**
+     * Recompute the principal components from the scatter matrix, by power iteration with deflation.
+     */
+    private void fit() {
+        int dims = mean.length;
+        double[][] newComponents = new double[NUM_COMPONENTS][];
+        for (int c = 0; c < NUM_COMPONENTS; c++) {
+            double[] v = initialEstimate(c);
+            orthogonalize(v, newComponents, c);
+            if (normalize(v) == 0) {
+                newComponents[c] = new double[dims];
+                continue;
+            }
+            for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+                double[] w = multiply(scatter, v);
+                orthogonalize(w, newComponents, c);
+                if (normalize(w) == 0) {
+                    // No variance left in the remaining directions
+                    break;
+                }
+                double change = 0;
+                for (int j = 0; j < dims; j++) {
+                    change += (w[j] - v[j]) * (w[j] - v[j]);
+                }
+                v = w;
+                if (change < CONVERGENCE_TOLERANCE) {
+                    break;
+                }
+            }
+            newComponents[c] = v;
+            // Keep the orientation of the previous fit so the plot does not flip
+            if (components != null && dot(v, components[c]) < 0) {
+                for (int j = 0; j < dims; j++) {
+                    v[j] = -v[j];
+                }
+            }
+        }
+        components = newComponents;
+        System.arraycopy(mean, 0, fitMean, 0, dims);
+        pointsSinceFit = 0;
+        fitCount++;
+    }
+
+    /**
+     * Start from the previous component if there is one, otherwise from the axis with the c-th most variance,
+     * slightly tilted so the start is not orthogonal to the component.
+     */
+    private double[] initialEstimate(int c) {
+        int dims = mean.length;
+        if (components != null && normOf(components[c]) > 0) {
+            return components[c].clone();
+        }
+        double[] v = new double[dims];
+        for (int j = 0; j < dims; j++) {
+            v[j] = 1.0 / (dims + j + 1);
+        }
+        Integer[] axes = new Integer[dims];
+        for (int j = 0; j < dims; j++) {
+            axes[j] = j;
+        }
+        Arrays.sort(axes, (a, b) -> Double.compare(scatter[b][b], scatter[a][a]));
+        if (c < dims) {
+            v[axes[c]] += 1;
+        }
+        return v;
+    }
+
+    private double[] projectPoint(double[] point) {
+        double[] projected = new double[NUM_COMPONENTS];
+        for (int c = 0; c < NUM_COMPONENTS; c++) {
+            double sum = 0;
+            double[] component = components[c];
+            for (int j = 0; j < point.length; j++) {
+                sum += (point[j] - fitMean[j]) * component[j];
+            }
+            projected[c] = sum;
+        }
+        return projected;
+    }
+
+    private static double[] multiply(double[][] matrix, double[] v) {
+        double[] result = new double[v.length];
+        for (int i = 0; i < v.length; i++) {
+            result[i] = dot(matrix[i], v);
+        }
+        return result;
+    }
+
+    /**
+     * Remove the projection of v onto the first n components.
+     */
+    private static void orthogonalize(double[] v, double[][] components, int n) {
+        for (int c = 0; c < n; c++) {
+            double projection = dot(v, components[c]);
+            for (int j = 0; j < v.length; j++) {
+                v[j] -= projection * components[c][j];
+            }
+        }
+    }
+
+    /**
+     * Normalize in place and return the original norm. Vectors with a negligible norm are left alone.
+     */
+    private static double normalize(double[] v) {
+        double norm = normOf(v);
+        if (norm < 1e-150) {
+            return 0;
+        }
+        for (int j = 0; j < v.length; j++) {
+            v[j] /= norm;
+        }
+        return norm;
+    }
+
+    private static double normOf(double[] v) {
+        return Math.sqrt(dot(v, v));
+    }
+
+    private static double dot(double[] a, double[] b) {
+        double sum = 0;
+        for (int j = 0; j < a.length; j++) {
+            sum += a[j] * b[j];
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the current principal components (one per row), or null if they have not been computed yet.
+     */
+    public double[][] getComponents() {
+        return components;
+    }
+
+    public int getRefitInterval() {
+        return refitInterval;
+    }
+
+    public void setRefitInterval(int refitInterval) {
+        this.refitInterval = refitInterval;
+    }
+
+    public double getRefitFraction() {
+        return refitFraction;
+    }
+
+    public void setRefitFraction(double refitFraction) {
+        this.refitFraction = refitFraction;
+    }
+
+    /**
+     * Returns how many times the components were fit since the statistics were last reset.
+     */
+    public int getFitCount() {
+        return fitCount;
+    }
+
+    public double getDriftThreshold() {
+        return driftThreshold;
+    }
+
+    public void setDriftThreshold(double driftThreshold) {
+        this.driftThreshold = driftThreshold;
+    }
+
+    @Override
+    public int suggestedMinPoints() {
+        return 3;
+    }
+}
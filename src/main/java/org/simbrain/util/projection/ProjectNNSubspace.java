@@ -232,6 +232,7 @@ public class ProjectNNSubspace extends ProjectionMethod {
             }
         }
 
+        projector.publishSnapshot();
         projector.getEvents().getDataChanged().fireAndBlock();
 
     }
@@ -42,6 +42,7 @@ public class ProjectPCA extends ProjectionMethod {
     public void project() {
         // projectPCAJama();
         projectPCASmile();
+        projector.publishSnapshot();
         projector.getEvents().getDataChanged().fireAndBlock();
     }
 
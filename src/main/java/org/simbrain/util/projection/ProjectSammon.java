@@ -179,6 +179,7 @@ public class ProjectSammon extends IterableProjectionMethod {
 
             currentCloseness = e / dstarSum;
             setError(currentCloseness);
+            projector.publishSnapshot();
             projector.getEvents().getDataChanged().fireAndForget();
             // System.out.println("currentCloseness = " + currentCloseness);
         }
@@ -104,6 +104,8 @@ public class ProjectTriangulate extends ProjectionMethod {
 
                 lastAdded2D.setData(new double[]{x, y});
         }
+        // Only the last point was placed
+        projector.publishSnapshot(projector.getDownstairs().getNumPoints() - 1);
         projector.getEvents().getDataChanged().fireAndBlock();
     }
 
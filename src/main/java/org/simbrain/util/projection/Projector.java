@@ -27,8 +27,12 @@ import org.simbrain.workspace.Producible;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * <b>Projector</b> is a the main class of this package, which provides an
@@ -120,7 +124,45 @@ public class Projector implements AttributeContainer {
      */
     private transient volatile boolean isUpdateCompleted;
 
-    private final transient Object lock = new Object();
+    private transient Object lock = new Object();
+
+    /**
+     * If false, {@link #addDatapoint(DataPoint)} queues points to be added by a background worker instead of adding
+     * them right away. Asynchronous by default so that couplings feeding a projection plot don't wait for the
+     * projection; set it when points must be in the datasets as soon as they are added. Stored negated so that
+     * projectors saved before the option existed, which lack the field, open with the default.
+     */
+    private boolean synchronousIngestion;
+
+    /**
+     * Points queued by {@link #addDatapoint(DataPoint)} and not yet added.
+     */
+    private transient ConcurrentLinkedQueue<DataPoint> pendingPoints = new ConcurrentLinkedQueue<>();
+
+    /**
+     * True when a drain of {@link #pendingPoints} has been submitted and has not started yet.
+     */
+    private transient AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    /**
+     * Adds queued points. Its single thread exits when idle.
+     */
+    private transient ExecutorService ingestionWorker = createIngestionWorker();
+
+    /**
+     * Latest published copy of the projection. See {@link #getSnapshot()}.
+     */
+    private transient volatile ProjectionSnapshot snapshot;
+
+    private static ExecutorService createIngestionWorker() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(0, 1, 5, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "Projector ingestion");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        return executor;
+    }
 
     /**
      * Default constructor for projector.
@@ -149,8 +191,12 @@ public class Projector implements AttributeContainer {
      */
     public void init(final int dims) {
         // TODO: This seems to be called twice when adding a projection component.
-        upstairs = new Dataset(dims);
-        downstairs = new Dataset(2);
+        synchronized (lock) {
+            pendingPoints.clear();
+            upstairs = new Dataset(dims);
+            downstairs = new Dataset(2);
+            publishSnapshot();
+        }
         events.getDataChanged().fireAndForget();
     }
 
@@ -159,6 +205,7 @@ public class Projector implements AttributeContainer {
         projectionMethods.put(ProjectCoordinate.class, "Coordinate Projection");
         projectionMethods.put(ProjectNNSubspace.class, "NN Subspace");
         projectionMethods.put(ProjectPCA.class, "PCA");
+        projectionMethods.put(ProjectIncrementalPCA.class, "Incremental PCA");
         projectionMethods.put(ProjectTriangulate.class, "Triangulation");
         projectionMethods.put(ProjectSammon.class, "Sammon Map");
     }
@@ -168,68 +215,131 @@ public class Projector implements AttributeContainer {
      */
     public void postOpenInit() {
         events = new ProjectorEvents2();
+        lock = new Object();
+        pendingPoints = new ConcurrentLinkedQueue<>();
+        drainScheduled = new AtomicBoolean();
+        ingestionWorker = createIngestionWorker();
         init();
+        publishSnapshot();
     }
 
     /**
      * Add a new point to the dataset, using the currently selected add method.
+     * <br>
+     * If {@link #isAsynchronousIngestion()} is set the point is only queued, and is added by a background worker
+     * along with any other points queued in the meantime. The caller does not wait for the projection lock.
      *
      * @param point the upstairs point to add
      */
     public void addDatapoint(final DataPoint point) {
+        if (!synchronousIngestion) {
+            pendingPoints.add(point);
+            if (drainScheduled.compareAndSet(false, true)) {
+                ingestionWorker.execute(this::drainPendingPoints);
+            }
+        } else {
+            addDatapoints(List.of(point));
+        }
+    }
+
+    /**
+     * Add everything that was queued by {@link #addDatapoint(DataPoint)} in one batch.
+     */
+    private void drainPendingPoints() {
+        drainScheduled.set(false);
+        List<DataPoint> batch = new ArrayList<>();
+        DataPoint point;
+        while ((point = pendingPoints.poll()) != null) {
+            batch.add(point);
+        }
+        if (!batch.isEmpty()) {
+            addDatapoints(batch);
+        }
+    }
+
+    /**
+     * Wait until all points queued by {@link #addDatapoint(DataPoint)} have been added.
+     */
+    public void awaitIngestion() {
+        try {
+            ingestionWorker.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * Add points in order. The result is the same as adding them one at a time, but non-iterable projections are
+     * only recomputed once and point colors are only updated once for the whole batch.
+     *
+     * @param points the upstairs points to add
+     */
+    public void addDatapoints(final List<? extends DataPoint> points) {
 
         synchronized (lock) {
-            Logger.debug("addDatapoint called");
-            if (point.getDimension() != this.getDimensions() || (projectionMethod == null) || (getUpstairs() == null)) {
+            Logger.debug("addDatapoints called with " + points.size() + " points");
+            if ((projectionMethod == null) || (getUpstairs() == null)) {
                 return;
             }
 
-            //point.setData(SimbrainMath.roundVec(point.getData(), 1));
-
-            // Iterable functions to be re-initialized when new data is added
-            if (projectionMethod.isIterable()) {
-                ((IterableProjectionMethod) projectionMethod).setNeedsReInit(true);
-            }
+            boolean anyNew = false;
+            int firstNew = upstairs.getNumPoints();
+            DataPoint lastFound = null;
+            DataPoint previousCurrent = currentPoint;
+            List<DataPointColored> visits = new ArrayList<>();
+            boolean bayesian = colorManager.getColoringMethod() == DataColoringManager.ColoringMethod.Bayesian;
 
-            // Add the point directly to the upstairs dataset. If the point already
-            // exists just change colors and return. If the point is new. add a
-            // point downstairs, and call the projection algorithm.
-            DataPoint existingPoint = upstairs.addPoint(point, tolerance);
-            if (existingPoint != null) {
-                // That point was already in the dataset
-                currentPoint = existingPoint;
-                events.getPointFound().fireAndForget(currentPoint);
-            } else {
-                // It's a new point
-                currentPoint = point;
-                DataPoint newPoint;
-                if (point.getDimension() == 1) {
-                    // For 1-d datasets plot points on a horizontal line
-                    newPoint = new DataPoint(new double[]{point.get(0), 0});
-                } else {
-                    newPoint = new DataPoint(new double[]{point.get(0), point.get(1)});
+            for (DataPoint point : points) {
+                if (point.getDimension() != this.getDimensions()) {
+                    continue;
                 }
 
-                downstairs.addPoint(newPoint);
+                //point.setData(SimbrainMath.roundVec(point.getData(), 1));
 
+                // Iterable functions to be re-initialized when new data is added
                 if (projectionMethod.isIterable()) {
-                    // TODO: Make number of points and projection methods settable
-                    // For iterable projection methods we need a way to deal with new points
-                    // For the first 10 points we use PCA. After that we use triangulation
-                    if (getNumPoints() < 10) {
-                        ProjectPCA pca  = new ProjectPCA(this);
-                        pca.project();
+                    ((IterableProjectionMethod) projectionMethod).setNeedsReInit(true);
+                }
+
+                // Add the point directly to the upstairs dataset. If the point already
+                // exists just change colors and continue. If the point is new. add a
+                // point downstairs, and call the projection algorithm.
+                DataPoint existingPoint = upstairs.addPoint(point, tolerance);
+                if (existingPoint != null) {
+                    // That point was already in the dataset
+                    currentPoint = existingPoint;
+                    lastFound = existingPoint;
+                } else {
+                    // It's a new point
+                    currentPoint = point;
+                    anyNew = true;
+                    DataPoint newPoint;
+                    if (point.getDimension() == 1) {
+                        // For 1-d datasets plot points on a horizontal line
+                        newPoint = new DataPoint(new double[]{point.get(0), 0});
                     } else {
-                        ProjectTriangulate triangulate = new ProjectTriangulate(this);
-                        triangulate.project();
+                        newPoint = new DataPoint(new double[]{point.get(0), point.get(1)});
+                    }
+
+                    downstairs.addPoint(newPoint);
+
+                    if (projectionMethod.isIterable()) {
+                        // TODO: Make number of points and projection methods settable
+                        // For iterable projection methods we need a way to deal with new points
+                        // For the first 10 points we use PCA. After that we use triangulation
+                        if (getNumPoints() < 10) {
+                            ProjectPCA pca  = new ProjectPCA(this);
+                            pca.project();
+                        } else {
+                            ProjectTriangulate triangulate = new ProjectTriangulate(this);
+                            triangulate.project();
+                        }
                     }
-                } else {
-                    projectionMethod.project();
                 }
-            }
 
-            if (useColorManager) {
-                if (colorManager.getColoringMethod() == DataColoringManager.ColoringMethod.Bayesian) {
+                if (useColorManager && bayesian) {
                     // Update predictor
                     if ((upstairs.getLastPoint() != null) && (upstairs.getCurrentPoint() != null)) {
                         currentStateProbabilty = predictor.addSourceTargetPair(
@@ -238,14 +348,72 @@ public class Projector implements AttributeContainer {
                     } else {
                         currentStateProbabilty = 0;
                     }
+                }
+                if (currentPoint instanceof DataPointColored) {
+                    visits.add((DataPointColored) currentPoint);
+                }
+            }
+
+            if (useColorManager && !visits.isEmpty()) {
+                if (bayesian) {
                     colorManager.updateBayes();
                 } else {
-                    colorManager.updateDataPointColors(upstairs);
+                    colorManager.updateDataPointColors(upstairs, visits,
+                            previousCurrent instanceof DataPointColored ? (DataPointColored) previousCurrent : null);
                 }
             }
+
+            // Non-iterable projections are recomputed once for the whole batch. They publish a snapshot and notify
+            // listeners, so this is done after colors are updated.
+            if (anyNew && !projectionMethod.isIterable()) {
+                projectionMethod.project();
+            }
+
+            // Colors are read from the points, so only new points that the projection method has not published yet
+            // have to be
+            publishSnapshot(Math.max(firstNew, getSnapshot().getSize()));
+            if (anyNew && projectionMethod.isIterable()) {
+                // Points were placed before their colors were updated
+                events.getDataChanged().fireAndForget();
+            } else if (lastFound != null && lastFound == currentPoint) {
+                events.getPointFound().fireAndForget(currentPoint);
+            }
         }
     }
 
+    /**
+     * Copy the current state of the datasets into a new {@link ProjectionSnapshot}. Projection methods call this after
+     * changing the downstairs dataset and before firing dataChanged, so listeners see the new state.
+     */
+    public void publishSnapshot() {
+        synchronized (lock) {
+            snapshot = ProjectionSnapshot.of(this);
+        }
+    }
+
+    /**
+     * Publish a snapshot when only the points from the given index on have been added or changed since the last
+     * one. Costs time proportional to the number of those points rather than all of them.
+     *
+     * @param firstChanged index of the first point that changed
+     */
+    public void publishSnapshot(int firstChanged) {
+        synchronized (lock) {
+            snapshot = ProjectionSnapshot.append(this, getSnapshot(), firstChanged);
+        }
+    }
+
+    /**
+     * Returns the state of the projection as of the last change. Can be called from any thread without waiting for
+     * points to be added or a projection to finish iterating.
+     *
+     * @return the latest snapshot
+     */
+    public ProjectionSnapshot getSnapshot() {
+        ProjectionSnapshot current = snapshot;
+        return current == null ? ProjectionSnapshot.EMPTY : current;
+    }
+
     /**
      * Change the current projection method and perform and other needed initialization.
      *
@@ -255,8 +423,9 @@ public class Projector implements AttributeContainer {
         var old = projectionMethod;
         projectionMethod = method;
         method.init();
-        events.getMethodChanged().fireAndForget(old, method);
         projectionMethod.project();
+        publishSnapshot();
+        events.getMethodChanged().fireAndForget(old, method);
     }
 
     /**
@@ -366,6 +535,7 @@ public class Projector implements AttributeContainer {
         if (projectionMethod.isIterable()) {
             ((IterableProjectionMethod) projectionMethod).
                     iterate();
+            publishSnapshot();
         }
     }
 
@@ -383,10 +553,12 @@ public class Projector implements AttributeContainer {
      */
     public void reset() {
         synchronized (lock) {
+            pendingPoints.clear();
             upstairs.clear();
             downstairs.clear();
-            events.getDataChanged().fireAndForget();
             predictor.clear();
+            publishSnapshot();
+            events.getDataChanged().fireAndForget();
         }
     }
 
@@ -394,12 +566,15 @@ public class Projector implements AttributeContainer {
      * Reset the colors of all colored data points.
      */
     public void resetColors() {
-        for (int i = 0; i < upstairs.getNumPoints(); i++) {
-            DataPointColored point = (DataPointColored) upstairs.getPoint(i);
-            point.resetActivation();
-        }
-        if (useColorManager) {
-            colorManager.updateDataPointColors(upstairs);
+        synchronized (lock) {
+            for (int i = 0; i < upstairs.getNumPoints(); i++) {
+                DataPointColored point = (DataPointColored) upstairs.getPoint(i);
+                point.resetActivation();
+            }
+            if (useColorManager) {
+                colorManager.updateDataPointColors(upstairs);
+            }
+            publishSnapshot();
         }
     }
 
@@ -434,6 +609,7 @@ public class Projector implements AttributeContainer {
     public void randomize(int upperBound) {
         synchronized (lock) {
             downstairs.randomize(upperBound);
+            publishSnapshot();
             events.getDataChanged().fireAndForget();
         }
     }
@@ -544,4 +720,21 @@ public class Projector implements AttributeContainer {
     public Object getLock() {
         return lock;
     }
+
+    public boolean isAsynchronousIngestion() {
+        return !synchronousIngestion;
+    }
+
+    /**
+     * Set whether {@link #addDatapoint(DataPoint)} queues points for a background worker. When turning it off,
+     * points already queued are added first.
+     *
+     * @param asynchronousIngestion true to add points in the background
+     */
+    public void setAsynchronousIngestion(boolean asynchronousIngestion) {
+        this.synchronousIngestion = !asynchronousIngestion;
+        if (!asynchronousIngestion) {
+            awaitIngestion();
+        }
+    }
 }
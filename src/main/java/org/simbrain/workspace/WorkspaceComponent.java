@@ -141,6 +141,13 @@ public abstract class WorkspaceComponent {
     public void update() {
     }
 
+    /**
+     * Called when the workspace seed is set, with a seed for this component. Components that draw random numbers
+     * should restart their random streams from it. See {@link org.simbrain.util.SimbrainRandom}.
+     */
+    public void setRandomSeed(long seed) {
+    }
+
     /**
      * Override to return a collection of all {@link AttributeContainer}'s currently managed by this
      * component.
@@ -195,7 +195,8 @@ class ArchivedWorkspace {
             } catch (Exception e) {
                 e.printStackTrace();
             }
-        } else if (serializedAction instanceof UpdateAllAction) {
+        } else if (serializedAction instanceof UpdateAllAction
+                || serializedAction instanceof DependencyUpdateAction) {
             try {
                 Class<? extends UpdateAction> type = serializedAction.getClass();
                 action = type.getConstructor(WorkspaceUpdater.class).newInstance(workspace.getUpdater());
@@ -11,25 +11,73 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * ImageAlbum stores a list of static images and lets you load, advance through them etc.
+ * <br>
+ * Frames are either held in memory or read from a file when needed. Albums can be loaded lazily on request (see
+ * {@link #loadImages(File[], boolean)}): only the files are kept, and frames are decoded when shown and kept in a
+ * cache of the {@link #cacheSize} most recently shown. While stepping through the album the next
+ * {@link #prefetchCount} frames are decoded in the background. Lazy frames are saved as file paths rather than as
+ * image data, so the files must still be there when the workspace is opened.
  *
  * @author Tim Shea
  */
 public class ImageAlbum extends ImageSource implements AttributeContainer, EditableObject {
 
     /**
-     * A list of buffered images that can be stepped through.
+     * Albums with more images than this should be loaded lazily. The gui offers to when more are chosen.
+     */
+    public static final int MAX_EAGER_FRAMES = 64;
+
+    /**
+     * A list of buffered images that can be stepped through. Null entries are frames read from {@link #framePaths}.
      */
     private List<BufferedImage> frames = new ArrayList<>();
 
+    /**
+     * Paths of files that frames are read from when needed, parallel to {@link #frames}. Null for frames held in
+     * memory.
+     */
+    private List<String> framePaths = new ArrayList<>();
+
+    private static final int DEFAULT_CACHE_SIZE = 32;
+
+    private static final int DEFAULT_PREFETCH_COUNT = 4;
+
+    /**
+     * Number of decoded frames to keep in memory in a lazy album.
+     */
+    private int cacheSize = DEFAULT_CACHE_SIZE;
+
+    /**
+     * Number of frames to decode ahead of the current frame in a lazy album.
+     */
+    private int prefetchCount = DEFAULT_PREFETCH_COUNT;
+
+    /**
+     * Decoded frames of a lazy album.
+     */
+    private transient ImageFrameCache cache = new ImageFrameCache(cacheSize);
+
     /**
      * Current frame being shown.
      */
     private int frameIndex = 0;
 
+    /**
+     * Index of the frame the current image was set from, or -1 if the current image is not a frame of the album.
+     */
+    private transient int shownFrame = -1;
+
+    /**
+     * Frame that the next {@link #setCurrentImage(BufferedImage, boolean)} shows.
+     */
+    private transient int frameBeingShown = -1;
+
     /**
      * Construct a new StaticImageSource.
      */
@@ -41,6 +89,24 @@ public class ImageAlbum extends ImageSource implements AttributeContainer, Edita
         super(currentImage);
     }
 
+    @Override
+    public Object readResolve() {
+        super.readResolve();
+        if (cacheSize == 0) {
+            // Saved before the cache was added. Cache size is at least 1, so prefetch count was not saved either.
+            cacheSize = DEFAULT_CACHE_SIZE;
+            prefetchCount = DEFAULT_PREFETCH_COUNT;
+        }
+        cache = new ImageFrameCache(cacheSize);
+        shownFrame = -1;
+        frameBeingShown = -1;
+        if (frames != null && framePaths == null) {
+            // Saved before albums could be lazy
+            framePaths = new ArrayList<>(Collections.nCopies(frames.size(), null));
+        }
+        return this;
+    }
+
     /**
      * Load an image from a file and update the current image.
      *
@@ -50,6 +116,9 @@ public class ImageAlbum extends ImageSource implements AttributeContainer, Edita
     @Consumable
     public void loadImage(String filename) throws IOException {
         frames = null;
+        framePaths = null;
+        cache.clear();
+        incrementModificationCount();
         if (filename == null || filename.isEmpty()) {
             setCurrentImage(new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB));
         } else {
@@ -59,37 +128,134 @@ public class ImageAlbum extends ImageSource implements AttributeContainer, Edita
     }
 
     /**
-     * Load a set of image.
+     * Load a set of images into memory, replacing the current frames. They are saved with the workspace.
      *
      * @param files the images to load
      */
     public void loadImages(File[] files) {
+        loadImages(files, false);
+    }
+
+    /**
+     * Load a set of images, replacing the current frames.
+     *
+     * @param files the images to load
+     * @param lazy  if true only check that the files can be read, and decode them when they are shown. The files
+     *              are then saved as paths, not image data.
+     */
+    public void loadImages(File[] files, boolean lazy) {
         List<BufferedImage> list = new ArrayList<>();
+        List<String> paths = new ArrayList<>();
         for (File file : files) {
+            if (lazy) {
+                if (ImageFrameCache.canRead(file)) {
+                    list.add(null);
+                    paths.add(file.getAbsolutePath());
+                } else {
+                    reportUnreadable(file);
+                }
+                continue;
+            }
             try {
                 BufferedImage read = ImageIO.read(file);
                 if (read != null) {
                     list.add(read);
+                    paths.add(null);
                 } else {
-                    JOptionPane.showMessageDialog(null, String.format("Could not parse %s", file.getName()));
-                    System.err.printf("Could not parse %s", file.getName());
+                    reportUnreadable(file);
                 }
             } catch (IOException e) {
                 e.printStackTrace();
             }
         }
+        if (list.isEmpty()) {
+            return;
+        }
+        cache.clear();
+        // Frame indices now refer to different images
+        incrementModificationCount();
         frames = list;
-        setCurrentImage(frames.get(0));
+        framePaths = paths;
+        frameIndex = 0;
+        showFrame(0, 1);
+    }
+
+    private void reportUnreadable(File file) {
+        JOptionPane.showMessageDialog(null, String.format("Could not parse %s", file.getName()));
+        System.err.printf("Could not parse %s", file.getName());
     }
 
     /**
      * Add a new image to the album and set the current frame to it.
      */
     public void addImage(BufferedImage image) {
+        if (frames == null) {
+            frames = new ArrayList<>();
+            framePaths = new ArrayList<>();
+        }
         frames.add(image);
+        framePaths.add(null);
+        frameIndex = frames.size() - 1;
+        frameBeingShown = frameIndex;
         setCurrentImage(image);
     }
 
+    /**
+     * Returns the image for a frame, decoding it if it is not in memory.
+     */
+    public BufferedImage getFrame(int index) {
+        BufferedImage image = frames.get(index);
+        if (image == null) {
+            image = cache.get(new File(framePaths.get(index)));
+        }
+        return image;
+    }
+
+    /**
+     * Show a frame, and start decoding the next frames in the direction the album is being stepped through.
+     *
+     * @param index     the frame to show
+     * @param direction 1 if stepping forwards, -1 if stepping backwards
+     */
+    private void showFrame(int index, int direction) {
+        frameBeingShown = index;
+        setCurrentImage(getFrame(index));
+        int size = frames.size();
+        List<File> upcoming = new ArrayList<>();
+        for (int i = 1; i <= Math.min(prefetchCount, size - 1); i++) {
+            int next = Math.floorMod(index + i * direction, size);
+            if (frames.get(next) == null) {
+                upcoming.add(new File(framePaths.get(next)));
+            }
+        }
+        if (!upcoming.isEmpty()) {
+            cache.prefetch(upcoming);
+        }
+    }
+
+    @Override
+    protected void setCurrentImage(BufferedImage image, boolean fireEvents) {
+        shownFrame = frameBeingShown;
+        frameBeingShown = -1;
+        super.setCurrentImage(image, fireEvents);
+    }
+
+    /**
+     * Returns the index of the frame the current image is, or -1 if the current image was set some other way.
+     * Together with {@link #getModificationCount()} this identifies the pixels of the current image, even when a
+     * lazy album decodes the frame again.
+     */
+    public int getShownFrame() {
+        return shownFrame;
+    }
+
+    /**
+     * Returns true if frames are read from files when needed rather than held in memory.
+     */
+    public boolean isLazy() {
+        return framePaths != null && framePaths.stream().anyMatch(Objects::nonNull);
+    }
+
     /**
      * Create image from a provided image icon.
      *
@@ -108,9 +274,9 @@ public class ImageAlbum extends ImageSource implements AttributeContainer, Edita
      * Update the current image to the next image in the frame list.
      */
     public void nextFrame() {
-        if (frames != null) {
+        if (frames != null && !frames.isEmpty()) {
             frameIndex = (frameIndex + 1) % frames.size();
-            setCurrentImage(frames.get(frameIndex));
+            showFrame(frameIndex, 1);
         }
     }
 
@@ -118,9 +284,9 @@ public class ImageAlbum extends ImageSource implements AttributeContainer, Edita
      * Update the current image to the previous image in the frame list.
      */
     public void previousFrame() {
-        if (frames != null) {
+        if (frames != null && !frames.isEmpty()) {
             frameIndex = (frameIndex + frames.size() - 1) % frames.size();
-            setCurrentImage(frames.get(frameIndex));
+            showFrame(frameIndex, -1);
         }
     }
 
@@ -138,9 +304,41 @@ public class ImageAlbum extends ImageSource implements AttributeContainer, Edita
      * Set album to frame aat provided index.
      */
     public void setFrame(int frameIndex) {
-        if (frameIndex >= 0 && frameIndex < frames.size()) {
-            setCurrentImage(frames.get(frameIndex));
+        if (frames != null && frameIndex >= 0 && frameIndex < frames.size()) {
+            this.frameIndex = frameIndex;
+            showFrame(frameIndex, 1);
         }
     }
 
+    /**
+     * Returns the index of the frame being shown.
+     */
+    public int getFrameIndex() {
+        return frameIndex;
+    }
+
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * Set the number of decoded frames a lazy album keeps in memory.
+     */
+    public void setCacheSize(int cacheSize) {
+        this.cacheSize = Math.max(1, cacheSize);
+        cache.setCapacity(this.cacheSize);
+    }
+
+    public int getPrefetchCount() {
+        return prefetchCount;
+    }
+
+    /**
+     * Set the number of frames a lazy album decodes ahead of the current frame. Should be less than the cache size,
+     * or prefetched frames will push out frames that are about to be shown.
+     */
+    public void setPrefetchCount(int prefetchCount) {
+        this.prefetchCount = Math.max(0, prefetchCount);
+    }
+
 }
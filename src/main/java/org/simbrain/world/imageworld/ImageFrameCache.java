@@ -0,0 +1,178 @@
+package org.simbrain.world.imageworld;
+
+import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Decodes image files on demand and keeps the most recently used ones in memory. Used by {@link ImageAlbum} so that
+ * albums with many images don't need to hold all of them at once.
+ * <br>
+ * Images can be prefetched, in which case they are decoded on a background thread. Asking for an image that is being
+ * prefetched waits for that decode rather than starting another. Decodes that finish after {@link #clear()} are
+ * dropped, so a new album never gets images from the previous one.
+ */
+class ImageFrameCache {
+
+    /**
+     * Maximum number of decoded images to keep.
+     */
+    private int capacity;
+
+    /**
+     * Decoded images, least recently used first.
+     */
+    private final LinkedHashMap<File, BufferedImage> images = new LinkedHashMap<>(16, .75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<File, BufferedImage> eldest) {
+            return size() > capacity;
+        }
+    };
+
+    /**
+     * Images being decoded in the background.
+     */
+    private final Map<File, Future<BufferedImage>> pending = new HashMap<>();
+
+    /**
+     * Incremented by {@link #clear()}. Decodes started in an earlier generation are not cached.
+     */
+    private int generation;
+
+    /**
+     * Thread for prefetching. It exits when idle so the cache does not need to be closed.
+     */
+    private final ExecutorService loader;
+
+    ImageFrameCache(int capacity) {
+        this.capacity = capacity;
+        loader = new ThreadPoolExecutor(0, 1, 5, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "Image album loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns the decoded image, reading it from disk if it is not cached.
+     */
+    BufferedImage get(File file) {
+        Future<BufferedImage> future;
+        int startGeneration;
+        synchronized (this) {
+            BufferedImage image = images.get(file);
+            if (image != null) {
+                return image;
+            }
+            future = pending.get(file);
+            startGeneration = generation;
+        }
+        if (future != null) {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException | CancellationException e) {
+                // Read again below
+            }
+        }
+        BufferedImage image = read(file);
+        synchronized (this) {
+            if (generation == startGeneration) {
+                images.put(file, image);
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Start decoding images that are not already cached or being decoded, in order.
+     */
+    synchronized void prefetch(List<File> files) {
+        for (File file : files) {
+            if (images.containsKey(file) || pending.containsKey(file)) {
+                continue;
+            }
+            int startGeneration = generation;
+            pending.put(file, loader.submit(() -> {
+                BufferedImage image = read(file);
+                synchronized (ImageFrameCache.this) {
+                    // After a clear the file may be stale or belong to another album's prefetch
+                    if (generation == startGeneration) {
+                        images.put(file, image);
+                        pending.remove(file);
+                    }
+                }
+                return image;
+            }));
+        }
+    }
+
+    /**
+     * Returns true if the image is decoded and in memory.
+     */
+    synchronized boolean isCached(File file) {
+        return images.containsKey(file);
+    }
+
+    /**
+     * Drop all decoded images and cancel prefetches that have not started.
+     */
+    synchronized void clear() {
+        generation++;
+        pending.values().forEach(f -> f.cancel(false));
+        pending.clear();
+        images.clear();
+    }
+
+    synchronized int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Set the number of images to keep. Least recently used images are dropped if there are more than that.
+     */
+    synchronized void setCapacity(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        var iterator = images.entrySet().iterator();
+        while (images.size() > this.capacity && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Decode an image file. Files that can't be read give a small blank image, so a bad file does not stop a
+     * simulation that is cycling through an album.
+     */
+    static BufferedImage read(File file) {
+        try {
+            BufferedImage image = ImageIO.read(file);
+            if (image != null) {
+                return image;
+            }
+            System.err.printf("Could not parse %s%n", file.getName());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB);
+    }
+
+    /**
+     * Returns true if there is an image reader for the file, checking only its header.
+     */
+    static boolean canRead(File file) {
+        try (ImageInputStream stream = ImageIO.createImageInputStream(file)) {
+            return stream != null && ImageIO.getImageReaders(stream).hasNext();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -33,6 +33,12 @@ public abstract class ImageSource  {
      */
     private transient ImageEvents2 events = new ImageEvents2();
 
+    /**
+     * Number of times the pixels of an image were changed in place. Anything cached from images of this source is
+     * stale when this changes.
+     */
+    private transient int modificationCount;
+
     /**
      * Construct a new ImageSourceAdapter and initialize the current image.
      */
@@ -75,6 +81,25 @@ public abstract class ImageSource  {
         }
     }
 
+    /**
+     * Notify listeners that the pixels of the current image were changed in place.
+     */
+    public void fireImageModified() {
+        incrementModificationCount();
+        fireImageUpdate();
+    }
+
+    /**
+     * Record that images may have changed, so anything derived from earlier images is stale.
+     */
+    protected void incrementModificationCount() {
+        modificationCount++;
+    }
+
+    public int getModificationCount() {
+        return modificationCount;
+    }
+
     public BufferedImage getCurrentImage() {
         return currentImage;
     }
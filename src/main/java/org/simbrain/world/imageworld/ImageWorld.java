@@ -58,6 +58,17 @@ public class ImageWorld {
         imageAlbum.loadImages(files);
     }
 
+    /**
+     * Load images from an array, optionally reading them from the files only when they are shown. See
+     * {@link ImageAlbum#loadImages(File[], boolean)}.
+     *
+     * @param files array of images to load
+     * @param lazy  true to decode images when shown and save them as file paths
+     */
+    public void loadImages(File[] files, boolean lazy) {
+        imageAlbum.loadImages(files, lazy);
+    }
+
     /**
      * Returns number of frames in the "album" associated with this component.
      */
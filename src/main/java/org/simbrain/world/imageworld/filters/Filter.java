@@ -5,11 +5,16 @@ import org.simbrain.util.UserParameter;
 import org.simbrain.util.propertyeditor.EditableObject;
 import org.simbrain.workspace.AttributeContainer;
 import org.simbrain.workspace.Producible;
+import org.simbrain.world.imageworld.ImageAlbum;
 import org.simbrain.world.imageworld.ImageSource;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.awt.image.BufferedImageOp;
+import java.awt.image.DataBufferInt;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
 
 /**
  * Wraps an {@link ImageOperation} in a structure that allows for coupling, event handling etc.
@@ -86,6 +91,41 @@ public class Filter implements AttributeContainer, EditableObject {
      */
     private transient int[] rgbColors;
 
+    /**
+     * Maximum number of filtered pixels kept in {@link #frameCache}.
+     */
+    static final int MAX_CACHED_PIXELS = 1 << 22;
+
+    /**
+     * Scales and applies pixel operations in one pass over the source raster.
+     */
+    private transient RasterPipeline pipeline;
+
+    /**
+     * Filtered colors of the frames of an {@link ImageAlbum}, so that cycling through an album only filters each
+     * frame once. Keyed by frame index, so frames a lazy album decodes again still hit. Cleared when the filter is
+     * refreshed, when the album's modification count changes, i.e. when images are loaded or modified in place, and
+     * when the operation or its modification count changes, i.e. when its parameters are set.
+     */
+    private transient Map<Integer, int[]> frameCache;
+
+    /**
+     * Number of pixels in {@link #frameCache}.
+     */
+    private transient int cachedPixels;
+
+    /**
+     * The source's modification count when the frame cache was filled.
+     */
+    private transient int cacheModificationCount;
+
+    /**
+     * The operation and its modification count when the frame cache was filled.
+     */
+    private transient ImageOperation<?> cacheImageOp;
+
+    private transient int cacheOpModificationCount;
+
     /**
      * Construct a filter attached to an ImageSource.
      *
@@ -166,6 +206,50 @@ public class Filter implements AttributeContainer, EditableObject {
     void initChannels() {
         channels = new double[4][width * height];
         rgbColors = new int[width * height];
+        clearFrameCache();
+    }
+
+    private void clearFrameCache() {
+        frameCache = new HashMap<>();
+        cachedPixels = 0;
+        cacheModificationCount = source.getModificationCount();
+        cacheImageOp = imageOp;
+        cacheOpModificationCount = imageOp.getModificationCount();
+    }
+
+    /**
+     * Returns the cached colors for a frame, or null if there are none.
+     */
+    private int[] getCachedFrame(int frame) {
+        if (frame < 0) {
+            return null;
+        }
+        if (cacheModificationCount != source.getModificationCount() || cacheImageOp != imageOp
+                || cacheOpModificationCount != imageOp.getModificationCount()) {
+            clearFrameCache();
+        }
+        return frameCache.get(frame);
+    }
+
+    private void cacheFrame(int frame) {
+        if (frame < 0 || rgbColors.length > MAX_CACHED_PIXELS) {
+            return;
+        }
+        if (cachedPixels + rgbColors.length > MAX_CACHED_PIXELS) {
+            clearFrameCache();
+        }
+        frameCache.put(frame, rgbColors.clone());
+        cachedPixels += rgbColors.length;
+    }
+
+    /**
+     * Returns the album frame the source is showing if the source is an album being cycled through, else -1.
+     */
+    private int getCurrentFrame() {
+        if (source instanceof ImageAlbum && ((ImageAlbum) source).getNumFrames() > 1) {
+            return ((ImageAlbum) source).getShownFrame();
+        }
+        return -1;
     }
 
     BufferedImage applyFilter() {
@@ -187,31 +271,65 @@ public class Filter implements AttributeContainer, EditableObject {
      */
     public void updateFilter() {
 
-        filteredImage = applyFilter();
+        BufferedImage image = source.getCurrentImage();
+        int frame = getCurrentFrame();
+        int[] cached = getCachedFrame(frame);
+        if (cached != null) {
+            System.arraycopy(cached, 0, rgbColors, 0, rgbColors.length);
+        } else {
+            if (imageOp.isPixelOperation()) {
+                if (pipeline == null) {
+                    pipeline = new RasterPipeline();
+                }
+                pipeline.filter(image, imageOp, width, height, rgbColors);
+            } else {
+                BufferedImage filtered = applyFilter();
+                if (filtered.getHeight() != height || filtered.getWidth() != width) {
+                    throw new AssertionError("Filtered image size not equal to filter size");
+                }
+                filtered.getRGB(0, 0, width, height, rgbColors, 0, width);
+            }
+            cacheFrame(frame);
+        }
 
-        if (filteredImage.getHeight() != height || filteredImage.getWidth() != width) {
-            throw new AssertionError("Filtered image size not equal to filter size");
+        // Copy the colors into the displayed image, reusing it if the size is unchanged
+        if (filteredImage == null || filteredImage.getWidth() != width || filteredImage.getHeight() != height
+                || filteredImage.getType() != BufferedImage.TYPE_INT_RGB) {
+            filteredImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
         }
+        int[] pixels = ((DataBufferInt) filteredImage.getRaster().getDataBuffer()).getData();
+        System.arraycopy(rgbColors, 0, pixels, 0, rgbColors.length);
 
         // Set values of channels
-        for (int y = 0; y < filteredImage.getHeight(); ++y) {
-            for (int x = 0; x < filteredImage.getWidth(); ++x) {
-
-                // Update rgb colors
-                int color = filteredImage.getRGB(x, y);
-                rgbColors[y * width + x] = color;
-
-                // Update other color channels
-                // Cf https://stackoverflow.com/questions/2534116/how-to-convert-get-rgbx-y-integer-pixel-to-colorr-g-b-a-in-java
-                double red = ((color >>> 16) & 0xFF) / 255.0;
-                double green = ((color >>> 8) & 0xFF) / 255.0;
-                double blue = (color & 0xFF) / 255.0;
-                // Cf. https://en.wikipedia.org/wiki/Luma_(video)
-                channels[0][y * width + x] = (red * 0.2126 + green * 0.7152 + blue * 0.0722);
-                channels[1][y * width + x] = red;
-                channels[2][y * width + x] = green;
-                channels[3][y * width + x] = blue;
-            }
+        int size = rgbColors.length;
+        if (size >= RasterPipeline.PARALLEL_PIXELS) {
+            int tileSize = 1 << 14;
+            IntStream.range(0, (size + tileSize - 1) / tileSize).parallel()
+                    .forEach(tile -> updateChannels(tile * tileSize, Math.min(size, (tile + 1) * tileSize)));
+        } else {
+            updateChannels(0, size);
+        }
+    }
+
+    /**
+     * Update the color channels from the rgb colors in the given range.
+     */
+    private void updateChannels(int from, int to) {
+        double[] brightness = channels[0];
+        double[] reds = channels[1];
+        double[] greens = channels[2];
+        double[] blues = channels[3];
+        for (int i = from; i < to; i++) {
+            int color = rgbColors[i];
+            // Cf https://stackoverflow.com/questions/2534116/how-to-convert-get-rgbx-y-integer-pixel-to-colorr-g-b-a-in-java
+            double red = ((color >>> 16) & 0xFF) / 255.0;
+            double green = ((color >>> 8) & 0xFF) / 255.0;
+            double blue = (color & 0xFF) / 255.0;
+            // Cf. https://en.wikipedia.org/wiki/Luma_(video)
+            brightness[i] = (red * 0.2126 + green * 0.7152 + blue * 0.0722);
+            reds[i] = red;
+            greens[i] = green;
+            blues[i] = blue;
         }
     }
 
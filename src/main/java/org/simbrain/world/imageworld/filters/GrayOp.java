@@ -21,6 +21,20 @@ public class GrayOp extends ImageOperation<ColorConvertOp> {
         return "Gray Scale";
     }
 
+    @Override
+    boolean isPixelOperation() {
+        return true;
+    }
+
+    /**
+     * Luma of the color, in each component.
+     */
+    @Override
+    int filterPixel(int rgb) {
+        int gray = (int) Math.round(ThresholdOp.getLuminance(rgb) * 255);
+        return (gray << 16) | (gray << 8) | gray;
+    }
+
     /**
      * See {@link org.simbrain.workspace.serialization.WorkspaceComponentDeserializer}
      */
@@ -24,6 +24,11 @@ public class IdentityOp extends ImageOperation<AffineTransformOp> {
         return "Color";
     }
 
+    @Override
+    boolean isPixelOperation() {
+        return true;
+    }
+
     /**
      * See {@link org.simbrain.workspace.serialization.WorkspaceComponentDeserializer}
      */
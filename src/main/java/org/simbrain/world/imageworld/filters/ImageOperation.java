@@ -28,5 +28,45 @@ public abstract class ImageOperation<O extends BufferedImageOp> implements Copya
         return OP_LIST;
     }
 
+    /**
+     * Incremented when a parameter that changes the output is set, so that filters know their cached frames are stale.
+     */
+    private transient int modificationCount;
+
     abstract O getOp();
+
+    int getModificationCount() {
+        return modificationCount;
+    }
+
+    /**
+     * Call when a parameter that changes the output is set in code.
+     */
+    protected void fireModified() {
+        modificationCount++;
+    }
+
+    /**
+     * Returns true if this operation maps each pixel's color independently of the other pixels, using
+     * {@link #filterPixel(int)}. Such operations are applied in the same pass as scaling, see {@link RasterPipeline}.
+     * Others are applied to the whole image with {@link #getOp()}.
+     */
+    boolean isPixelOperation() {
+        return false;
+    }
+
+    /**
+     * Returns the rgb color a pixel of the given rgb color is mapped to. Only used if {@link #isPixelOperation()}.
+     */
+    int filterPixel(int rgb) {
+        return rgb;
+    }
+
+    /**
+     * Returns true if the output keeps the alpha of the source, as for operations whose output image has the source's
+     * color model. Operations whose output is opaque return false. Only used if {@link #isPixelOperation()}.
+     */
+    boolean preservesAlpha() {
+        return true;
+    }
 }
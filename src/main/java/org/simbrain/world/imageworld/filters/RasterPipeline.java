@@ -0,0 +1,207 @@
+package org.simbrain.world.imageworld.filters;
+
+import java.awt.image.*;
+import java.util.stream.IntStream;
+
+/**
+ * Scales an image and applies a per-pixel {@link ImageOperation} in a single pass, reading the source raster's data
+ * array directly and writing rgb colors into a caller-provided array. This replaces chaining an
+ * {@link AffineTransformOp} and a color op, each of which allocates a new image, followed by reading the result back
+ * one pixel at a time.
+ * <br>
+ * Scaling is bilinear, like the scale op {@link Filter} used before, and covers the alpha channel too, so that the
+ * output keeps the source's alpha unless the operation's output is opaque. Images backed by int rgb or interleaved byte
+ * rasters are read in place; other images (e.g. indexed or gray) are first copied with a single bulk
+ * {@link BufferedImage#getRGB(int, int, int, int, int[], int, int)}. Large outputs are split into tiles of rows that
+ * are filtered in parallel.
+ */
+class RasterPipeline {
+
+    /**
+     * Outputs with at least this many pixels are filtered in parallel.
+     */
+    static final int PARALLEL_PIXELS = 1 << 16;
+
+    /**
+     * Rows per parallel tile.
+     */
+    private static final int TILE_ROWS = 16;
+
+    /**
+     * Source pixels for images that can't be read in place.
+     */
+    private int[] sourceBuffer = new int[0];
+
+    /**
+     * For each output column, the two source columns it interpolates between and the weight of the second.
+     */
+    private int[] column0 = new int[0];
+    private int[] column1 = new int[0];
+    private float[] columnWeight = new float[0];
+
+    private int[] row0 = new int[0];
+    private int[] row1 = new int[0];
+    private float[] rowWeight = new float[0];
+
+    /**
+     * Size of the source and output the interpolation tables were computed for.
+     */
+    private int tableSourceWidth = -1;
+    private int tableSourceHeight = -1;
+    private int tableWidth = -1;
+    private int tableHeight = -1;
+
+    /**
+     * Reads pixels of a source image as packed argb, with an alpha of 0xFF for opaque images.
+     */
+    private interface PixelReader {
+        int rgb(int x, int y);
+    }
+
+    /**
+     * Scale the image to the given size, apply the operation to each pixel, and write the argb colors to the
+     * destination, row by row. The alpha is the scaled source alpha if the operation
+     * {@link ImageOperation#preservesAlpha() preserves alpha}, else 0xFF.
+     *
+     * @param source      the image to filter
+     * @param op          a pixel operation, see {@link ImageOperation#isPixelOperation()}
+     * @param width       output width
+     * @param height      output height
+     * @param destination array of at least width * height colors
+     */
+    void filter(BufferedImage source, ImageOperation<?> op, int width, int height, int[] destination) {
+        updateTables(source.getWidth(), source.getHeight(), width, height);
+        PixelReader reader = createReader(source);
+        if (width * height >= PARALLEL_PIXELS) {
+            int tiles = (height + TILE_ROWS - 1) / TILE_ROWS;
+            IntStream.range(0, tiles).parallel().forEach(tile -> filterRows(reader, op, width,
+                    tile * TILE_ROWS, Math.min(height, (tile + 1) * TILE_ROWS), destination));
+        } else {
+            filterRows(reader, op, width, 0, height, destination);
+        }
+    }
+
+    private void filterRows(PixelReader reader, ImageOperation<?> op, int width, int fromRow, int toRow,
+                            int[] destination) {
+        boolean preservesAlpha = op.preservesAlpha();
+        for (int y = fromRow; y < toRow; y++) {
+            int y0 = row0[y];
+            int y1 = row1[y];
+            float fy = rowWeight[y];
+            int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                int x0 = column0[x];
+                int x1 = column1[x];
+                float fx = columnWeight[x];
+                int rgb = interpolate(reader.rgb(x0, y0), reader.rgb(x1, y0), reader.rgb(x0, y1), reader.rgb(x1, y1),
+                        fx, fy);
+                int alpha = preservesAlpha ? rgb & 0xFF000000 : 0xFF000000;
+                destination[offset + x] = alpha | (op.filterPixel(rgb) & 0xFFFFFF);
+            }
+        }
+    }
+
+    /**
+     * Bilinear interpolation of each color component and alpha.
+     */
+    private static int interpolate(int c00, int c10, int c01, int c11, float fx, float fy) {
+        if (c00 == c10 && c00 == c01 && c00 == c11) {
+            return c00;
+        }
+        int result = 0;
+        for (int shift = 0; shift <= 24; shift += 8) {
+            float top = ((c00 >>> shift) & 0xFF) + fx * (((c10 >>> shift) & 0xFF) - ((c00 >>> shift) & 0xFF));
+            float bottom = ((c01 >>> shift) & 0xFF) + fx * (((c11 >>> shift) & 0xFF) - ((c01 >>> shift) & 0xFF));
+            int value = Math.round(top + fy * (bottom - top));
+            result |= value << shift;
+        }
+        return result;
+    }
+
+    /**
+     * Map output pixel centers onto the source, as bilinear AffineTransformOp scaling does.
+     */
+    private void updateTables(int sourceWidth, int sourceHeight, int width, int height) {
+        if (sourceWidth == tableSourceWidth && sourceHeight == tableSourceHeight && width == tableWidth
+                && height == tableHeight) {
+            return;
+        }
+        column0 = new int[width];
+        column1 = new int[width];
+        columnWeight = new float[width];
+        fillTable(sourceWidth, width, column0, column1, columnWeight);
+        row0 = new int[height];
+        row1 = new int[height];
+        rowWeight = new float[height];
+        fillTable(sourceHeight, height, row0, row1, rowWeight);
+        tableSourceWidth = sourceWidth;
+        tableSourceHeight = sourceHeight;
+        tableWidth = width;
+        tableHeight = height;
+    }
+
+    private static void fillTable(int sourceSize, int size, int[] first, int[] second, float[] weight) {
+        double scale = (double) sourceSize / size;
+        for (int i = 0; i < size; i++) {
+            double position = Math.max(0, (i + .5) * scale - .5);
+            int index = Math.min((int) position, sourceSize - 1);
+            first[i] = index;
+            second[i] = Math.min(index + 1, sourceSize - 1);
+            weight[i] = (float) (position - index);
+        }
+    }
+
+    /**
+     * Returns a reader for the image's data array if its layout is known, otherwise copies the image into
+     * {@link #sourceBuffer}.
+     */
+    private PixelReader createReader(BufferedImage image) {
+        WritableRaster raster = image.getRaster();
+        DataBuffer buffer = raster.getDataBuffer();
+        SampleModel sampleModel = raster.getSampleModel();
+        int translateX = -raster.getSampleModelTranslateX();
+        int translateY = -raster.getSampleModelTranslateY();
+        int type = image.getType();
+
+        if (buffer instanceof DataBufferInt && sampleModel instanceof SinglePixelPackedSampleModel
+                && buffer.getNumBanks() == 1
+                && (type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB)) {
+            int[] data = ((DataBufferInt) buffer).getData();
+            int stride = ((SinglePixelPackedSampleModel) sampleModel).getScanlineStride();
+            int base = buffer.getOffset() + translateY * stride + translateX;
+            if (type == BufferedImage.TYPE_INT_RGB) {
+                return (x, y) -> 0xFF000000 | data[base + y * stride + x];
+            }
+            return (x, y) -> data[base + y * stride + x];
+        }
+
+        if (buffer instanceof DataBufferByte && sampleModel instanceof PixelInterleavedSampleModel
+                && buffer.getNumBanks() == 1
+                && (type == BufferedImage.TYPE_3BYTE_BGR || type == BufferedImage.TYPE_4BYTE_ABGR)) {
+            byte[] data = ((DataBufferByte) buffer).getData();
+            PixelInterleavedSampleModel interleaved = (PixelInterleavedSampleModel) sampleModel;
+            int pixelStride = interleaved.getPixelStride();
+            int stride = interleaved.getScanlineStride();
+            int[] bandOffsets = interleaved.getBandOffsets();
+            int base = buffer.getOffset() + translateY * stride + translateX * pixelStride;
+            int red = base + bandOffsets[0];
+            int green = base + bandOffsets[1];
+            int blue = base + bandOffsets[2];
+            int alpha = type == BufferedImage.TYPE_4BYTE_ABGR ? base + bandOffsets[3] : -1;
+            return (x, y) -> {
+                int index = y * stride + x * pixelStride;
+                int a = alpha < 0 ? 0xFF : data[alpha + index] & 0xFF;
+                return (a << 24) | ((data[red + index] & 0xFF) << 16) | ((data[green + index] & 0xFF) << 8)
+                        | (data[blue + index] & 0xFF);
+            };
+        }
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        if (sourceBuffer.length < width * height) {
+            sourceBuffer = new int[width * height];
+        }
+        int[] data = image.getRGB(0, 0, width, height, sourceBuffer, 0, width);
+        return (x, y) -> data[y * width + x];
+    }
+}
@@ -51,6 +51,7 @@ public class ThresholdOp extends ImageOperation<ThresholdOp> implements Buffered
 
     public void setThreshold(double value) {
         threshold = value;
+        fireModified();
     }
 
     @Override
@@ -71,7 +72,7 @@ public class ThresholdOp extends ImageOperation<ThresholdOp> implements Buffered
      * @param color a 3-byte RGB color to convert
      * @return the luminance of the color
      */
-    private double getLuminance(int color) {
+    static double getLuminance(int color) {
         int red = (color >>> 16) & 0xFF;
         int green = (color >>> 8) & 0xFF;
         int blue = (color >>> 0) & 0xFF;
@@ -108,6 +109,21 @@ public class ThresholdOp extends ImageOperation<ThresholdOp> implements Buffered
         return this;
     }
 
+    @Override
+    boolean isPixelOperation() {
+        return true;
+    }
+
+    @Override
+    int filterPixel(int rgb) {
+        return getLuminance(rgb) >= threshold ? white : black;
+    }
+
+    @Override
+    boolean preservesAlpha() {
+        return false;
+    }
+
     @Override
     public ThresholdOp copy() {
         return new ThresholdOp(threshold);
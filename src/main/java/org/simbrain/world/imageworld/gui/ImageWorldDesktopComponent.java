@@ -11,6 +11,7 @@ import org.simbrain.workspace.component_actions.SaveAction;
 import org.simbrain.workspace.component_actions.SaveAsAction;
 import org.simbrain.workspace.gui.CouplingMenu;
 import org.simbrain.workspace.gui.DesktopComponent;
+import org.simbrain.world.imageworld.ImageAlbum;
 import org.simbrain.world.imageworld.ImageClipboard;
 import org.simbrain.world.imageworld.ImageWorld;
 import org.simbrain.world.imageworld.ImageWorldComponent;
@@ -173,7 +174,7 @@ public class ImageWorldDesktopComponent extends DesktopComponent<ImageWorldCompo
                 return;
             }
             image.setRGB(x, y, penColor.getRGB());
-            imageWorld.getImageAlbum().fireImageUpdate();
+            imageWorld.getImageAlbum().fireImageModified();
         }
     }
 
@@ -380,8 +381,22 @@ public class ImageWorldDesktopComponent extends DesktopComponent<ImageWorldCompo
         File[] files = fileChooser.showMultiOpenDialogNative();
         if (files != null) {
 
+            // Large albums can be read from their files as needed instead of held in memory, at the cost of
+            // depending on the files when the workspace is reopened
+            boolean lazy = false;
+            if (files.length > ImageAlbum.MAX_EAGER_FRAMES) {
+                int answer = JOptionPane.showConfirmDialog(this, String.format("Read the %d images from their files "
+                        + "when they are shown, instead of keeping them in memory?\nThe workspace will then save the "
+                        + "file locations rather than the images.", files.length), "Load images",
+                        JOptionPane.YES_NO_CANCEL_OPTION);
+                if (answer == JOptionPane.CANCEL_OPTION || answer == JOptionPane.CLOSED_OPTION) {
+                    return;
+                }
+                lazy = answer == JOptionPane.YES_OPTION;
+            }
+
             // Load the images
-            imageWorld.loadImages(files);
+            imageWorld.loadImages(files, lazy);
 
             // Update status of buttons
             updateButtons();
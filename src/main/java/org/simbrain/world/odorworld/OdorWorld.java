@@ -64,6 +64,25 @@ public class OdorWorld implements EditableObject, Bounded {
      */
     private transient double maxVectorNorm;
 
+    /**
+     * Spatial index used by sensors and collision checks to find nearby entities.
+     */
+    private transient EntityGrid entityGrid = new EntityGrid();
+
+    /**
+     * Largest distance at which any smell source in the world is detectable. Refreshed at the start of each update.
+     */
+    private transient double maxSmellDistance = Double.POSITIVE_INFINITY;
+
+    /**
+     * Largest smell vector dimension in the world, how many entities have it, and the next largest dimension.
+     * Refreshed at the start of each update, so it can be stale in between; sensors grow their vectors past it when
+     * a source they visit is longer. See {@link #getMaxSmellDimension(OdorWorldEntity)}.
+     */
+    private transient int maxSmellDimension;
+    private transient int maxSmellDimensionCount;
+    private transient int secondSmellDimension;
+
     /**
      * Whether or not sprites wrap around or are halted at the borders
      */
@@ -122,10 +141,20 @@ public class OdorWorld implements EditableObject, Bounded {
      * Update world.
      */
     public void update() {
+        refreshIndexes();
         entityList.forEach(OdorWorldEntity::update);
         events.getUpdated().fireAndForget();
     }
 
+    /**
+     * Rebuild the spatial index and the smell bounds used by sensors. Done at the start of each update, and by
+     * {@link OdorWorldBatch}, which moves its agents without updating the world.
+     */
+    void refreshIndexes() {
+        entityGrid.refresh(entityList);
+        recomputeSmellBounds();
+    }
+
     /**
      * Stop animation.
      */
@@ -151,6 +180,7 @@ public class OdorWorld implements EditableObject, Bounded {
 
         // Add entity to the map
         entityList.add(entity);
+        entityGrid.add(entity);
 
         events.getEntityAdded().fireAndForget(entity);
 
@@ -342,6 +372,7 @@ public class OdorWorld implements EditableObject, Bounded {
         // map.removeSprite(entity);
         if (entityList.contains(entity)) {
             entityList.remove(entity);
+            entityGrid.remove(entity);
             entity.delete();
             for (Sensor sensor : entity.getSensors()) {
                 entity.getEvents().getSensorRemoved().fireAndForget(sensor);
@@ -375,12 +406,40 @@ public class OdorWorld implements EditableObject, Bounded {
                 .orElse(0.0);
     }
 
+    /**
+     * Caches the range and dimension of the smell sources in the world, so that smell sensors only need to look at
+     * nearby entities.
+     */
+    private void recomputeSmellBounds() {
+        maxSmellDistance = 0;
+        maxSmellDimension = 0;
+        maxSmellDimensionCount = 0;
+        secondSmellDimension = 0;
+        for (OdorWorldEntity entity : entityList) {
+            SmellSource source = entity.getSmellSource();
+            maxSmellDistance = Math.max(maxSmellDistance, source.getMaxDistance());
+            int dimension = source.getStimulusDimension();
+            if (dimension > maxSmellDimension) {
+                secondSmellDimension = maxSmellDimension;
+                maxSmellDimension = dimension;
+                maxSmellDimensionCount = 1;
+            } else if (dimension == maxSmellDimension) {
+                maxSmellDimensionCount++;
+            } else {
+                secondSmellDimension = Math.max(secondSmellDimension, dimension);
+            }
+        }
+    }
+
     /**
      * See {@link org.simbrain.workspace.serialization.WorkspaceComponentDeserializer}
      */
     private Object readResolve() {
 
         events = new OdorWorldEvents2();
+        entityGrid = new EntityGrid();
+        entityList.forEach(entityGrid::add);
+        recomputeSmellBounds();
 
         for (OdorWorldEntity entity : entityList) {
 //            entity.postSerializationInit();
@@ -501,6 +560,59 @@ public class OdorWorld implements EditableObject, Bounded {
         return bounds;
     }
 
+    /**
+     * Returns the objects that could collide with the provided bound, in the same order as
+     * {@link #getCollidableObjects()}. Entities far from the bound are skipped using the spatial index.
+     */
+    public List<Bounded> getCollidableObjects(Bounded region) {
+        var bounds = new ArrayList<Bounded>();
+
+        if (isObjectsBlockMovement()) {
+            bounds.addAll(entityGrid.getEntitiesOverlapping(region));
+        }
+
+        if (!wrapAround) {
+            bounds.add(this);
+        }
+
+        return bounds;
+    }
+
+    /**
+     * Returns, in entity list order, the entities that may be within the given distance of a location. The result
+     * can include entities a bit further away, so callers should still check distances. If the radius is infinite
+     * the full entity list is returned.
+     */
+    public List<OdorWorldEntity> getEntitiesNear(Point2D location, double radius) {
+        if (Double.isInfinite(radius) || Double.isNaN(radius)) {
+            return entityList;
+        }
+        return entityGrid.getEntitiesInRadius(location, radius);
+    }
+
+    /**
+     * Called when an entity moves so the spatial index stays current during an update.
+     */
+    public void entityMoved(OdorWorldEntity entity) {
+        entityGrid.update(entity);
+    }
+
+    public double getMaxSmellDistance() {
+        return maxSmellDistance;
+    }
+
+    /**
+     * Largest smell vector dimension among all entities other than the provided one, as of the last update, i.e. the
+     * length of the vector that entity's smell sensors produce.
+     */
+    public int getMaxSmellDimension(OdorWorldEntity excluding) {
+        if (maxSmellDimensionCount == 1
+                && excluding.getSmellSource().getStimulusDimension() == maxSmellDimension) {
+            return secondSmellDimension;
+        }
+        return maxSmellDimension;
+    }
+
     public double getMaxVectorNorm() {
         return maxVectorNorm;
     }
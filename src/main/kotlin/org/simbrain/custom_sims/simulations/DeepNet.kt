@@ -87,6 +87,7 @@ val deepNetSim = newSim {
     // TODO: Add progress window
     deepNet.trainingParams.apply {
         epochs = 10
+        batchSize = 1000
     }
     deepNet.optimizerParams.apply {
         optimizerWrapper.optimizer = Adam(clipGradient = ClipGradientByValue(0.1f))
@@ -94,7 +95,7 @@ val deepNetSim = newSim {
         metric = Metrics.ACCURACY
     }
     deepNet.buildNetwork()
-    deepNet.train(1000, 1000)
+    deepNet.train()
 
     // Location of the network in the desktop
     withGui {
@@ -33,7 +33,7 @@ val grazingCows = newSim {
     var populationSize = 100
     var eliminationRatio = .5
 
-    class CowGenotype(seed: Long = Random.nextLong()) : Genotype2 {
+    class CowGenotype(seed: Long = SimbrainRandom.nextSeed()) : Genotype2 {
         override val random: Random = Random(seed)
         var inputChromosome = chromosome2(1) {
             repeat(3) {
@@ -9,6 +9,7 @@ import org.simbrain.network.core.Network
 import org.simbrain.network.core.Synapse
 import org.simbrain.network.groups.NeuronCollection
 import org.simbrain.network.util.BiasedScalarData
+import org.simbrain.util.SimbrainRandom
 import org.simbrain.util.cartesianProduct
 import org.simbrain.util.format
 import org.simbrain.util.geneticalgorithm2.*
@@ -33,7 +34,7 @@ val evolveCow = newSim {
     val maxGenerations = 50
     val iterationsPerRun = 2000
 
-    class CowGenotype(seed: Long = Random.nextLong()) : Genotype2 {
+    class CowGenotype(seed: Long = SimbrainRandom.nextSeed()) : Genotype2 {
         override val random: Random = Random(seed)
         var inputChromosome = chromosome2(3) { add(nodeGene2 { isClamped = true }) }
         var hiddenChromosome = chromosome2(2) { add(nodeGene2()) }
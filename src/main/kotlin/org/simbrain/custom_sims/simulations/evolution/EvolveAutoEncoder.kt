@@ -76,13 +76,13 @@ val evolveAutoAssociator = newSim {
             // Create synapses
             val (source, target) = if (Random().nextBoolean()) {
                 // Input to hidden
-                val source = inputs.selectRandom()
-                val target = hiddenNodes.selectRandom()
+                val source = inputs.selectRandom(random)
+                val target = hiddenNodes.selectRandom(random)
                 Pair(source, target)
             } else {
                 // Hidden to output
-                val source = hiddenNodes.selectRandom()
-                val target = outputs.selectRandom()
+                val source = hiddenNodes.selectRandom(random)
+                val target = outputs.selectRandom(random)
                 Pair(source, target)
             }
             // Can add conditions for recurrent connections
@@ -217,9 +217,9 @@ val evolveAvoider = newSim {
                 }
 
                 // Random source neuron
-                val source = (inputs + hiddens).selectRandom()
+                val source = (inputs + hiddens).selectRandom(random)
                 // Random target neuron
-                val target = (outputs + hiddens).selectRandom()
+                val target = (outputs + hiddens).selectRandom(random)
                 // Add the connection
                 connections += connectionGene(source, target) {
                     strength = random.nextDouble(-10.0, 10.0)
@@ -88,8 +88,8 @@ val evolveModularity = newSim {
             sourceLayer: Chromosome<Neuron, NodeGene>,
             targetLayer: Chromosome<Neuron, NodeGene>,
         ): ConnectionGene {
-            val source = sourceLayer.selectRandom()
-            val target = targetLayer.selectRandom()
+            val source = sourceLayer.selectRandom(random)
+            val target = targetLayer.selectRandom(random)
             return connectionGene(source, target) {
                 strength = (Random().nextDouble() - 0.5) * 0.2
             }
@@ -145,8 +145,8 @@ val evolveModularity = newSim {
                 sourceLayer: Chromosome<Neuron, NodeGene>,
                 targetLayer: Chromosome<Neuron, NodeGene>
             ) {
-                val source = sourceLayer.selectRandom()
-                val target = targetLayer.selectRandom()
+                val source = sourceLayer.selectRandom(random)
+                val target = targetLayer.selectRandom(random)
                 add(connectionGene(source, target) {
                     strength = (Random().nextDouble() - 0.5) * 0.2
                 })
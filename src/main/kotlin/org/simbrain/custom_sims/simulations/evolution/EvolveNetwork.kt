@@ -87,7 +87,7 @@ val evolveNetwork = newSim {
 
             // Remove node mutation
             if (Random().nextDouble() > .95) {
-                nodeChromosome.selectRandom().disabled = true
+                nodeChromosome.selectRandom(random).disabled = true
             }
 
             motivations.forEach {
@@ -105,8 +105,8 @@ val evolveNetwork = newSim {
             }
 
             // New connections
-            val source = nodeChromosome.selectRandom()
-            val target = nodeChromosome.selectRandom()
+            val source = nodeChromosome.selectRandom(random)
+            val target = nodeChromosome.selectRandom(random)
             connectionChromosome += connectionGene(source, target) {
                 strength = (Random().nextDouble() - 0.5) * 0.2
             }
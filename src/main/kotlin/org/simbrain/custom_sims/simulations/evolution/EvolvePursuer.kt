@@ -185,8 +185,8 @@ val evolvePursuer = newSim {
                         strength += random.nextDouble(-0.2, 0.2)
                     }
                 }
-                val source = (inputs + hiddens).selectRandom()
-                val target = (outputs + hiddens).selectRandom()
+                val source = (inputs + hiddens).selectRandom(random)
+                val target = (outputs + hiddens).selectRandom(random)
                 connections += connectionGene(source, target) {
                     strength = random.nextDouble(-10.0, 10.0)
                 }
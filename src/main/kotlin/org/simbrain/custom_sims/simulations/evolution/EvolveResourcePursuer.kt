@@ -231,9 +231,9 @@ val evolveResourcePursuer = newSim {
 
                 if (Random.nextDouble() > 0.5) {
                     // Random source neuron
-                    val source = (inputs + hiddens + metrics).selectRandom()
+                    val source = (inputs + hiddens + metrics).selectRandom(random)
                     // Random target neuron
-                    val target = (outputs + hiddens).selectRandom()
+                    val target = (outputs + hiddens).selectRandom(random)
                     // Add the connection
                     connections += connectionGene(source, target) {
                         strength = random.nextDouble(-10.0, 10.0)
@@ -61,12 +61,12 @@ val evolveXor = newSim {
             // Create new connections
             // Either connect input to hidden or hidden to output, or hidden to hidden
             val (source, target) = if (Random().nextBoolean()) {
-                val source = (inputChromosome + hiddenNodeChromosome).selectRandom()
-                val target = hiddenNodeChromosome.selectRandom()
+                val source = (inputChromosome + hiddenNodeChromosome).selectRandom(random)
+                val target = hiddenNodeChromosome.selectRandom(random)
                 Pair(source, target)
             } else {
-                val source = hiddenNodeChromosome.selectRandom()
-                val target = (outputChromosome + hiddenNodeChromosome).selectRandom()
+                val source = hiddenNodeChromosome.selectRandom(random)
+                val target = (outputChromosome + hiddenNodeChromosome).selectRandom(random)
                 Pair(source, target)
             }
             connectionChromosome += connectionGene(source, target) {
@@ -127,6 +127,8 @@ val evolveXor = newSim {
         populationSize = 100
         eliminationRatio = 0.5
         optimizationMethod = Evaluator.OptimizationMethod.MINIMIZE_FITNESS
+        // Fitness is the error on a fixed data set, so survivors don't need to be evaluated again
+        reevaluateSurvivors = false
         runUntil { generation == 1000 || fitness < .01 }
     }
 
@@ -18,7 +18,7 @@ import kotlin.random.Random
 
 val evolveXor2 = newSim {
 
-    class XorGenotype(seed: Long = Random.nextLong()) : Genotype2 {
+    class XorGenotype(seed: Long = SimbrainRandom.nextSeed()) : Genotype2 {
 
         override val random: Random = Random(seed)
 
@@ -151,6 +151,8 @@ val evolveXor2 = newSim {
         populatingFunction = { Xor2Sim() },
         populationSize = 100,
         eliminationRatio = 0.5,
+        // Fitness is the error on a fixed data set, so survivors don't need to be evaluated again
+        reevaluateSurvivors = false,
         peek = {
             listOf(0, 10, 25, 50, 75, 90, 100).joinToString(" ") {
                 "$it: ${nthPercentileFitness(it).format(3)}"
@@ -59,7 +59,7 @@ class AllToAll(
         addToNetwork: Boolean
     ): List<Synapse> {
         val syns = connectAllToAll(source, target, allowSelfConnection)
-        polarizeSynapses(syns, percentExcitatory)
+        polarizeSynapses(syns, percentExcitatory, connectionRandom(network))
         if (addToNetwork) {
             network.addNetworkModels(syns)
         }
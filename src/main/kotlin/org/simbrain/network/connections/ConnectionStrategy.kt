@@ -107,6 +107,11 @@ abstract class ConnectionStrategy : CopyableObject {
     val stringDescription: String
         get() = "" + this.javaClass.simpleName
 
+    /**
+     * The stream connections in a network are drawn from, so a seeded network makes the same connections each time.
+     */
+    protected fun connectionRandom(network: Network) = network.getRandom("connections")
+
     companion object {
         /**
          * Called via reflection using [UserParameter.typeListMethod].
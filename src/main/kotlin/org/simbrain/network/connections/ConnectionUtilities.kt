@@ -19,7 +19,9 @@
 package org.simbrain.network.connections
 
 import org.simbrain.network.core.Synapse
+import org.simbrain.util.RandomStream
 import org.simbrain.util.SimbrainConstants.Polarity
+import org.simbrain.util.SimbrainRandom
 
 /**
  * Utility functions/interfaces/etc for manipulating synapses.
@@ -46,8 +48,14 @@ const val DEFAULT_INHIBITORY_STRENGTH = -1.0
  *
  * @param synapses the synapses to polarize
  * @param percentExcitatory the percent of the synapses to make excitatory
+ * @param random stream that decides the polarity of synapses from unpolarized neurons
  */
-fun polarizeSynapses(synapses: Collection<Synapse>, percentExcitatory: Double) {
+@JvmOverloads
+fun polarizeSynapses(
+    synapses: Collection<Synapse>,
+    percentExcitatory: Double,
+    random: RandomStream = RandomStream(SimbrainRandom.nextSeed())
+) {
     // Computations are done using ratios
     var excitatoryRatio = percentExcitatory / 100
     if (excitatoryRatio > 1 || excitatoryRatio < 0) {
@@ -58,7 +66,7 @@ fun polarizeSynapses(synapses: Collection<Synapse>, percentExcitatory: Double) {
         var remaining = synapses.size
         var excitatory = false
         for (s in synapses) {
-            excitatory = shouldBeExcitatory(excitatoryRatio, exciteCount, inhibCount, s)
+            excitatory = shouldBeExcitatory(excitatoryRatio, exciteCount, inhibCount, s, random)
             // Set the strength based on the polarity.
             if (excitatory) {
                 s.strength = DEFAULT_EXCITATORY_STRENGTH
@@ -79,7 +87,13 @@ fun polarizeSynapses(synapses: Collection<Synapse>, percentExcitatory: Double) {
 /**
  * Should the provided synapse be excitatory.
  */
-private fun shouldBeExcitatory(excitatoryRatio: Double, exciteCount: Int, inhibCount: Int, s: Synapse): Boolean {
+private fun shouldBeExcitatory(
+    excitatoryRatio: Double,
+    exciteCount: Int,
+    inhibCount: Int,
+    s: Synapse,
+    random: RandomStream
+): Boolean {
     var excitatory = false
     if (s.source.isPolarized) {
         excitatory = Polarity.EXCITATORY === s.source.polarity
@@ -92,7 +106,7 @@ private fun shouldBeExcitatory(excitatoryRatio: Double, exciteCount: Int, inhibC
                 excitatory = true
             }
         } else {
-            val exciteOrInhib = Math.random()
+            val exciteOrInhib = random.nextDouble()
             excitatory = exciteOrInhib < excitatoryRatio
         }
     }
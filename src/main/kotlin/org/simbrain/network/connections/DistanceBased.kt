@@ -21,6 +21,8 @@ import org.simbrain.network.core.Network
 import org.simbrain.network.core.Neuron
 import org.simbrain.network.core.Synapse
 import org.simbrain.network.util.SimnetUtils.getEuclideanDist
+import org.simbrain.util.RandomStream
+import org.simbrain.util.SimbrainRandom
 import org.simbrain.util.UserParameter
 import org.simbrain.util.cartesianProduct
 import org.simbrain.util.decayfunctions.DecayFunction
@@ -47,8 +49,9 @@ class DistanceBased (
         target: List<Neuron>,
         addToNetwork: Boolean
     ): List<Synapse> {
-        val syns = connectRadial(source, target, decayFunction)
-        polarizeSynapses(syns, percentExcitatory)
+        val random = connectionRandom(network)
+        val syns = connectRadial(source, target, decayFunction, random)
+        polarizeSynapses(syns, percentExcitatory, random)
         if (addToNetwork) {
             network.addNetworkModels(syns)
         }
@@ -78,13 +81,14 @@ class DistanceBased (
 fun connectRadial (
     source: List<Neuron>,
     target: List<Neuron>,
-    decay: DecayFunction
+    decay: DecayFunction,
+    random: RandomStream = RandomStream(SimbrainRandom.nextSeed())
 ): List<Synapse> {
     val syns = ArrayList<Synapse>()
     (source cartesianProduct target).forEach{ (src, tar) ->
         if (src != tar) {
             val p = decay.getScalingFactor(getEuclideanDist(src, tar))
-            if (Math.random() < p) {
+            if (random.nextDouble() < p) {
                 syns.add(Synapse(src, tar))
             }
         }
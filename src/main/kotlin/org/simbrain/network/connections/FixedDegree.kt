@@ -20,6 +20,8 @@ package org.simbrain.network.connections
 import org.simbrain.network.core.Network
 import org.simbrain.network.core.Neuron
 import org.simbrain.network.core.Synapse
+import org.simbrain.util.RandomStream
+import org.simbrain.util.SimbrainRandom
 import org.simbrain.util.UserParameter
 import org.simbrain.util.propertyeditor.EditableObject
 import org.simbrain.util.stats.ProbabilityDistribution
@@ -82,12 +84,13 @@ class FixedDegree(
         target: List<Neuron>,
         addToNetwork: Boolean
     ): List<Synapse> {
+        val random = connectionRandom(network)
         val syns = if (useRadius) {
-            connectFixedDegreeInRadius(source, target, degree, radius, direction, allowSelfConnections)
+            connectFixedDegreeInRadius(source, target, degree, radius, direction, allowSelfConnections, random)
         } else {
-            connectFixedDegree(source, target, degree, direction, allowSelfConnections)
+            connectFixedDegree(source, target, degree, direction, allowSelfConnections, random)
         }
-        polarizeSynapses(syns, percentExcitatory)
+        polarizeSynapses(syns, percentExcitatory, random)
         if (addToNetwork) {
             network.addNetworkModels(syns)
         }
@@ -130,10 +133,11 @@ fun connectFixedDegree(
     tar: List<Neuron>,
     degree: Int,
     direction: Direction = Direction.IN,
-    allowSelfConnection: Boolean = false
+    allowSelfConnection: Boolean = false,
+    random: RandomStream = RandomStream(SimbrainRandom.nextSeed())
 ): List<Synapse> {
     val syns = ArrayList<Synapse>()
-    src.forEach { n -> syns.addAll(n.connectToN(tar, degree, direction, allowSelfConnection)) }
+    src.forEach { n -> syns.addAll(n.connectToN(tar, degree, direction, allowSelfConnection, random = random)) }
     return syns
 }
 
@@ -146,12 +150,13 @@ fun connectFixedDegreeInRadius(
     degree: Int,
     radius: Double,
     direction: Direction = Direction.IN,
-    allowSelfConnection: Boolean = false
+    allowSelfConnection: Boolean = false,
+    random: RandomStream = RandomStream(SimbrainRandom.nextSeed())
 ): List<Synapse> {
     val syns = ArrayList<Synapse>()
     src.forEach { n -> syns.addAll(n.connectToN(n.getNeuronsInRadius(tar, radius),
         degree, direction,
-        allowSelfConnection)) }
+        allowSelfConnection, random = random)) }
     return syns
 }
 
@@ -163,18 +168,19 @@ fun Neuron.connectToN(
     N: Int,
     direction: Direction = Direction.IN,
     allowSelfConnection: Boolean = false,
-    randomizer: ProbabilityDistribution = NormalDistribution(0.0, 1.0)
+    randomizer: ProbabilityDistribution = NormalDistribution(0.0, 1.0),
+    random: RandomStream = RandomStream(SimbrainRandom.nextSeed())
 ): List<Synapse> {
-    return pool.shuffled()
+    return pool.shuffled(random.asKotlinRandom())
         .filter { otherNeuron ->
             if (!allowSelfConnection) this != otherNeuron else true
         }
         .take(N)
         .map { otherNeuron ->
             if (direction == Direction.IN) {
-                Synapse(otherNeuron, this, otherNeuron.polarity.value(randomizer.sampleDouble()))
+                Synapse(otherNeuron, this, otherNeuron.polarity.value(randomizer.sampleDouble(random)))
             } else {
-                Synapse(this, otherNeuron, this.polarity.value(randomizer.sampleDouble()))
+                Synapse(this, otherNeuron, this.polarity.value(randomizer.sampleDouble(random)))
             }
         }
 }
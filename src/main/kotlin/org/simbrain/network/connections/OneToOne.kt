@@ -49,7 +49,7 @@ class OneToOne(
         addToNetwork: Boolean
     ): List<Synapse> {
         val syns = connectOneToOne(source, target, useBidirectionalConnections)
-        polarizeSynapses(syns, percentExcitatory)
+        polarizeSynapses(syns, percentExcitatory, connectionRandom(network))
         if (addToNetwork) {
             network.addNetworkModels(syns)
         }
@@ -20,7 +20,9 @@ package org.simbrain.network.connections
 import org.simbrain.network.core.Network
 import org.simbrain.network.core.Neuron
 import org.simbrain.network.core.Synapse
+import org.simbrain.util.RandomStream
 import org.simbrain.util.SimbrainConstants.Polarity
+import org.simbrain.util.SimbrainRandom
 import org.simbrain.util.UserParameter
 import org.simbrain.util.propertyeditor.EditableObject
 import org.simbrain.util.stats.distributions.UniformRealDistribution
@@ -139,8 +141,9 @@ class RadialGaussian(
         target: List<Neuron>,
         addToNetwork: Boolean
     ): List<Synapse> {
-        val syns: List<Synapse> = connectRadialPolarized(source, target, eeDistConst, eiDistConst, ieDistConst, iiDistConst, distConst, lambda)
-        polarizeSynapses(syns, percentExcitatory)
+        val random = connectionRandom(network)
+        val syns: List<Synapse> = connectRadialPolarized(source, target, eeDistConst, eiDistConst, ieDistConst, iiDistConst, distConst, lambda, random)
+        polarizeSynapses(syns, percentExcitatory, random)
         if (addToNetwork) {
             network.addNetworkModels(syns)
         }
@@ -269,7 +272,8 @@ fun connectRadialPolarized(
     ieDistConst: Double = DEFAULT_IE_CONST,
     iiDistConst: Double = DEFAULT_II_CONST,
     distConst: Double = DEFAULT_DIST_CONST,
-    lambda: Double = DEFAULT_LAMBDA
+    lambda: Double = DEFAULT_LAMBDA,
+    random: RandomStream = RandomStream(SimbrainRandom.nextSeed())
 ): List<Synapse> {
     // Pre-allocating assuming that if one is using this as a connector
     // then they are probably not going to have greater than 25%
@@ -277,7 +281,7 @@ fun connectRadialPolarized(
     val synapses: MutableList<Synapse> = ArrayList(source!!.size * target!!.size / 4)
     for (src: Neuron in source) {
         for (tar: Neuron in target) {
-            val randVal: Double = Math.random()
+            val randVal: Double = random.nextDouble()
             var probability: Double
             if (src.getPolarity() === Polarity.EXCITATORY) {
                 if (tar.getPolarity() === Polarity.EXCITATORY) {
@@ -321,7 +325,8 @@ fun connectRadialNoPolarity(
     source: List<Neuron>,
     target: List<Neuron>,
     distConst: Double,
-    lambda: Double
+    lambda: Double,
+    random: RandomStream = RandomStream(SimbrainRandom.nextSeed())
 ): List<Synapse> {
     // Pre-allocating assuming that if one is using this as a connector
     // then they are probably not going to have greater than 25%
@@ -329,7 +334,7 @@ fun connectRadialNoPolarity(
     val synapses: MutableList<Synapse> = ArrayList(source.size * target.size / 4)
     for (src: Neuron in source) {
         for (tar: Neuron in target) {
-            val randVal: Double = Math.random()
+            val randVal: Double = random.nextDouble()
             val probability: Double = calcConnectProb(src, tar, distConst, lambda)
             if (randVal < probability) {
                 val s = Synapse(src, tar)
@@ -21,6 +21,8 @@ import org.simbrain.network.core.Network
 import org.simbrain.network.core.Neuron
 import org.simbrain.network.core.Synapse
 import org.simbrain.network.util.SimnetUtils
+import org.simbrain.util.RandomStream
+import org.simbrain.util.SimbrainRandom
 import org.simbrain.util.UserParameter
 import org.simbrain.util.propertyeditor.EditableObject
 import org.simbrain.util.stats.ProbabilityDistribution
@@ -113,11 +115,12 @@ class RadialProbabilistic(
         target: List<Neuron>,
         addToNetwork: Boolean
     ): List<Synapse> {
+        val random = connectionRandom(network)
         val exc = connectProbabilistically(source, target, excitatoryProbability,
-            excitatoryRadius, allowSelfConnections, NormalDistribution(1.0,.1)
+            excitatoryRadius, allowSelfConnections, NormalDistribution(1.0,.1), random
         )
         val inh = connectProbabilistically(source, target, excitatoryProbability,
-            excitatoryRadius, allowSelfConnections, NormalDistribution(-1.0,0.1)
+            excitatoryRadius, allowSelfConnections, NormalDistribution(-1.0,0.1), random
         )
         val syns = exc + inh
         if (addToNetwork) {
@@ -156,10 +159,11 @@ fun connectProbabilistically(
     prob: Double,
     radius: Double,
     allowSelfConnection: Boolean = false,
-    randomizer: ProbabilityDistribution = NormalDistribution(0.0, 1.0)
+    randomizer: ProbabilityDistribution = NormalDistribution(0.0, 1.0),
+    random: RandomStream = RandomStream(SimbrainRandom.nextSeed())
 ): List<Synapse> {
     val syns = ArrayList<Synapse>()
-    src.forEach { n -> syns.addAll(n.connectProbabilistically(tar, prob, radius)) }
+    src.forEach { n -> syns.addAll(n.connectProbabilistically(tar, prob, radius, random = random)) }
     return syns
 }
 
@@ -171,15 +175,16 @@ fun Neuron.connectProbabilistically(
     prob: Double,
     radius: Double,
     allowSelfConnection: Boolean = false,
-    randomizer: ProbabilityDistribution = NormalDistribution(0.0, 1.0)
+    randomizer: ProbabilityDistribution = NormalDistribution(0.0, 1.0),
+    random: RandomStream = RandomStream(SimbrainRandom.nextSeed())
 ): List<Synapse> {
     return getNeuronsInRadius(pool, radius)
         .filter { otherNeuron ->
             if (!allowSelfConnection) this != otherNeuron else true
         }
-        .filter { Math.random() < prob }
+        .filter { random.nextDouble() < prob }
         .map { otherNeuron ->
-            Synapse(this, otherNeuron, otherNeuron.polarity.value(randomizer.sampleDouble()))
+            Synapse(this, otherNeuron, otherNeuron.polarity.value(randomizer.sampleDouble(random)))
         }
 }
 
@@ -20,6 +20,8 @@ package org.simbrain.network.connections
 import org.simbrain.network.core.Network
 import org.simbrain.network.core.Neuron
 import org.simbrain.network.core.Synapse
+import org.simbrain.util.RandomStream
+import org.simbrain.util.SimbrainRandom
 import org.simbrain.util.cartesianProduct
 import org.simbrain.util.propertyeditor.EditableObject
 import org.simbrain.util.sampleWithoutReplacement
@@ -85,17 +87,18 @@ class Sparse @JvmOverloads constructor(
         target: List<Neuron>,
         addToNetwork: Boolean
     ): List<Synapse> {
-        val result = connectSparse(source, target, connectionDensity, allowSelfConnection, equalizeEfferents)
+        val random = connectionRandom(network)
+        val result = connectSparse(source, target, connectionDensity, allowSelfConnection, equalizeEfferents, random)
         return when(result) {
             is ConnectionsResult.Add -> {
-                polarizeSynapses(result.connectionsToAdd, percentExcitatory)
+                polarizeSynapses(result.connectionsToAdd, percentExcitatory, random)
                 if (addToNetwork) {
                     network.addNetworkModels(result.connectionsToAdd)
                 }
                 result.connectionsToAdd
             }
             is ConnectionsResult.Reset -> {
-                polarizeSynapses(result.resultConnections, percentExcitatory)
+                polarizeSynapses(result.resultConnections, percentExcitatory, random)
                 if (addToNetwork) {
                     network.addNetworkModels(result.resultConnections)
                 }
@@ -132,7 +135,7 @@ fun connectEqualized(
     targetNeurons: List<Neuron>,
     connectionDensity: Double,
     selfConnectionAllowed: Boolean = false,
-    random: kotlin.random.Random = kotlin.random.Random(kotlin.random.Random.nextLong())
+    random: RandomStream = RandomStream(SimbrainRandom.nextSeed())
 ): ConnectionsResult.Reset {
 
     if (sourceNeurons.isEmpty() || targetNeurons.isEmpty()) {
@@ -141,10 +144,10 @@ fun connectEqualized(
 
     val connectionCount = sourceNeurons.size * targetNeurons.size * connectionDensity
 
-    val sources = sourceNeurons.sampleWithoutReplacement(random = random, restartIfExhausted = true)
+    val sources = sourceNeurons.sampleWithoutReplacement(random = random.asKotlinRandom(), restartIfExhausted = true)
         .take(connectionCount.roundToInt())
 
-    val targets = targetNeurons.sampleWithoutReplacement(random = random, restartIfExhausted = true)
+    val targets = targetNeurons.sampleWithoutReplacement(random = random.asKotlinRandom(), restartIfExhausted = true)
         .take(connectionCount.roundToInt())
 
     val connections = (sources zip targets).let {
@@ -162,7 +165,8 @@ fun connectSparse(
     sourceNeurons: List<Neuron>,
     targetNeurons: List<Neuron>,
     sparsity: Double,
-    selfConnectionAllowed: Boolean = false
+    selfConnectionAllowed: Boolean = false,
+    random: RandomStream
 ): ConnectionsResult {
     if (sourceNeurons.isEmpty() || targetNeurons.isEmpty()) {
         return ConnectionsResult.Add(listOf())
@@ -183,27 +187,29 @@ fun connectSparse(
         val newConnectionCount = (sparsityDelta * possibleConnections.size).roundToInt()
         val availableConnections = possibleConnections - existingConnections
         val connectionsToAdd = availableConnections
-            .shuffled()
+            .shuffled(random.asKotlinRandom())
             .take(newConnectionCount)
             .map { (source, target) -> Synapse(source, target) }
         return ConnectionsResult.Add(connectionsToAdd)
     } else {
         val numbersOfConnectionToRemove = -(sparsityDelta * possibleConnections.size).roundToInt()
-        val connectionsToRemove = existingSynapses.shuffled().take(numbersOfConnectionToRemove)
+        val connectionsToRemove = existingSynapses.shuffled(random.asKotlinRandom()).take(numbersOfConnectionToRemove)
         return ConnectionsResult.Remove(connectionsToRemove)
     }
 }
 
+@JvmOverloads
 fun connectSparse(
     sourceNeurons: List<Neuron>,
     targetNeurons: List<Neuron>,
     sparsity: Double = .01,
     selfConnectionAllowed: Boolean = false,
-    equalizeEfferents: Boolean = false
+    equalizeEfferents: Boolean = false,
+    random: RandomStream = RandomStream(SimbrainRandom.nextSeed())
 ): ConnectionsResult = if (equalizeEfferents) {
-    connectEqualized(sourceNeurons, targetNeurons, sparsity, selfConnectionAllowed)
+    connectEqualized(sourceNeurons, targetNeurons, sparsity, selfConnectionAllowed, random)
 } else {
-    connectSparse(sourceNeurons, targetNeurons, sparsity, selfConnectionAllowed)
+    connectSparse(sourceNeurons, targetNeurons, sparsity, selfConnectionAllowed, random)
 }
 
 sealed interface ConnectionsResult {
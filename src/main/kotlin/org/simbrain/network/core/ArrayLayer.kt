@@ -57,7 +57,7 @@ abstract class ArrayLayer(
 
     override fun randomize() {
         // TODO: Find non-obtrusive way to set randomizer for cases besides neuronarray
-        inputs.randomize(UniformRealDistribution())
+        inputs.randomize(UniformRealDistribution(), parent.getRandom(this))
         events.updated.fireAndForget()
     }
 
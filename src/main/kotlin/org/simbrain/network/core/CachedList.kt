@@ -0,0 +1,135 @@
+package org.simbrain.network.core
+
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * A list derived from a network's models, built on first use and kept until [invalidate] is called when the models
+ * change. Models that a rebuild would list last can be [append]ed instead, so that building a network one model at a
+ * time while reading the list stays linear. The list handed out is never modified, so callers can iterate it while
+ * models are added or removed.
+ */
+internal class CachedList<T>(private val build: () -> List<T>) {
+
+    @Volatile
+    private var list: Snapshot<T>? = null
+
+    /**
+     * Incremented by each change, so that a list built while the models changed is not kept.
+     */
+    private val version = AtomicLong()
+
+    /**
+     * The cached list, built if needed.
+     */
+    fun get(): List<T> {
+        list?.let { return it }
+        val before = version.get()
+        val built = Snapshot.of(build())
+        synchronized(this) {
+            if (version.get() == before) {
+                list = built
+            }
+        }
+        return built
+    }
+
+    /**
+     * Add items to the end of the cached list, if it is built, rather than rebuilding it. Only valid if a rebuild
+     * would list them last. If [fits] is false for the cached list it is invalidated instead.
+     */
+    fun append(items: Collection<T>, fits: (List<T>) -> Boolean = { true }) {
+        synchronized(this) {
+            version.incrementAndGet()
+            list = list?.let { if (fits(it)) it.plus(items) else null }
+        }
+    }
+
+    fun invalidate() {
+        synchronized(this) {
+            version.incrementAndGet()
+            list = null
+        }
+    }
+
+    /**
+     * Read only view of the first [size] entries of an array. Appending fills the array past [size] and returns a new
+     * snapshot over the same array while it has room, which leaves earlier snapshots unchanged. Only the latest
+     * snapshot is appended to.
+     */
+    private class Snapshot<T>(private val array: Array<Any?>, override val size: Int) : AbstractList<T>(), RandomAccess {
+
+        @Suppress("UNCHECKED_CAST")
+        override fun get(index: Int): T {
+            if (index < 0 || index >= size) {
+                throw IndexOutOfBoundsException("Index $index out of bounds for length $size")
+            }
+            return array[index] as T
+        }
+
+        fun plus(items: Collection<T>): Snapshot<T> {
+            val newSize = size + items.size
+            val target = if (newSize <= array.size) array else array.copyOf(maxOf(newSize, array.size * 2, 16))
+            var i = size
+            for (item in items) {
+                target[i++] = item
+            }
+            return Snapshot(target, newSize)
+        }
+
+        companion object {
+            fun <T> of(list: List<T>) = Snapshot<T>(Array(list.size) { list[it] }, list.size)
+        }
+    }
+}
+
+/**
+ * A list made of several [CachedList]s that are appended to and rebuilt separately, e.g. free neurons followed by group
+ * neurons, so that a model can be appended to its own part even when a rebuild of the whole list would not list it
+ * last. The parts are presented as one read only list.
+ */
+internal class CachedParts<T>(vararg builds: () -> List<T>) {
+
+    private val parts = builds.map { CachedList(it) }
+
+    @Volatile
+    private var joined: Joined<T>? = null
+
+    fun part(index: Int) = parts[index]
+
+    /**
+     * The parts as one list. The same list is returned until a part changes.
+     */
+    fun get(): List<T> {
+        val lists = parts.map { it.get() }
+        val nonEmpty = lists.filter { it.isNotEmpty() }
+        if (nonEmpty.size <= 1) {
+            return nonEmpty.firstOrNull() ?: lists.first()
+        }
+        joined?.let { if (it.hasParts(nonEmpty)) return it }
+        return Joined(nonEmpty).also { joined = it }
+    }
+
+    fun invalidate() {
+        parts.forEach { it.invalidate() }
+    }
+
+    private class Joined<T>(private val parts: List<List<T>>) : AbstractList<T>(), RandomAccess {
+
+        override val size = parts.sumOf { it.size }
+
+        fun hasParts(lists: List<List<T>>) = lists.size == parts.size && lists.indices.all { lists[it] === parts[it] }
+
+        override fun get(index: Int): T {
+            var i = index
+            if (i >= 0) {
+                for (part in parts) {
+                    if (i < part.size) {
+                        return part[i]
+                    }
+                    i -= part.size
+                }
+            }
+            throw IndexOutOfBoundsException("Index $index out of bounds for length $size")
+        }
+    }
+}
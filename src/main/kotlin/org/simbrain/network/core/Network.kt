@@ -22,6 +22,7 @@ import org.simbrain.util.stats.distributions.UniformRealDistribution
 import org.simbrain.workspace.updater.PerformanceMonitor
 import org.simbrain.workspace.updater.UpdateAction
 import java.awt.geom.Point2D
+import java.util.concurrent.ConcurrentHashMap
 import java.util.concurrent.atomic.AtomicBoolean
 import kotlin.math.abs
 import kotlin.math.ceil
@@ -37,6 +38,13 @@ private val DEFAULT_TIME_STEP = SimbrainPreferences.getDouble("networkDefaultTim
  */
 private val LOG_10 = ln(10.0)
 
+/**
+ * Parts of the cached flat neuron and synapse lists, in list order.
+ */
+private const val FREE = 0
+private const val GROUP = 1
+private const val SUBNETWORK = 2
+
 /**
  * <b>Network</b> provides core neural network functionality and is the main neural network model object. The core
  * data structure is a [NetworkModelList] that associates classes of [NetworkModel] with linked hash sets of
@@ -124,6 +132,23 @@ class Network: CoroutineScope {
      * Whether this is a discrete or continuous time network.
      */
     private var timeType = TimeType.DISCRETE
+        get() {
+            if (timeTypeStale) {
+                timeTypeStale = false
+                field = if (flatNeuronList.any { it.timeType == TimeType.CONTINUOUS }) {
+                    TimeType.CONTINUOUS
+                } else {
+                    TimeType.DISCRETE
+                }
+            }
+            return field
+        }
+
+    /**
+     * Whether [timeType] must be recomputed from the neurons before it is next used.
+     */
+    @Transient
+    private var timeTypeStale = false
 
     /**
      * Whether network has been updated yet; used by thread.
@@ -131,13 +156,43 @@ class Network: CoroutineScope {
     @Transient
     private var updateCompleted = AtomicBoolean(false)
 
+    /**
+     * Neurons sorted by their update priority, rebuilt on first use after neurons are added or removed or their
+     * priorities change.
+     */
+    @Transient
+    private var prioritySortedNeurons = CachedList(::sortNeuronsByPriority)
+
+    /**
+     * Top-level neurons, neuron group neurons and subnetwork neurons, each rebuilt on first use after models change.
+     */
+    @Transient
+    private var flatNeurons = CachedParts(::collectFreeNeurons, ::collectGroupNeurons, ::collectSubnetworkNeurons)
+
+    /**
+     * Top-level synapses, synapse group synapses and subnetwork synapses, each rebuilt on first use after models change.
+     */
+    @Transient
+    private var flatSynapses = CachedParts(::collectFreeSynapses, ::collectGroupSynapses, ::collectSubnetworkSynapses)
+
+    /**
+     * Depth of nested [batch] calls.
+     */
+    @Transient
+    private var batchDepth = 0
+
+    /**
+     * Whether the priority list must be re-sorted when the outermost [batch] returns.
+     */
+    @Transient
+    private var resortAfterBatch = false
+
     /**
      * List of neurons sorted by their update priority. Used in priority based update.
      * Lower numbers updated first, as in first priority, second priority, etc.
      */
-    @Transient
-    var prioritySortedNeuronList: ArrayList<Neuron> = ArrayList()
-        private set
+    val prioritySortedNeuronList: List<Neuron>
+        get() = prioritySortedNeurons.get()
 
     /**
      * Manage ids for all network elements.
@@ -152,6 +207,44 @@ class Network: CoroutineScope {
     @Transient
     var placementManager = PlacementManager()
 
+    /**
+     * Seed of the random streams of this network's models. Taken from [SimbrainRandom] when the network is created and
+     * reset by [org.simbrain.workspace.Workspace.randomSeed]. Saved with the network, so an opened network continues
+     * with the same streams.
+     */
+    var randomSeed = SimbrainRandom.nextSeed()
+        set(value) {
+            field = value
+            randomStreams = ConcurrentHashMap()
+            unnamedStreams = RandomStream(value)
+        }
+
+    /**
+     * Stream of each model that has drawn random numbers, by id.
+     */
+    @Transient
+    private var randomStreams = ConcurrentHashMap<String, RandomStream>()
+
+    /**
+     * Source of seeds for models that are not in the network yet and so have no id.
+     */
+    @Transient
+    private var unnamedStreams = RandomStream(randomSeed)
+
+    /**
+     * The random stream of a model, which only depends on the network's seed and the model's id. Models updated in
+     * parallel each draw from their own stream, so results don't depend on how the updates are scheduled.
+     */
+    fun getRandom(model: NetworkModel): RandomStream {
+        val id = model.id ?: return synchronized(unnamedStreams) { RandomStream(unnamedStreams.nextLong()) }
+        return getRandom(id)
+    }
+
+    /**
+     * The random stream with a given name.
+     */
+    fun getRandom(key: String): RandomStream = randomStreams.getOrPut(key) { RandomStream(randomSeed).split(key) }
+
     /**
      * Returns a linked hash set of models of the specified type.
      */
@@ -184,7 +277,7 @@ class Network: CoroutineScope {
         // Main update
         updateManager.actionList.forEach {
             runBlocking {
-                PerformanceMonitor.record(it, "${name}:${it.description}") {
+                PerformanceMonitor.record(it, "${name}:${it.description}", "Network") {
                     it.run()
                 }
             }
@@ -200,18 +293,18 @@ class Network: CoroutineScope {
      */
     fun updatePriorityList() {
         // TODO: Uses flat neuron list, but does this make sense? NeuronGroups should handle their own update orders.
-        prioritySortedNeuronList = ArrayList(flatNeuronList)
         resortPriorities()
     }
 
     /**
-     * Resort the neurons according to their update priorities.
+     * Resort the neurons according to their update priorities. The sort is done when the list is next used, so
+     * setting the priorities of many neurons sorts once.
      */
     fun resortPriorities() {
-        prioritySortedNeuronList.sortWith { neuron1, neuron2 ->
-            val priority1 = neuron1.updatePriority
-            val priority2 = neuron2.updatePriority
-            priority1.compareTo(priority2)
+        if (batchDepth > 0) {
+            resortAfterBatch = true
+        } else {
+            prioritySortedNeurons.invalidate()
         }
     }
 
@@ -253,14 +346,35 @@ class Network: CoroutineScope {
      */
     fun bufferedUpdate() {
         networkModels.all.forEach { it.updateInputs() }
-        networkModels.all.forEach { it.update() }
+        networkModels.all.forEach { updateMeasured(it) }
     }
 
     suspend fun asyncBufferedUpdate()  = coroutineScope {
         networkModels.getAsyncModels().map { async { it.updateInputs() } }.awaitAll()
         networkModels.getNonAsyncModels().forEach { it.updateInputs() }
-        networkModels.getAsyncModels().map { async { it.update() } }.awaitAll()
-        networkModels.getNonAsyncModels().forEach { it.update() }
+        networkModels.getAsyncModels().map { async { updateMeasured(it) } }.awaitAll()
+        networkModels.getNonAsyncModels().forEach { updateMeasured(it) }
+    }
+
+    /**
+     * Update a model, measuring it if the [PerformanceMonitor] is enabled. Free neurons and synapses are measured
+     * together by type, so that large networks don't get one histogram per neuron.
+     */
+    private fun updateMeasured(model: NetworkModel) {
+        if (!PerformanceMonitor.enabled) {
+            model.update()
+            return
+        }
+        if (model is Neuron || model is Synapse) {
+            PerformanceMonitor.measure(this to model.javaClass, "${model.javaClass.simpleName} updates", "Model") {
+                model.update()
+            }
+        } else {
+            PerformanceMonitor.measure(model, model.label.takeUnless { it.isNullOrEmpty() } ?: model.id ?: "$model",
+                "Model") {
+                model.update()
+            }
+        }
     }
 
     /**
@@ -296,15 +410,17 @@ class Network: CoroutineScope {
      * @return the flat list
      */
     val flatNeuronList: List<Neuron>
-        get() = sequence {
-            yieldAll(networkModels.get<Neuron>())
-            for (neuronGroup in networkModels.get<NeuronGroup>()) {
-                yieldAll(neuronGroup.neuronList)
-            }
-            for (subnetwork in networkModels.get<Subnetwork>()) {
-                yieldAll(subnetwork.modelList.get<NeuronGroup>().flatMap { it.neuronList })
-            }
-        }.toList()
+        get() = flatNeurons.get()
+
+    private fun collectFreeNeurons(): List<Neuron> = networkModels.get<Neuron>().toList()
+
+    private fun collectGroupNeurons(): List<Neuron> = networkModels.get<NeuronGroup>().flatMap { it.neuronList }
+
+    private fun collectSubnetworkNeurons(): List<Neuron> = networkModels.get<Subnetwork>().flatMap { subnetwork ->
+        subnetwork.modelList.get<NeuronGroup>().flatMap { it.neuronList }
+    }
+
+    private fun sortNeuronsByPriority(): List<Neuron> = flatNeuronList.sortedBy { it.updatePriority }
 
     /**
      * Create "flat" list of synapses, which includes the top-level synapses plus all subnet synapses.
@@ -312,13 +428,15 @@ class Network: CoroutineScope {
      * @return the flat list
      */
     val flatSynapseList: List<Synapse>
-        get() = sequence {
-            yieldAll(networkModels.get<Synapse>())
-            yieldAll(networkModels.get<SynapseGroup2>().flatMap { sg -> sg.synapses })
-            yieldAll(networkModels.get<Subnetwork>().flatMap { subnetwork ->
-                subnetwork.modelList.get<SynapseGroup>().flatMap { it.allSynapses }
-            })
-        }.toList()
+        get() = flatSynapses.get()
+
+    private fun collectFreeSynapses(): List<Synapse> = networkModels.get<Synapse>().toList()
+
+    private fun collectGroupSynapses(): List<Synapse> = networkModels.get<SynapseGroup2>().flatMap { it.synapses }
+
+    private fun collectSubnetworkSynapses(): List<Synapse> = networkModels.get<Subnetwork>().flatMap { subnetwork ->
+        subnetwork.modelList.get<SynapseGroup>().flatMap { it.allSynapses }
+    }
 
     /**
      * Returns a list of all neuron groups including those in subnetworks.
@@ -359,15 +477,87 @@ class Network: CoroutineScope {
             }
             model.events.deleted.on(wait = true) {
                 networkModels.remove(it)
+                invalidateCachedLists()
                 events.modelRemoved.fireAndForget(it)
             }
-            val job = events.modelAdded.fireAndSuspend(model)
-            if (model is Neuron) updatePriorityList()
-            return job
+            indexAddedModel(model)
+            return events.modelAdded.fireAndSuspend(model)
         }
         return null
     }
 
+    /**
+     * Add a new model to the cached flat and priority lists. Each flat list is kept in parts (free models, group
+     * members, subnetwork members) and the model is appended to its part, so that adding models one at a time stays
+     * linear even when the lists are read in between, e.g. by a modelAdded handler. A neuron is appended to the
+     * priority list if a re-sort would list it last; otherwise the list is re-sorted when next used, or when the
+     * outermost [batch] returns.
+     */
+    private fun indexAddedModel(model: NetworkModel) {
+        when {
+            model.javaClass == Neuron::class.java -> {
+                val neuron = model as Neuron
+                flatNeurons.part(FREE).append(listOf(neuron))
+                if (batchDepth > 0) {
+                    resortAfterBatch = true
+                } else {
+                    // Among equal priorities a re-sort keeps flat list order, which puts free neurons before groups
+                    val onlyFreeNeurons = networkModels.getRawModelSet(NeuronGroup::class.java).isEmpty()
+                            && networkModels.getRawModelSet(Subnetwork::class.java).isEmpty()
+                    prioritySortedNeurons.append(listOf(neuron)) {
+                        it.isEmpty() || it.last().updatePriority < neuron.updatePriority
+                                || (onlyFreeNeurons && it.last().updatePriority == neuron.updatePriority)
+                    }
+                }
+            }
+            model.javaClass == NeuronGroup::class.java -> {
+                flatNeurons.part(GROUP).append((model as NeuronGroup).neuronList)
+                resortPriorities()
+            }
+            model.javaClass == Synapse::class.java -> {
+                flatSynapses.part(FREE).append(listOf(model as Synapse))
+            }
+            model.javaClass == SynapseGroup2::class.java -> {
+                flatSynapses.part(GROUP).append((model as SynapseGroup2).synapses)
+            }
+            model is Subnetwork -> {
+                flatNeurons.part(SUBNETWORK).append(model.modelList.get<NeuronGroup>().flatMap { it.neuronList })
+                flatSynapses.part(SUBNETWORK).append(model.modelList.get<SynapseGroup>().flatMap { it.allSynapses })
+                resortPriorities()
+            }
+        }
+    }
+
+    /**
+     * Run a block that adds many models, e.g. a connection strategy or a paste, deferring the priority sort until
+     * the outermost batch returns. The flat lists stay current inside the batch; the priority list does not include
+     * neurons added in the batch until it returns, unless it is invalidated in between, e.g. by a removal.
+     *
+     * Ex: network.batch { repeat(100_000) { addNeuron() } }
+     */
+    fun <T> batch(block: () -> T): T {
+        batchDepth++
+        try {
+            return block()
+        } finally {
+            batchDepth--
+            if (batchDepth == 0 && resortAfterBatch) {
+                resortAfterBatch = false
+                prioritySortedNeurons.invalidate()
+            }
+        }
+    }
+
+    /**
+     * Forget the cached flat and priority lists, so that they are rebuilt when next used. Called when models are
+     * removed and when the members of groups and subnetworks change.
+     */
+    fun invalidateCachedLists() {
+        flatNeurons.invalidate()
+        flatSynapses.invalidate()
+        prioritySortedNeurons.invalidate()
+    }
+
     /**
      * Create a [NeuronCollection] from a provided list of neurons
      */
@@ -425,9 +615,14 @@ class Network: CoroutineScope {
 
         placementManager = PlacementManager()
 
+        randomStreams = ConcurrentHashMap()
+        unnamedStreams = RandomStream(randomSeed)
+
         events = NetworkEvents2()
         updateCompleted = AtomicBoolean(false)
-        updatePriorityList();
+        prioritySortedNeurons = CachedList(::sortNeuronsByPriority)
+        flatNeurons = CachedParts(::collectFreeNeurons, ::collectGroupNeurons, ::collectSubnetworkNeurons)
+        flatSynapses = CachedParts(::collectFreeSynapses, ::collectGroupSynapses, ::collectSubnetworkSynapses)
 
         // Initialize update manager
         updateManager.postOpenInit()
@@ -454,15 +649,11 @@ class Network: CoroutineScope {
         }
 
     /**
-     * If there is a single continuous neuron in the network, consider this a continuous network.
+     * If there is a single continuous neuron in the network, consider this a continuous network. Called whenever a
+     * neuron's update rule is set, so the neurons are only checked when the time type is next used.
      */
     fun updateTimeType() {
-        timeType = TimeType.DISCRETE
-        for (n in flatNeuronList) {
-            if (n.timeType == TimeType.CONTINUOUS) {
-                timeType = TimeType.CONTINUOUS
-            }
-        }
+        timeTypeStale = true
     }
 
     /**
@@ -556,7 +747,7 @@ class Network: CoroutineScope {
      * @param toAdd list of objects to add.
      */
     fun addNetworkModels(toAdd: List<NetworkModel>) {
-        toAdd.forEach { addNetworkModel(it) }
+        batch { toAdd.forEach { addNetworkModel(it) } }
     }
 
     /**
@@ -565,7 +756,7 @@ class Network: CoroutineScope {
      * Ex: addNetworkModels(synapse1, synapse2, neuron1, neuron2, ...)
      */
     fun addNetworkModels(vararg toAdd: NetworkModel) {
-        toAdd.forEach { addNetworkModel(it) }
+        batch { toAdd.forEach { addNetworkModel(it) } }
     }
 
     /**
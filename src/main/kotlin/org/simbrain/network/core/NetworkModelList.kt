@@ -26,6 +26,12 @@ class NetworkModelList {
 
     private val shouldAsync: HashMap<Boolean, LinkedHashSet<NetworkModel>> = HashMap()
 
+    /**
+     * Flat list of all models, rebuilt after models are added or removed rather than on every access.
+     */
+    @Transient
+    private val cachedAll = CachedList { networkModels.values.flatMap { it ?: listOf() } }
+
     @Suppress("UNCHECKED_CAST")
     fun <T : NetworkModel> put(modelClass: Class<T>, model: T) {
         if (modelClass in networkModels) {
@@ -40,6 +46,7 @@ class NetworkModelList {
         } else {
             shouldAsync.getOrPut(false) { LinkedHashSet() }
         }.add(model)
+        cachedAll.invalidate()
     }
 
     /**
@@ -59,6 +66,7 @@ class NetworkModelList {
         } else {
             shouldAsync.getOrPut(false) { LinkedHashSet() }
         }.add(model)
+        cachedAll.invalidate()
     }
 
     /**
@@ -106,8 +114,11 @@ class NetworkModelList {
         }
     }
 
+    /**
+     * All models, grouped by type. The list is not modified when models are later added or removed.
+     */
     val all: List<NetworkModel>
-        get() = networkModels.values.flatMap { it?.map { item -> item } ?: listOf() }
+        get() = cachedAll.get()
 
     /**
      * Returns a list of network models in the order required for proper reconstruction of all network models.
@@ -123,6 +134,8 @@ class NetworkModelList {
         } else {
             networkModels[model.javaClass]?.remove(model)
         }
+        shouldAsync.values.forEach { it.remove(model) }
+        cachedAll.invalidate()
     }
 
     fun getAsyncModels() = shouldAsync[true] ?: LinkedHashSet()
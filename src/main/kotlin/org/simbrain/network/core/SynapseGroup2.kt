@@ -87,11 +87,13 @@ class SynapseGroup2 @JvmOverloads constructor(
     fun addSynapse(syn: Synapse) {
         syn.isVisible = displaySynapses
         this.synapses.add(syn)
+        source.network.invalidateCachedLists()
         events.synapseAdded.fireAndForget(syn)
     }
 
     fun removeSynapse(syn: Synapse) {
         this.synapses.remove(syn)
+        source.network.invalidateCachedLists()
         events.synapseRemoved.fireAndForget(syn)
     }
 
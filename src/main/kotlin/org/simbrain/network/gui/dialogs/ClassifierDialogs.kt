@@ -1,13 +1,18 @@
 package org.simbrain.network.gui.dialogs
 
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.GlobalScope
+import kotlinx.coroutines.launch
 import net.miginfocom.swing.MigLayout
 import org.simbrain.network.NetworkComponent
 import org.simbrain.network.gui.NetworkPanel
 import org.simbrain.network.gui.nodes.SmileClassifierNode
 import org.simbrain.network.smile.SmileClassifier
+import org.simbrain.network.smile.crossValidate
 import org.simbrain.network.smile.classifiers.SVMClassifier
 import org.simbrain.util.ResourceManager
 import org.simbrain.util.StandardDialog
+import org.simbrain.util.Utils
 import org.simbrain.util.propertyeditor.AnnotatedPropertyEditor
 import org.simbrain.util.showWarningDialog
 import org.simbrain.util.table.*
@@ -16,6 +21,7 @@ import javax.swing.JButton
 import javax.swing.JLabel
 import javax.swing.JPanel
 import javax.swing.JSeparator
+import javax.swing.SwingUtilities
 
 /**
  * Classifier training dialog.
@@ -100,12 +106,37 @@ fun SmileClassifier.getTrainingDialog(): StandardDialog {
             }
         }
 
+        // Estimate accuracy on unseen data. Runs off the Swing thread since each fold is a full fit.
+        val crossValidateButton = JButton("Cross Validate").apply {
+            toolTipText = "Estimate accuracy on unseen data using 5-fold cross-validation"
+            addActionListener {
+                try {
+                    classfierProps.commitChanges()
+                    classifier.trainingData.featureVectors = inputs.model.get2DDoubleArray()
+                    classifier.trainingData.targetLabels = targets.model.getStringColumn(0)
+                } catch (e: Exception) {
+                    showWarningDialog(e.message.toString())
+                    return@addActionListener
+                }
+                statsLabel.text = "Cross validating..."
+                GlobalScope.launch(Dispatchers.Default) {
+                    val text = try {
+                        "Cross-validated accuracy: ${Utils.round(classifier.crossValidate(), 3)}"
+                    } catch (e: Exception) {
+                        "Cross validation failed: ${e.message}"
+                    }
+                    SwingUtilities.invokeLater { statsLabel.text = text }
+                }
+            }
+        }
+
         if (!classfierProps.widgets.isEmpty()) {
             add(classfierProps, "wrap")
             addClosingTask(classfierProps::commitChanges)
             add(JSeparator(), "growx, span, wrap")
         }
         contentPane.add(trainButton)
+        contentPane.add(crossValidateButton)
         contentPane.add(statsLabel, "wrap")
         contentPane.add(JSeparator(), "span, growx, wrap")
         contentPane.add(JLabel("Inputs"))
@@ -1,5 +1,6 @@
 package org.simbrain.network.gui.nodes
 
+import org.piccolo2d.PNode
 import org.piccolo2d.nodes.PImage
 import org.piccolo2d.nodes.PPath
 import org.piccolo2d.nodes.PText
@@ -17,6 +18,8 @@ import org.simbrain.util.*
 import org.simbrain.util.piccolo.addBorder
 import org.simbrain.workspace.gui.CouplingMenu
 import java.awt.event.ActionEvent
+import java.awt.event.HierarchyEvent
+import java.awt.event.HierarchyListener
 import javax.swing.AbstractAction
 import javax.swing.Action
 import javax.swing.JDialog
@@ -44,9 +47,26 @@ class DeepNetNode(networkPanel: NetworkPanel, private val deepNet: DeepNet):
      */
     private var activationImagesBoxes = listOf<PPath>()
 
+    /**
+     * Updates [DeepNet.activationsVisible] when the network panel is shown or hidden.
+     */
+    private val showingListener = HierarchyListener { e ->
+        if (e.changeFlags and HierarchyEvent.SHOWING_CHANGED.toLong() != 0L) {
+            updateActivationsVisible()
+        }
+    }
+
     init {
 
+        addPropertyChangeListener(PNode.PROPERTY_PARENT) { updateActivationsVisible() }
+        addPropertyChangeListener(PNode.PROPERTY_VISIBLE) { updateActivationsVisible() }
+        networkPanel.addHierarchyListener(showingListener)
+        updateActivationsVisible()
         val events = deepNet.events
+        events.deleted.on {
+            networkPanel.removeHierarchyListener(showingListener)
+            deepNet.activationsVisible = false
+        }
         events.updated.on {
             infoText.text = computeInfoText()
             renderActivations()
@@ -56,6 +76,14 @@ class DeepNetNode(networkPanel: NetworkPanel, private val deepNet: DeepNet):
         updateBorder()
     }
 
+    /**
+     * Have the deep net compute its internal activations only while they can be seen, i.e. while this node is in
+     * the panel and visible and the panel is showing.
+     */
+    private fun updateActivationsVisible() {
+        deepNet.activationsVisible = parent != null && visible && networkPanel.isShowing
+    }
+
     /**
      * Update status text.
      */
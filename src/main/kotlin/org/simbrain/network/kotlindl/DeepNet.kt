@@ -17,6 +17,7 @@ import org.simbrain.workspace.Producible
 import smile.math.matrix.Matrix
 import java.awt.geom.Rectangle2D
 import java.util.*
+import java.util.ArrayDeque
 
 /**
  * Simbrain representation of a KotlinDL sequential network, i.e. a deep network. Once initialized the data and some
@@ -36,10 +37,16 @@ class DeepNet(
     lateinit var deepNetLayers: Sequential
 
     /**
-     * Output matrix
+     * Output matrix. Reused across updates.
      */
     private var outputs: Matrix? = null
 
+    /**
+     * Float copy of the inputs passed to KotlinDL. Reused across updates.
+     */
+    @Transient
+    private var inputBuffer: FloatArray? = null
+
     var prediction: Int = -1
     private set
 
@@ -47,6 +54,28 @@ class DeepNet(
             "else output a one-hot encoded class label", order = 10)
     var outputProbabilities: Boolean = false
 
+    @UserParameter(label = "Inference batch size", description = "Number of updates whose inputs are collected " +
+            "and evaluated with a single prediction. With a batch size of n the outputs lag the inputs by n updates " +
+            "and layer activations are not shown.", minimumValue = 1.0, order = 20)
+    var inferenceBatchSize: Int = 1
+        set(value) {
+            field = maxOf(1, value)
+            pendingInputs?.clear()
+            pendingOutputs?.clear()
+        }
+
+    /**
+     * Inputs collected for the next batched prediction, see [inferenceBatchSize].
+     */
+    @Transient
+    private var pendingInputs: ArrayList<FloatArray>? = null
+
+    /**
+     * Results of the last batched prediction not yet sent to the outputs, oldest first.
+     */
+    @Transient
+    private var pendingOutputs: ArrayDeque<FloatArray>? = null
+
     /**
      * Getter for external inputs to deep net, from parent [ArrayLayer] level. Can be set by couplings.
      * To access the actual inputs use getInputs().
@@ -55,10 +84,17 @@ class DeepNet(
         get() = super.inputs.col(0)
 
     /**
-     * Float representation of [doubleInputs].
+     * Float representation of [doubleInputs]. The array is reused, so copy it to keep it past the next update.
      */
     val floatInputs: FloatArray
-        get() = doubleInputs.toFloatArray()
+        get() {
+            val size = inputs.nrow()
+            val buffer = inputBuffer?.takeIf { it.size == size } ?: FloatArray(size).also { inputBuffer = it }
+            for (i in 0 until size) {
+                buffer[i] = inputs[i, 0].toFloat()
+            }
+            return buffer
+        }
 
     /**
      * Outputs as double array for use with couplings.
@@ -95,11 +131,29 @@ class DeepNet(
      */
     var lossValue: Double = 0.0
 
+    /**
+     * Set when the activations are displayed. Internal activations are only computed if this is true.
+     */
+    @Transient
+    var activationsVisible = false
+
+    /**
+     * Activations as returned by KotlinDL from the last update, converted to [activations] when they are requested.
+     */
+    @Transient
+    private var rawActivations: List<*>? = null
+
+    @Transient
+    private var extractedActivations: List<*>? = null
+
     /**
      * A list of arrays, one for each layer, used in representing the internal activations of the network.
      * Note that input and output activations are stored in [doubleInputs] and [outputArray].
+     * Only updated while [activationsVisible] is set.
      */
-    var activations: List<*>
+    val activations: List<*>
+        get() = extractedActivations ?: (rawActivations?.let { extractActivations(it) } ?: emptyActivations())
+            .also { extractedActivations = it }
 
     init {
         label = network.idManager.getProposedId(this.javaClass)
@@ -107,13 +161,39 @@ class DeepNet(
         outputs = Matrix(outputSize(), 1)
         inputData = Array(nsamples) { FloatArray(inputSize()) }
         targetData = FloatArray(nsamples)
-        activations = deepNetLayers.layers.dropLast(1).filter { it.hasActivation }.map {
-            if (it.outputShape.rank() == 4) {
-                val filters = it.outputShape[3].toInt()
-                List(filters) { arrayOf(floatArrayOf(0.0f)) }
-            } else {
-                floatArrayOf(0.0f)
+    }
+
+    /**
+     * Placeholder activations used before the network has been run.
+     */
+    private fun emptyActivations() = deepNetLayers.layers.dropLast(1).filter { it.hasActivation }.map {
+        if (it.outputShape.rank() == 4) {
+            val filters = it.outputShape[3].toInt()
+            List(filters) { arrayOf(floatArrayOf(0.0f)) }
+        } else {
+            floatArrayOf(0.0f)
+        }
+    }
+
+    /**
+     * Convert activations returned by KotlinDL to a list with a [FloatArray] for dense layers and a list of
+     * w x h arrays, one per filter, for convolutional layers.
+     */
+    private fun extractActivations(raw: List<*>) = raw.filterIsInstance<Array<*>>().map { layer ->
+        val shape = layer.shape
+        when (shape.size) {
+            2 -> layer[0]
+            4 -> {
+                val (_, w, h, f) = shape
+                val sample = (layer as Array<Array<Array<FloatArray>>>)[0]
+                List(f) { a ->
+                    Array(w) { i ->
+                        val column = sample[i]
+                        FloatArray(h) { j -> column[j][a] }
+                    }
+                }
             }
+            else -> floatArrayOf(0.0f)
         }
     }
 
@@ -139,9 +219,10 @@ class DeepNet(
         testingDataset = test
     }
 
-    fun train(trainBatchSize: Int = 1, validationBatchSize: Int = 1) {
-        // Fixing batch size to 1 to make things simpler
-        // TODO: Think about this...
+    fun train(
+        trainBatchSize: Int = trainingParams.batchSize,
+        validationBatchSize: Int = trainingParams.batchSize
+    ) {
         deepNetLayers.fit(trainingDataset, testingDataset,
             trainingParams.epochs, trainBatchSize, validationBatchSize,
             callback = object: Callback() {
@@ -162,44 +243,109 @@ class DeepNet(
 
     override fun update() {
         if (deepNetLayers.isModelInitialized) {
-            if (outputProbabilities) {
-                // Softmax case
-                val predictions = deepNetLayers.predictSoftly(floatInputs)
-                outputs = Matrix(predictions.toDoubleArray())
-                // TODO: Below _should_ use predictSoftlyAndGetActivations, but that is not currently exposed in
-                //  kotlindl
-                val test = deepNetLayers.predictSoftly(floatInputs)
-                // println("Output (probabilities):" + predictions.joinToString())
+            if (inferenceBatchSize > 1) {
+                updateBatched()
             } else {
-                // One-hot case
-                val (prediction, activations) = deepNetLayers.predictAndGetActivations(floatInputs)
-                outputs = getOneHot(prediction,outputSize())
-                this.prediction = prediction
-                this.activations = activations.filterIsInstance<Array<*>>().map { layer ->
-                    val shape = layer.shape
-                    when(shape.size) {
-                        2 -> layer[0]
-                        4 -> {
-                            val (_, w, h, f) = shape
-                            (0 until f).map { a ->
-                                (0 until w).map { i ->
-                                    (0 until h).map { j ->
-                                        (layer as Array<Array<Array<FloatArray>>>)[0][i][j][a]
-                                    }.toFloatArray()
-                                }.toTypedArray()
-                            }
-                        }
-                        else -> floatArrayOf(0.0f)
-                    }
-                }
+                updateSingle()
             }
         } else {
-            outputs = Matrix(outputSize(), 1)
+            outputMatrix().mul(0.0)
         }
         events.updated.fireAndForget()
         inputs.mul(0.0) // clear inputs
     }
 
+    /**
+     * Run the network on the current inputs. Internal activations are only requested from KotlinDL when they are
+     * displayed.
+     */
+    private fun updateSingle() {
+        val input = floatInputs
+        if (activationsVisible) {
+            val (label, layerActivations) = deepNetLayers.predictAndGetActivations(input)
+            rawActivations = layerActivations
+            extractedActivations = null
+            // TODO: Should use predictSoftlyAndGetActivations, but that is not currently exposed in kotlindl
+            if (outputProbabilities) {
+                setOutputs(deepNetLayers.predictSoftly(input))
+            } else {
+                setOneHot(label)
+            }
+            prediction = label
+        } else if (outputProbabilities) {
+            val probabilities = deepNetLayers.predictSoftly(input)
+            setOutputs(probabilities)
+            prediction = probabilities.argmax()
+        } else {
+            val label = deepNetLayers.predict(input)
+            setOneHot(label)
+            prediction = label
+        }
+    }
+
+    /**
+     * Collect the current inputs, and once [inferenceBatchSize] have been collected evaluate them all with one
+     * prediction. Results are then sent to the outputs one per update while the next batch is collected.
+     */
+    private fun updateBatched() {
+        val collected = pendingInputs ?: ArrayList<FloatArray>().also { pendingInputs = it }
+        val results = pendingOutputs ?: ArrayDeque<FloatArray>().also { pendingOutputs = it }
+        collected.add(floatInputs.copyOf())
+        if (collected.size >= inferenceBatchSize) {
+            results.addAll(predictBatch(collected.toTypedArray()))
+            collected.clear()
+        }
+        val probabilities = results.pollFirst()
+        if (probabilities == null) {
+            outputMatrix().mul(0.0)
+            return
+        }
+        prediction = probabilities.argmax()
+        if (outputProbabilities) {
+            setOutputs(probabilities)
+        } else {
+            setOneHot(prediction)
+        }
+    }
+
+    /**
+     * Run the network on several inputs with a single prediction and return the class probabilities for each.
+     * Use this to evaluate many samples, e.g. the inputs of several parallel simulations, without running the
+     * network once per sample.
+     */
+    fun predictBatch(batch: Array<FloatArray>): Array<FloatArray> {
+        if (batch.isEmpty()) {
+            return arrayOf()
+        }
+        val dataset = OnHeapDataset.create(batch, FloatArray(batch.size))
+        return deepNetLayers.predictSoftly(dataset, batch.size)
+    }
+
+    private fun outputMatrix(): Matrix {
+        val current = outputs
+        if (current != null && current.nrow() == outputSize()) {
+            return current
+        }
+        return Matrix(outputSize(), 1).also { outputs = it }
+    }
+
+    private fun setOutputs(values: FloatArray) {
+        val matrix = outputMatrix()
+        for (i in values.indices) {
+            matrix[i, 0] = values[i].toDouble()
+        }
+    }
+
+    private fun setOneHot(index: Int) {
+        if (index < 0 || index >= outputSize()) {
+            throw IllegalArgumentException("Index $index of one-hot vector with ${outputSize()} components must " +
+                    "be between 0 and ${outputSize()}")
+        }
+        val matrix = outputMatrix()
+        matrix.mul(0.0)
+        matrix[index, 0] = 1.0
+    }
+
     override fun getOutputs(): Matrix? {
         return outputs
     }
@@ -276,6 +422,10 @@ class TrainingParameters (
     @UserParameter(label="Epochs", order = 10)
     var epochs: Int = 100,
 
+    @UserParameter(label="Batch size", description = "Number of samples per gradient update", minimumValue = 1.0,
+        order = 20)
+    var batchSize: Int = 1,
+
 ): EditableObject {
 
     override val name: String = "Trainer parameters"
@@ -6,10 +6,11 @@ import org.simbrain.network.smile.classifiers.SVMClassifier
 import org.simbrain.network.trainers.ClassificationDataset
 import org.simbrain.util.UserParameter
 import org.simbrain.util.Utils
-import org.simbrain.util.getOneHot
 import org.simbrain.util.propertyeditor.CopyableObject
 import smile.classification.Classifier
 import smile.math.matrix.Matrix
+import smile.validation.metric.Accuracy
+import java.util.stream.IntStream
 
 /**
  * Superclass for wrappers of Smile classifier objects.
@@ -44,6 +45,43 @@ abstract class ClassificationAlgorithm(
      */
     abstract fun predict(input: DoubleArray): Int
 
+    /**
+     * Predict a label for each row of [inputs]. Large batches are split across cores. Rows are predicted with the
+     * plain model prediction, so unlike [predict] this does not update any per-prediction state such as
+     * probabilities. Returns -1 for every row if the model has not been trained.
+     */
+    fun predictBatch(inputs: Array<DoubleArray>): IntArray {
+        val model = model ?: return IntArray(inputs.size) { -1 }
+        val predictions = IntArray(inputs.size)
+        if (inputs.size < PARALLEL_BATCH_SIZE) {
+            for (i in inputs.indices) {
+                predictions[i] = model.predict(inputs[i])
+            }
+        } else {
+            IntStream.range(0, inputs.size).parallel().forEach { i -> predictions[i] = model.predict(inputs[i]) }
+        }
+        return predictions
+    }
+
+    /**
+     * Output vectors for each row of [inputs], as [SmileClassifier] would produce them one at a time.
+     */
+    open fun predictOutputVectors(inputs: Array<DoubleArray>): Array<DoubleArray> {
+        val predictions = predictBatch(inputs)
+        return Array(inputs.size) { i ->
+            val output = Matrix(outputSize, 1)
+            writeOutputVector(predictions[i], output)
+            output.col(0)
+        }
+    }
+
+    /**
+     * Fraction of the samples in [dataset] whose label is predicted correctly.
+     */
+    fun accuracy(dataset: ClassificationDataset): Double {
+        return Accuracy.of(dataset.getIntegerTargets(), predictBatch(dataset.featureVectors))
+    }
+
     fun assertValidWinnerIndex(winner: Int) {
         if (winner > outputSize) {
             throw IllegalArgumentException("Prediction of ${winner} > output size of ${outputSize}")
@@ -53,9 +91,29 @@ abstract class ClassificationAlgorithm(
     /**
      * Convert this model's integer prediction to an output vector.
      */
-    open fun getOutputVector(winner: Int): Matrix {
+    fun getOutputVector(winner: Int): Matrix {
+        return Matrix(outputSize, 1).also { writeOutputVector(winner, it) }
+    }
+
+    /**
+     * Write the output vector for this model's integer prediction into [output], an [outputSize] x 1 matrix. By
+     * default this is a one-hot vector.
+     */
+    open fun writeOutputVector(winner: Int, output: Matrix) {
         assertValidWinnerIndex(winner)
-        return getOneHot(winner, outputSize)
+        writeOneHot(winner, output)
+    }
+
+    /**
+     * Set [output] to a one-hot vector with [index] set to 1.
+     */
+    protected fun writeOneHot(index: Int, output: Matrix) {
+        if (index < 0 || index >= outputSize) {
+            throw IllegalArgumentException("Index $index of one-hot vector with $outputSize components must be " +
+                    "between 0 and $outputSize")
+        }
+        output.mul(0.0)
+        output[index, 0] = 1.0
     }
 
     fun setAccuracyLabel(accuracy: Double) {
@@ -68,6 +126,12 @@ abstract class ClassificationAlgorithm(
     abstract override fun copy(): ClassificationAlgorithm
 
     companion object {
+
+        /**
+         * Batches with at least this many rows are predicted in parallel.
+         */
+        const val PARALLEL_BATCH_SIZE = 256
+
         /**
          * Called via reflection using [UserParameter.typeListMethod].
          */
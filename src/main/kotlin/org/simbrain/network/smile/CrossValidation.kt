@@ -0,0 +1,83 @@
+package org.simbrain.network.smile
+
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.runBlocking
+import org.simbrain.network.trainers.ClassificationDataset
+
+/**
+ * K-fold cross-validation and hyperparameter search for [ClassificationAlgorithm]s.
+ *
+ * Each fold is fit on a [ClassificationAlgorithm.copy], so the algorithm's own model is left alone, and all folds
+ * (of all candidates, when searching) are fit in parallel.
+ */
+
+/**
+ * Estimate accuracy on unseen data with k-fold cross-validation: the model is fit [folds] times, each time leaving
+ * out a different fold of the data, and scored on the fold it left out. Samples are assigned to folds class by
+ * class so each fold has about the same mix of labels.
+ *
+ * @return the fraction of left-out samples predicted correctly
+ */
+@JvmOverloads
+fun ClassificationAlgorithm.crossValidate(folds: Int = 5, dataset: ClassificationDataset = trainingData): Double {
+    return runBlocking(Dispatchers.Default) { crossValidateAsync(this@crossValidate, folds, dataset) }
+}
+
+/**
+ * Cross-validate each of the [candidates], e.g. copies of one algorithm with different parameters, and return them
+ * with their accuracy, best first.
+ */
+@JvmOverloads
+fun <T : ClassificationAlgorithm> searchHyperparameters(
+    candidates: List<T>,
+    dataset: ClassificationDataset,
+    folds: Int = 5
+): List<Pair<T, Double>> {
+    return runBlocking(Dispatchers.Default) {
+        candidates.map { candidate ->
+            async { candidate to crossValidateAsync(candidate, folds, dataset) }
+        }.awaitAll().sortedByDescending { it.second }
+    }
+}
+
+private suspend fun crossValidateAsync(
+    algorithm: ClassificationAlgorithm,
+    folds: Int,
+    dataset: ClassificationDataset
+): Double = coroutineScope {
+    val inputs = dataset.featureVectors
+    val targets = dataset.getIntegerTargets()
+    if (folds < 2 || folds > inputs.size) {
+        throw IllegalArgumentException("Number of folds must be between 2 and the number of samples (${inputs.size})")
+    }
+    val foldOf = assignFolds(targets, folds)
+    val correct = (0 until folds).map { fold ->
+        async {
+            val train = inputs.indices.filter { foldOf[it] != fold }
+            val test = inputs.indices.filter { foldOf[it] == fold }
+            val copy = algorithm.copy()
+            copy.fit(Array(train.size) { inputs[train[it]] }, IntArray(train.size) { targets[train[it]] })
+            val predictions = copy.predictBatch(Array(test.size) { inputs[test[it]] })
+            test.indices.count { predictions[it] == targets[test[it]] }
+        }
+    }.awaitAll().sum()
+    correct.toDouble() / inputs.size
+}
+
+/**
+ * Deal the samples of each class out to the folds in turn.
+ */
+private fun assignFolds(targets: IntArray, folds: Int): IntArray {
+    val foldOf = IntArray(targets.size)
+    var next = 0
+    targets.indices.groupBy { targets[it] }.values.forEach { samples ->
+        samples.forEach { sample ->
+            foldOf[sample] = next
+            next = (next + 1) % folds
+        }
+    }
+    return foldOf
+}
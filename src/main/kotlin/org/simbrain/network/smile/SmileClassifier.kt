@@ -5,6 +5,7 @@ import org.simbrain.network.core.Network
 import org.simbrain.network.smile.classifiers.SVMClassifier
 import org.simbrain.util.UserParameter
 import org.simbrain.util.propertyeditor.EditableObject
+import org.simbrain.workspace.Consumable
 import org.simbrain.workspace.Producible
 import smile.math.matrix.Matrix
 import java.awt.geom.Rectangle2D
@@ -39,10 +40,22 @@ class SmileClassifier(
         get() = classifier.trainingData.labelTargetMap.getInverse(winner)?:""
 
     /**
-     * Output matrix.
+     * Output matrix. Reused across updates.
      */
     private var outputs = Matrix(classifier.outputSize, 1)
 
+    /**
+     * Copy of the inputs passed to the classifier. Reused across updates.
+     */
+    @Transient
+    private var inputBuffer: DoubleArray? = null
+
+    /**
+     * Output vectors for the last batch set with [setBatchInputs], one after the other.
+     */
+    @Transient
+    private var batchOutputs = DoubleArray(0)
+
     /**
      * Construct a classifier.
      */
@@ -65,21 +78,70 @@ class SmileClassifier(
      */
     override fun update() {
         if (classifier.model != null) {
-            winner = classifier.predict(inputs.col(0))
+            val size = inputSize()
+            val input = inputBuffer?.takeIf { it.size == size } ?: DoubleArray(size).also { inputBuffer = it }
+            for (i in 0 until size) {
+                input[i] = inputs[i, 0]
+            }
+            winner = classifier.predict(input)
             // println("Prediction of ${this.id} is: $winner")
-            if (classifier.model != null) {
-                outputs = try {
-                    classifier.getOutputVector(winner)
-                } catch(e: IllegalArgumentException) {
-                    System.err.println(e.message)
-                    Matrix(outputSize(), 1)
-                }
+            try {
+                classifier.writeOutputVector(winner, outputs)
+            } catch(e: IllegalArgumentException) {
+                System.err.println(e.message)
+                outputs.mul(0.0)
             }
         }
         events.updated.fireAndForget()
         inputs.mul(0.0) // clear inputs
     }
 
+    /**
+     * Predict labels for many input vectors at once, e.g. to evaluate the classifier on a dataset. See
+     * [ClassificationAlgorithm.predictBatch].
+     */
+    fun predictBatch(batch: Array<DoubleArray>): IntArray {
+        return classifier.predictBatch(batch)
+    }
+
+    /**
+     * Output vectors for many input vectors at once.
+     */
+    fun predictOutputVectors(batch: Array<DoubleArray>): Array<DoubleArray> {
+        return classifier.predictOutputVectors(batch)
+    }
+
+    /**
+     * Classify a batch of input vectors given one after the other in a single array, for use with couplings. The
+     * results are available from [getBatchOutputs]. This does not change [winner] or [getOutputs].
+     */
+    @Consumable(description = "Batch inputs")
+    fun setBatchInputs(rows: DoubleArray) {
+        val size = inputSize()
+        if (rows.size % size != 0) {
+            throw IllegalArgumentException("Batch of ${rows.size} values is not a multiple of the input size $size")
+        }
+        val batch = Array(rows.size / size) { i -> rows.copyOfRange(i * size, (i + 1) * size) }
+        val results = predictOutputVectors(batch)
+        batchOutputs = DoubleArray(results.size * outputSize()).also { flat ->
+            results.forEachIndexed { i, output -> output.copyInto(flat, i * outputSize()) }
+        }
+    }
+
+    /**
+     * Output vectors for the last batch passed to [setBatchInputs], one after the other.
+     */
+    @Producible(description = "Batch outputs")
+    fun getBatchOutputs(): DoubleArray {
+        return batchOutputs
+    }
+
+    override fun readResolve(): Any {
+        super.readResolve()
+        batchOutputs = DoubleArray(0)
+        return this
+    }
+
     override fun toString(): String {
         return "${label} (${classifier.name}): $classifier.inputSize -> ${outputSize()}"
     }
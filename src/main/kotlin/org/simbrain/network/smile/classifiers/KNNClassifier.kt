@@ -4,27 +4,67 @@ import org.simbrain.network.smile.ClassificationAlgorithm
 import org.simbrain.util.UserParameter
 import smile.classification.Classifier
 import smile.classification.KNN
+import smile.math.distance.EuclideanDistance
+import smile.neighbor.CoverTree
+import smile.neighbor.KDTree
+import smile.neighbor.KNNSearch
+import smile.neighbor.LinearSearch
 import smile.validation.metric.Accuracy
 
 /**
  * Wrapper for Smile KNN Classifier.
+ *
+ * The training data is indexed so that predictions do not need to scan every training sample. A k-d tree is used
+ * for low dimensional data and a cover tree, which does not degrade as badly with dimension, otherwise.
  */
 class KNNClassifier @JvmOverloads constructor(inputSize: Int = 4, outputSize: Int = 4): ClassificationAlgorithm(inputSize,
     outputSize) {
 
+    /**
+     * How the nearest training samples are found.
+     */
+    enum class SearchMethod {
+        /**
+         * K-d tree below [KD_TREE_MAX_DIMENSION] dimensions, cover tree otherwise.
+         */
+        Automatic,
+        KDTree,
+        CoverTree,
+        /**
+         * Compare with every training sample.
+         */
+        Linear
+    }
+
     @UserParameter(label = "K", order = 10)
     var k = 2
 
+    @UserParameter(label = "Search method", description = "Index used to find nearest neighbors", order = 20)
+    var searchMethod = SearchMethod.Automatic
+
     override var model: Classifier<DoubleArray>? = null
 
     override val name: String = "K Nearest Neighbors"
 
     override fun fit(inputs: Array<DoubleArray>, targets: IntArray) {
-        if (k > trainingData.numSamples) {
+        if (k > inputs.size) {
             throw IllegalStateException("k must be less than the number of rows in the training dataset")
         }
-        model = KNN.fit(inputs, targets, k)
-        setAccuracyLabel(Accuracy.of(targets, model?.predict(inputs)))
+        model = KNN(createSearch(inputs), targets, k)
+        setAccuracyLabel(Accuracy.of(targets, predictBatch(inputs)))
+    }
+
+    private fun createSearch(inputs: Array<DoubleArray>): KNNSearch<DoubleArray, DoubleArray> {
+        val method = if (searchMethod == SearchMethod.Automatic) {
+            if (inputSize < KD_TREE_MAX_DIMENSION) SearchMethod.KDTree else SearchMethod.CoverTree
+        } else {
+            searchMethod
+        }
+        return when (method) {
+            SearchMethod.KDTree -> KDTree(inputs, inputs)
+            SearchMethod.CoverTree -> CoverTree(inputs, EuclideanDistance())
+            else -> LinearSearch(inputs, EuclideanDistance())
+        }
     }
 
     override fun predict(input: DoubleArray): Int {
@@ -34,15 +74,22 @@ class KNNClassifier @JvmOverloads constructor(inputSize: Int = 4, outputSize: In
     override fun copy(): ClassificationAlgorithm {
         return KNNClassifier(inputSize, outputSize).also {
             it.k = k
+            it.searchMethod = searchMethod
         }
     }
 
     // Kotlin hack to support "static method in superclass"
     companion object {
+
+        /**
+         * K-d trees lose their advantage over other indices at about this many dimensions.
+         */
+        const val KD_TREE_MAX_DIMENSION = 10
+
         @JvmStatic
         fun getTypes(): List<Class<*>> {
             return ClassificationAlgorithm.getTypes()
         }
     }
 
-}
\ No newline at end of file
+}
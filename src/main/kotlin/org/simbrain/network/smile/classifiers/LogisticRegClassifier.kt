@@ -7,6 +7,7 @@ import smile.classification.LogisticRegression
 import smile.classification.SoftClassifier
 import smile.math.matrix.Matrix
 import smile.validation.metric.Accuracy
+import java.util.stream.IntStream
 
 /**
  * Wrapper for Smile's logistic regression. Despite the name, it is a classifier.
@@ -43,15 +44,27 @@ class LogisticRegClassifier @JvmOverloads constructor(inputSize: Int = 4, output
         return ret
     }
 
-    override fun getOutputVector(winner: Int): Matrix {
+    override fun writeOutputVector(winner: Int, output: Matrix) {
         assertValidWinnerIndex(winner)
         if (showProbabilities) {
-            return Matrix(outputProbabilities)
+            for (i in outputProbabilities.indices) {
+                output[i, 0] = outputProbabilities[i]
+            }
         } else {
-            return super.getOutputVector(winner)
+            super.writeOutputVector(winner, output)
         }
     }
 
+    override fun predictOutputVectors(inputs: Array<DoubleArray>): Array<DoubleArray> {
+        val softModel = model as? SoftClassifier<DoubleArray>
+        if (!showProbabilities || softModel == null) {
+            return super.predictOutputVectors(inputs)
+        }
+        val outputs = Array(inputs.size) { DoubleArray(outputSize) }
+        IntStream.range(0, inputs.size).parallel().forEach { i -> softModel.predict(inputs[i], outputs[i]) }
+        return outputs
+    }
+
     override fun copy(): ClassificationAlgorithm {
         return LogisticRegClassifier(inputSize, outputSize).also {
         }
@@ -3,7 +3,6 @@ package org.simbrain.network.smile.classifiers
 import org.simbrain.network.smile.ClassificationAlgorithm
 import org.simbrain.network.trainers.ClassificationDataset
 import org.simbrain.util.UserParameter
-import org.simbrain.util.getOneHot
 import smile.classification.Classifier
 import smile.classification.SVM
 import smile.math.kernel.PolynomialKernel
@@ -56,14 +55,14 @@ class SVMClassifier @JvmOverloads constructor(inputSize: Int = 4):
         return model?.predict(input) ?: -1
     }
 
-    override fun getOutputVector(winner: Int): Matrix {
+    override fun writeOutputVector(winner: Int, output: Matrix) {
         assertValidWinnerIndex(winner)
         // -1 is assumed to come from a bipolar -1/1 encoding, and is thus mapped to a the first entry of one-hot
         // vector
         if (winner == -1) {
-            return getOneHot(0, outputSize)
+            writeOneHot(0, output)
         } else {
-            return getOneHot(1, outputSize)
+            writeOneHot(1, output)
         }
     }
 
@@ -26,6 +26,7 @@ import org.simbrain.network.synapse_update_rules.spikeresponders.SpikeResponder
 import org.simbrain.network.util.MatrixDataHolder
 import org.simbrain.network.util.ScalarDataHolder
 import org.simbrain.network.util.SpikingMatrixData
+import org.simbrain.util.RandomStream
 import org.simbrain.util.UserParameter
 
 /**
@@ -55,9 +56,10 @@ class ProbabilisticResponder : SpikeResponder() {
         val na = conn.source.let { if (it is NeuronArray) it else return }
         val spikeData = na.dataHolder.let { if (it is SpikingMatrixData) it else return }
         if (na.updateRule.isSpikingRule) {
+            val random = na.network.getRandom(wm)
             for (i in 0 until wm.weightMatrix.nrows()) {
                 for (j in 0 until wm.weightMatrix.ncols()) {
-                    val psr = probResponder(spikeData.spikes[j]) * wm.weightMatrix[i,j]
+                    val psr = probResponder(spikeData.spikes[j], random) * wm.weightMatrix[i,j]
                     wm.psrMatrix.set(i,j,psr)
                 }
             }
@@ -65,12 +67,12 @@ class ProbabilisticResponder : SpikeResponder() {
     }
 
     override fun apply(s: Synapse, responderData: ScalarDataHolder) {
-        s.psr = probResponder(s.source.isSpike) * s.strength
+        s.psr = probResponder(s.source.isSpike, s.random) * s.strength
     }
 
-    private fun probResponder(spiked: Boolean) : Double {
+    private fun probResponder(spiked: Boolean, random: RandomStream) : Double {
         return if (spiked) {
-            if (Math.random() > 1 - activationProbability) {
+            if (random.nextDouble() > 1 - activationProbability) {
                 1.0
             } else {
                 0.0
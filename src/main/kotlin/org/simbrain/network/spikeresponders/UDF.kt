@@ -152,63 +152,63 @@ class UDF : SpikeResponder() {
         ) {
             rand.mean = 0.5
             rand.standardDeviation = 0.25
-            U = rand.sampleDouble()
+            U = rand.sampleDouble(s.random)
             rand.mean = 1100.0
             rand.standardDeviation = 550.0
-            D = rand.sampleDouble()
+            D = rand.sampleDouble(s.random)
             rand.mean = 50.0
             rand.standardDeviation = 25.0
-            F = rand.sampleDouble()
+            F = rand.sampleDouble(s.random)
             spikeDecay.timeConstant = 3.0
         } else if (s.source.polarity === Polarity.EXCITATORY
             && s.target.polarity === Polarity.INHIBITORY
         ) {
             rand.mean = 0.05
             rand.standardDeviation = 0.025
-            U = rand.sampleDouble()
+            U = rand.sampleDouble(s.random)
             rand.mean = 125.0
             rand.standardDeviation = 62.5
-            D = rand.sampleDouble()
+            D = rand.sampleDouble(s.random)
             rand.mean = 120.0
             rand.standardDeviation = 60.0
-            F = rand.sampleDouble()
+            F = rand.sampleDouble(s.random)
             spikeDecay.timeConstant = 3.0
         } else if (s.source.polarity === Polarity.INHIBITORY
             && s.target.polarity === Polarity.EXCITATORY
         ) {
             rand.mean = 0.25
             rand.standardDeviation = 0.125
-            U = rand.sampleDouble()
+            U = rand.sampleDouble(s.random)
             rand.mean = 700.0
             rand.standardDeviation = 350.0
-            D = rand.sampleDouble()
+            D = rand.sampleDouble(s.random)
             rand.mean = 20.0
             rand.standardDeviation = 10.0
-            F = rand.sampleDouble()
+            F = rand.sampleDouble(s.random)
             spikeDecay.timeConstant = 6.0
         } else if (s.source.polarity === Polarity.INHIBITORY
             && s.target.polarity === Polarity.EXCITATORY
         ) {
             rand.mean = 0.32
             rand.standardDeviation = 0.16
-            U = rand.sampleDouble()
+            U = rand.sampleDouble(s.random)
             rand.mean = 144.0
             rand.standardDeviation = 72.0
-            D = rand.sampleDouble()
+            D = rand.sampleDouble(s.random)
             rand.mean = 60.0
             rand.standardDeviation = 30.0
-            F = rand.sampleDouble()
+            F = rand.sampleDouble(s.random)
             spikeDecay.timeConstant = 6.0
         } else {
             rand.mean = 0.5
             rand.standardDeviation = 0.25
-            U = rand.sampleDouble()
+            U = rand.sampleDouble(s.random)
             rand.mean = 1100.0
             rand.standardDeviation = 550.0
-            D = rand.sampleDouble()
+            D = rand.sampleDouble(s.random)
             rand.mean = 50.0
             rand.standardDeviation = 25.0
-            F = rand.sampleDouble()
+            F = rand.sampleDouble(s.random)
             spikeDecay.timeConstant = 3.0
         }
         u = U
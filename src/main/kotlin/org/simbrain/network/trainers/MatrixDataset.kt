@@ -2,7 +2,11 @@ package org.simbrain.network.trainers
 
 import smile.math.matrix.Matrix
 
-class MatrixDataset(val inputs: Matrix, val targets: Matrix) {
+/**
+ * Inputs and targets of a training set, one row per example. The matrices can be replaced, e.g. by views of tables
+ * being edited (see [org.simbrain.util.table.ColumnarDataWrapper.asMatrix]).
+ */
+class MatrixDataset(var inputs: Matrix, var targets: Matrix) {
 
     // TODO: Validate same rows for inputs and targets on primary constructor
 
@@ -24,6 +24,7 @@ import org.simbrain.network.core.SpikingNeuronUpdateRule
 import org.simbrain.network.matrix.NeuronArray
 import org.simbrain.network.neuron_update_rules.interfaces.NoisyUpdateRule
 import org.simbrain.network.util.*
+import org.simbrain.util.RandomStream
 import org.simbrain.util.UserParameter
 import org.simbrain.util.math.SimbrainMath.clip
 import org.simbrain.util.stats.ProbabilityDistribution
@@ -269,6 +270,7 @@ open class AdExIFRule : SpikingNeuronUpdateRule(), NoisyUpdateRule {
 
     override fun apply(na: Layer, data: MatrixDataHolder) {
         if (na is NeuronArray && data is AdexMatrixData) {
+            val random = na.network.getRandom(na)
             for (i in 0 until na.size()) {
                 val excitInputs = na.excitatoryInputs
                 val inhibInputs = na.inhibitoryInputs
@@ -279,7 +281,8 @@ open class AdExIFRule : SpikingNeuronUpdateRule(), NoisyUpdateRule {
                     inhibInputs[i],
                     data.lastSpikeTimes[i],
                     na.network.time,
-                    na.network.timeStep
+                    na.network.timeStep,
+                    random
                 )
                 data.setHasSpiked(i, spiked, na.network.time)
                 na.activations.set(i, 0, v)
@@ -296,7 +299,7 @@ open class AdExIFRule : SpikingNeuronUpdateRule(), NoisyUpdateRule {
         if (data is AdexData) {
             val (spiked, v, w) = adExRule(
                 n.activation, data.w, n.excitatoryInputs, n.inhibitoryInputs,
-                n.lastSpikeTime, n.network.time, n.network.timeStep
+                n.lastSpikeTime, n.network.time, n.network.timeStep, n.random
             )
             n.isSpike = spiked
             n.activation = v
@@ -312,7 +315,8 @@ open class AdExIFRule : SpikingNeuronUpdateRule(), NoisyUpdateRule {
         inhIn: Double,
         lastSpikeTime: Double,
         t: Double,
-        dt: Double
+        dt: Double,
+        random: RandomStream
     ): Triple<Boolean, Double, Double> {
 
         var v_mem = initV
@@ -330,7 +334,7 @@ open class AdExIFRule : SpikingNeuronUpdateRule(), NoisyUpdateRule {
 
         // Add noise if there is any to be added
         if (addNoise) {
-            ibg += noiseGenerator.sampleDouble()
+            ibg += noiseGenerator.sampleDouble(random)
         }
 
         // Calc dV/dt for membrane potential
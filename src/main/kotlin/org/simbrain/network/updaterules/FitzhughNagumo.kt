@@ -27,6 +27,7 @@ import org.simbrain.network.util.MatrixDataHolder
 import org.simbrain.network.util.ScalarDataHolder
 import org.simbrain.network.util.SpikingMatrixData
 import org.simbrain.network.util.SpikingScalarData
+import org.simbrain.util.RandomStream
 import org.simbrain.util.UserParameter
 import org.simbrain.util.math.SimbrainMath.clip
 import org.simbrain.util.stats.ProbabilityDistribution
@@ -120,7 +121,7 @@ class FitzhughNagumo : SpikingNeuronUpdateRule(), NoisyUpdateRule {
         if (data !is FitzHughData) {
             return
         }
-        val (spiked, v, w) = fitzhughNagumoRule(n.activation, data.w, n.input, n.network.timeStep)
+        val (spiked, v, w) = fitzhughNagumoRule(n.activation, data.w, n.input, n.network.timeStep, n.random)
         n.isSpike = spiked
         n.activation = v
         data.w = w
@@ -128,12 +129,14 @@ class FitzhughNagumo : SpikingNeuronUpdateRule(), NoisyUpdateRule {
 
     override fun apply(na: Layer, data: MatrixDataHolder) {
         if (na is NeuronArray && data is FitzHughMatrixData) {
+            val random = na.network.getRandom(na)
             for (i in 0 until na.size()) {
                 val (spiked, v, w) = fitzhughNagumoRule(
                     na.activations.get(i, 0),
                     data.w.get(i),
                     na.inputs.get(i, 0),
-                    na.network.timeStep
+                    na.network.timeStep,
+                    random
                 )
                 data.setHasSpiked(i, spiked, na.network.time)
                 na.activations.set(i, 0, v)
@@ -146,13 +149,14 @@ class FitzhughNagumo : SpikingNeuronUpdateRule(), NoisyUpdateRule {
         initV: Double,
         initW: Double,
         externalInput: Double,
-        timeStep: Double
+        timeStep: Double,
+        random: RandomStream
     ): Triple<Boolean, Double, Double> {
         var inputs = externalInput
         var v = initV
         var w = initW
         if (addNoise) {
-            inputs += noiseGenerator.sampleDouble()
+            inputs += noiseGenerator.sampleDouble(random)
         }
         inputs += iBg
         w += timeStep * (a * (b * v + 0.7 - c * w))
@@ -175,10 +179,10 @@ class FitzhughNagumo : SpikingNeuronUpdateRule(), NoisyUpdateRule {
         return FitzHughMatrixData(size)
     }
 
-    override fun getRandomValue(): Double {
+    override fun getRandomValue(random: RandomStream): Double {
         // Equal chance of spiking or not spiking, taking on any value between
         // the resting potential and the threshold if not.
-        return 2 * (threshold - c) * Math.random() + c
+        return 2 * (threshold - c) * random.nextDouble() + c
     }
 
     fun getiBg(): Double {
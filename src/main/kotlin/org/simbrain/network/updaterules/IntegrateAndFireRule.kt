@@ -26,6 +26,7 @@ import org.simbrain.network.neuron_update_rules.interfaces.NoisyUpdateRule
 import org.simbrain.network.util.MatrixDataHolder
 import org.simbrain.network.util.ScalarDataHolder
 import org.simbrain.network.util.SpikingMatrixData
+import org.simbrain.util.RandomStream
 import org.simbrain.util.UserParameter
 import org.simbrain.util.Utils.round
 import org.simbrain.util.stats.ProbabilityDistribution
@@ -139,13 +140,15 @@ open class IntegrateAndFireRule : SpikingNeuronUpdateRule(), NoisyUpdateRule {
 
     override fun apply(na: Layer, data: MatrixDataHolder) {
         if (na is NeuronArray && data is SpikingMatrixData) {
+            val random = na.network.getRandom(na)
             for (i in 0 until na.size()) {
                 val(spiked, V) = intFireRule(
                     na.network.time,
                     data.lastSpikeTimes[i],
                     na.network.timeStep,
                     na.inputs.get(i, 0),
-                    na.activations.get(i, 0))
+                    na.activations.get(i, 0),
+                    random)
                 data.setHasSpiked(i, spiked, na.network.time)
                 na.activations.set(i, 0, V)
             }
@@ -153,7 +156,7 @@ open class IntegrateAndFireRule : SpikingNeuronUpdateRule(), NoisyUpdateRule {
     }
 
     override fun apply(n: Neuron, data: ScalarDataHolder) {
-        val(spiked, V) = intFireRule(n.network.time, n.lastSpikeTime, n.network.timeStep, n.input, n.activation)
+        val(spiked, V) = intFireRule(n.network.time, n.lastSpikeTime, n.network.timeStep, n.input, n.activation, n.random)
         n.isSpike = spiked
         n.activation = V
     }
@@ -170,7 +173,8 @@ open class IntegrateAndFireRule : SpikingNeuronUpdateRule(), NoisyUpdateRule {
                     lastSpikeTime: Double,
                     timeStep: Double,
                     input: Double,
-                    memPotential: Double): Pair<Boolean, Double> {
+                    memPotential: Double,
+                    random: RandomStream): Pair<Boolean, Double> {
 
         // Incoming current is 0 during the refractory period, otherwise it's
         // equal to input and background current
@@ -184,7 +188,7 @@ open class IntegrateAndFireRule : SpikingNeuronUpdateRule(), NoisyUpdateRule {
             }
 
         if (addNoise) {
-            synCurrent += noiseGenerator.sampleDouble()
+            synCurrent += noiseGenerator.sampleDouble(random)
         }
 
         val dVm =
@@ -206,10 +210,10 @@ open class IntegrateAndFireRule : SpikingNeuronUpdateRule(), NoisyUpdateRule {
 
     override val name = "Integrate and Fire"
 
-    override fun getRandomValue(): Double {
+    override fun getRandomValue(random: RandomStream): Double {
         // Equal chance of spiking or not spiking, taking on any value between
         // the resting potential and the threshold if not.
-        return 2 * (threshold - restingPotential) * Math.random() + restingPotential
+        return 2 * (threshold - restingPotential) * random.nextDouble() + restingPotential
     }
 
     override fun getAddNoise(): Boolean {
@@ -0,0 +1,323 @@
+package org.simbrain.network.updaterules
+
+import kotlin.math.abs
+import kotlin.math.exp
+import kotlin.math.max
+import kotlin.math.min
+import kotlin.math.pow
+import kotlin.math.sqrt
+
+/**
+ * Numerical methods for the differential equations of continuous time update rules.
+ */
+enum class IntegrationMethod(private val description: String) {
+
+    /**
+     * y += dt * dy/dt. Needs small time steps to stay accurate and stable.
+     */
+    EULER("Euler"),
+
+    /**
+     * For equations of the form dy/dt = a - b * y, like those of gating variables and of conductance based membrane
+     * potentials, the exact solution with a and b held fixed over the step. Stable at any time step.
+     */
+    EXPONENTIAL_EULER("Exponential Euler"),
+
+    /**
+     * Classical fourth order Runge-Kutta.
+     */
+    RUNGE_KUTTA_4("Runge-Kutta 4"),
+
+    /**
+     * Dormand-Prince Runge-Kutta 5(4), taking as many substeps per time step as the error tolerance needs.
+     */
+    ADAPTIVE("Adaptive Runge-Kutta");
+
+    override fun toString() = description
+}
+
+/**
+ * A system of differential equations dy/dt = f(t, y). Rules that update arrays of neurons put the variables of all
+ * neurons in one state vector, one variable after the other (all membrane potentials, then all values of the next
+ * variable, and so on), so that one call computes the derivatives of every neuron.
+ */
+interface OdeSystem {
+    fun derivatives(t: Double, y: DoubleArray, dydt: DoubleArray)
+}
+
+/**
+ * A system where each derivative is linear in its own variable when the others are held fixed: dy/dt = a - b * y.
+ * Needed for [IntegrationMethod.EXPONENTIAL_EULER].
+ */
+interface LinearizedOdeSystem : OdeSystem {
+    fun coefficients(t: Double, y: DoubleArray, a: DoubleArray, b: DoubleArray)
+}
+
+/**
+ * Advances an [OdeSystem] by one time step of a network update. Work arrays are kept between steps, so an integrator
+ * should not be shared between threads; rules keep one in each neuron's or array's data holder.
+ */
+class OdeIntegrator @JvmOverloads constructor(
+    /**
+     * Relative error allowed in each substep of [IntegrationMethod.ADAPTIVE].
+     */
+    var relativeTolerance: Double = 1e-4,
+    /**
+     * Absolute error allowed in each substep of [IntegrationMethod.ADAPTIVE], for values near zero.
+     */
+    var absoluteTolerance: Double = 1e-6
+) {
+
+    private var k1 = DoubleArray(0)
+    private var k2 = DoubleArray(0)
+    private var k3 = DoubleArray(0)
+    private var k4 = DoubleArray(0)
+    private var k5 = DoubleArray(0)
+    private var k6 = DoubleArray(0)
+    private var k7 = DoubleArray(0)
+    private var work = DoubleArray(0)
+
+    /**
+     * Size of the last substep [IntegrationMethod.ADAPTIVE] took without being cut short by the end of the time step,
+     * which the next time step starts with.
+     */
+    private var substep = 0.0
+
+    /**
+     * Number of substeps the last adaptive time step took, including rejected ones.
+     */
+    var substepCount = 0
+        private set
+
+    private fun ensureSize(size: Int) {
+        if (k1.size != size) {
+            k1 = DoubleArray(size)
+            k2 = DoubleArray(size)
+            k3 = DoubleArray(size)
+            k4 = DoubleArray(size)
+            k5 = DoubleArray(size)
+            k6 = DoubleArray(size)
+            k7 = DoubleArray(size)
+            work = DoubleArray(size)
+        }
+    }
+
+    /**
+     * Advance [y] in place from time [t] to t + [dt].
+     */
+    fun step(system: OdeSystem, method: IntegrationMethod, t: Double, y: DoubleArray, dt: Double) {
+        ensureSize(y.size)
+        when (method) {
+            IntegrationMethod.EULER -> euler(system, t, y, dt)
+            IntegrationMethod.EXPONENTIAL_EULER -> {
+                if (system !is LinearizedOdeSystem) {
+                    throw IllegalArgumentException("Exponential Euler needs the equations in the form dy/dt = a - b y")
+                }
+                exponentialEuler(system, t, y, dt)
+            }
+            IntegrationMethod.RUNGE_KUTTA_4 -> rungeKutta4(system, t, y, dt)
+            IntegrationMethod.ADAPTIVE -> adaptive(system, t, y, dt)
+        }
+    }
+
+    private fun euler(system: OdeSystem, t: Double, y: DoubleArray, dt: Double) {
+        system.derivatives(t, y, k1)
+        for (i in y.indices) {
+            y[i] += dt * k1[i]
+        }
+    }
+
+    private fun exponentialEuler(system: LinearizedOdeSystem, t: Double, y: DoubleArray, dt: Double) {
+        system.coefficients(t, y, k1, k2)
+        for (i in y.indices) {
+            val a = k1[i]
+            val b = k2[i]
+            val bdt = b * dt
+            y[i] = if (abs(bdt) < 1e-9) {
+                y[i] + dt * (a - b * y[i])
+            } else {
+                val steady = a / b
+                steady + (y[i] - steady) * exp(-bdt)
+            }
+        }
+    }
+
+    private fun rungeKutta4(system: OdeSystem, t: Double, y: DoubleArray, dt: Double) {
+        system.derivatives(t, y, k1)
+        for (i in y.indices) work[i] = y[i] + dt / 2 * k1[i]
+        system.derivatives(t + dt / 2, work, k2)
+        for (i in y.indices) work[i] = y[i] + dt / 2 * k2[i]
+        system.derivatives(t + dt / 2, work, k3)
+        for (i in y.indices) work[i] = y[i] + dt * k3[i]
+        system.derivatives(t + dt, work, k4)
+        for (i in y.indices) {
+            y[i] += dt / 6 * (k1[i] + 2 * k2[i] + 2 * k3[i] + k4[i])
+        }
+    }
+
+    private fun adaptive(system: OdeSystem, t: Double, y: DoubleArray, dt: Double) {
+        val end = t + dt
+        var time = t
+        var h = if (substep > 0 && substep <= dt) substep else dt
+        val minimumStep = dt * 1e-8
+        substepCount = 0
+        system.derivatives(time, y, k1)
+        while (end - time > minimumStep) {
+            val cut = h >= end - time
+            val step = if (cut) end - time else h
+            substepCount++
+
+            for (i in y.indices) work[i] = y[i] + step * (A21 * k1[i])
+            system.derivatives(time + C2 * step, work, k2)
+            for (i in y.indices) work[i] = y[i] + step * (A31 * k1[i] + A32 * k2[i])
+            system.derivatives(time + C3 * step, work, k3)
+            for (i in y.indices) work[i] = y[i] + step * (A41 * k1[i] + A42 * k2[i] + A43 * k3[i])
+            system.derivatives(time + C4 * step, work, k4)
+            for (i in y.indices) {
+                work[i] = y[i] + step * (A51 * k1[i] + A52 * k2[i] + A53 * k3[i] + A54 * k4[i])
+            }
+            system.derivatives(time + C5 * step, work, k5)
+            for (i in y.indices) {
+                work[i] = y[i] + step * (A61 * k1[i] + A62 * k2[i] + A63 * k3[i] + A64 * k4[i] + A65 * k5[i])
+            }
+            system.derivatives(time + step, work, k6)
+            // Fifth order solution
+            for (i in y.indices) {
+                work[i] = y[i] + step * (B1 * k1[i] + B3 * k3[i] + B4 * k4[i] + B5 * k5[i] + B6 * k6[i])
+            }
+            system.derivatives(time + step, work, k7)
+
+            // Root mean square of the scaled difference between the fifth and fourth order solutions
+            var error = 0.0
+            for (i in y.indices) {
+                val difference = step * (E1 * k1[i] + E3 * k3[i] + E4 * k4[i] + E5 * k5[i] + E6 * k6[i] + E7 * k7[i])
+                val scale = absoluteTolerance + relativeTolerance * max(abs(y[i]), abs(work[i]))
+                error += (difference / scale).let { it * it }
+            }
+            error = if (y.isEmpty()) 0.0 else sqrt(error / y.size)
+
+            val factor = if (error == 0.0) MAX_GROWTH else min(MAX_GROWTH, max(MIN_GROWTH, SAFETY * error.pow(-0.2)))
+            if (error <= 1 || step <= minimumStep) {
+                time = if (cut) end else time + step
+                work.copyInto(y)
+                // The last stage is the derivative at the new state, so it starts the next substep
+                k7.copyInto(k1)
+                if (!cut) {
+                    h = step * factor
+                } else if (error > 0) {
+                    h = max(h, step * factor)
+                }
+            } else {
+                h = step * factor
+            }
+        }
+        substep = h
+    }
+
+    private companion object {
+        const val SAFETY = 0.9
+        const val MIN_GROWTH = 0.2
+        const val MAX_GROWTH = 5.0
+
+        // Dormand-Prince tableau
+        const val C2 = 1.0 / 5
+        const val C3 = 3.0 / 10
+        const val C4 = 4.0 / 5
+        const val C5 = 8.0 / 9
+        const val A21 = 1.0 / 5
+        const val A31 = 3.0 / 40
+        const val A32 = 9.0 / 40
+        const val A41 = 44.0 / 45
+        const val A42 = -56.0 / 15
+        const val A43 = 32.0 / 9
+        const val A51 = 19372.0 / 6561
+        const val A52 = -25360.0 / 2187
+        const val A53 = 64448.0 / 6561
+        const val A54 = -212.0 / 729
+        const val A61 = 9017.0 / 3168
+        const val A62 = -355.0 / 33
+        const val A63 = 46732.0 / 5247
+        const val A64 = 49.0 / 176
+        const val A65 = -5103.0 / 18656
+        const val B1 = 35.0 / 384
+        const val B3 = 500.0 / 1113
+        const val B4 = 125.0 / 192
+        const val B5 = -2187.0 / 6784
+        const val B6 = 11.0 / 84
+
+        // Differences between the fifth and fourth order weights
+        const val E1 = 71.0 / 57600
+        const val E3 = -71.0 / 16695
+        const val E4 = 71.0 / 1920
+        const val E5 = -17253.0 / 339200
+        const val E6 = 22.0 / 525
+        const val E7 = -1.0 / 40
+    }
+}
+
+/**
+ * Several functions of one variable, e.g. the voltage dependent rates of a neuron's gating variables, sampled at
+ * regular intervals so that they can be looked up with linear interpolation instead of computed. Outside [min] to
+ * [max] the functions are computed.
+ */
+class LookupTable(
+    val min: Double,
+    val max: Double,
+    /**
+     * Interval between samples.
+     */
+    val resolution: Double,
+    private vararg val functions: (Double) -> Double
+) {
+
+    val functionCount = functions.size
+
+    private val sampleCount = ((max - min) / resolution).toInt() + 1
+
+    /**
+     * Samples of all functions at each point, one point after the other, so that looking up all functions reads
+     * neighboring values.
+     */
+    private val samples = DoubleArray(sampleCount * functionCount).also { samples ->
+        for (k in 0 until sampleCount) {
+            val x = min + k * resolution
+            for (f in functions.indices) {
+                samples[k * functionCount + f] = functions[f](x)
+            }
+        }
+    }
+
+    /**
+     * Write the value of every function at [x] into [out].
+     */
+    fun lookup(x: Double, out: DoubleArray) {
+        val position = (x - min) / resolution
+        // Also false for NaN
+        if (!(position >= 0 && position < sampleCount - 1)) {
+            for (f in functions.indices) {
+                out[f] = functions[f](x)
+            }
+            return
+        }
+        val k = position.toInt()
+        val fraction = position - k
+        val base = k * functionCount
+        for (f in 0 until functionCount) {
+            val low = samples[base + f]
+            out[f] = low + fraction * (samples[base + functionCount + f] - low)
+        }
+    }
+
+    /**
+     * The value of one function at [x].
+     */
+    fun lookup(x: Double, function: Int): Double {
+        val position = (x - min) / resolution
+        if (!(position >= 0 && position < sampleCount - 1)) {
+            return functions[function](x)
+        }
+        val k = position.toInt()
+        val low = samples[k * functionCount + function]
+        return low + (position - k) * (samples[(k + 1) * functionCount + function] - low)
+    }
+}
@@ -22,6 +22,7 @@ import org.simbrain.network.core.Neuron
 import org.simbrain.network.core.SpikingNeuronUpdateRule
 import org.simbrain.network.neuron_update_rules.interfaces.NoisyUpdateRule
 import org.simbrain.network.util.ScalarDataHolder
+import org.simbrain.util.RandomStream
 import org.simbrain.util.UserParameter
 import org.simbrain.util.stats.ProbabilityDistribution
 import org.simbrain.util.stats.distributions.UniformRealDistribution
@@ -143,7 +144,7 @@ class IzhikevichRule : SpikingNeuronUpdateRule(), NoisyUpdateRule {
         var inputs = 0.0
         inputs = neuron.input
         if (addNoise) {
-            inputs += noiseGenerator.sampleDouble()
+            inputs += noiseGenerator.sampleDouble(neuron.random)
         }
         inputs += iBg
         recovery += timeStep * (a * (b * activation - recovery))
@@ -158,10 +159,10 @@ class IzhikevichRule : SpikingNeuronUpdateRule(), NoisyUpdateRule {
         neuron.activation = `val`
     }
 
-    override fun getRandomValue(): Double {
+    override fun getRandomValue(random: RandomStream): Double {
         // Equal chance of spiking or not spiking, taking on any value between
         // the resting potential and the threshold if not.
-        return 2 * (threshold - c) * Math.random() + c
+        return 2 * (threshold - c) * random.nextDouble() + c
     }
 
     fun getiBg(): Double {
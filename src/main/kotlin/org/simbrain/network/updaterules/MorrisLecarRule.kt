@@ -6,6 +6,7 @@ import org.simbrain.network.core.SpikingNeuronUpdateRule
 import org.simbrain.network.neuron_update_rules.interfaces.NoisyUpdateRule
 import org.simbrain.network.util.MorrisLecarData
 import org.simbrain.network.util.ScalarDataHolder
+import org.simbrain.util.RandomStream
 import org.simbrain.util.UserParameter
 import org.simbrain.util.stats.ProbabilityDistribution
 import org.simbrain.util.stats.distributions.NormalDistribution
@@ -197,26 +198,27 @@ class MorrisLecarRule : SpikingNeuronUpdateRule(), NoisyUpdateRule {
         val data = dat as MorrisLecarData
         val dt = neuron.network.timeStep
         val i_syn = neuron.input
+        val random = neuron.random
         // Under normal circumstances this will cause no change.
         var vMembrane = neuron.activation
-        val dVdt = dVdt(vMembrane, i_syn, data.w_K)
+        val dVdt = dVdt(vMembrane, i_syn, data.w_K, random)
         val dWdt = dWdt(vMembrane, data.w_K)
         val vmFut = vMembrane + dt * dVdt
         val wKFut = data.w_K + dt * dWdt
-        vMembrane = vMembrane + dt / 2 * (dVdt + dVdt(vmFut, i_syn, data.w_K))
+        vMembrane = vMembrane + dt / 2 * (dVdt + dVdt(vmFut, i_syn, data.w_K, random))
         data.w_K = data.w_K + dt / 2 * (dWdt + dWdt(vMembrane, wKFut))
         neuron.isSpike = vMembrane > threshold
         neuron.activation = vMembrane
     }
 
-    private fun dVdt(vMembrane: Double, i_syn: Double, w_K: Double): Double {
+    private fun dVdt(vMembrane: Double, i_syn: Double, w_K: Double, random: RandomStream): Double {
         val i_Ca = g_Ca * membraneFunction(vMembrane) * (vMembrane - vRest_Ca)
         val i_K = g_K * w_K * (vMembrane - vRest_k)
         val i_L = g_L * (vMembrane - vRest_L)
         val i_ion = i_Ca + i_K + i_L
         var i_noise = 0.0
         if (getAddNoise()) {
-            i_noise = noiseGenerator.sampleDouble()
+            i_noise = noiseGenerator.sampleDouble(random)
         }
         return (i_bg - i_ion + i_syn + i_noise) / cMembrane
     }
@@ -1,5 +1,6 @@
 package org.simbrain.network.util
 
+import org.simbrain.network.updaterules.OdeIntegrator
 import org.simbrain.util.UserParameter
 import org.simbrain.util.propertyeditor.CopyableObject
 import java.util.*
@@ -52,6 +53,54 @@ class NakaMatrixData(var size: Int) : MatrixDataHolder {
     }
 }
 
+class KuramotoMatrixData(var size: Int, naturalFrequency: Double = 1.0) : MatrixDataHolder {
+    /**
+     * Natural frequency of each oscillator, initially the rule's natural frequency.
+     */
+    var naturalFrequencies = DoubleArray(size) { naturalFrequency }
+
+    /**
+     * Magnitude of the complex order parameter of the phases the last update started from: near 0 when the phases
+     * are spread out, 1 when they are synchronized.
+     */
+    var orderParameter = 0.0
+
+    /**
+     * Mean phase, the angle of the complex order parameter, of the phases the last update started from.
+     */
+    var meanPhase = 0.0
+
+    override fun copy() = KuramotoMatrixData(size).also {
+        it.naturalFrequencies = naturalFrequencies.copyOf()
+        it.orderParameter = orderParameter
+        it.meanPhase = meanPhase
+    }
+}
+
+/**
+ * Gating variables of an array of Hodgkin-Huxley neurons.
+ */
+class HodgkinHuxleyMatrixData @JvmOverloads constructor(
+    var size: Int,
+    m: Double = 0.0,
+    h: Double = 0.0,
+    n: Double = 0.0
+) : MatrixDataHolder {
+    var m = DoubleArray(size) { m }
+    var h = DoubleArray(size) { h }
+    var n = DoubleArray(size) { n }
+
+    @Transient
+    private var _integrator: OdeIntegrator? = null
+    val integrator get() = _integrator ?: OdeIntegrator().also { _integrator = it }
+
+    override fun copy() = HodgkinHuxleyMatrixData(size).also {
+        it.m = m.copyOf()
+        it.h = h.copyOf()
+        it.n = n.copyOf()
+    }
+}
+
 /**
  * Holders for scalar data used in scalar update rules, like [NeuronUpdateRule] and [SynapseUpdateRule].
  */
@@ -59,9 +108,22 @@ interface ScalarDataHolder : CopyableObject {
     override fun copy(): ScalarDataHolder
 }
 
+/**
+ * Data holder for rules without state. It has no fields, so all models share [INSTANCE].
+ */
 class EmptyScalarData : ScalarDataHolder {
     override fun copy(): EmptyScalarData {
-        return EmptyScalarData()
+        return INSTANCE
+    }
+
+    /**
+     * Files saved before the instance was shared have one per model.
+     */
+    private fun readResolve(): Any = INSTANCE
+
+    companion object {
+        @JvmField
+        val INSTANCE = EmptyScalarData()
     }
 }
 
@@ -121,6 +183,24 @@ class IzhikData(
 }
 
 
+class HodgkinHuxleyData(
+    @UserParameter(label = "m", description = "Sodium activation")
+    var m: Double = 0.0,
+    @UserParameter(label = "h", description = "Sodium inactivation")
+    var h: Double = 0.0,
+    @UserParameter(label = "n", description = "Potassium activation")
+    var n: Double = 0.0
+) : ScalarDataHolder {
+
+    @Transient
+    private var _integrator: OdeIntegrator? = null
+    val integrator get() = _integrator ?: OdeIntegrator().also { _integrator = it }
+
+    override fun copy(): HodgkinHuxleyData {
+        return HodgkinHuxleyData(m, h, n)
+    }
+}
+
 class MorrisLecarData(
     @UserParameter(label = "w_K", description = "Fraction of open potassium channels")
     var w_K: Double = 0.0,
@@ -1,6 +1,7 @@
 package org.simbrain.util
 
 import kotlinx.coroutines.*
+import org.simbrain.workspace.updater.PerformanceMonitor
 import java.util.*
 import java.util.concurrent.ConcurrentLinkedQueue
 import java.util.function.BiConsumer
@@ -21,9 +22,11 @@ val useEventDebug = false
  */
 open class Events2: CoroutineScope {
 
-    private val job = SupervisorJob()
-
-    override val coroutineContext = Dispatchers.Default + job
+    /**
+     * Created when a handler is first launched, since there is an events object for every network model and most are
+     * never fired with a handler registered.
+     */
+    override val coroutineContext by lazy { Dispatchers.Default + SupervisorJob() }
 
     /**
      * Associates events to their listeners
@@ -34,7 +37,11 @@ open class Events2: CoroutineScope {
         Throttle, Debounce
     }
 
-    abstract inner class EventObject {
+    /**
+     * @param batched whether fired values are collected and passed to handlers in batches, which needs queues that
+     * other events do without.
+     */
+    abstract inner class EventObject(batched: Boolean = false) {
 
         abstract val interval: Int
 
@@ -42,11 +49,18 @@ open class Events2: CoroutineScope {
 
         abstract var timingMode: TimingMode
 
-        private val batchNew = ConcurrentLinkedQueue<Any?>()
-        private val batchOld = ConcurrentLinkedQueue<Any?>()
+        private val batchNew = if (batched) ConcurrentLinkedQueue<Any?>() else null
+        private val batchOld = if (batched) ConcurrentLinkedQueue<Any?>() else null
 
         private var job: Job? = null
 
+        /**
+         * True if any handlers are registered. Blocking fires return immediately when there are none, so that events
+         * cost almost nothing in headless runs.
+         */
+        protected val hasHandlers: Boolean
+            get() = eventMapping[this@EventObject]?.isNotEmpty() == true
+
         protected fun onSuspendHelper(dispatcher: CoroutineDispatcher?, wait: Boolean, run: suspend (new: Any?, old: Any?) -> Unit) {
             val eventObjectHandler = EventObjectHandler(dispatcher, wait, run)
             eventMapping.getOrPut(this@EventObject) { ConcurrentLinkedQueue() }.add(eventObjectHandler)
@@ -58,6 +72,11 @@ open class Events2: CoroutineScope {
         }
 
         private suspend inline fun runAllHandlers(crossinline run: suspend (suspend (new: Any?, old: Any?) -> Unit) -> Unit) = eventMapping[this@EventObject]
+            ?.also {
+                if (PerformanceMonitor.enabled) {
+                    PerformanceMonitor.countEvent(this@Events2.javaClass.simpleName, it.size)
+                }
+            }
             ?.map { (dispatcher, wait, handler, stackTrace) ->
                 try {
                     if (dispatcher != null) {
@@ -94,6 +113,8 @@ open class Events2: CoroutineScope {
         }
 
         protected fun batchFireAndSuspendHelper(new: Any?, old: Any?): Job {
+            val batchNew = batchNew!!
+            val batchOld = batchOld!!
             val now = System.currentTimeMillis()
             new?.let { batchNew.add(it) }
             old?.let { batchOld.add(it) }
@@ -162,6 +183,7 @@ open class Events2: CoroutineScope {
          * Java fire and block. Fire event and wait for it to terminate before continuing.
          */
         fun fireAndBlock() {
+            if (!hasHandlers) return
             runBlocking {
                 fireAndSuspend()
             }
@@ -192,6 +214,7 @@ open class Events2: CoroutineScope {
         suspend fun fireAndSuspend(new: T) = fireAndSuspendHelper { handler -> handler(new, null) }
 
         fun fireAndBlock(new: T) {
+            if (!hasHandlers) return
             runBlocking {
                 fireAndSuspend(new)
             }
@@ -199,7 +222,7 @@ open class Events2: CoroutineScope {
 
     }
 
-    inner class BatchAddedEvent<T>(override val interval: Int, override var timingMode: TimingMode =  TimingMode.Debounce) : EventObject() {
+    inner class BatchAddedEvent<T>(override val interval: Int, override var timingMode: TimingMode =  TimingMode.Debounce) : EventObject(batched = true) {
 
         @Suppress("UNCHECKED_CAST")
         fun on(dispatcher: CoroutineDispatcher? = null, wait: Boolean = false, handler: suspend (new: Collection<T>) -> Unit) = onSuspendHelper(dispatcher, wait) {
@@ -248,6 +271,7 @@ open class Events2: CoroutineScope {
         suspend fun fireAndSuspend(old: T) = fireAndSuspendHelper { handler -> handler(null, old) }
 
         fun fireAndBlock(old: T) {
+            if (!hasHandlers) return
             runBlocking {
                 fireAndSuspend(old)
             }
@@ -279,6 +303,7 @@ open class Events2: CoroutineScope {
         suspend fun fireAndSuspend(new: T, old: T) = fireAndSuspendHelper { handler -> if (new != old) handler(new, old) }
 
         fun fireAndBlock(new: T, old: T) {
+            if (!hasHandlers) return
             runBlocking {
                 fireAndSuspend(new, old)
             }
@@ -286,7 +311,7 @@ open class Events2: CoroutineScope {
 
     }
 
-    inner class BatchChangedEvent<T>(override val interval: Int = 0, override var timingMode: TimingMode =  TimingMode.Debounce) : EventObject() {
+    inner class BatchChangedEvent<T>(override val interval: Int = 0, override var timingMode: TimingMode =  TimingMode.Debounce) : EventObject(batched = true) {
 
         @Suppress("UNCHECKED_CAST")
         fun on(dispatcher: CoroutineDispatcher? = null, wait: Boolean = false, handler: suspend (new: List<T>, old: List<T>) -> Unit) = onSuspendHelper(dispatcher, wait) {
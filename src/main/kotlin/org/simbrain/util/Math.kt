@@ -68,10 +68,10 @@ fun getDiagonal2DDoubleArray(rows: Int, cols: Int): Array<DoubleArray> {
  * https://stackoverflow.com/questions/7513434/convert-a-double-array-to-a-float-array
  */
 fun DoubleArray.toFloatArray(): FloatArray {
-    return map { it.toFloat() }.toFloatArray()
+    return FloatArray(size) { this[it].toFloat() }
 }
 fun FloatArray.toDoubleArray(): DoubleArray {
-    return map { it.toDouble() }.toDoubleArray()
+    return DoubleArray(size) { this[it].toDouble() }
 }
 fun IntArray.toDoubleArray(): DoubleArray {
     return map { it.toDouble() }.toDoubleArray()
@@ -80,6 +80,19 @@ fun DoubleArray.toIntArray(): IntArray {
     return map { it.toInt() }.toIntArray()
 }
 
+/**
+ * Index of the largest element, or -1 if the array is empty. The first index is returned if there are ties.
+ */
+fun FloatArray.argmax(): Int {
+    var best = -1
+    for (i in indices) {
+        if (best == -1 || this[i] > this[best]) {
+            best = i
+        }
+    }
+    return best
+}
+
 fun Any?.isRealValued(): Boolean {
         return this is Double || this is Float
 }
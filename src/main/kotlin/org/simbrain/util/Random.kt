@@ -24,6 +24,24 @@ fun Matrix.randomize(dist: ProbabilityDistribution) {
     }
 }
 
+/**
+ * Fill with samples drawn from a stream, e.g. a network model's stream from
+ * [org.simbrain.network.core.Network.getRandom], so the values are the same in every run with the same seed.
+ */
+fun DoubleArray.randomize(dist: ProbabilityDistribution, random: RandomStream) = dist.fill(this, random)
+
+fun Matrix.randomize(dist: ProbabilityDistribution, random: RandomStream) {
+    val values = DoubleArray(nrows() * ncols())
+    dist.fill(values, random)
+    // Column by column, the order Smile stores the entries in
+    var k = 0
+    for (j in 0 until ncols()) {
+        for (i in 0 until nrows()) {
+            set(i, j, values[k++])
+        }
+    }
+}
+
 fun <T> List<T>.sampleWithReplacement(
     random: Random = Random(Random.nextLong())
 ) = sequence {
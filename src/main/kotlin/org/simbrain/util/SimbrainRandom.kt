@@ -0,0 +1,135 @@
+package org.simbrain.util
+
+import java.util.*
+import kotlin.random.Random
+
+/**
+ * A stream of random numbers from which independent streams can be split off by name. Each network model draws from
+ * its own stream (see [org.simbrain.network.core.Network.getRandom]), so models updated in parallel neither contend for
+ * a shared generator nor get numbers that depend on the order in which threads reach it.
+ *
+ * Not thread safe: a stream should only be used by one thread at a time.
+ */
+class RandomStream(
+    /**
+     * Seed the stream started from.
+     */
+    val seed: Long
+) {
+
+    private val random = SplittableRandom(seed)
+
+    fun nextDouble() = random.nextDouble()
+
+    fun nextDouble(origin: Double, bound: Double) = random.nextDouble(origin, bound)
+
+    fun nextInt() = random.nextInt()
+
+    fun nextInt(bound: Int) = random.nextInt(bound)
+
+    fun nextInt(origin: Int, bound: Int) = random.nextInt(origin, bound)
+
+    fun nextLong() = random.nextLong()
+
+    fun nextBoolean() = random.nextBoolean()
+
+    fun nextGaussian() = random.nextGaussian()
+
+    fun nextGaussian(mean: Double, standardDeviation: Double) = mean + standardDeviation * random.nextGaussian()
+
+    /**
+     * A stream that only depends on this stream's seed and the key, not on how many numbers have been drawn or which
+     * other streams have been split off.
+     */
+    fun split(key: String) = RandomStream(mix(seed, key))
+
+    /**
+     * Fill an array with numbers uniformly distributed between origin and bound.
+     */
+    @JvmOverloads
+    fun fillUniform(array: DoubleArray, origin: Double = 0.0, bound: Double = 1.0) {
+        val range = bound - origin
+        for (i in array.indices) {
+            array[i] = origin + range * random.nextDouble()
+        }
+    }
+
+    /**
+     * Fill an array with normally distributed numbers.
+     */
+    @JvmOverloads
+    fun fillGaussian(array: DoubleArray, mean: Double = 0.0, standardDeviation: Double = 1.0) {
+        for (i in array.indices) {
+            array[i] = mean + standardDeviation * random.nextGaussian()
+        }
+    }
+
+    /**
+     * View of this stream for the Kotlin collection functions that take a [Random], like shuffled.
+     */
+    fun asKotlinRandom(): Random = object : Random() {
+        override fun nextBits(bitCount: Int) = random.nextInt().ushr(32 - bitCount) and (-bitCount).shr(31)
+        override fun nextInt() = random.nextInt()
+        override fun nextLong() = random.nextLong()
+        override fun nextDouble() = random.nextDouble()
+    }
+
+    private companion object {
+
+        /**
+         * Combine a seed with a key using the SplitMix64 finalizer on a 64 bit FNV-1a hash of the key.
+         */
+        fun mix(seed: Long, key: String): Long {
+            var hash = -0x340d631b7bdddcdbL
+            for (c in key) {
+                hash = (hash xor c.code.toLong()) * 0x100000001b3L
+            }
+            var z = seed + hash * -0x61c8864680b583ebL
+            z = (z xor (z ushr 30)) * -0x40a7b892e31b1a47L
+            z = (z xor (z ushr 27)) * -0x6b2fb644ecceee15L
+            return z xor (z ushr 31)
+        }
+    }
+}
+
+/**
+ * Seeds for reproducible runs. Networks and probability distributions take their seeds from here when created, and
+ * [org.simbrain.workspace.Workspace.randomSeed] sets the seed of this source and reseeds the networks already in the
+ * workspace. With the same seed, the same simulation built and run the same way gives the same results, including
+ * with parallel network and coupling updates.
+ *
+ * Until a seed is set the seeds handed out are themselves random.
+ */
+object SimbrainRandom {
+
+    private val unseeded = SplittableRandom()
+
+    private var root: RandomStream? = null
+
+    /**
+     * Seed of all seeds handed out after it is set, or null for random seeds.
+     */
+    @JvmStatic
+    @get:Synchronized
+    @set:Synchronized
+    var seed: Long? = null
+        set(value) {
+            field = value
+            root = value?.let { RandomStream(it) }
+        }
+
+    /**
+     * The next seed in sequence. Reproducible when things that need seeds are created in the same order, as they are
+     * when a simulation is built on one thread.
+     */
+    @JvmStatic
+    @Synchronized
+    fun nextSeed(): Long = root?.nextLong() ?: unseeded.nextLong()
+
+    /**
+     * A seed that only depends on the seed of this source and the key, e.g. the name of a workspace component.
+     */
+    @JvmStatic
+    @Synchronized
+    fun seedFor(key: String): Long = seed?.let { RandomStream(it).split(key).seed } ?: unseeded.nextLong()
+}
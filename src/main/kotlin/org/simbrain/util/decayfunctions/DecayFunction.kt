@@ -34,6 +34,13 @@ abstract class DecayFunction(
      */
     abstract fun getScalingFactor(distance: Double): Double
 
+    /**
+     * Distance beyond which [getScalingFactor] is always 0. Infinite for functions that never reach 0, like the
+     * gaussian. Used to limit spatial searches to nearby objects.
+     */
+    open val maxDistance: Double
+        get() = Double.POSITIVE_INFINITY
+
     // TODO: Stub for future implementation of, for example, elliptical decay functions
     // open fun getScalingFactor(relativeLocation: Point2D): Double {
     //     return 0.0
@@ -10,6 +10,9 @@ class StepDecayFunction @JvmOverloads constructor(dispersion: Double = 70.0) : D
         }
     }
 
+    override val maxDistance: Double
+        get() = peakDistance + dispersion
+
     override fun copy(): StepDecayFunction {
         return StepDecayFunction(dispersion).also {
             it.peakDistance = peakDistance
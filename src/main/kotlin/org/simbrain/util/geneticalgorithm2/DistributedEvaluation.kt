@@ -0,0 +1,372 @@
+package org.simbrain.util.geneticalgorithm2
+
+import com.thoughtworks.xstream.XStream
+import kotlinx.coroutines.*
+import kotlinx.coroutines.channels.Channel
+import org.simbrain.network.core.getNetworkXStream
+import java.io.*
+import java.lang.management.ManagementFactory
+import java.net.InetAddress
+import java.net.ServerSocket
+import java.net.Socket
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
+import java.util.concurrent.CopyOnWriteArrayList
+import kotlin.concurrent.thread
+import kotlin.system.exitProcess
+
+/**
+ * An [EvoSim] that can be recreated from its genotype, so that it can be evaluated in another process or restored
+ * from an [EvolutionCheckpoint].
+ *
+ * The genotype is serialized with XStream (see [getGenotypeXStream]), so it should only hold genes and plain data;
+ * anything that can't be serialized (listeners, deferred products) must be transient and restored in readResolve, as
+ * in [NodeGene2] and [ConnectionGene2].
+ */
+interface DistributableEvoSim : EvoSim {
+
+    val genotype: Genotype2
+
+    /**
+     * Creates sims of this type from a genotype. Must have a no-argument constructor or be a Kotlin object.
+     */
+    val factory: Class<out EvoSimFactory>
+}
+
+fun interface EvoSimFactory {
+    fun create(genotype: Genotype2): EvoSim
+}
+
+/**
+ * XStream used to send genotypes to workers and to write checkpoints. Workers read genotypes from the network, so
+ * only the types genotypes are made of are allowed: simbrain classes, the standard types XStream allows by default,
+ * geometry, matrices and random generators. Types that can run code when deserialized (beans, swing and chart
+ * classes) are denied even though the workspace XStream allows them.
+ */
+fun getGenotypeXStream(): XStream = getNetworkXStream().apply {
+    // Later permissions take precedence, so deny the broad packages before allowing the parts genotypes use
+    denyTypesByWildcard(arrayOf("java.beans.**", "javax.swing.**", "org.jfree.**", "java.awt.**"))
+    allowTypesByWildcard(arrayOf("java.awt.geom.**", "kotlin.random.**"))
+    allowTypes(arrayOf(java.awt.Color::class.java))
+}
+
+/**
+ * Create the factory with the given class name. The class is checked to be an [EvoSimFactory] before it is
+ * initialized, so a name received from the network can only instantiate factories.
+ */
+private fun instantiateFactory(className: String): EvoSimFactory {
+    val factoryClass = Class.forName(className, false, EvoSimFactory::class.java.classLoader)
+    if (!EvoSimFactory::class.java.isAssignableFrom(factoryClass)) {
+        throw DistributedEvaluationException("$className is not an EvoSimFactory")
+    }
+    return (factoryClass.kotlin.objectInstance ?: factoryClass.getDeclaredConstructor().newInstance()) as EvoSimFactory
+}
+
+/**
+ * Thrown when a sim could not be evaluated by any worker, or when its evaluation failed in the worker.
+ */
+class DistributedEvaluationException(message: String) : RuntimeException(message)
+
+/**
+ * Wire protocol between [DistributedEvaluationBackend] and [EvaluationWorker], over a plain socket.
+ *
+ * On connecting, the worker writes [VERSION], within [HANDSHAKE_TIMEOUT_MILLIS]. The backend then sends requests, each an int tag:
+ *  - [EVALUATE], followed by the factory class name (utf) and the genotype xml (int length, then bytes). The worker
+ *  answers [OK] and the fitness as a double, or [ERROR] and a message (utf).
+ *  - [SHUTDOWN], after which the worker exits.
+ */
+internal object WorkerProtocol {
+    const val VERSION = 1
+    const val EVALUATE = 1
+    const val SHUTDOWN = 2
+    const val OK: Byte = 0
+    const val ERROR: Byte = 1
+    const val HANDSHAKE_TIMEOUT_MILLIS = 10_000
+}
+
+/**
+ * Evaluates sims in worker processes. Workers connect to this backend over a socket: local workers are started as
+ * child JVMs using the current classpath, and workers on other hosts can be started by hand with
+ * `java -cp <simbrain classpath> org.simbrain.util.geneticalgorithm2.EvaluationWorker <host> <port>`.
+ *
+ * Each sim is sent as its genotype and rebuilt in the worker by its [DistributableEvoSim.factory]. If a worker
+ * crashes or its connection drops, the sims it was evaluating are sent to other workers, and crashed local workers
+ * are restarted (up to [maxRestarts] times in total). A sim that takes down [maxAttempts] workers fails the
+ * evaluation, as does a sim whose evaluation throws.
+ *
+ * Close the backend when done to shut the workers down.
+ *
+ * By default the backend only listens on the loopback interface, so only local workers can connect. Pass a
+ * [bindAddress] (e.g. the wildcard address from `InetAddress.getByName("0.0.0.0")`) to accept workers from other
+ * hosts, on a trusted network only.
+ *
+ * @param localWorkers number of worker JVMs to start on this machine
+ * @param port port to listen on for workers. 0 picks a free port; see [port].
+ * @param workerJvmArgs extra arguments for local worker JVMs, e.g. heap size
+ * @param readTimeoutMillis how long to wait for a worker to answer, including the handshake. A worker that takes
+ * longer is dropped and its sim is sent to another worker, as when a worker crashes.
+ * @param bindAddress address to listen on
+ */
+class DistributedEvaluationBackend @JvmOverloads constructor(
+    localWorkers: Int = EvaluationScheduler.defaultConcurrency(),
+    port: Int = 0,
+    private val workerJvmArgs: List<String> = listOf(),
+    var maxAttempts: Int = 3,
+    var maxRestarts: Int = 10,
+    var workerWaitMillis: Long = 60_000,
+    private val readTimeoutMillis: Int = 600_000,
+    bindAddress: InetAddress = InetAddress.getLoopbackAddress()
+) : EvaluationBackend, Closeable {
+
+    private val serverSocket = ServerSocket(port, 50, bindAddress)
+
+    /**
+     * The port workers connect to.
+     */
+    val port: Int get() = serverSocket.localPort
+
+    private class WorkerConnection(val socket: Socket) : Closeable {
+
+        val input = DataInputStream(BufferedInputStream(socket.getInputStream()))
+        val output = DataOutputStream(BufferedOutputStream(socket.getOutputStream()))
+
+        fun evaluate(factory: String, genotype: ByteArray): Double {
+            output.writeInt(WorkerProtocol.EVALUATE)
+            output.writeUTF(factory)
+            output.writeInt(genotype.size)
+            output.write(genotype)
+            output.flush()
+            return when (input.readByte()) {
+                WorkerProtocol.OK -> input.readDouble()
+                else -> throw DistributedEvaluationException(input.readUTF())
+            }
+        }
+
+        override fun close() {
+            try {
+                output.writeInt(WorkerProtocol.SHUTDOWN)
+                output.flush()
+            } catch (_: IOException) {
+            }
+            socket.close()
+        }
+    }
+
+    private val idleWorkers = Channel<WorkerConnection>(Channel.UNLIMITED)
+
+    private val connections = CopyOnWriteArrayList<WorkerConnection>()
+
+    private val processes = CopyOnWriteArrayList<Process>()
+
+    private var restarts = 0
+
+    @Volatile
+    private var closed = false
+
+    /**
+     * Number of workers currently connected.
+     */
+    val workerCount get() = connections.size
+
+    /**
+     * The local worker processes that are currently running.
+     */
+    val localProcesses: List<Process> get() = processes.filter { it.isAlive }
+
+    private val acceptThread = thread(isDaemon = true, name = "Evaluation worker listener") {
+        while (!closed) {
+            val socket = try {
+                serverSocket.accept()
+            } catch (e: IOException) {
+                // Server socket closed
+                continue
+            }
+            try {
+                socket.tcpNoDelay = true
+                // Don't let a client that never sends the handshake hold up other workers
+                socket.soTimeout = minOf(readTimeoutMillis, WorkerProtocol.HANDSHAKE_TIMEOUT_MILLIS)
+                val connection = WorkerConnection(socket)
+                if (connection.input.readInt() != WorkerProtocol.VERSION) {
+                    socket.close()
+                    continue
+                }
+                socket.soTimeout = readTimeoutMillis
+                connections.add(connection)
+                idleWorkers.trySend(connection)
+            } catch (e: IOException) {
+                // The worker failed or timed out during the handshake
+                socket.close()
+            }
+        }
+    }
+
+    init {
+        repeat(localWorkers) { startLocalWorker() }
+    }
+
+    private fun startLocalWorker() {
+        val java = File(System.getProperty("java.home"), "bin/java").path
+        // Workers deserialize the same classes as this process, so they need the same module openings
+        val inheritedArgs = ManagementFactory.getRuntimeMXBean().inputArguments.filter {
+            it.startsWith("--add-opens") || it.startsWith("--add-exports")
+        }
+        val command = listOf(java) + inheritedArgs + workerJvmArgs + listOf(
+            "-cp", System.getProperty("java.class.path"),
+            EvaluationWorker::class.java.name,
+            InetAddress.getLoopbackAddress().hostAddress,
+            port.toString()
+        )
+        val process = ProcessBuilder(command)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .redirectError(ProcessBuilder.Redirect.INHERIT)
+            .start()
+        processes.add(process)
+        process.onExit().thenRun { processExited(process) }
+    }
+
+    @Synchronized
+    private fun processExited(process: Process) {
+        processes.remove(process)
+        if (!closed && restarts < maxRestarts) {
+            restarts++
+            startLocalWorker()
+        }
+    }
+
+    private fun workerLost(connection: WorkerConnection) {
+        connections.remove(connection)
+        connection.socket.close()
+    }
+
+    override suspend fun evaluate(sims: List<EvoSim>): List<Double> = coroutineScope {
+        check(!closed) { "Backend is closed" }
+        val xstream = getGenotypeXStream()
+        sims.map { sim ->
+            require(sim is DistributableEvoSim) { "${sim.javaClass.simpleName} is not a DistributableEvoSim" }
+            val factory = sim.factory.name
+            val genotype = xstream.toXML(sim.genotype).toByteArray(Charsets.UTF_8)
+            async { evaluateRemotely(factory, genotype) }
+        }.awaitAll()
+    }
+
+    private suspend fun evaluateRemotely(factory: String, genotype: ByteArray): Double {
+        repeat(maxAttempts) {
+            val worker = withTimeoutOrNull(workerWaitMillis) { idleWorkers.receive() }
+                ?: throw DistributedEvaluationException("No worker became available in $workerWaitMillis ms")
+            try {
+                val fitness = runInterruptible(Dispatchers.IO) { worker.evaluate(factory, genotype) }
+                idleWorkers.send(worker)
+                return fitness
+            } catch (e: IOException) {
+                // Includes read timeouts, after which the worker's answer can no longer be matched to a request
+                workerLost(worker)
+            } catch (e: DistributedEvaluationException) {
+                // The sim itself failed; the worker is still fine
+                idleWorkers.send(worker)
+                throw e
+            }
+        }
+        throw DistributedEvaluationException("Evaluation failed on $maxAttempts workers")
+    }
+
+    @Synchronized
+    override fun close() {
+        closed = true
+        connections.forEach { it.close() }
+        connections.clear()
+        serverSocket.close()
+        processes.forEach { it.destroy() }
+        processes.clear()
+        idleWorkers.close()
+    }
+}
+
+/**
+ * Worker process for [DistributedEvaluationBackend]. Connects to the backend, then evaluates genotypes until told
+ * to shut down or the connection is closed.
+ *
+ * Usage: `EvaluationWorker <host> <port>`
+ */
+object EvaluationWorker {
+
+    @JvmStatic
+    fun main(args: Array<String>) {
+        if (args.size != 2) {
+            System.err.println("Usage: EvaluationWorker <host> <port>")
+            exitProcess(1)
+        }
+        val xstream = getGenotypeXStream()
+        val factories = HashMap<String, EvoSimFactory>()
+        Socket(args[0], args[1].toInt()).use { socket ->
+            socket.tcpNoDelay = true
+            val input = DataInputStream(BufferedInputStream(socket.getInputStream()))
+            val output = DataOutputStream(BufferedOutputStream(socket.getOutputStream()))
+            output.writeInt(WorkerProtocol.VERSION)
+            output.flush()
+            while (true) {
+                val request = try {
+                    input.readInt()
+                } catch (e: EOFException) {
+                    break
+                }
+                if (request != WorkerProtocol.EVALUATE) {
+                    break
+                }
+                val factory = input.readUTF()
+                val genotype = ByteArray(input.readInt()).also { input.readFully(it) }
+                try {
+                    val sim = factories.getOrPut(factory) { instantiateFactory(factory) }
+                        .create(xstream.fromXML(String(genotype, Charsets.UTF_8)) as Genotype2)
+                    val fitness = runBlocking { sim.eval() }
+                    output.writeByte(WorkerProtocol.OK.toInt())
+                    output.writeDouble(fitness)
+                } catch (e: Exception) {
+                    output.writeByte(WorkerProtocol.ERROR.toInt())
+                    output.writeUTF("${e.javaClass.simpleName}: ${e.message}".take(1000))
+                }
+                output.flush()
+            }
+        }
+        exitProcess(0)
+    }
+}
+
+/**
+ * Saves the population of an evolutionary run after each generation, so that a run that was stopped can be resumed.
+ * Used by [evaluator2].
+ *
+ * The file is replaced atomically, so a crash while saving leaves the previous generation intact.
+ */
+class EvolutionCheckpoint(val file: File) {
+
+    private class Snapshot(val generation: Int, val factories: List<String>, val genotypes: List<Genotype2>)
+
+    /**
+     * Save a population (all [DistributableEvoSim]s) as of the end of a generation.
+     */
+    fun save(generation: Int, population: List<EvoSim>) {
+        val snapshot = Snapshot(
+            generation,
+            population.map { (it as DistributableEvoSim).factory.name },
+            population.map { (it as DistributableEvoSim).genotype }
+        )
+        val temp = File(file.absoluteFile.parentFile, "${file.name}.tmp")
+        temp.outputStream().buffered().use { getGenotypeXStream().toXML(snapshot, it) }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE)
+    }
+
+    /**
+     * Returns the saved generation and the population recreated from the saved genotypes, or null if there is no
+     * checkpoint yet.
+     */
+    fun load(): Pair<Int, List<EvoSim>>? {
+        if (!file.exists()) {
+            return null
+        }
+        val snapshot = file.inputStream().buffered().use { getGenotypeXStream().fromXML(it) } as Snapshot
+        val factories = HashMap<String, EvoSimFactory>()
+        return snapshot.generation to (snapshot.factories zip snapshot.genotypes).map { (factory, genotype) ->
+            factories.getOrPut(factory) { instantiateFactory(factory) }.create(genotype)
+        }
+    }
+}
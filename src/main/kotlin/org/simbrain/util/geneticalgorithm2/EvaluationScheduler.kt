@@ -0,0 +1,65 @@
+package org.simbrain.util.geneticalgorithm2
+
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.sync.Semaphore
+import kotlinx.coroutines.sync.withPermit
+import kotlin.math.max
+import kotlin.math.min
+
+/**
+ * Computes the fitness of a population of [EvoSim]s. See [evaluator2].
+ */
+interface EvaluationBackend {
+
+    /**
+     * Returns the fitness of each sim, in the same order.
+     */
+    suspend fun evaluate(sims: List<EvoSim>): List<Double>
+}
+
+/**
+ * Runs fitness evaluations with a bound on how many are in progress at once. Evaluations usually build a whole
+ * [org.simbrain.workspace.Workspace], so launching one per agent makes memory use grow with the population size.
+ *
+ * Evaluations run in the caller's coroutine context; the scheduler only limits concurrency, it does not change
+ * which threads are used.
+ *
+ * @param maxConcurrentEvaluations how many evaluations may run at once. See [defaultConcurrency].
+ */
+class EvaluationScheduler(val maxConcurrentEvaluations: Int = defaultConcurrency()) : EvaluationBackend {
+
+    init {
+        require(maxConcurrentEvaluations > 0) { "maxConcurrentEvaluations must be positive" }
+    }
+
+    private val semaphore = Semaphore(maxConcurrentEvaluations)
+
+    /**
+     * Evaluate all items and return the results in the same order.
+     */
+    suspend fun <T, R> evaluate(items: List<T>, evaluation: suspend (T) -> R): List<R> = coroutineScope {
+        items.map { async { semaphore.withPermit { evaluation(it) } } }.awaitAll()
+    }
+
+    override suspend fun evaluate(sims: List<EvoSim>) = evaluate(sims) { it.eval() }
+
+    companion object {
+
+        /**
+         * Rough memory needed by one evaluation, in bytes. Used to size [defaultConcurrency].
+         */
+        const val ESTIMATED_BYTES_PER_EVALUATION = 64L * 1024 * 1024
+
+        /**
+         * Number of cores, capped so that the estimated memory of the running evaluations fits in the heap.
+         */
+        @JvmStatic
+        fun defaultConcurrency(): Int {
+            val runtime = Runtime.getRuntime()
+            val memoryBound = runtime.maxMemory() / ESTIMATED_BYTES_PER_EVALUATION
+            return max(1, min(runtime.availableProcessors().toLong(), memoryBound).toInt())
+        }
+    }
+}
@@ -1,10 +1,10 @@
 package org.simbrain.util.geneticalgorithm2
 
-import kotlinx.coroutines.async
-import kotlinx.coroutines.awaitAll
 import kotlinx.coroutines.coroutineScope
+import org.simbrain.util.SimbrainRandom
 import org.simbrain.util.sampleWithReplacement
 import org.simbrain.workspace.Workspace
+import java.util.*
 import kotlin.math.roundToInt
 import kotlin.random.Random
 
@@ -56,6 +56,13 @@ class Chromosome2<P, G : Gene2<P>>(genes: List<G>) : MutableList<G> by ArrayList
  * @param stoppingFunction a function that determines when to stop running the sim. Generally check a generation
  * number and for fitness.
  * @param peek code to run each iteration, for example to update a progress bar
+ * @param reevaluateSurvivors survivors are carried into the next generation as unchanged copies. By default they are
+ * evaluated again, so when fitness is noisy (e.g. environments are randomized on each copy) survivors have to keep
+ * proving themselves. Set to false when fitness is deterministic to reuse the survivors' fitness.
+ * @param evaluationBackend evaluates the sims in each generation. By default, an [EvaluationScheduler] that bounds how
+ * many sims are evaluated at once in this process. See [DistributedEvaluationBackend] to use worker processes.
+ * @param checkpoint if set, the population is saved after each generation, and a run is resumed from the checkpoint
+ * if one exists. Requires [DistributableEvoSim]s.
  */
 suspend fun evaluator2(
 
@@ -64,23 +71,40 @@ suspend fun evaluator2(
     eliminationRatio: Double,
     stoppingFunction: GenerationFitnessPair.() -> Boolean,
     peek: GenerationFitnessPair.() -> Unit = {},
-    seed: Long = Random.nextLong(),
-    random: Random = Random(seed)
+    seed: Long = SimbrainRandom.nextSeed(),
+    random: Random = Random(seed),
+    reevaluateSurvivors: Boolean = true,
+    evaluationBackend: EvaluationBackend = EvaluationScheduler(),
+    checkpoint: EvolutionCheckpoint? = null
 ): List<EvoSim> = coroutineScope {
     var generation = 0
     var population = List(populationSize) { populatingFunction(generation) }
+    checkpoint?.load()?.let { (savedGeneration, savedPopulation) ->
+        generation = savedGeneration
+        population = savedPopulation
+    }
+    // Fitness of survivor copies, keyed by identity since the copies are fresh objects with unchanged genotypes
+    val cachedFitness = IdentityHashMap<EvoSim, Double>()
     do {
         generation++
-        val fitnessScores = population.map { async { it.eval() } }.awaitAll()
-        val agentFitnessPair = (population zip fitnessScores).shuffled().sortedByDescending { it.second }
+        val uncached = population.filter { it !in cachedFitness }
+        (uncached zip evaluationBackend.evaluate(uncached)).forEach { (sim, fitness) -> cachedFitness[sim] = fitness }
+        val fitnessScores = population.map { cachedFitness[it]!! }
+        val agentFitnessPair = (population zip fitnessScores).shuffled(random).sortedByDescending { it.second }
         val eliminationCount = (agentFitnessPair.size * eliminationRatio).roundToInt()
-        val survivors = agentFitnessPair.take(populationSize - eliminationCount).map { (sim) -> sim }
-        population = (survivors.map { it.copy() } + survivors.sampleWithReplacement(random).take(eliminationCount)
+        val survivorFitnessPairs = agentFitnessPair.take(populationSize - eliminationCount)
+        val survivors = survivorFitnessPairs.map { (sim) -> sim }
+        cachedFitness.clear()
+        val survivorCopies = survivorFitnessPairs.map { (sim, fitness) ->
+            sim.copy().also { if (!reevaluateSurvivors) cachedFitness[it] = fitness }
+        }
+        population = (survivorCopies + survivors.sampleWithReplacement(random).take(eliminationCount)
             .toList().map {
                 it.copy().apply {
                     mutate()
                 }
             })
+        checkpoint?.save(generation, population)
         val generationFitnessPair = GenerationFitnessPair(generation, agentFitnessPair.map { it.second })
         peek(generationFitnessPair)
     } while (!stoppingFunction(generationFitnessPair))
@@ -14,15 +14,27 @@ abstract class NetworkGene2<P : NetworkModel> : Gene2<P>() {
 
 class NodeGene2(override val template: Neuron) : NetworkGene2<Neuron>() {
 
-    private val _expressedNeuron = CompletableDeferred<Neuron>()
+    @Transient
+    private var _expressedNeuron = CompletableDeferred<Neuron>()
 
-    val expressedNeuron by this::_expressedNeuron
+    val expressedNeuron get() = _expressedNeuron
 
-    private val listeners = mutableListOf<(NodeGene2) -> Unit>()
+    @Transient
+    private var listeners = mutableListOf<(NodeGene2) -> Unit>()
     fun onCopied(block: (NodeGene2) -> Unit) {
         listeners.add(block)
     }
 
+    /**
+     * See [DistributedEvaluationBackend], which sends genes to other processes.
+     */
+    private fun readResolve(): Any {
+        template.postOpenInit()
+        _expressedNeuron = CompletableDeferred()
+        listeners = mutableListOf()
+        return this
+    }
+
     override suspend fun express(network: Network) = Neuron(network, template).also {
         network.addNetworkModel(it)
         expressedNeuron.complete(it)
@@ -41,14 +53,29 @@ class NodeGene2(override val template: Neuron) : NetworkGene2<Neuron>() {
 class ConnectionGene2(override val template: Synapse, val source: NodeGene2, val target: NodeGene2) :
     NetworkGene2<Synapse>() {
 
+    @Transient
     private lateinit var copiedSource: NodeGene2
+    @Transient
     private lateinit var copiedTarget: NodeGene2
 
     init {
+        listenForCopies()
+    }
+
+    private fun listenForCopies() {
         source.onCopied { copiedSource = it }
         target.onCopied { copiedTarget = it }
     }
 
+    /**
+     * Copy listeners are not serialized, so register them again. The node genes are deserialized first.
+     */
+    private fun readResolve(): Any {
+        template.postOpenInit()
+        listenForCopies()
+        return this
+    }
+
     override suspend fun express(network: Network) =
         with(withTimeout(1000) { source.expressedNeuron.await() } to withTimeout(1000) { target.expressedNeuron.await() }) {
             val (source, target) = this
@@ -2,6 +2,9 @@ package org.simbrain.util.geneticalgorithms
 
 import kotlinx.coroutines.*
 import kotlinx.coroutines.flow.*
+import org.simbrain.util.RandomStream
+import org.simbrain.util.SimbrainRandom
+import org.simbrain.util.geneticalgorithm2.EvaluationScheduler
 import org.simbrain.workspace.Workspace
 import java.util.*
 import kotlin.contracts.ExperimentalContracts
@@ -77,10 +80,11 @@ class Chromosome<P, G : Gene<P>>(genes: LinkedHashSet<G> = LinkedHashSet()) : Mu
     operator fun get(index: Int) = asSequence().drop(index).first()
 
     /**
-     * Returns a random gene from this chromosome.
+     * Returns a random gene from this chromosome, drawn from the given generator, usually the [AgentBuilder.random]
+     * of the builder being mutated so that seeded runs are reproducible.
      */
-    fun selectRandom(): G {
-        return this[Random.nextInt(size)]
+    fun selectRandom(random: Random): G {
+        return this[random.nextInt(size)]
     }
 
     /**
@@ -179,7 +183,7 @@ class TopLevelBuilderContext {
 class AgentBuilder private constructor(
     private val chromosomeList: LinkedList<Chromosome<*, *>>,
     private val block: AgentBuilder.() -> Unit,
-    val seed: Int = Random.nextInt(),
+    val seed: Int = SimbrainRandom.nextSeed().toInt(),
     val random: Random = Random(seed)
 ) {
 
@@ -375,6 +379,24 @@ class Evaluator(agentBuilder: AgentBuilder) {
         MINIMIZE_FITNESS
     }
 
+    /**
+     * Survivors are carried into the next generation unchanged. By default they are evaluated again, since fitness is
+     * often noisy (e.g. depends on [EvaluationContext.evalRand]) and a survivor should not keep a lucky score. Set to
+     * false when fitness is deterministic to reuse the survivors' fitness.
+     */
+    var reevaluateSurvivors = true
+
+    /**
+     * Maximum number of agents built and evaluated at the same time.
+     */
+    var maxConcurrentEvaluations = EvaluationScheduler.defaultConcurrency()
+
+    /**
+     * Chooses the survivors that are copied to replenish the population. Derived from the agent builder's seed, so
+     * a seeded simulation selects the same survivors each run.
+     */
+    private val selectionRandom = RandomStream(agentBuilder.seed.toLong()).split("selection")
+
     /**
      * The initial, immutable list of agents.
      */
@@ -413,15 +435,22 @@ class Evaluator(agentBuilder: AgentBuilder) {
          */
         private var generations = sequence {
             var population = initialPopulation
+            val scheduler = EvaluationScheduler(maxConcurrentEvaluations)
+            // Fitness of the survivors in the current population
+            val cachedFitness = IdentityHashMap<AgentBuilder, Double>()
             do {
                 val builderFitnessPairs = runBlocking {
-                    population.map {
-                        async {
+                    scheduler.evaluate(population) {
+                        val cached = cachedFitness[it]
+                        if (cached != null) {
+                            // Never built, so it can be carried over without copying
+                            BuilderFitnessPair(it, cached)
+                        } else {
                             val build = it.build()
                             val score = build.eval()
                             BuilderFitnessPair(it.copy(), score)
                         }
-                    }.awaitAll()
+                    }
                         .sortedBy { if (optimizationMethod == OptimizationMethod.MAXIMIZE_FITNESS) -it.fitness else it.fitness }
                 }
 
@@ -429,9 +458,14 @@ class Evaluator(agentBuilder: AgentBuilder) {
 
                 val survivors = builderFitnessPairs.take((eliminationRatio * builderFitnessPairs.size).toInt())
 
+                cachedFitness.clear()
+                if (!reevaluateSurvivors) {
+                    survivors.forEach { (builder, fitness) -> cachedFitness[builder] = fitness }
+                }
+
                 // Concatenate (1) the most-fit survivors and (2) a random sample of mutated offspring of
                 // those survivors to replenish the population
-                population = survivors.map { it.agentBuilder } + (survivors.uniformSample()
+                population = survivors.map { it.agentBuilder } + (survivors.uniformSample(selectionRandom)
                     .take(populationSize - survivors.size)
                     .map { it.agentBuilder.copy().apply { mutate() } }
                     .toList())
@@ -492,11 +526,9 @@ fun evaluator(agentBuilder: AgentBuilder, block: Evaluator.() -> Unit) =
  * Helper function to uniformly sample builder fitness papers. Used to choose survivors
  * for replenishing a population.
  */
-fun List<BuilderFitnessPair>.uniformSample() = sequence {
+fun List<BuilderFitnessPair>.uniformSample(random: RandomStream) = sequence {
     while (true) {
-        // TODO: use evaluator random
-        val index = (Math.random() * size).toInt()
-        yield(this@uniformSample[index])
+        yield(this@uniformSample[random.nextInt(size)])
     }
 }
 
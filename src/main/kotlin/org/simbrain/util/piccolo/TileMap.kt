@@ -119,6 +119,15 @@ class TileMap(width: Int, height: Int) {
     var events = TileMapEvents2()
         private set
 
+    @Transient
+    private var _tileTypeFields: TileTypeFields? = null
+
+    /**
+     * Cached tile type masks and fields used by tile sensors. Invalidated whenever tiles change.
+     */
+    val tileTypeFields: TileTypeFields
+        get() = _tileTypeFields ?: TileTypeFields(this).also { _tileTypeFields = it }
+
     /**
      * Get a list of images of each layer of this map.
      * @return the list of layer images
@@ -173,6 +182,7 @@ class TileMap(width: Int, height: Int) {
                 layer[i, j] = tileId
             }
         }
+        tileTypeFields.invalidate()
         layer.render()
     }
 
@@ -183,6 +193,7 @@ class TileMap(width: Int, height: Int) {
     // TODO: should not be able to edit tile map layers that don't belong to this map
     fun TileMapLayer.setTile(x: Int, y: Int, tileID: Int) {
         this[x, y] = tileID
+        tileTypeFields.invalidate()
         render()
     }
 
@@ -196,6 +207,7 @@ class TileMap(width: Int, height: Int) {
 
     fun addLayer(layer: TileMapLayer): TileMapLayer {
         _layers.add(layer)
+        tileTypeFields.invalidate()
         events.layerAdded.fireAndForget()
         return layer
     }
@@ -306,6 +318,7 @@ class TileMap(width: Int, height: Int) {
             it.clear(width, height)
             it.renderImage(tileSets, true)
         }
+        tileTypeFields.invalidate()
     }
 
     /**
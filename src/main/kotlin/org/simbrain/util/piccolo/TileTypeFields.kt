@@ -0,0 +1,172 @@
+package org.simbrain.util.piccolo
+
+import org.simbrain.util.decayfunctions.DecayFunction
+import java.awt.geom.Point2D
+import kotlin.math.floor
+import kotlin.math.sqrt
+
+/**
+ * Cache of tile type information for a [TileMap], used by tile sensors so they do not have to look up tile stacks
+ * on every update.
+ *
+ * For each tile type this holds a mask of the cells that contain that type on any layer, and (on request) a field
+ * holding, for each cell center, the sum of a decay function applied to the distance to all matching cells in range.
+ * Sensors can then either sum over the mask (same result as checking the tile stacks) or interpolate the field.
+ *
+ * Everything here is invalidated by the tile map whenever its tiles change. See [TileMap.tileTypeFields].
+ */
+class TileTypeFields(private val tileMap: TileMap) {
+
+    private data class FieldKey(
+        val tileType: String,
+        val decayType: Class<*>,
+        val dispersion: Double,
+        val peakDistance: Double
+    )
+
+    /**
+     * Masks of cells containing a tile type, indexed by y * width + x.
+     */
+    private val masks = HashMap<String, BooleanArray>()
+
+    private val fields = LinkedHashMap<FieldKey, DoubleArray>()
+
+    /**
+     * Relative offsets of cells in range of a radius, stored as x, y pairs. Only depends on tile size.
+     */
+    private val offsets = HashMap<Double, IntArray>()
+
+    @Synchronized
+    fun invalidate() {
+        masks.clear()
+        fields.clear()
+    }
+
+    private val width get() = tileMap.width
+    private val height get() = tileMap.height
+
+    private fun Int.wrap(size: Int) = (this % size).let { if (it < 0) it + size else it }
+
+    /**
+     * Returns true if the tile stack at the given grid coordinate contains the tile type. Coordinates wrap around
+     * the map as in [TileMapLayer.get].
+     */
+    fun hasTileType(tileType: String, x: Int, y: Int): Boolean {
+        if (width == 0 || height == 0) return false
+        return getMask(tileType)[y.wrap(height) * width + x.wrap(width)]
+    }
+
+    @Synchronized
+    fun getMask(tileType: String) = masks.getOrPut(tileType) {
+        BooleanArray(width * height).also { mask ->
+            for (y in 0 until height) {
+                for (x in 0 until width) {
+                    mask[y * width + x] = tileMap.getTileStackAt(x, y).any { it.type == tileType }
+                }
+            }
+        }
+    }
+
+    /**
+     * Same offsets (and order) as [getRelativeGridLocationsInRadius], as a flat array of x, y pairs.
+     */
+    @Synchronized
+    fun getRelativeOffsets(radius: Double) = offsets.getOrPut(radius) {
+        tileMap.getRelativeGridLocationsInRadius(radius)
+            .flatMap { sequenceOf(it.x.toInt(), it.y.toInt()) }
+            .toList()
+            .toIntArray()
+    }
+
+    /**
+     * Sum of the decay function applied to the distance between a location and the center of every cell in range
+     * that contains the tile type. Cells in range are those within [DecayFunction.dispersion] of the cell containing
+     * the location.
+     */
+    fun sumDecayedDistances(tileType: String, location: Point2D, decayFunction: DecayFunction, scale: Double): Double {
+        if (width == 0 || height == 0) return 0.0
+        val mask = getMask(tileType)
+        val relativeOffsets = getRelativeOffsets(decayFunction.dispersion)
+        val tileWidth = tileMap.tileWidth
+        val tileHeight = tileMap.tileHeight
+        val gridX = floor(location.x / tileWidth)
+        val gridY = floor(location.y / tileHeight)
+        var total = 0.0
+        for (i in relativeOffsets.indices step 2) {
+            val x = gridX + relativeOffsets[i]
+            val y = gridY + relativeOffsets[i + 1]
+            if (mask[y.toInt().wrap(height) * width + x.toInt().wrap(width)]) {
+                val distance = Point2D.distance(
+                    (x + 0.5) * tileWidth, (y + 0.5) * tileHeight, location.x, location.y
+                )
+                total += decayFunction.getScalingFactor(distance) * scale
+            }
+        }
+        return total
+    }
+
+    /**
+     * Returns the field of decayed distances to a tile type, evaluated at each cell center and indexed by
+     * y * width + x.
+     */
+    @Synchronized
+    fun getField(tileType: String, decayFunction: DecayFunction): DoubleArray {
+        val key = FieldKey(tileType, decayFunction.javaClass, decayFunction.dispersion, decayFunction.peakDistance)
+        fields[key]?.let { return it }
+        if (fields.size >= MAX_CACHED_FIELDS) {
+            fields.remove(fields.keys.first())
+        }
+        val mask = getMask(tileType)
+        val relativeOffsets = getRelativeOffsets(decayFunction.dispersion)
+        val tileWidth = tileMap.tileWidth
+        val tileHeight = tileMap.tileHeight
+        // The decay kernel only depends on the offset, so evaluate it once per offset
+        val kernel = DoubleArray(relativeOffsets.size / 2) {
+            val dx = relativeOffsets[it * 2] * tileWidth.toDouble()
+            val dy = relativeOffsets[it * 2 + 1] * tileHeight.toDouble()
+            decayFunction.getScalingFactor(sqrt(dx * dx + dy * dy))
+        }
+        val field = DoubleArray(width * height)
+        for (y in 0 until height) {
+            for (x in 0 until width) {
+                var total = 0.0
+                for (k in kernel.indices) {
+                    val mx = (x + relativeOffsets[k * 2]).wrap(width)
+                    val my = (y + relativeOffsets[k * 2 + 1]).wrap(height)
+                    if (mask[my * width + mx]) {
+                        total += kernel[k]
+                    }
+                }
+                field[y * width + x] = total
+            }
+        }
+        fields[key] = field
+        return field
+    }
+
+    /**
+     * Bilinear interpolation of [getField] at a pixel location. Constant time, but only approximates
+     * [sumDecayedDistances] between cell centers.
+     */
+    fun interpolate(tileType: String, location: Point2D, decayFunction: DecayFunction, scale: Double): Double {
+        if (width == 0 || height == 0) return 0.0
+        val field = getField(tileType, decayFunction)
+        val fx = location.x / tileMap.tileWidth - 0.5
+        val fy = location.y / tileMap.tileHeight - 0.5
+        val x0 = floor(fx).toInt()
+        val y0 = floor(fy).toInt()
+        val tx = fx - x0
+        val ty = fy - y0
+        fun at(x: Int, y: Int) = field[y.wrap(height) * width + x.wrap(width)]
+        val top = at(x0, y0) * (1 - tx) + at(x0 + 1, y0) * tx
+        val bottom = at(x0, y0 + 1) * (1 - tx) + at(x0 + 1, y0 + 1) * tx
+        return (top * (1 - ty) + bottom * ty) * scale
+    }
+
+    companion object {
+        /**
+         * Fields are keyed by decay parameters, so bound how many are kept around when those change a lot.
+         */
+        const val MAX_CACHED_FIELDS = 32
+    }
+}
@@ -0,0 +1,100 @@
+package org.simbrain.util.projection
+
+/**
+ * Copy of what a projection plot shows: the projected coordinates of each point, and the high-dimensional point it
+ * came from. Published by [Projector] whenever its data changes, so the gui can render without holding
+ * [Projector.getLock] while points are being added or a projection is iterating.
+ *
+ * The coordinates of a snapshot never change. Colors and labels are read from the points, so they are always the
+ * current ones; a color or label changing while a plot renders is harmless.
+ *
+ * When points are only added, the next snapshot shares the coordinate arrays of the previous one and fills in the
+ * entries past its size, so publishing costs O(new points) rather than O(n). See [append].
+ */
+class ProjectionSnapshot private constructor(
+    private val x: DoubleArray,
+    private val y: DoubleArray,
+    private val points: Array<DataPoint?>,
+    val size: Int
+) {
+
+    fun getX(index: Int) = x[index]
+
+    fun getY(index: Int) = y[index]
+
+    fun getColor(index: Int) = (points[index] as? DataPointColored)?.color
+
+    fun getLabel(index: Int) = points[index]?.label
+
+    /**
+     * The high-dimensional point. Its data should be treated as read only.
+     */
+    fun getPoint(index: Int) = points[index]
+
+    companion object {
+
+        @JvmField
+        val EMPTY = ProjectionSnapshot(DoubleArray(0), DoubleArray(0), arrayOf(), 0)
+
+        /**
+         * Copy the current state of a projector. Call while holding [Projector.getLock].
+         */
+        @JvmStatic
+        fun of(projector: Projector): ProjectionSnapshot {
+            val size = sizeOf(projector)
+            if (size == 0) {
+                return EMPTY
+            }
+            // Leave room for points added later, see append
+            val capacity = size + size / 2 + 16
+            return fill(projector, DoubleArray(capacity), DoubleArray(capacity), arrayOfNulls(capacity), 0, size)
+        }
+
+        /**
+         * Snapshot of a projector in which only the points from [firstChanged] on differ from [previous], which
+         * must be the last snapshot published. Shares the arrays of [previous] when they have room, since entries
+         * past its size are not visible through it. Falls back to [of] if earlier points changed. Call while
+         * holding [Projector.getLock].
+         */
+        @JvmStatic
+        fun append(projector: Projector, previous: ProjectionSnapshot, firstChanged: Int): ProjectionSnapshot {
+            val size = sizeOf(projector)
+            if (firstChanged < previous.size || size < previous.size || previous === EMPTY) {
+                return of(projector)
+            }
+            var x = previous.x
+            var y = previous.y
+            var points = previous.points
+            if (x.size < size) {
+                val capacity = maxOf(size, x.size * 2)
+                x = x.copyOf(capacity)
+                y = y.copyOf(capacity)
+                points = points.copyOf(capacity)
+            }
+            return fill(projector, x, y, points, previous.size, size)
+        }
+
+        private fun sizeOf(projector: Projector): Int {
+            val upstairs = projector.upstairs ?: return 0
+            val downstairs = projector.downstairs ?: return 0
+            return minOf(upstairs.numPoints, downstairs.numPoints)
+        }
+
+        private fun fill(
+            projector: Projector,
+            x: DoubleArray,
+            y: DoubleArray,
+            points: Array<DataPoint?>,
+            from: Int,
+            size: Int
+        ): ProjectionSnapshot {
+            for (i in from until size) {
+                val projected = projector.downstairs.getPoint(i)
+                points[i] = projector.upstairs.getPoint(i)
+                x[i] = projected[0]
+                y[i] = projected[1]
+            }
+            return ProjectionSnapshot(x, y, points, size)
+        }
+    }
+}
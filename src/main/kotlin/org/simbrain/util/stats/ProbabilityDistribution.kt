@@ -7,6 +7,8 @@ import com.thoughtworks.xstream.converters.reflection.ReflectionProvider
 import com.thoughtworks.xstream.io.HierarchicalStreamReader
 import com.thoughtworks.xstream.mapper.Mapper
 import org.apache.commons.math3.random.JDKRandomGenerator
+import org.simbrain.util.RandomStream
+import org.simbrain.util.SimbrainRandom
 import org.simbrain.util.UserParameter
 import org.simbrain.util.createConstructorCallingConverter
 import org.simbrain.util.getSimbrainXStream
@@ -27,10 +29,14 @@ import kotlin.reflect.jvm.javaType
 abstract class ProbabilityDistribution() : CopyableObject {
 
     /**
-     * Random generator for pseudo-random sequences on which a seed can be set.
+     * Random generator for pseudo-random sequences on which a seed can be set. Seeded from [SimbrainRandom], so
+     * distributions created in the same order after setting a workspace seed give the same samples.
+     *
+     * Shared by every caller of the distribution. Code that samples from several threads, like update rules applied to
+     * neurons updated in parallel, should pass its own stream to [sampleDouble] instead.
      */
     @Transient
-    val randomGenerator = JDKRandomGenerator()
+    val randomGenerator = JDKRandomGenerator(SimbrainRandom.nextSeed().toInt())
 
     /**
      * Use this to ensure two probability distributions return the same pseudo-random sequence of numbers.
@@ -55,6 +61,22 @@ abstract class ProbabilityDistribution() : CopyableObject {
 
     abstract fun sampleInt(n: Int): IntArray
 
+    /**
+     * Sample using the numbers of the given stream rather than this distribution's own generator.
+     */
+    abstract fun sampleDouble(random: RandomStream): Double
+
+    open fun sampleInt(random: RandomStream): Int = sampleDouble(random).toInt()
+
+    /**
+     * Fill an array with samples drawn using the given stream.
+     */
+    open fun fill(array: DoubleArray, random: RandomStream) {
+        for (i in array.indices) {
+            array[i] = sampleDouble(random)
+        }
+    }
+
     abstract fun deepCopy(): ProbabilityDistribution
 
     abstract override val name: String
@@ -104,6 +126,7 @@ abstract class ProbabilityDistribution() : CopyableObject {
         // Forward to dist
         fun sampleDouble(): Double = probabilityDistribution.sampleDouble()
         fun sampleInt(): Int = probabilityDistribution.sampleInt()
+        fun sampleDouble(random: RandomStream): Double = probabilityDistribution.sampleDouble(random)
 
         override val name = "Randomizer"
     }
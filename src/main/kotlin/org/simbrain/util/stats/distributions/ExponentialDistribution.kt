@@ -1,6 +1,7 @@
 package org.simbrain.util.stats.distributions
 
 import org.apache.commons.math3.distribution.AbstractRealDistribution
+import org.simbrain.util.RandomStream
 import org.simbrain.util.UserParameter
 import org.simbrain.util.stats.NegatableDistribution
 import org.simbrain.util.stats.ProbabilityDistribution
@@ -36,6 +37,9 @@ class ExponentialDistribution(lambda: Double = 1.0, negate: Boolean = false)
 
     override fun sampleDouble(): Double = dist.sample().conditionalNegate()
 
+    override fun sampleDouble(random: RandomStream): Double =
+        dist.inverseCumulativeProbability(random.nextDouble()).conditionalNegate()
+
     override fun sampleDouble(n: Int): DoubleArray = dist.sample(n).conditionalNegate()
 
     override fun sampleInt(): Int = dist.sample().toInt().conditionalNegate()
@@ -1,6 +1,7 @@
 package org.simbrain.util.stats.distributions
 
 import org.apache.commons.math3.distribution.AbstractRealDistribution
+import org.simbrain.util.RandomStream
 import org.simbrain.util.UserParameter
 import org.simbrain.util.stats.ProbabilityDistribution
 import org.simbrain.util.toIntArray
@@ -36,6 +37,10 @@ class NormalDistribution(mean: Double = 0.0, standardDeviation: Double = 1.0): P
 
     override fun sampleDouble(): Double = dist.sample()
 
+    override fun sampleDouble(random: RandomStream): Double = random.nextGaussian(mean, standardDeviation)
+
+    override fun fill(array: DoubleArray, random: RandomStream) = random.fillGaussian(array, mean, standardDeviation)
+
     override fun sampleDouble(n: Int): DoubleArray = dist.sample(n)
 
     override fun sampleInt(): Int = dist.sample().toInt()
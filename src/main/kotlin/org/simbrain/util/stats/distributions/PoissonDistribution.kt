@@ -1,6 +1,7 @@
 package org.simbrain.util.stats.distributions
 
 import org.apache.commons.math3.distribution.AbstractIntegerDistribution
+import org.simbrain.util.RandomStream
 import org.simbrain.util.UserParameter
 import org.simbrain.util.stats.NegatableDistribution
 import org.simbrain.util.stats.ProbabilityDistribution
@@ -33,6 +34,11 @@ class PoissonDistribution(p: Double = 1.0, negate: Boolean = false)
 
     override fun sampleDouble(): Double = dist.sample().toDouble().conditionalNegate()
 
+    override fun sampleDouble(random: RandomStream): Double = sampleInt(random).toDouble()
+
+    override fun sampleInt(random: RandomStream): Int =
+        dist.inverseCumulativeProbability(random.nextDouble()).conditionalNegate()
+
     override fun sampleDouble(n: Int): DoubleArray = dist.sample(n).toDoubleArray().conditionalNegate()
 
     override fun sampleInt(): Int = dist.sample().conditionalNegate()
@@ -1,5 +1,6 @@
 package org.simbrain.util.stats.distributions;
 
+import org.simbrain.util.RandomStream
 import org.simbrain.util.UserParameter
 import org.simbrain.util.stats.ProbabilityDistribution
 
@@ -25,6 +26,10 @@ class TwoValued(
         return if (randomGenerator.nextDouble() > p) lowerValue else upperValue
     }
 
+    override fun sampleDouble(random: RandomStream): Double {
+        return if (random.nextDouble() > p) lowerValue else upperValue
+    }
+
     override fun sampleInt(): Int {
         return sampleDouble().toInt()
     }
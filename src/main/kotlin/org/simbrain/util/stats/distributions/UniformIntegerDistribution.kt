@@ -1,6 +1,7 @@
 package org.simbrain.util.stats.distributions
 
 import org.apache.commons.math3.distribution.AbstractIntegerDistribution
+import org.simbrain.util.RandomStream
 import org.simbrain.util.UserParameter
 import org.simbrain.util.stats.ProbabilityDistribution
 import org.simbrain.util.toDoubleArray
@@ -34,6 +35,10 @@ class UniformIntegerDistribution(floor:Int = 0, ceil: Int = 1) : ProbabilityDist
 
     override fun sampleDouble(): Double = dist.sample().toDouble()
 
+    override fun sampleDouble(random: RandomStream): Double = sampleInt(random).toDouble()
+
+    override fun sampleInt(random: RandomStream): Int = random.nextInt(floor, ceil + 1)
+
     override fun sampleDouble(n: Int): DoubleArray = dist.sample(n).toDoubleArray()
 
     override fun sampleInt(): Int = dist.sample()
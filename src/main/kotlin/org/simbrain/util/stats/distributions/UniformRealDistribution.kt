@@ -1,6 +1,7 @@
 package org.simbrain.util.stats.distributions
 
 import org.apache.commons.math3.distribution.AbstractRealDistribution
+import org.simbrain.util.RandomStream
 import org.simbrain.util.UserParameter
 import org.simbrain.util.stats.ProbabilityDistribution
 import org.simbrain.util.toIntArray
@@ -35,6 +36,10 @@ class UniformRealDistribution(floor:Double = 0.0, ceil: Double = 1.0) : Probabil
 
     override fun sampleDouble(): Double = dist.sample()
 
+    override fun sampleDouble(random: RandomStream): Double = floor + (ceil - floor) * random.nextDouble()
+
+    override fun fill(array: DoubleArray, random: RandomStream) = random.fillUniform(array, floor, ceil)
+
     override fun sampleDouble(n: Int): DoubleArray = dist.sample(n)
 
     override fun sampleInt(): Int = dist.sample().toInt()
@@ -3,7 +3,6 @@ package org.simbrain.util.table
 import org.simbrain.util.sampleWithoutReplacement
 import org.simbrain.util.tryParsingDouble
 import org.simbrain.util.tryParsingInt
-import smile.math.matrix.Matrix
 
 /**
  * Mutable table whose columns have arbitrary types.
@@ -21,12 +20,6 @@ class BasicDataWrapper(
             columns = inferColumns(columns.map { it.columName }, value)
         }
 
-    var rowNames = listOf<String?>()
-        set(value) {
-            field = value
-            fireTableDataChanged()
-        }
-
     /**
      * Insert column to left, unless the index is -1 (no selection) in which case it is added as the right-most column.
      */
@@ -157,35 +150,3 @@ private fun inferColumns(names: List<String?>, data: MutableList<MutableList<Any
 fun createFrom2DArray(data: Array<out Array<out Any?>>): BasicDataWrapper {
     return BasicDataWrapper(data.map { it.toMutableList() }.toMutableList())
 }
-
-fun createFromDoubleArray(data: Array<DoubleArray>): BasicDataWrapper {
-    return BasicDataWrapper(data.map { it.toMutableList() as MutableList<Any?> }.toMutableList())
-}
-
-fun createFromMatrix(data: Matrix): BasicDataWrapper {
-    return BasicDataWrapper(
-        data.toArray().map { it.toMutableList() as MutableList<Any?> }.toMutableList(),
-        (1..data.ncols()).map { createColumn("$it", 0.0) }.toMutableList()
-    )
-}
-
-fun createFromFloatArray(data: Array<FloatArray>): BasicDataWrapper {
-    return BasicDataWrapper(data.map { it.toMutableList() as MutableList<Any?> }.toMutableList())
-}
-
-fun createFromColumn(data: DoubleArray): BasicDataWrapper {
-    return BasicDataWrapper(data.map { mutableListOf(it as Any?) }.toMutableList())
-}
-
-fun createFromColumn(data: FloatArray): BasicDataWrapper {
-    return BasicDataWrapper(data.map { mutableListOf(it as Any?) }.toMutableList())
-}
-
-fun createFromColumn(data: IntArray): BasicDataWrapper {
-    return BasicDataWrapper(data.map { mutableListOf(it as Any?) }.toMutableList())
-}
-
-fun createFromColumn(data: Array<String>): BasicDataWrapper {
-    return BasicDataWrapper(data.map { mutableListOf(it as Any?) }.toMutableList())
-}
-
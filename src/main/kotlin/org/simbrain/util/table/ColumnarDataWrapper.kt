@@ -0,0 +1,457 @@
+package org.simbrain.util.table
+
+import org.simbrain.util.sampleWithoutReplacement
+import org.simbrain.util.tryParsingDouble
+import org.simbrain.util.tryParsingInt
+import smile.math.matrix.Matrix
+
+/**
+ * Mutable table that stores each column in a primitive array of its type, rather than each cell as an object like
+ * [BasicDataWrapper]. Suited to large numeric tables, e.g. training sets read with [readCsv] or [readArff].
+ *
+ * The double columns share one array, column after column, so that [asMatrix] can view them as a Smile matrix
+ * without copying. Int columns are int arrays and string columns are string arrays. Missing doubles are NaN.
+ *
+ * If the type of a column is changed, e.g. in the column editor, its values are converted the next time they are
+ * accessed.
+ */
+class ColumnarDataWrapper(
+    columns: List<Column>,
+    rowCount: Int = 0
+) : SimbrainDataModel() {
+
+    override val isMutable = true
+
+    override var columns: MutableList<Column> = columns.toMutableList()
+        set(value) {
+            if (value.size != storage.size) {
+                throw IllegalArgumentException("Table has ${storage.size} columns but ${value.size} were provided")
+            }
+            field = value
+        }
+
+    /**
+     * Storage of one column.
+     */
+    private sealed class Values {
+        /**
+         * Index of the column in [block].
+         */
+        class Doubles(val slot: Int) : Values()
+        class Ints(var array: IntArray) : Values()
+        class Strings(var array: Array<String?>) : Values()
+    }
+
+    private var rows = rowCount
+
+    /**
+     * Number of rows there is room for, which is also the distance between double columns in [block].
+     */
+    private var capacity = rowCount
+
+    private var block = DoubleArray(0)
+
+    private var storage: MutableList<Values> = mutableListOf()
+
+    init {
+        pack(columns.map { emptyArray(it.type, capacity) })
+    }
+
+    private fun emptyArray(type: Column.DataType, size: Int): Any = when (type) {
+        Column.DataType.DoubleType -> DoubleArray(size)
+        Column.DataType.IntType -> IntArray(size)
+        Column.DataType.StringType -> arrayOfNulls<String>(size)
+    }
+
+    /**
+     * Replace the storage with the given column arrays, each at least [capacity] long, putting the double arrays in
+     * one block.
+     */
+    private fun pack(arrays: List<Any>) {
+        val doubleCount = arrays.count { it is DoubleArray }
+        block = DoubleArray(capacity * doubleCount)
+        var slot = 0
+        storage = arrays.map { array ->
+            when (array) {
+                is DoubleArray -> {
+                    System.arraycopy(array, 0, block, slot * capacity, capacity)
+                    Values.Doubles(slot++)
+                }
+                is IntArray -> Values.Ints(array)
+                else -> @Suppress("UNCHECKED_CAST") Values.Strings(array as Array<String?>)
+            }
+        }.toMutableList()
+    }
+
+    /**
+     * The storage as one array per column. The double arrays are copies.
+     */
+    private fun unpack(): MutableList<Any> = storage.map { values ->
+        when (values) {
+            is Values.Doubles -> block.copyOfRange(values.slot * capacity, (values.slot + 1) * capacity)
+            is Values.Ints -> values.array
+            is Values.Strings -> values.array
+        }
+    }.toMutableList()
+
+    /**
+     * Storage of a column, first converting it if the column's type has changed.
+     */
+    private fun values(col: Int): Values {
+        val values = storage[col]
+        val type = columns[col].type
+        val matches = when (values) {
+            is Values.Doubles -> type == Column.DataType.DoubleType
+            is Values.Ints -> type == Column.DataType.IntType
+            is Values.Strings -> type == Column.DataType.StringType
+        }
+        if (matches) {
+            return values
+        }
+        val old = (0 until rows).map { getStoredValue(values, it) }
+        val converted = emptyArray(type, capacity)
+        old.forEachIndexed { row, value -> setStoredValue(converted, row, convert(value, type)) }
+        val arrays = unpack()
+        arrays[col] = converted
+        pack(arrays)
+        return storage[col]
+    }
+
+    private fun convert(value: Any?, type: Column.DataType): Any? = when (type) {
+        Column.DataType.DoubleType -> (value as? Number)?.toDouble() ?: value?.toString()?.toDoubleOrNull() ?: Double.NaN
+        Column.DataType.IntType -> (value as? Number)?.toInt() ?: value?.toString()?.toDoubleOrNull()?.toInt() ?: 0
+        Column.DataType.StringType -> value?.toString()
+    }
+
+    private fun getStoredValue(values: Values, row: Int): Any? = when (values) {
+        is Values.Doubles -> block[values.slot * capacity + row]
+        is Values.Ints -> values.array[row]
+        is Values.Strings -> values.array[row]
+    }
+
+    private fun setStoredValue(array: Any, row: Int, value: Any?) {
+        when (array) {
+            is DoubleArray -> array[row] = value as Double
+            is IntArray -> array[row] = value as Int
+            else -> @Suppress("UNCHECKED_CAST") (array as Array<String?>)[row] = value as String?
+        }
+    }
+
+    private fun ensureCapacity(size: Int) {
+        if (size <= capacity) {
+            return
+        }
+        val newCapacity = maxOf(size, capacity * 2, 16)
+        val arrays = storage.map { values ->
+            when (values) {
+                is Values.Doubles -> DoubleArray(newCapacity).also {
+                    System.arraycopy(block, values.slot * capacity, it, 0, rows)
+                }
+                is Values.Ints -> values.array.copyOf(newCapacity)
+                is Values.Strings -> values.array.copyOf(newCapacity)
+            }
+        }
+        capacity = newCapacity
+        pack(arrays)
+    }
+
+    /**
+     * Give back memory reserved for rows that were never added.
+     */
+    fun trimToSize() {
+        if (capacity == rows) {
+            return
+        }
+        val arrays = storage.map { values ->
+            when (values) {
+                is Values.Doubles -> block.copyOfRange(values.slot * capacity, values.slot * capacity + rows)
+                is Values.Ints -> values.array.copyOf(rows)
+                is Values.Strings -> values.array.copyOf(rows)
+            }
+        }
+        capacity = rows
+        pack(arrays)
+    }
+
+    override fun getRowCount() = rows
+
+    override fun getColumnCount() = storage.size
+
+    override fun getValueAt(rowIndex: Int, columnIndex: Int): Any? {
+        if (validateRowIndex(rowIndex) && validateColumnIndex(columnIndex)) {
+            return getStoredValue(values(columnIndex), rowIndex)
+        }
+        return null
+    }
+
+    override fun setValueAt(value: Any?, rowIndex: Int, colIndex: Int) {
+        if (validateRowIndex(rowIndex) && validateColumnIndex(colIndex)) {
+            try {
+                setStoredValueAt(value, rowIndex, colIndex)
+                fireTableCellUpdated(rowIndex, colIndex)
+            } catch (e: NumberFormatException) {
+                println("There was a problem parsing ${value} in a column of type ${columns[colIndex].type}")
+            }
+        }
+    }
+
+    private fun setStoredValueAt(value: Any?, row: Int, col: Int) {
+        when (val values = values(col)) {
+            is Values.Doubles -> block[values.slot * capacity + row] = tryParsingDouble(value)
+            is Values.Ints -> values.array[row] = tryParsingInt(value)
+            is Values.Strings -> values.array[row] = value?.toString()
+        }
+    }
+
+    /**
+     * Value of a double column, without boxing.
+     */
+    fun getDouble(row: Int, col: Int): Double {
+        val values = values(col) as? Values.Doubles
+            ?: throw IllegalArgumentException("Column ${columns[col].name} is not a double column")
+        return block[values.slot * capacity + row]
+    }
+
+    fun setDouble(row: Int, col: Int, value: Double) {
+        val values = values(col) as? Values.Doubles
+            ?: throw IllegalArgumentException("Column ${columns[col].name} is not a double column")
+        block[values.slot * capacity + row] = value
+    }
+
+    /**
+     * View of the numeric columns, in order, as a Smile matrix. Int columns are first converted to double columns so
+     * that they are part of the view. The matrix shares storage with the table, so changes to either show up in the
+     * other, until rows or columns are added or removed or a column type is changed.
+     */
+    fun asMatrix(): Matrix {
+        columns.filter { it.type == Column.DataType.IntType }.forEach { it.type = Column.DataType.DoubleType }
+        (0 until columnCount).forEach { values(it) }
+        val doubleCount = storage.count { it is Values.Doubles }
+        return Matrix(rows, doubleCount, maxOf(capacity, 1), block)
+    }
+
+    override fun getDoubleColumn(col: Int): DoubleArray {
+        return when (val values = values(col)) {
+            is Values.Doubles -> block.copyOfRange(values.slot * capacity, values.slot * capacity + rows)
+            is Values.Ints -> DoubleArray(rows) { values.array[it].toDouble() }
+            is Values.Strings -> throw Error("getDoubleColumn called on a non-numeric column")
+        }
+    }
+
+    /**
+     * Rows of the given numeric columns, read directly from the column arrays.
+     */
+    override fun get2DDoubleArray(colIndices: List<Int>): Array<DoubleArray> {
+        if (!columnsOfType(colIndices, Double::class.java, Int::class.java, Float::class.java)) {
+            throw Error("getDoubleArray called on a non-double column")
+        }
+        val result = Array(rows) { DoubleArray(colIndices.size) }
+        colIndices.forEachIndexed { j, col ->
+            when (val values = values(col)) {
+                is Values.Doubles -> {
+                    val offset = values.slot * capacity
+                    for (i in 0 until rows) result[i][j] = block[offset + i]
+                }
+                is Values.Ints -> for (i in 0 until rows) result[i][j] = values.array[i].toDouble()
+                is Values.Strings -> {}
+            }
+        }
+        return result
+    }
+
+    override fun get2DDoubleArray(): Array<DoubleArray> {
+        if (!columnsOfType(Double::class.java)) {
+            throw Error("getDoubleArray called on a non-numeric column")
+        }
+        return get2DDoubleArray((0 until columnCount).toList())
+    }
+
+    /**
+     * Insert column to left, unless the index is -1 (no selection) in which case it is added as the right-most column.
+     */
+    override fun insertColumn(selectedColumn: Int) {
+        insertColumn(selectedColumn, "New Column")
+    }
+
+    fun insertColumn(
+        colIndex: Int,
+        name: String,
+        type: Column.DataType = Column.DataType.DoubleType
+    ) {
+        val newColIndex = if (colIndex == -1) columnCount else colIndex
+        if (colIndex in -1 until columnCount) {
+            val arrays = unpack()
+            arrays.add(newColIndex, emptyArray(type, capacity))
+            pack(arrays)
+            columns.add(newColIndex, Column(name, type))
+            fireTableStructureChanged()
+        }
+    }
+
+    override fun deleteColumn(selectedColumn: Int, fireEvent: Boolean) {
+        if (validateColumnIndex(selectedColumn)) {
+            val arrays = unpack()
+            arrays.removeAt(selectedColumn)
+            pack(arrays)
+            columns.removeAt(selectedColumn)
+            if (fireEvent) {
+                fireTableStructureChanged()
+            }
+        }
+    }
+
+    /**
+     * Shift the rows from [from] to the end by [distance] rows, in every column.
+     */
+    private fun shiftRows(from: Int, distance: Int) {
+        val length = rows - from
+        storage.forEach { values ->
+            when (values) {
+                is Values.Doubles -> {
+                    val offset = values.slot * capacity
+                    System.arraycopy(block, offset + from, block, offset + from + distance, length)
+                }
+                is Values.Ints -> System.arraycopy(values.array, from, values.array, from + distance, length)
+                is Values.Strings -> System.arraycopy(values.array, from, values.array, from + distance, length)
+            }
+        }
+    }
+
+    /**
+     * Insert row above, unless the index is -1 (no selection) in which case it is added as the bottom.
+     */
+    override fun insertRow(selectedRow: Int) {
+        val newRowIndex = if (selectedRow == -1) rowCount else selectedRow
+        if (selectedRow in -1..rowCount) {
+            ensureCapacity(rows + 1)
+            shiftRows(newRowIndex, 1)
+            rows++
+            storage.forEach { values ->
+                when (values) {
+                    is Values.Doubles -> block[values.slot * capacity + newRowIndex] = 0.0
+                    is Values.Ints -> values.array[newRowIndex] = 0
+                    is Values.Strings -> values.array[newRowIndex] = null
+                }
+            }
+            fireTableStructureChanged()
+        }
+    }
+
+    /**
+     * Add a row at the bottom. Values are converted to the types of their columns.
+     */
+    fun addRow(values: List<Any?>) {
+        if (values.size != columnCount) {
+            throw IllegalArgumentException("Row has ${values.size} values but the table has $columnCount columns")
+        }
+        ensureCapacity(rows + 1)
+        rows++
+        values.forEachIndexed { col, value -> setStoredValueAt(value, rows - 1, col) }
+        fireTableRowsInserted(rows - 1, rows - 1)
+    }
+
+    override fun deleteRow(selectedRow: Int, fireEvent: Boolean) {
+        // As in BasicDataWrapper, the last row is kept
+        if (rowCount == 1) {
+            return
+        }
+        if (validateRowIndex(selectedRow)) {
+            shiftRows(selectedRow + 1, -1)
+            rows--
+            if (fireEvent) {
+                fireTableStructureChanged()
+            }
+        }
+    }
+
+    override fun randomizeColumn(col: Int) {
+        if (validateColumnIndex(col)) {
+            when (val values = values(col)) {
+                is Values.Doubles -> {
+                    val offset = values.slot * capacity
+                    for (i in 0 until rows) block[offset + i] = columns[col].columnRandomizer.sampleDouble()
+                }
+                is Values.Ints -> for (i in 0 until rows) values.array[i] = columns[col].columnRandomizer.sampleInt()
+                is Values.Strings -> {
+                    val options = values.array.take(rows).toSet().toList()
+                    for (i in 0 until rows) values.array[i] = options.sampleWithoutReplacement().first()
+                }
+            }
+            fireTableDataChanged()
+        }
+    }
+
+    /**
+     * Replace the contents of this table with those of another, e.g. one just read from a file.
+     */
+    fun setData(other: ColumnarDataWrapper) {
+        rows = other.rows
+        capacity = other.capacity
+        block = other.block
+        storage = other.storage
+        columns = other.columns
+        fireTableStructureChanged()
+    }
+
+    companion object {
+
+        /**
+         * Create a table from one array per column, each holding at least [rowCount] values. Double arrays are copied
+         * into the shared block, and int and string arrays are used as they are if they have exactly [rowCount] values.
+         */
+        @JvmStatic
+        fun fromColumnArrays(columns: List<Column>, arrays: List<Any>, rowCount: Int): ColumnarDataWrapper {
+            return ColumnarDataWrapper(columns).apply {
+                rows = rowCount
+                capacity = rowCount
+                pack(arrays.map { array ->
+                    when (array) {
+                        is DoubleArray -> array
+                        is IntArray -> if (array.size == rowCount) array else array.copyOf(rowCount)
+                        else -> (array as Array<*>).let { if (it.size == rowCount) it else it.copyOf(rowCount) }
+                    }
+                })
+            }
+        }
+    }
+}
+
+/**
+ * Create a table of double columns from an array of rows.
+ */
+fun createFromDoubleArray(data: Array<DoubleArray>): ColumnarDataWrapper {
+    val columnCount = data.firstOrNull()?.size ?: 0
+    val table = ColumnarDataWrapper(List(columnCount) { Column("Column ${it + 1}") }, data.size)
+    data.forEachIndexed { i, row -> row.forEachIndexed { j, value -> table.setDouble(i, j, value) } }
+    return table
+}
+
+fun createFromMatrix(data: Matrix): ColumnarDataWrapper {
+    val table = ColumnarDataWrapper(List(data.ncols()) { Column("${it + 1}") }, data.nrows())
+    for (j in 0 until data.ncols()) {
+        for (i in 0 until data.nrows()) {
+            table.setDouble(i, j, data[i, j])
+        }
+    }
+    return table
+}
+
+fun createFromFloatArray(data: Array<FloatArray>): ColumnarDataWrapper {
+    val columnCount = data.firstOrNull()?.size ?: 0
+    val table = ColumnarDataWrapper(List(columnCount) { Column("Column ${it + 1}") }, data.size)
+    data.forEachIndexed { i, row -> row.forEachIndexed { j, value -> table.setDouble(i, j, value.toDouble()) } }
+    return table
+}
+
+fun createFromColumn(data: DoubleArray) =
+    ColumnarDataWrapper.fromColumnArrays(listOf(Column("Column 1")), listOf(data), data.size)
+
+fun createFromColumn(data: FloatArray) = createFromColumn(DoubleArray(data.size) { data[it].toDouble() })
+
+fun createFromColumn(data: IntArray) = ColumnarDataWrapper.fromColumnArrays(
+    listOf(Column("Column 1", Column.DataType.IntType)), listOf(data.copyOf()), data.size
+)
+
+fun createFromColumn(data: Array<String>) = ColumnarDataWrapper.fromColumnArrays(
+    listOf(Column("Column 1", Column.DataType.StringType)), listOf(Array<String?>(data.size) { data[it] }), data.size
+)
@@ -37,6 +37,15 @@ abstract class SimbrainDataModel() : AbstractTableModel() {
      */
     abstract val isMutable: Boolean
 
+    /**
+     * Names shown in the row header, if any.
+     */
+    var rowNames = listOf<String?>()
+        set(value) {
+            field = value
+            fireTableDataChanged()
+        }
+
     /**
      * Table-wide cell randomizer for arbitrary groups of cells.
      */
@@ -60,7 +69,7 @@ abstract class SimbrainDataModel() : AbstractTableModel() {
     /**
      * Returns a column (assumed to be numeric) as a double array.
      */
-    fun getDoubleColumn(col: Int): DoubleArray {
+    open fun getDoubleColumn(col: Int): DoubleArray {
         if (columns[col].isNumeric()) {
             return (0 until rowCount)
                 .map { (getValueAt(it, col) as Number).toDouble() }
@@ -141,7 +150,7 @@ abstract class SimbrainDataModel() : AbstractTableModel() {
      *
      * Note that numeric types are cast to doubles.
      */
-    fun get2DDoubleArray(colIndices: List<Int>): Array<DoubleArray> {
+    open fun get2DDoubleArray(colIndices: List<Int>): Array<DoubleArray> {
         if (!columnsOfType(colIndices, Double::class.java, Int::class.java, Float::class.java)) {
             throw Error("getDoubleArray called on a non-double column")
         }
@@ -166,7 +175,7 @@ abstract class SimbrainDataModel() : AbstractTableModel() {
      *
      * Numeric types are cast to doubles.
      */
-    fun get2DDoubleArray(): Array<DoubleArray> {
+    open fun get2DDoubleArray(): Array<DoubleArray> {
         if (!columnsOfType(Double::class.java)) {
             throw Error("getDoubleArray called on a non-numeric column")
         }
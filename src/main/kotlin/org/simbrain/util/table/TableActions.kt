@@ -171,6 +171,8 @@ val DataViewerTable.importArff
                 if (it is DataFrameWrapper) {
                     it.df = Read.arff(arffFile.absolutePath)
                     it.fireTableStructureChanged()
+                } else if (it is ColumnarDataWrapper) {
+                    it.setData(readArff(arffFile))
                 } else if (it is BasicDataWrapper) {
                     val df = Read.arff(arffFile.absolutePath)
                     val columns = df.names().zip(df.types())
@@ -212,7 +214,17 @@ fun DataViewerTable.importCSVAction(fixedColumns: Boolean = false) = createActio
     }
     if (csvFile != null) {
         model.let {
-            if (it is BasicDataWrapper) {
+            if (it is ColumnarDataWrapper) {
+                val importedData = readCsv(csvFile)
+                if (!fixedColumns || checkColumns(importedData.columnCount)) {
+                    val names = it.columns.map { column -> column.name }
+                    it.setData(importedData)
+                    if (fixedColumns) {
+                        it.setColumnNames(names)
+                        it.fireTableStructureChanged()
+                    }
+                }
+            } else if (it is BasicDataWrapper) {
                 val importedData = createFrom2DArray(Utils.getStringMatrix(csvFile))
                 if (checkColumns(importedData.columnCount)) {
                     it.data = importedData.data
@@ -235,7 +247,7 @@ val DataViewerTable.editColumnAction
         "Edit column...",
         "Edit column properties"
     ) {
-        if (model is BasicDataWrapper) {
+        if (model is BasicDataWrapper || model is ColumnarDataWrapper) {
             if (selectedColumn >= 0) {
                 val editor = AnnotatedPropertyEditor(model.columns[selectedColumn])
                 val dialog: StandardDialog = editor.dialog
@@ -0,0 +1,502 @@
+package org.simbrain.util.table
+
+import java.io.Closeable
+import java.io.File
+import java.nio.MappedByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.StandardOpenOption
+
+/**
+ * Read a csv file into a [ColumnarDataWrapper]. The file is memory mapped and parsed in one pass straight into
+ * primitive column arrays, without boxing the values or holding the rows as strings.
+ *
+ * Column types are inferred: a column is double if all its values are numbers, including integers, so that it is part
+ * of [ColumnarDataWrapper.asMatrix], and string otherwise. Empty numeric cells are NaN. Lines starting with # are
+ * comments.
+ *
+ * @param header whether the first row holds column names. If null it is guessed: the first row is a header if it has
+ * a non-numeric value where the second row has a number.
+ */
+@JvmOverloads
+fun readCsv(file: File, header: Boolean? = null, delimiter: Char = ','): ColumnarDataWrapper {
+    MappedBytes(file).use { bytes -> return readCsv(RecordParser(bytes, delimiter, '#'), file.name, header) }
+}
+
+private fun readCsv(parser: RecordParser, fileName: String, header: Boolean?): ColumnarDataWrapper {
+    val first = parser.nextRecord() ?: return ColumnarDataWrapper(listOf())
+    val firstValues = (0 until first.size).map { first.text(it) }
+    val second = parser.nextRecord()
+    val isHeader = header ?: (second != null && firstValues.indices.any { i ->
+        i < second.size && !firstValues[i].isNumber() && second.text(i).isNumber()
+    })
+    val names = if (isHeader) firstValues else List(firstValues.size) { "Column ${it + 1}" }
+    val builders = names.map { ColumnBuilder(null) }
+    if (!isHeader) {
+        builders.forEachIndexed { i, builder -> builder.add(firstValues[i]) }
+    }
+    var record = second
+    var line = 2
+    while (record != null) {
+        if (record.size != builders.size) {
+            throw IllegalArgumentException("Line $line of $fileName has ${record.size} values, expected ${builders.size}")
+        }
+        val current: Record = record
+        builders.forEachIndexed { i, builder -> builder.add(current, i) }
+        record = parser.nextRecord()
+        line++
+    }
+    builders.forEach { it.intsToDoubles() }
+    return buildTable(names, builders)
+}
+
+/**
+ * Read a WEKA arff file into a [ColumnarDataWrapper]. Numeric attributes become double columns and nominal, string and
+ * date attributes string columns. Missing values (?) are NaN or null. Sparse data is not supported.
+ */
+fun readArff(file: File): ColumnarDataWrapper {
+    MappedBytes(file).use { bytes -> return readArff(RecordParser(bytes, ',', '%'), file.name) }
+}
+
+private fun readArff(parser: RecordParser, fileName: String): ColumnarDataWrapper {
+    val names = mutableListOf<String>()
+    val builders = mutableListOf<ColumnBuilder>()
+    while (true) {
+        val line = parser.nextLine()?.trim() ?: throw IllegalArgumentException("No @data section in $fileName")
+        if (line.isEmpty()) {
+            continue
+        }
+        val keyword = line.substringBefore(' ').substringBefore('\t').lowercase()
+        if (keyword == "@data") {
+            break
+        }
+        if (keyword == "@attribute") {
+            val rest = line.substring(keyword.length).trim()
+            val (name, type) = splitAttribute(rest)
+            names.add(name)
+            val numeric = type.lowercase().let { it == "numeric" || it == "real" || it == "integer" }
+            builders.add(ColumnBuilder(if (numeric) Column.DataType.DoubleType else Column.DataType.StringType))
+        }
+    }
+    var line = 1
+    while (true) {
+        val record = parser.nextRecord() ?: break
+        if (record.size > 0 && record.text(0).startsWith("{")) {
+            throw IllegalArgumentException("Sparse arff data in $fileName is not supported")
+        }
+        if (record.size != builders.size) {
+            throw IllegalArgumentException("Data row $line of $fileName has ${record.size} values, expected ${builders.size}")
+        }
+        builders.forEachIndexed { i, builder -> builder.add(record, i, missing = "?") }
+        line++
+    }
+    return buildTable(names, builders)
+}
+
+/**
+ * Split the name, which may be quoted, from the type of an attribute declaration.
+ */
+private fun splitAttribute(declaration: String): Pair<String, String> {
+    val quote = declaration.firstOrNull()
+    if (quote == '\'' || quote == '"') {
+        val end = declaration.indexOf(quote, 1)
+        return declaration.substring(1, end) to declaration.substring(end + 1).trim()
+    }
+    val end = declaration.indexOfFirst { it.isWhitespace() }
+    return declaration.substring(0, end) to declaration.substring(end).trim()
+}
+
+private fun String.isNumber() = toDoubleOrNull() != null
+
+private fun buildTable(names: List<String>, builders: List<ColumnBuilder>): ColumnarDataWrapper {
+    val rowCount = builders.firstOrNull()?.size ?: 0
+    return ColumnarDataWrapper.fromColumnArrays(
+        names.zip(builders).map { (name, builder) -> Column(name, builder.type) },
+        builders.map { it.array() },
+        rowCount
+    )
+}
+
+/**
+ * The bytes of a file, read through memory mapped windows so that files larger than 2 GB can be read.
+ */
+private class MappedBytes(file: File) : Closeable {
+
+    private val channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)
+
+    private val length = channel.size()
+
+    private var windowStart = 0L
+
+    private var window: MappedByteBuffer = map(0)
+
+    private fun map(start: Long) = channel.map(FileChannel.MapMode.READ_ONLY, start, minOf(WINDOW, length - start))
+
+    /**
+     * The next byte, or -1 at the end of the file.
+     */
+    fun next(): Int {
+        if (!window.hasRemaining()) {
+            if (windowStart + window.capacity() >= length) {
+                return -1
+            }
+            windowStart += window.capacity()
+            window = map(windowStart)
+        }
+        return window.get().toInt() and 0xff
+    }
+
+    override fun close() = channel.close()
+
+    companion object {
+        const val WINDOW = 1L shl 30
+    }
+}
+
+/**
+ * The fields of one record, as byte ranges in a shared buffer that is reused for the next record.
+ */
+private class Record {
+    var bytes = ByteArray(256)
+    var ends = IntArray(16)
+    var size = 0
+
+    fun start(i: Int) = if (i == 0) 0 else ends[i - 1]
+
+    fun text(i: Int) = String(bytes, start(i), ends[i] - start(i), Charsets.UTF_8)
+}
+
+/**
+ * Splits bytes into records of delimited fields. Fields may be quoted with " or ', with a doubled quote standing for
+ * the quote itself. Blank lines and lines starting with the comment character are skipped.
+ */
+private class RecordParser(private val input: MappedBytes, private val delimiter: Char, private val comment: Char) {
+
+    private val record = Record()
+
+    private var length = 0
+
+    private fun append(b: Int) {
+        if (length == record.bytes.size) {
+            record.bytes = record.bytes.copyOf(length * 2)
+        }
+        record.bytes[length++] = b.toByte()
+    }
+
+    /**
+     * End the current field, dropping trailing spaces unless it was quoted.
+     */
+    private fun endField(quoted: Boolean) {
+        if (!quoted) {
+            val start = record.start(record.size)
+            while (length > start && (record.bytes[length - 1] == SPACE || record.bytes[length - 1] == TAB)) {
+                length--
+            }
+        }
+        if (record.size == record.ends.size) {
+            record.ends = record.ends.copyOf(record.size * 2)
+        }
+        record.ends[record.size++] = length
+    }
+
+    /**
+     * The next line as text, for headers.
+     */
+    fun nextLine(): String? {
+        length = 0
+        var b = input.next()
+        if (b == -1) {
+            return null
+        }
+        while (b != -1 && b != '\n'.code) {
+            if (b != '\r'.code) append(b)
+            b = input.next()
+        }
+        val line = String(record.bytes, 0, length, Charsets.UTF_8)
+        return if (line.startsWith(comment)) nextLine() else line
+    }
+
+    /**
+     * The next record, or null at the end of the input. The record is overwritten by the next call.
+     */
+    fun nextRecord(): Record? {
+        while (true) {
+            length = 0
+            record.size = 0
+            var b = input.next()
+            if (b == -1) {
+                return null
+            }
+            if (b == comment.code) {
+                while (b != -1 && b != '\n'.code) b = input.next()
+                continue
+            }
+            if (b == '\n'.code || b == '\r'.code) {
+                continue
+            }
+            var quote = -1
+            var quoted = false
+            var fieldStart = true
+            while (b != -1) {
+                if (quote != -1) {
+                    if (b == quote) {
+                        b = input.next()
+                        if (b == quote) {
+                            append(b)
+                            b = input.next()
+                        } else {
+                            quote = -1
+                        }
+                        continue
+                    }
+                    append(b)
+                } else if (fieldStart && (b == '"'.code || b == '\''.code)) {
+                    quote = b
+                    quoted = true
+                } else if (b == delimiter.code) {
+                    endField(quoted)
+                    quoted = false
+                    fieldStart = true
+                    b = input.next()
+                    continue
+                } else if (b == '\n'.code) {
+                    break
+                } else if (b != '\r'.code && !(fieldStart && (b == ' '.code || b == '\t'.code))) {
+                    append(b)
+                } else {
+                    b = input.next()
+                    continue
+                }
+                fieldStart = false
+                b = input.next()
+            }
+            endField(quoted)
+            return record
+        }
+    }
+
+    private companion object {
+        const val SPACE: Byte = 32
+        const val TAB: Byte = 9
+    }
+}
+
+/**
+ * Growing primitive array for one column, holding ints until a value needs a double and doubles until a value
+ * needs a string, unless the type is fixed. Ints are kept while possible so that a column that turns out to be
+ * strings gets the original text of its integers.
+ */
+private class ColumnBuilder(private val fixedType: Column.DataType?) {
+
+    var type = fixedType ?: Column.DataType.IntType
+        private set
+
+    var size = 0
+        private set
+
+    private var ints = IntArray(if (type == Column.DataType.IntType) 16 else 0)
+    private var doubles = DoubleArray(if (type == Column.DataType.DoubleType) 16 else 0)
+    private var strings = arrayOfNulls<String>(if (type == Column.DataType.StringType) 16 else 0)
+
+    fun array(): Any = when (type) {
+        Column.DataType.IntType -> ints
+        Column.DataType.DoubleType -> doubles
+        Column.DataType.StringType -> strings
+    }
+
+    /**
+     * Add a value from a record. Numbers are parsed from the bytes of the record, so only string values are decoded.
+     */
+    fun add(record: Record, i: Int, missing: String? = null) {
+        val bytes = record.bytes
+        val start = record.start(i)
+        val end = record.ends[i]
+        val isMissing = start == end || missing != null && matches(bytes, start, end, missing)
+        if (type == Column.DataType.IntType) {
+            if (parseInt(bytes, start, end)) {
+                if (size == ints.size) ints = ints.copyOf(size * 2)
+                ints[size++] = parsedInt
+                return
+            }
+            if (isMissing || parseDouble(bytes, start, end)) toDoubles() else toStrings()
+        }
+        if (type == Column.DataType.DoubleType) {
+            if (isMissing || parseDouble(bytes, start, end)) {
+                if (size == doubles.size) doubles = doubles.copyOf(maxOf(size * 2, 16))
+                doubles[size++] = if (isMissing) Double.NaN else parsedDouble
+                return
+            }
+            if (fixedType != null) {
+                throw IllegalArgumentException("${record.text(i)} is not a number")
+            }
+            toStrings()
+        }
+        if (size == strings.size) strings = strings.copyOf(maxOf(size * 2, 16))
+        strings[size++] = if (isMissing && missing != null) null else record.text(i)
+    }
+
+    fun add(text: String, missing: String? = null) {
+        val isMissing = text.isEmpty() || text == missing
+        if (type == Column.DataType.IntType) {
+            val parsed = text.toIntOrNull()
+            if (parsed != null) {
+                if (size == ints.size) ints = ints.copyOf(size * 2)
+                ints[size++] = parsed
+                return
+            }
+            if (isMissing || text.toDoubleOrNull() != null) toDoubles() else toStrings()
+        }
+        if (type == Column.DataType.DoubleType) {
+            val parsed = if (isMissing) Double.NaN else text.toDoubleOrNull()
+            if (parsed != null) {
+                if (size == doubles.size) doubles = doubles.copyOf(maxOf(size * 2, 16))
+                doubles[size++] = parsed
+                return
+            }
+            if (fixedType != null) {
+                throw IllegalArgumentException("$text is not a number")
+            }
+            toStrings()
+        }
+        if (size == strings.size) strings = strings.copyOf(maxOf(size * 2, 16))
+        strings[size++] = if (isMissing && missing != null) null else text
+    }
+
+    /**
+     * Make an int column a double column, once all values are in.
+     */
+    fun intsToDoubles() {
+        if (type == Column.DataType.IntType) {
+            toDoubles()
+        }
+    }
+
+    private fun toDoubles() {
+        doubles = DoubleArray(maxOf(ints.size, 16)) { if (it < size) ints[it].toDouble() else 0.0 }
+        ints = IntArray(0)
+        type = Column.DataType.DoubleType
+    }
+
+    private fun toStrings() {
+        val wereInts = type == Column.DataType.IntType
+        strings = Array(maxOf(size * 2, 16)) {
+            when {
+                it >= size -> null
+                wereInts -> ints[it].toString()
+                else -> doubles[it].toString()
+            }
+        }
+        ints = IntArray(0)
+        doubles = DoubleArray(0)
+        type = Column.DataType.StringType
+    }
+
+    /**
+     * Value set by [parseInt] when it succeeds.
+     */
+    private var parsedInt = 0
+
+    /**
+     * Value set by [parseDouble] when it succeeds.
+     */
+    private var parsedDouble = 0.0
+
+    /**
+     * Parse a decimal integer from ASCII bytes into [parsedInt], returning false if they are not one or it overflows.
+     */
+    private fun parseInt(bytes: ByteArray, start: Int, end: Int): Boolean {
+        if (start == end) return false
+        var i = start
+        val negative = bytes[i] == '-'.code.toByte()
+        if (negative || bytes[i] == '+'.code.toByte()) i++
+        if (i == end || end - i > 9) return false
+        var value = 0
+        while (i < end) {
+            val digit = bytes[i] - '0'.code.toByte()
+            if (digit < 0 || digit > 9) return false
+            value = value * 10 + digit
+            i++
+        }
+        parsedInt = if (negative) -value else value
+        return true
+    }
+
+    /**
+     * Parse a number from ASCII bytes into [parsedDouble], returning false if they are not one. A number with at most
+     * 15 significant digits and a power of ten up to 22 is exact as a long times or over a power of ten, so one
+     * floating point operation gives the correctly rounded result without decoding a string. Other numbers, and
+     * forms like NaN, are parsed from a string.
+     */
+    private fun parseDouble(bytes: ByteArray, start: Int, end: Int): Boolean {
+        var i = start
+        val negative = i < end && bytes[i] == '-'.code.toByte()
+        if (negative || i < end && bytes[i] == '+'.code.toByte()) i++
+        var mantissa = 0L
+        var digits = 0
+        var exponent = 0
+        var sawDigit = false
+        var sawPoint = false
+        while (i < end) {
+            val b = bytes[i]
+            if (b == '.'.code.toByte() && !sawPoint) {
+                sawPoint = true
+                i++
+                continue
+            }
+            val digit = b - '0'.code.toByte()
+            if (digit < 0 || digit > 9) break
+            sawDigit = true
+            if (mantissa != 0L || digit != 0) {
+                if (++digits > 15) return parseDoubleText(bytes, start, end)
+                mantissa = mantissa * 10 + digit
+            }
+            if (sawPoint) exponent--
+            i++
+        }
+        if (!sawDigit) return parseDoubleText(bytes, start, end)
+        if (i < end && (bytes[i] == 'e'.code.toByte() || bytes[i] == 'E'.code.toByte())) {
+            i++
+            val negativeExponent = i < end && bytes[i] == '-'.code.toByte()
+            if (negativeExponent || i < end && bytes[i] == '+'.code.toByte()) i++
+            if (i == end || end - i > 4) return parseDoubleText(bytes, start, end)
+            var power = 0
+            while (i < end) {
+                val digit = bytes[i] - '0'.code.toByte()
+                if (digit < 0 || digit > 9) return parseDoubleText(bytes, start, end)
+                power = power * 10 + digit
+                i++
+            }
+            exponent += if (negativeExponent) -power else power
+        }
+        if (i != end) return parseDoubleText(bytes, start, end)
+        var value = mantissa.toDouble()
+        if (mantissa != 0L) {
+            when {
+                exponent > 22 || exponent < -22 -> return parseDoubleText(bytes, start, end)
+                exponent > 0 -> value *= POWERS_OF_TEN[exponent]
+                exponent < 0 -> value /= POWERS_OF_TEN[-exponent]
+            }
+        }
+        parsedDouble = if (negative) -value else value
+        return true
+    }
+
+    private fun parseDoubleText(bytes: ByteArray, start: Int, end: Int): Boolean {
+        parsedDouble = String(bytes, start, end - start, Charsets.UTF_8).toDoubleOrNull() ?: return false
+        return true
+    }
+
+    private fun matches(bytes: ByteArray, start: Int, end: Int, text: String): Boolean {
+        if (end - start != text.length) return false
+        return text.indices.all { bytes[start + it] == text[it].code.toByte() }
+    }
+
+    private companion object {
+        /**
+         * Powers of ten that are exact as doubles.
+         */
+        val POWERS_OF_TEN = DoubleArray(23).also {
+            it[0] = 1.0
+            for (n in 1 until it.size) it[n] = it[n - 1] * 10
+        }
+    }
+}
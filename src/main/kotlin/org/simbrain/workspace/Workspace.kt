@@ -3,11 +3,13 @@ package org.simbrain.workspace
 import kotlinx.coroutines.*
 import org.pmw.tinylog.Logger
 import org.simbrain.util.SimbrainPreferences
+import org.simbrain.util.SimbrainRandom
 import org.simbrain.util.SimpleIdManager
 import org.simbrain.workspace.couplings.Coupling
 import org.simbrain.workspace.couplings.CouplingManager
 import org.simbrain.workspace.events.WorkspaceEvents2
 import org.simbrain.workspace.serialization.WorkspaceSerializer
+import org.simbrain.workspace.updater.PerformanceMonitor
 import org.simbrain.workspace.updater.UpdateAction
 import org.simbrain.workspace.updater.WorkspaceUpdater
 import org.simbrain.workspace.updater.updateAction
@@ -98,6 +100,20 @@ class Workspace: CoroutineScope {
      */
     var updateDelay = 0
 
+    /**
+     * Seed for reproducible runs, or null for random seeds. Setting it reseeds the components already in the
+     * workspace and everything created afterwards, e.g. networks and their models' random streams. See
+     * [SimbrainRandom].
+     */
+    var randomSeed: Long?
+        get() = SimbrainRandom.seed
+        set(value) {
+            SimbrainRandom.seed = value
+            if (value != null) {
+                _componentList.forEach { it.setRandomSeed(SimbrainRandom.seedFor(it.name)) }
+            }
+        }
+
     @Transient
     var couplingManager = CouplingManager(this)
         private set
@@ -378,7 +394,9 @@ class Workspace: CoroutineScope {
         try {
             if (theFile != null) {
                 clearWorkspace()
-                serializer.deserialize(FileInputStream(theFile))
+                PerformanceMonitor.measure("Opening workspace", category = "Serialization") {
+                    serializer.deserialize(FileInputStream(theFile))
+                }
                 currentFile = theFile
                 setWorkspaceChanged(false)
                 events.workspaceOpened.fireAndForget()
@@ -399,7 +417,9 @@ class Workspace: CoroutineScope {
                 val ostream = FileOutputStream(file)
                 try {
                     val serializer = WorkspaceSerializer(this)
-                    serializer.serialize(ostream)
+                    PerformanceMonitor.measure("Saving workspace", category = "Serialization") {
+                        serializer.serialize(ostream)
+                    }
                     setWorkspaceChanged(false)
                 } catch (e: Exception) {
                     e.printStackTrace()
@@ -421,7 +441,9 @@ class Workspace: CoroutineScope {
             try {
                 val serializer = WorkspaceSerializer(this)
                 val bas = ByteArrayOutputStream()
-                serializer.serialize(bas)
+                PerformanceMonitor.measure("Saving workspace", category = "Serialization") {
+                    serializer.serialize(bas)
+                }
                 bas.close()
                 return bas.toByteArray()
             } catch (e: IOException) {
@@ -438,7 +460,9 @@ class Workspace: CoroutineScope {
             clearWorkspace()
             val serializer = WorkspaceSerializer(this)
             val bis = ByteArrayInputStream(zipData)
-            serializer.deserialize(bis)
+            PerformanceMonitor.measure("Opening workspace", category = "Serialization") {
+                serializer.deserialize(bis)
+            }
             bis.close()
         } catch (e: IOException) {
             e.printStackTrace()
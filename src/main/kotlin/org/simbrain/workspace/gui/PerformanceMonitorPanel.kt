@@ -2,6 +2,7 @@ package org.simbrain.workspace.gui
 
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.launch
+import org.simbrain.util.SFileChooser
 import org.simbrain.util.format
 import org.simbrain.workspace.Workspace
 import org.simbrain.workspace.updater.*
@@ -54,6 +55,19 @@ class PerformanceMonitorPanel(private val workspace: Workspace) : JPanel(BorderL
 
         this.add("Center", contentPanel)
 
+        val buttons = JPanel()
+        buttons.add(JButton("Export CSV...").apply {
+            addActionListener {
+                SFileChooser(".", "Performance metrics", "csv").showSaveDialog("performance.csv")?.let {
+                    PerformanceMonitor.exportCsv(it)
+                }
+            }
+        })
+        buttons.add(JButton("Reset").apply {
+            addActionListener { PerformanceMonitor.reset() }
+        })
+        this.add("South", buttons)
+
         workspace.launch(Dispatchers.Default) {
             PerformanceMonitor.flow.collect { (identifier, name, threadName, nanoTime) ->
                 val properties = timers.getOrPut(identifier) { TimerProperties(name, nanoTime, nanoTime, nanoTime) }
@@ -77,20 +91,21 @@ class PerformanceMonitorPanel(private val workspace: Workspace) : JPanel(BorderL
                 record.markForDeletion
             }.forEach { (key) -> threadActions.remove(key) }
 
-            timersList.model = DefaultListModel<String>().apply { addAll(timers.values.map { record ->
+            timersList.model = DefaultListModel<String>().apply { addAll(timers.map { (identifier, record) ->
                 record.markForDeletion = true
                 val (recordName, min, avg, max) = record
                 fun Long.toSecondString()  = (this / 1e9).format(5)
                 val minSeconds = min.toSecondString()
                 val avgSeconds = avg.toSecondString()
                 val maxSeconds = max.toSecondString()
+                val p99Seconds = (PerformanceMonitor.metrics[identifier]?.latency?.percentile(99.0) ?: max).toSecondString()
                 val maxLabelLength = 50
                 val formattedRecordName = if (recordName.length > maxLabelLength - 3) {
                     recordName.substring(0, maxLabelLength - 3) + "..."
                 } else {
                     recordName
                 }
-                "%-${maxLabelLength}s min:%s avg:%s max:%s".format(formattedRecordName, minSeconds, avgSeconds, maxSeconds)
+                "%-${maxLabelLength}s min:%s avg:%s p99:%s max:%s".format(formattedRecordName, minSeconds, avgSeconds, p99Seconds, maxSeconds)
             }) }
             timersList.repaint()
             threadsList.model = DefaultListModel<String>().apply { addAll(threadActions.values.map { record ->
@@ -0,0 +1,16 @@
+package org.simbrain.workspace.updater
+
+/**
+ * Updates couplings and components in dependency order using the updater's [UpdateScheduler]: each component updates
+ * as soon as its own couplings have, rather than after all couplings have. When this is the only update action,
+ * iterating or running the workspace also lets uncoupled components run ahead of each other; see
+ * [WorkspaceUpdater].
+ */
+class DependencyUpdateAction(@Transient val updater: WorkspaceUpdater) :
+    UpdateAction(description = "Update Components When Their Inputs Are Ready") {
+
+    override suspend fun run() {
+        updater.scheduler.run(1)
+    }
+
+}
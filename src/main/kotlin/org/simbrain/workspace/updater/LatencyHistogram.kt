@@ -0,0 +1,119 @@
+package org.simbrain.workspace.updater
+
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicLongArray
+import java.util.concurrent.atomic.LongAdder
+
+/**
+ * Counts of durations in buckets that are exact below 64 ns and about 3% wide above, so that percentiles can be read
+ * to within 3% with a fixed 15 KB of memory however many durations are recorded. Safe to record into from several
+ * threads at once.
+ */
+class LatencyHistogram {
+
+    private val counts = AtomicLongArray(BUCKET_COUNT)
+
+    private val total = LongAdder()
+
+    private val sum = LongAdder()
+
+    private val minimum = AtomicLong(Long.MAX_VALUE)
+
+    private val maximum = AtomicLong(0)
+
+    fun record(nanos: Long) {
+        val value = nanos.coerceAtLeast(0)
+        counts.incrementAndGet(bucket(value))
+        total.increment()
+        sum.add(value)
+        if (value < minimum.get()) minimum.accumulateAndGet(value) { a, b -> minOf(a, b) }
+        if (value > maximum.get()) maximum.accumulateAndGet(value) { a, b -> maxOf(a, b) }
+    }
+
+    val count get() = total.sum()
+
+    /**
+     * Sum of all recorded durations in nanoseconds.
+     */
+    val totalNanos get() = sum.sum()
+
+    val mean get() = count.let { if (it == 0L) 0.0 else totalNanos.toDouble() / it }
+
+    val min get() = if (count == 0L) 0 else minimum.get()
+
+    val max get() = maximum.get()
+
+    /**
+     * The duration in nanoseconds that the given percent of recorded durations are at or below, e.g. 99.0 for the
+     * 99th percentile.
+     */
+    fun percentile(percent: Double): Long {
+        val n = count
+        if (n == 0L) {
+            return 0
+        }
+        val rank = maxOf(1L, Math.ceil(percent / 100 * n).toLong())
+        var seen = 0L
+        for (i in 0 until BUCKET_COUNT) {
+            seen += counts[i]
+            if (seen >= rank) {
+                return middle(i).coerceIn(min, max)
+            }
+        }
+        return max
+    }
+
+    fun reset() {
+        for (i in 0 until BUCKET_COUNT) {
+            counts[i] = 0
+        }
+        total.reset()
+        sum.reset()
+        minimum.set(Long.MAX_VALUE)
+        maximum.set(0)
+    }
+
+    companion object {
+
+        /**
+         * Each power of two is split into 2^SUB_BITS buckets.
+         */
+        private const val SUB_BITS = 5
+
+        private const val SUB_COUNT = 1 shl SUB_BITS
+
+        /**
+         * Values below this have a bucket each.
+         */
+        private const val EXACT = 2 * SUB_COUNT
+
+        private const val BUCKET_COUNT = EXACT + (62 - SUB_BITS) * SUB_COUNT
+
+        private fun bucket(value: Long): Int {
+            if (value < EXACT) {
+                return value.toInt()
+            }
+            val exponent = 63 - java.lang.Long.numberOfLeadingZeros(value)
+            val sub = (value ushr (exponent - SUB_BITS)).toInt() and (SUB_COUNT - 1)
+            return EXACT + (exponent - SUB_BITS - 1) * SUB_COUNT + sub
+        }
+
+        private fun lowest(bucket: Int): Long {
+            if (bucket < EXACT) {
+                return bucket.toLong()
+            }
+            val exponent = (bucket - EXACT) / SUB_COUNT + SUB_BITS + 1
+            val sub = (bucket - EXACT) % SUB_COUNT
+            return (SUB_COUNT + sub).toLong() shl (exponent - SUB_BITS)
+        }
+
+        private fun middle(bucket: Int): Long {
+            if (bucket < EXACT) {
+                return bucket.toLong()
+            }
+            val low = lowest(bucket)
+            val exponent = (bucket - EXACT) / SUB_COUNT + SUB_BITS + 1
+            return low + (1L shl (exponent - SUB_BITS)) / 2
+        }
+    }
+}
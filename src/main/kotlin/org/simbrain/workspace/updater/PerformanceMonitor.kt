@@ -1,28 +1,69 @@
 package org.simbrain.workspace.updater
 
+import jdk.jfr.Category
+import jdk.jfr.DataAmount
+import jdk.jfr.Event
+import jdk.jfr.Label
+import jdk.jfr.Name
+import jdk.jfr.StackTrace
+import jdk.jfr.Timespan
 import kotlinx.coroutines.flow.MutableSharedFlow
 import kotlinx.coroutines.flow.asSharedFlow
 import org.simbrain.workspace.gui.PerformanceMonitorPanel
-import kotlin.system.measureNanoTime
+import java.io.File
+import java.lang.management.ManagementFactory
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.LongAdder
 
 /**
  * A singleton object that can be used to track how long blocks of code take to execute. Used by the
  * [PerformanceMonitorPanel] to display performance statistics.
+ *
+ * Each identifier gets a [PerformanceMetric] with a latency histogram and a count of the bytes allocated while it ran.
+ * Events fired through [org.simbrain.util.Events2] are counted by event class. The results can be read from
+ * [metrics], printed with [report], written with [exportCsv], and, while a flight recording with Simbrain events
+ * enabled is running, are also committed as JFR events.
  */
 object PerformanceMonitor {
 
     /**
      * The monitor consumes resources so by default it is disabled. It is only enabled when the
-     * [PerformanceMonitorPanel] is visible.
+     * [PerformanceMonitorPanel] is visible, or when set by a script. When disabled, measuring costs one read of this
+     * field.
      */
+    @Volatile
+    @JvmStatic
     var enabled = false
 
+    /**
+     * Whether to count the bytes each measured block allocates. Only counted when the block runs on one thread
+     * throughout and the JVM supports it.
+     */
+    @Volatile
+    var trackAllocations = true
+
     /**
      * Asynchronously buffers measured events for tracking their performance stats.
      */
     private val mutableSharedFlow = MutableSharedFlow<PerformanceMetrics>()
     val flow = mutableSharedFlow.asSharedFlow()
 
+    private val _metrics = ConcurrentHashMap<Any, PerformanceMetric>()
+
+    /**
+     * Metrics of everything measured since the last [reset], by identifier.
+     */
+    val metrics: Map<Any, PerformanceMetric> get() = _metrics
+
+    private val _eventCounts = ConcurrentHashMap<String, EventCount>()
+
+    /**
+     * Event dispatch counts since the last [reset], by class of the events object.
+     */
+    val eventCounts: Map<String, EventCount> get() = _eventCounts
+
+    private val threads = ManagementFactory.getThreadMXBean() as? com.sun.management.ThreadMXBean
+
     /**
      * Record the time a provided block takes to execute.
      */
@@ -36,31 +77,212 @@ object PerformanceMonitor {
          * String description for [PerformanceMonitorPanel].
          */
         name: String = identifier.toString(),
+        /**
+         * Kind of work measured, for grouping in reports.
+         */
+        category: String = "Update",
         /**
          * The block to be executed and measured.
          */
         block: suspend () -> Unit
     ) {
         if (enabled) {
-            val nanoTime = measureNanoTime {
-                block()
-            }
             val thread = Thread.currentThread()
-
+            val allocatedBefore = allocatedBytes(thread)
+            val start = System.nanoTime()
+            block()
+            val nanoTime = System.nanoTime() - start
+            val allocated = if (Thread.currentThread() === thread) allocatedSince(thread, allocatedBefore) else -1
+            add(identifier, name, category, nanoTime, allocated)
             mutableSharedFlow.emit(PerformanceMetrics(identifier, name, thread.name, nanoTime))
         } else {
             block()
         }
     }
 
+    /**
+     * Record the time a block of non-suspending code takes, e.g. the update of one network model. Unlike [record] this
+     * does not notify the [PerformanceMonitorPanel] of each measurement, so it can be used for small, frequent blocks.
+     */
+    inline fun <T> measure(
+        identifier: Any,
+        name: String = identifier.toString(),
+        category: String = "Update",
+        block: () -> T
+    ): T {
+        if (!enabled) {
+            return block()
+        }
+        val thread = Thread.currentThread()
+        val allocatedBefore = allocatedBytes(thread)
+        val start = System.nanoTime()
+        val result = block()
+        add(identifier, name, category, System.nanoTime() - start, allocatedSince(thread, allocatedBefore))
+        return result
+    }
+
+    /**
+     * Bytes allocated by a thread so far, or -1 if not tracked.
+     */
+    @PublishedApi
+    internal fun allocatedBytes(thread: Thread): Long {
+        if (!trackAllocations || threads == null) {
+            return -1
+        }
+        return threads.getThreadAllocatedBytes(thread.id)
+    }
+
+    @PublishedApi
+    internal fun allocatedSince(thread: Thread, before: Long) = if (before < 0) -1 else allocatedBytes(thread) - before
+
+    @PublishedApi
+    internal fun add(identifier: Any, name: String, category: String, nanos: Long, allocated: Long) {
+        val metric = _metrics.getOrPut(identifier) { PerformanceMetric(name, category) }
+        metric.latency.record(nanos)
+        if (allocated >= 0) {
+            metric.allocatedBytes.add(allocated)
+        }
+        val event = MeasurementEvent()
+        if (event.isEnabled) {
+            event.name = name
+            event.category = category
+            event.nanos = nanos
+            event.allocatedBytes = allocated
+            event.commit()
+        }
+    }
+
+    /**
+     * Count one firing of an event, dispatched to the given number of handlers.
+     */
+    fun countEvent(eventsClass: String, handlerCount: Int) {
+        val count = _eventCounts.getOrPut(eventsClass) { EventCount() }
+        count.fired.increment()
+        count.dispatched.add(handlerCount.toLong())
+    }
+
+    /**
+     * Forget all metrics and counts.
+     */
+    fun reset() {
+        _metrics.clear()
+        _eventCounts.clear()
+    }
+
+    private val sortedMetrics get() = _metrics.values.sortedByDescending { it.latency.totalNanos }
+
+    /**
+     * A plain text table of all metrics, slowest in total first, followed by event counts. Times are in microseconds.
+     */
+    fun report(): String = buildString {
+        appendLine(
+            "%-12s %-40s %10s %10s %10s %10s %10s %10s %12s".format(
+                "Category", "Name", "Count", "Mean", "p50", "p90", "p99", "Max", "Allocated"
+            )
+        )
+        for (metric in sortedMetrics) {
+            val latency = metric.latency
+            fun Long.micros() = "%.1f".format(this / 1e3)
+            appendLine(
+                "%-12s %-40s %10d %10s %10s %10s %10s %10s %12d".format(
+                    metric.category.take(12),
+                    metric.name.let { if (it.length > 40) it.take(37) + "..." else it },
+                    latency.count,
+                    "%.1f".format(latency.mean / 1e3),
+                    latency.percentile(50.0).micros(),
+                    latency.percentile(90.0).micros(),
+                    latency.percentile(99.0).micros(),
+                    latency.max.micros(),
+                    metric.allocatedBytes.sum()
+                )
+            )
+        }
+        if (_eventCounts.isNotEmpty()) {
+            appendLine()
+            appendLine("%-40s %10s %10s".format("Events", "Fired", "Handled"))
+            _eventCounts.entries.sortedByDescending { it.value.fired.sum() }.forEach { (name, count) ->
+                appendLine("%-40s %10d %10d".format(name, count.fired.sum(), count.dispatched.sum()))
+            }
+        }
+    }
+
+    /**
+     * Write all metrics to a csv file with one row per metric. Times are in nanoseconds.
+     */
+    fun exportCsv(file: File) {
+        file.bufferedWriter().use { writer ->
+            writer.write("category,name,count,mean,min,p50,p90,p99,p999,max,total,allocated_bytes\n")
+            for (metric in sortedMetrics) {
+                val latency = metric.latency
+                val name = "\"" + metric.name.replace("\"", "\"\"") + "\""
+                writer.write(
+                    listOf(
+                        metric.category, name, latency.count, latency.mean, latency.min,
+                        latency.percentile(50.0), latency.percentile(90.0), latency.percentile(99.0),
+                        latency.percentile(99.9), latency.max, latency.totalNanos, metric.allocatedBytes.sum()
+                    ).joinToString(",")
+                )
+                writer.write("\n")
+            }
+            for ((name, count) in _eventCounts) {
+                writer.write("Event,\"$name\",${count.fired.sum()},,,,,,,,,\n")
+            }
+        }
+    }
+
     /**
      * Convenient way to invoke actions and record their performance.
      */
     suspend operator fun UpdateAction.invoke() {
-        record(this, description?: "(Unnamed Action)") {
+        record(this, description?: "(Unnamed Action)", "Workspace") {
             run()
         }
     }
 }
 
-data class PerformanceMetrics(val identifier: Any, val name: String, val threadName: String, val nanoTime: Long);
\ No newline at end of file
+data class PerformanceMetrics(val identifier: Any, val name: String, val threadName: String, val nanoTime: Long);
+
+/**
+ * Everything measured for one identifier.
+ */
+class PerformanceMetric(val name: String, val category: String) {
+    val latency = LatencyHistogram()
+    val allocatedBytes = LongAdder()
+}
+
+class EventCount {
+    val fired = LongAdder()
+
+    /**
+     * Total number of handlers the firings were dispatched to.
+     */
+    val dispatched = LongAdder()
+}
+
+/**
+ * JFR event for one measurement, for viewing Simbrain's metrics in a flight recording alongside the JVM's own.
+ */
+@Name("org.simbrain.Measurement")
+@Label("Simbrain Measurement")
+@Category("Simbrain")
+@StackTrace(false)
+internal class MeasurementEvent : Event() {
+
+    @JvmField
+    @Label("Name")
+    var name: String = ""
+
+    @JvmField
+    @Label("Category")
+    var category: String = ""
+
+    @JvmField
+    @Label("Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    var nanos: Long = 0
+
+    @JvmField
+    @Label("Allocated")
+    @DataAmount(DataAmount.BYTES)
+    var allocatedBytes: Long = 0
+}
@@ -20,7 +20,7 @@ class UpdateAllAction(@Transient val updater: WorkspaceUpdater) : UpdateAction(d
             .filter { it.updateOn }
             .map {
             async {
-               PerformanceMonitor.record("Updating Component ${it.name}") {
+               PerformanceMonitor.record("Updating Component ${it.name}", category = "Component") {
                    it.update()
                }
             }
@@ -31,7 +31,9 @@ class UpdateAllAction(@Transient val updater: WorkspaceUpdater) : UpdateAction(d
      * Update couplings.
      */
     suspend fun updateCouplings() {
-        updater.workspace.couplingManager.updateCouplings()
+        PerformanceMonitor.record("Updating Couplings", category = "Couplings") {
+            updater.workspace.couplingManager.updateCouplings()
+        }
         Logger.trace("couplings updated")
         updater.events.couplingsUpdates.fireAndForget()
     }
@@ -0,0 +1,247 @@
+package org.simbrain.workspace.updater
+
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import org.simbrain.workspace.AttributeContainer
+import org.simbrain.workspace.WorkspaceComponent
+import org.simbrain.workspace.couplings.Coupling
+import java.util.*
+
+/**
+ * Updates workspace components as soon as their inputs are ready, instead of updating all couplings and then all
+ * components with a barrier between each step, as [UpdateAllAction] does.
+ *
+ * The scheduler builds a graph from the couplings, with an edge between two components for each producer / consumer
+ * pair. The results are the same as with [UpdateAllAction]: on each iteration a coupling reads its producer as it was
+ * after the previous iteration and sets its consumer once, before the consumer updates. That means
+ *  - the couplings between two components run for iteration t once both have finished iteration t - 1, and
+ *  - a component runs iteration t once all couplings into and out of it have run for iteration t.
+ *
+ * Over several iterations, components that are not coupled to each other do not wait for each other at all, so a
+ * fast component can run ahead of a slow, unrelated one, and coupled components run at most one iteration apart.
+ * Iteration t is finished when every component has finished it.
+ *
+ * The graph is rebuilt when components or couplings change. Couplings whose producer or consumer does not belong
+ * to any component's attribute containers can't be placed in the graph; if there are any, each iteration is run
+ * like [UpdateAllAction] instead.
+ */
+class UpdateScheduler(val updater: WorkspaceUpdater) {
+
+    /**
+     * A component, with the iteration it last finished in the current run.
+     */
+    private class Node(val component: WorkspaceComponent) {
+        val done = MutableStateFlow(0)
+        val edges = ArrayList<Edge>()
+    }
+
+    /**
+     * The couplings from one component to another, with the iteration they were last updated in the current run.
+     */
+    private class Edge(val producer: Node, val consumer: Node) {
+        val done = MutableStateFlow(0)
+        val couplings = ArrayList<Coupling>()
+    }
+
+    private class Graph(
+        val components: List<WorkspaceComponent>,
+        val couplingCount: Int,
+        val nodes: List<Node>,
+        val edges: List<Edge>,
+        val complete: Boolean
+    )
+
+    private var graph: Graph? = null
+
+    /**
+     * Set when components or couplings are added or removed. A run in progress stops at the next consistent point so
+     * the graph can be rebuilt.
+     */
+    @Volatile
+    private var graphChanged = true
+
+    init {
+        updater.workspace.events.componentAdded.on { graphChanged = true }
+        updater.workspace.events.componentRemoved.on { graphChanged = true }
+        with(updater.workspace.couplingManager.events) {
+            couplingAdded.on { graphChanged = true }
+            couplingRemoved.on { graphChanged = true }
+            couplingsRemoved.on { graphChanged = true }
+        }
+    }
+
+    private fun currentGraph(): Graph {
+        val components = updater.components
+        val couplings = updater.workspace.couplingManager.couplings
+        graph?.let {
+            if (!graphChanged && it.components == components && it.couplingCount == couplings.size) {
+                return it
+            }
+        }
+        graphChanged = false
+        return buildGraph(components, couplings.toList()).also { graph = it }
+    }
+
+    private fun buildGraph(components: List<WorkspaceComponent>, couplings: List<Coupling>): Graph {
+        val nodes = components.map { Node(it) }
+        val nodeOf = IdentityHashMap<AttributeContainer, Node>()
+        nodes.forEach { node -> node.component.attributeContainers.forEach { nodeOf[it] = node } }
+        val edges = LinkedHashMap<Pair<Node, Node>, Edge>()
+        var complete = true
+        for (coupling in couplings) {
+            val producer = nodeOf[coupling.producer.baseObject]
+            val consumer = nodeOf[coupling.consumer.baseObject]
+            if (producer == null || consumer == null) {
+                complete = false
+                continue
+            }
+            edges.getOrPut(producer to consumer) {
+                Edge(producer, consumer).also {
+                    producer.edges.add(it)
+                    if (consumer !== producer) {
+                        consumer.edges.add(it)
+                    }
+                }
+            }.couplings.add(coupling)
+        }
+        return Graph(components, couplings.size, nodes, edges.values.toList(), complete)
+    }
+
+    /**
+     * Run up to [iterations] iterations. Before a component or coupling starts a new iteration [continueWhile] is
+     * checked; once it returns false, or the components or couplings change, no new iterations are started and
+     * everything finishes the last iteration that was started, so the run stops in a consistent state.
+     *
+     * Couplings and components read the workspace time of the iteration they are running, starting with
+     * [firstTime], even when they are ahead of [WorkspaceUpdater.time]; see [WorkspaceUpdater.atTime].
+     *
+     * @param iterationDone called in order with each iteration (1 for the first in this run) once every component
+     * has finished it
+     * @param holdUntilDone if true, no iteration starts until [iterationDone] has returned for the one before, so
+     * nothing runs ahead while it does
+     * @return the number of iterations run
+     */
+    suspend fun run(
+        iterations: Int,
+        firstTime: Int = updater.time,
+        continueWhile: () -> Boolean = { true },
+        holdUntilDone: Boolean = false,
+        iterationDone: suspend (Int) -> Unit = {}
+    ): Int {
+        val graph = currentGraph()
+        if (!graph.complete || graph.nodes.isEmpty()) {
+            return runInLockStep(iterations, firstTime, continueWhile, iterationDone)
+        }
+        graph.nodes.forEach { it.done.value = 0 }
+        graph.edges.forEach { it.done.value = 0 }
+
+        val lock = Any()
+        var limit = iterations
+        var maxStarted = 0
+
+        /**
+         * Whether a node or edge may start iteration t. Starting is recorded so that if the run is stopped, it
+         * stops after the last iteration anything has started.
+         */
+        fun mayStart(t: Int) = synchronized(lock) {
+            if (!continueWhile() || graphChanged) {
+                limit = minOf(limit, maxStarted)
+            }
+            if (t > limit) {
+                false
+            } else {
+                maxStarted = maxOf(maxStarted, t)
+                true
+            }
+        }
+
+        val unfinished = IntArray(iterations + 1) { graph.nodes.size }
+        val reported = MutableStateFlow(0)
+        val reportMutex = Mutex()
+        suspend fun finished(t: Int) {
+            synchronized(lock) { unfinished[t]-- }
+            reportMutex.withLock {
+                while (reported.value < iterations && synchronized(lock) { unfinished[reported.value + 1] == 0 }) {
+                    iterationDone(reported.value + 1)
+                    reported.value++
+                }
+            }
+        }
+
+        /**
+         * Wait until iteration t may start. Every iteration that has started finishes, so this never waits for one
+         * that won't.
+         */
+        suspend fun ready(t: Int): Boolean {
+            if (holdUntilDone) {
+                reported.first { it >= t - 1 }
+            }
+            return mayStart(t)
+        }
+
+        coroutineScope {
+            for (edge in graph.edges) {
+                launch {
+                    for (t in 1..iterations) {
+                        edge.producer.done.first { it >= t - 1 }
+                        edge.consumer.done.first { it >= t - 1 }
+                        if (!ready(t)) {
+                            break
+                        }
+                        updater.atTime(firstTime + t - 1) {
+                            edge.couplings.forEach { it.update() }
+                        }
+                        edge.done.value = t
+                    }
+                }
+            }
+            for (node in graph.nodes) {
+                launch {
+                    for (t in 1..iterations) {
+                        // Claim the iteration before waiting, so the edges it waits for are allowed to run it
+                        if (!ready(t)) {
+                            break
+                        }
+                        node.edges.forEach { edge -> edge.done.first { it >= t } }
+                        if (node.component.updateOn) {
+                            updater.atTime(firstTime + t - 1) {
+                                PerformanceMonitor.record("Updating Component ${node.component.name}", category = "Component") {
+                                    node.component.update()
+                                }
+                            }
+                        }
+                        node.done.value = t
+                        finished(t)
+                    }
+                }
+            }
+        }
+        return limit
+    }
+
+    /**
+     * Run iterations the way [UpdateAllAction] does.
+     */
+    private suspend fun runInLockStep(
+        iterations: Int,
+        firstTime: Int,
+        continueWhile: () -> Boolean,
+        iterationDone: suspend (Int) -> Unit
+    ): Int {
+        val action = UpdateAllAction(updater)
+        for (t in 1..iterations) {
+            if (!continueWhile()) {
+                return t - 1
+            }
+            updater.atTime(firstTime + t - 1) {
+                action.run()
+            }
+            iterationDone(t)
+        }
+        return iterations
+    }
+}
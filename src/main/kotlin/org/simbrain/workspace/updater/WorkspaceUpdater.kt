@@ -21,6 +21,17 @@ import org.simbrain.workspace.events.WorkspaceUpdaterEvents
  * threads that can be configured), for cases when component updating happens
  * concurrently.
  *
+ * If the only update action is a [DependencyUpdateAction], running or
+ * iterating the workspace pipelines updates across iterations with the
+ * [scheduler], a batch of iterations at a time: each component updates as
+ * soon as its inputs are ready, so components that are not coupled to each
+ * other never wait for each other. Couplings and components read the time of
+ * the iteration they are running from [time]; elsewhere it is the last
+ * iteration finished by all components. Non-removable actions run and
+ * [WorkspaceUpdaterEvents.workspaceUpdated] is fired as each iteration is
+ * finished by all components, and if there are non-removable actions, nothing
+ * starts the next iteration until they have run.
+ *
  * @author Matt Watson
  * @author Jeff Yoshimi
  */
@@ -35,15 +46,40 @@ class WorkspaceUpdater(val workspace: Workspace) {
         private set
 
     /**
-     * The number of times the update has run.
+     * Time of the iteration being run in the current coroutine, when pipelined updates run it ahead of the rest of
+     * the workspace. See [atTime].
+     */
+    private val iterationTime = ThreadLocal<Int?>()
+
+    /**
+     * The number of times the update has run, or in a coupling or component update run by the [scheduler], the
+     * iteration being run.
      */
     var time = 0
+        get() = iterationTime.get() ?: field
 
     /**
      * The update Manager.
      */
     val updateManager: UpdateActionManager = UpdateActionManager(this)
 
+    /**
+     * Schedules component updates by their couplings. Used by [DependencyUpdateAction].
+     */
+    val scheduler by lazy { UpdateScheduler(this) }
+
+    /**
+     * The scheduler, if updates should be pipelined across iterations.
+     */
+    private val pipelineScheduler: UpdateScheduler?
+        get() = if (updateManager.actionList.singleOrNull() is DependencyUpdateAction) scheduler else null
+
+    /**
+     * Run [block] with [time] reading [iterationTime] in this coroutine, including in coroutines it launches.
+     */
+    suspend fun <T> atTime(iterationTime: Int, block: suspend () -> T): T =
+        withContext(this.iterationTime.asContextElement(iterationTime)) { block() }
+
     /**
      * Reset time to 0.
      */
@@ -70,7 +106,11 @@ class WorkspaceUpdater(val workspace: Workspace) {
         events.runStarted.fireAndForget()
         withContext(workspace.coroutineContext) {
             while (isRunning) {
-                doUpdate()
+                if (pipelineScheduler != null) {
+                    doPipelinedUpdates(PIPELINE_ITERATIONS) { isRunning }
+                } else {
+                    doUpdate()
+                }
             }
         }
         isRunning = false
@@ -131,8 +171,14 @@ class WorkspaceUpdater(val workspace: Workspace) {
         }
         events.runStarted.fireAndForget()
         withContext(workspace.coroutineContext) {
-            repeat(numIterations) {
-                doUpdate()
+            var remaining = numIterations
+            while (remaining > 0) {
+                if (pipelineScheduler != null) {
+                    remaining -= doPipelinedUpdates(remaining) { true }
+                } else {
+                    doUpdate()
+                    remaining--
+                }
             }
         }
         isRunning = false
@@ -160,6 +206,36 @@ class WorkspaceUpdater(val workspace: Workspace) {
         Logger.trace("done: $time")
     }
 
+    /**
+     * Run up to [iterations] iterations with the [scheduler], letting components run ahead of unrelated ones.
+     * Non-removable actions run and events fire as each iteration is finished by all components, with [time] set
+     * to it. While non-removable actions run, nothing runs ahead.
+     *
+     * @return the number of iterations run
+     */
+    private suspend fun doPipelinedUpdates(iterations: Int, continueWhile: () -> Boolean): Int {
+        val start = time
+        Logger.trace("starting pipelined: ${start + 1}")
+        val nonRemovableActions = updateManager.nonRemovableActions.toList()
+        val done = scheduler.run(
+            iterations,
+            firstTime = start + 1,
+            continueWhile = continueWhile,
+            holdUntilDone = nonRemovableActions.isNotEmpty()
+        ) { t ->
+            time = start + t
+            for (action in nonRemovableActions) {
+                with(PerformanceMonitor) {
+                    action()
+                }
+            }
+            events.workspaceUpdated.fireAndForget()
+        }
+        time = start + done
+        Logger.trace("done pipelined: $time")
+        return done
+    }
+
     /**
      * Constructor for the updater that uses the default controller and default
      * number of threads.
@@ -185,3 +261,9 @@ class WorkspaceUpdater(val workspace: Workspace) {
         }
 
 }
+
+/**
+ * Number of iterations the [WorkspaceUpdater] pipelines at a time while running. The scheduling graph can only be
+ * rebuilt between batches, which end early if components or couplings change.
+ */
+private const val PIPELINE_ITERATIONS = 100
@@ -0,0 +1,179 @@
+package org.simbrain.world.odorworld
+
+import org.simbrain.world.odorworld.entities.Bounded
+import org.simbrain.world.odorworld.entities.OdorWorldEntity
+import java.awt.geom.Point2D
+import java.util.*
+import kotlin.math.floor
+import kotlin.math.max
+
+/**
+ * Uniform grid over world coordinates, used to find the entities near a point or a bound without scanning the whole
+ * entity list.
+ *
+ * Entities are indexed by their center location. Query results are returned in the order the entities were added,
+ * which is also the order of [OdorWorld.getEntityList], so that sums and "first match" searches over query results
+ * give the same answer as the corresponding scan over the full list.
+ *
+ * The grid does not listen for location or size changes. [OdorWorld] calls [update] when an entity moves and
+ * [refresh] at the start of each world update to pick up any changes made in between (e.g. dragging or resizing in
+ * the gui).
+ */
+class EntityGrid @JvmOverloads constructor(val cellSize: Double = DEFAULT_CELL_SIZE) {
+
+    private class Entry(val entity: OdorWorldEntity, val order: Long, var cell: Long)
+
+    private val cells = HashMap<Long, MutableList<Entry>>()
+
+    private val entries = IdentityHashMap<OdorWorldEntity, Entry>()
+
+    private var nextOrder = 0L
+
+    /**
+     * Largest half width of any indexed entity. Used to expand bound queries so that any entity that could overlap
+     * the bound is returned. Grows on [add] and [update] and is recomputed by [refresh], so that it also shrinks.
+     */
+    private var maxHalfWidth = 0.0
+
+    private var maxHalfHeight = 0.0
+
+    private fun cellIndex(coordinate: Double) = floor(coordinate / cellSize).toInt()
+
+    private fun key(cx: Int, cy: Int) = (cx.toLong() shl 32) or (cy.toLong() and 0xffffffffL)
+
+    private fun keyOf(entity: OdorWorldEntity) = key(cellIndex(entity.x), cellIndex(entity.y))
+
+    @Synchronized
+    fun add(entity: OdorWorldEntity) {
+        if (entries.containsKey(entity)) {
+            return
+        }
+        val entry = Entry(entity, nextOrder++, keyOf(entity))
+        entries[entity] = entry
+        cells.getOrPut(entry.cell) { ArrayList() }.add(entry)
+        maxHalfWidth = max(maxHalfWidth, entity.width / 2)
+        maxHalfHeight = max(maxHalfHeight, entity.height / 2)
+    }
+
+    @Synchronized
+    fun remove(entity: OdorWorldEntity) {
+        val entry = entries.remove(entity) ?: return
+        removeFromCell(entry)
+    }
+
+    /**
+     * Move an entity to the cell matching its current location, and account for its current size.
+     */
+    @Synchronized
+    fun update(entity: OdorWorldEntity) {
+        val entry = entries[entity] ?: return
+        maxHalfWidth = max(maxHalfWidth, entity.width / 2)
+        maxHalfHeight = max(maxHalfHeight, entity.height / 2)
+        val newCell = keyOf(entity)
+        if (newCell != entry.cell) {
+            removeFromCell(entry)
+            entry.cell = newCell
+            // Keep each cell sorted by insertion order so queries only need to merge cells
+            val cell = cells.getOrPut(newCell) { ArrayList() }
+            var index = cell.size
+            while (index > 0 && cell[index - 1].order > entry.order) {
+                index--
+            }
+            cell.add(index, entry)
+        }
+    }
+
+    /**
+     * Re-index all the provided entities and recompute the largest entity size.
+     */
+    @Synchronized
+    fun refresh(entities: Iterable<OdorWorldEntity>) {
+        entities.forEach { update(it) }
+        maxHalfWidth = 0.0
+        maxHalfHeight = 0.0
+        for (entity in entries.keys) {
+            maxHalfWidth = max(maxHalfWidth, entity.width / 2)
+            maxHalfHeight = max(maxHalfHeight, entity.height / 2)
+        }
+    }
+
+    @Synchronized
+    fun clear() {
+        cells.clear()
+        entries.clear()
+        maxHalfWidth = 0.0
+        maxHalfHeight = 0.0
+    }
+
+    private fun removeFromCell(entry: Entry) {
+        val cell = cells[entry.cell] ?: return
+        cell.remove(entry)
+        if (cell.isEmpty()) {
+            cells.remove(entry.cell)
+        }
+    }
+
+    /**
+     * Returns all entities whose center lies in the provided rectangle, in insertion order.
+     */
+    @Synchronized
+    fun getEntitiesIn(minX: Double, minY: Double, maxX: Double, maxY: Double): List<OdorWorldEntity> {
+        val minCx = cellIndex(minX)
+        val maxCx = cellIndex(maxX)
+        val minCy = cellIndex(minY)
+        val maxCy = cellIndex(maxY)
+        val candidates = ArrayList<Entry>()
+        fun collect(cell: List<Entry>) {
+            for (entry in cell) {
+                val x = entry.entity.x
+                val y = entry.entity.y
+                if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+                    candidates.add(entry)
+                }
+            }
+        }
+        val cellsInRange = (maxCx.toLong() - minCx + 1) * (maxCy.toLong() - minCy + 1)
+        if (cellsInRange > cells.size) {
+            // Large query relative to the occupied cells; visit the occupied cells instead
+            for ((key, cell) in cells) {
+                val cx = (key shr 32).toInt()
+                val cy = key.toInt()
+                if (cx in minCx..maxCx && cy in minCy..maxCy) {
+                    collect(cell)
+                }
+            }
+        } else {
+            for (cx in minCx..maxCx) {
+                for (cy in minCy..maxCy) {
+                    cells[key(cx, cy)]?.let { collect(it) }
+                }
+            }
+        }
+        candidates.sortBy { it.order }
+        return candidates.map { it.entity }
+    }
+
+    /**
+     * Returns (in insertion order) a superset of the entities whose center is within the given radius of a point.
+     * Callers still apply their own distance test; the grid only prunes entities that are certainly out of range.
+     */
+    fun getEntitiesInRadius(center: Point2D, radius: Double): List<OdorWorldEntity> {
+        return getEntitiesIn(center.x - radius, center.y - radius, center.x + radius, center.y + radius)
+    }
+
+    /**
+     * Returns (in insertion order) a superset of the entities whose bounds could intersect the provided bound.
+     */
+    fun getEntitiesOverlapping(bound: Bounded): List<OdorWorldEntity> {
+        val halfWidth = bound.width / 2 + maxHalfWidth
+        val halfHeight = bound.height / 2 + maxHalfHeight
+        return getEntitiesIn(bound.x - halfWidth, bound.y - halfHeight, bound.x + halfWidth, bound.y + halfHeight)
+    }
+
+    companion object {
+        /**
+         * Default cell size in pixels. About twice the size of the default entity images and tiles.
+         */
+        const val DEFAULT_CELL_SIZE = 64.0
+    }
+}
@@ -0,0 +1,432 @@
+package org.simbrain.world.odorworld
+
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.joinAll
+import kotlinx.coroutines.launch
+import org.simbrain.network.core.Network
+import org.simbrain.network.core.Neuron
+import org.simbrain.util.point
+import org.simbrain.util.toRadian
+import org.simbrain.world.odorworld.effectors.Effector
+import org.simbrain.world.odorworld.effectors.StraightMovement
+import org.simbrain.world.odorworld.effectors.Turning
+import org.simbrain.world.odorworld.entities.Bound
+import org.simbrain.world.odorworld.entities.BoundIntersection
+import org.simbrain.world.odorworld.entities.OdorWorldEntity
+import org.simbrain.world.odorworld.sensors.ObjectSensor
+import org.simbrain.world.odorworld.sensors.Sensor
+import org.simbrain.world.odorworld.sensors.SensorWithRelativeLocation
+import org.simbrain.world.odorworld.sensors.SmellSensor
+import kotlin.math.ceil
+import kotlin.math.cos
+import kotlin.math.pow
+import kotlin.math.sin
+import kotlin.math.sqrt
+
+/**
+ * Headless engine that steps many independent [OdorWorld]s and their controller [Network]s together, without a
+ * [org.simbrain.workspace.Workspace], reflection based couplings, or a gui. Meant for evolutionary simulations that
+ * evaluate large populations of agents.
+ *
+ * Each [Lane] is one world, the agent being controlled, its network, and explicit sensor to input neuron and output
+ * neuron to effector bindings. The bindings do what the default couplings chosen by
+ * [org.simbrain.workspace.couplings.CouplingManager.createCoupling] do, and each iteration follows the order of
+ * [org.simbrain.workspace.updater.UpdateAllAction]: bindings first, then the world and the network.
+ *
+ * The state of the agents is kept in struct-of-arrays form indexed by lane: positions ([x], [y]), [heading], [speed],
+ * sensor values ([sensorValues]) and output activations ([outputValues]), along with flat arrays describing the
+ * sensors and effectors. During a run the arrays are the agents' state. Each phase of an iteration (bindings,
+ * movement, sensing, effectors, networks) runs over all lanes of a chunk before the next phase starts, and reads and
+ * writes only the arrays, except for the spatial queries against each lane's world. Movement, collisions, sensing
+ * and effectors compute exactly what [OdorWorldEntity.update] computes, so a lane gives the same results as the same
+ * world and network coupled in a workspace. Agents are written back to their entities when a run ends.
+ *
+ * Only the agent of each lane moves; the other entities in a lane's world are scenery and are not updated. Supported
+ * sensors are [ObjectSensor] and [SmellSensor] (read as its scalar value), and supported effectors are
+ * [StraightMovement] and [Turning]. Collision events are not fired.
+ *
+ * The buffers are reused across episodes: call [clear] and add the lanes for the next episode. Lanes are split into
+ * one chunk per thread; chunks do not wait for each other since lanes are independent.
+ */
+class OdorWorldBatch @JvmOverloads constructor(
+    val parallelism: Int = Runtime.getRuntime().availableProcessors()
+) {
+
+    /**
+     * One world / agent / network combination. [sensors] are bound in order to [inputs], and [outputs] in order to
+     * [effectors].
+     */
+    class Lane(
+        val world: OdorWorld,
+        val agent: OdorWorldEntity,
+        val network: Network,
+        val sensors: List<Sensor>,
+        val inputs: List<Neuron>,
+        val outputs: List<Neuron>,
+        val effectors: List<Effector>
+    ) {
+        init {
+            require(sensors.size == inputs.size) { "${sensors.size} sensors but ${inputs.size} input neurons" }
+            require(outputs.size == effectors.size) { "${outputs.size} output neurons but ${effectors.size} effectors" }
+            sensors.forEach {
+                require(it is ObjectSensor || it is SmellSensor) { "Unsupported sensor ${it.javaClass.simpleName}" }
+            }
+            effectors.forEach {
+                require(it is StraightMovement || it is Turning) { "Unsupported effector ${it.javaClass.simpleName}" }
+            }
+        }
+    }
+
+    private val lanes = ArrayList<Lane>()
+
+    val size get() = lanes.size
+
+    /**
+     * Number of iterations run since the last [clear].
+     */
+    var iteration = 0
+        private set
+
+    var x = DoubleArray(0)
+        private set
+
+    var y = DoubleArray(0)
+        private set
+
+    /**
+     * Headings in degrees, in [0, 360).
+     */
+    var heading = DoubleArray(0)
+        private set
+
+    /**
+     * Speeds set by the straight movement effectors, applied on the next iteration.
+     */
+    var speed = DoubleArray(0)
+        private set
+
+    /**
+     * Constant turning speed of each agent, from [OdorWorldEntity.dtheta].
+     */
+    private var dtheta = DoubleArray(0)
+
+    /**
+     * Sensor values, [sensorStride] values per lane. Read by the bindings on the next iteration.
+     */
+    var sensorValues = DoubleArray(0)
+        private set
+
+    var sensorStride = 0
+        private set
+
+    /**
+     * Sensor angles and lengths, laid out like [sensorValues].
+     */
+    private var sensorTheta = DoubleArray(0)
+    private var sensorRadius = DoubleArray(0)
+
+    /**
+     * Output neuron activations, [outputStride] values per lane. These are the effector amounts.
+     */
+    var outputValues = DoubleArray(0)
+        private set
+
+    var outputStride = 0
+        private set
+
+    /**
+     * Scaling factor of straight movement effectors and direction of turning effectors, laid out like
+     * [outputValues].
+     */
+    private var effectorFactor = DoubleArray(0)
+
+    /**
+     * Add a lane and return its index. The agent's position, heading and speed and the current sensor values are
+     * copied into the arrays.
+     */
+    fun addLane(lane: Lane): Int {
+        lanes.add(lane)
+        val index = lanes.lastIndex
+        ensureCapacity()
+        x[index] = lane.agent.x
+        y[index] = lane.agent.y
+        heading[index] = lane.agent.heading
+        speed[index] = lane.agent.speed
+        dtheta[index] = lane.agent.dtheta
+        lane.sensors.forEachIndexed { k, sensor ->
+            val slot = index * sensorStride + k
+            sensor as SensorWithRelativeLocation
+            sensorTheta[slot] = sensor.theta
+            sensorRadius[slot] = sensor.radius
+            sensorValues[slot] = sensor.value
+        }
+        lane.effectors.forEachIndexed { k, effector ->
+            effectorFactor[index * outputStride + k] = when (effector) {
+                is StraightMovement -> effector.scalingFactor
+                is Turning -> effector.direction
+                else -> 0.0
+            }
+        }
+        return index
+    }
+
+    fun getLane(index: Int) = lanes[index]
+
+    /**
+     * Remove all lanes. Buffers are kept so the next episode does not reallocate them.
+     */
+    fun clear() {
+        lanes.clear()
+        iteration = 0
+    }
+
+    /**
+     * Grow the arrays to fit the lanes. When a lane with more sensors or effectors than the others is added the
+     * strides grow and the per-lane blocks are moved.
+     */
+    private fun ensureCapacity() {
+        val newSensorStride = lanes.maxOf { it.sensors.size }
+        val newOutputStride = lanes.maxOf { it.outputs.size }
+        if (x.size < size) {
+            val capacity = maxOf(size, x.size * 2, 16)
+            x = x.copyOf(capacity)
+            y = y.copyOf(capacity)
+            heading = heading.copyOf(capacity)
+            speed = speed.copyOf(capacity)
+            dtheta = dtheta.copyOf(capacity)
+        }
+        val capacity = x.size
+        if (newSensorStride != sensorStride || sensorValues.size < capacity * sensorStride) {
+            sensorValues = restride(sensorValues, sensorStride, newSensorStride, capacity)
+            sensorTheta = restride(sensorTheta, sensorStride, newSensorStride, capacity)
+            sensorRadius = restride(sensorRadius, sensorStride, newSensorStride, capacity)
+            sensorStride = newSensorStride
+        }
+        if (newOutputStride != outputStride || outputValues.size < capacity * outputStride) {
+            outputValues = restride(outputValues, outputStride, newOutputStride, capacity)
+            effectorFactor = restride(effectorFactor, outputStride, newOutputStride, capacity)
+            outputStride = newOutputStride
+        }
+    }
+
+    private fun restride(values: DoubleArray, oldStride: Int, newStride: Int, capacity: Int): DoubleArray {
+        if (oldStride == newStride && values.size >= capacity * newStride) {
+            return values
+        }
+        val result = DoubleArray(capacity * newStride)
+        for (lane in 0 until minOf(size - 1, if (oldStride == 0) 0 else values.size / oldStride)) {
+            System.arraycopy(values, lane * oldStride, result, lane * newStride, oldStride)
+        }
+        return result
+    }
+
+    /**
+     * Run all lanes for the given number of iterations.
+     *
+     * @param afterIteration called with the lane index after each iteration of that lane, e.g. to accumulate
+     * fitness. Called from worker threads, but never concurrently for the same lane.
+     */
+    suspend fun run(iterations: Int, afterIteration: (lane: Int) -> Unit = {}) = coroutineScope {
+        if (size == 0) return@coroutineScope
+        lanes.forEach { it.world.refreshIndexes() }
+        val chunkSize = ceil(size.toDouble() / parallelism).toInt()
+        (0 until size).chunked(chunkSize).map { chunk ->
+            val from = chunk.first()
+            val to = chunk.last() + 1
+            launch(Dispatchers.Default) {
+                repeat(iterations) {
+                    for (i in from until to) bind(i)
+                    for (i in from until to) move(i)
+                    for (i in from until to) sense(i)
+                    for (i in from until to) effect(i)
+                    for (i in from until to) lanes[i].network.update()
+                    for (i in from until to) afterIteration(i)
+                }
+            }
+        }.joinAll()
+        iteration += iterations
+        writeBack()
+    }
+
+    /**
+     * Blocking version of [run] for java callers.
+     */
+    @JvmOverloads
+    fun runBlocking(iterations: Int, afterIteration: (lane: Int) -> Unit = {}) = kotlinx.coroutines.runBlocking {
+        run(iterations, afterIteration)
+    }
+
+    /**
+     * Sensor values to input neurons, and output neurons to the output array.
+     */
+    private fun bind(index: Int) {
+        val lane = lanes[index]
+        val sensorOffset = index * sensorStride
+        for (k in lane.inputs.indices) {
+            val value = sensorValues[sensorOffset + k]
+            val neuron = lane.inputs[k]
+            if (neuron.isClamped) {
+                neuron.forceSetActivation(value)
+            } else {
+                neuron.addInputValue(value)
+            }
+        }
+        val outputOffset = index * outputStride
+        for (k in lane.outputs.indices) {
+            outputValues[outputOffset + k] = lane.outputs[k].activation
+        }
+    }
+
+    /**
+     * Move the agent as [OdorWorldEntity.applyMovement] does, stopping short of collisions.
+     */
+    private fun move(index: Int) {
+        val lane = lanes[index]
+        val world = lane.world
+        val agent = lane.agent
+        if (dtheta[index] != 0.0) {
+            heading[index] = normalizeHeading(heading[index] + dtheta[index])
+        }
+        val x0 = x[index]
+        val y0 = y[index]
+        val dx = cos(heading[index].toRadian()) * speed[index]
+        val dy = -sin(heading[index].toRadian()) * speed[index]
+        val directionX = if (dx > 0) 1 else -1
+        val directionY = if (dy > 0) 1 else -1
+        val shortenX = closestCollision(world, agent, Bound(x0 + dx, y0, agent.width, agent.height)) { it.dx }
+        val shortenY = closestCollision(
+            world, agent, Bound(x0 + (dx - shortenX * directionX), y0 + dy, agent.width, agent.height)
+        ) { it.dy }
+        val newX = x0 + (dx - shortenX * directionX)
+        val newY = y0 + (dy - shortenY * directionY)
+        if (world.wrapAround) {
+            x[index] = (newX + world.width) % world.width
+            y[index] = (newY + world.height) % world.height
+        } else {
+            x[index] = newX
+            y[index] = newY
+        }
+    }
+
+    private inline fun closestCollision(
+        world: OdorWorld,
+        agent: OdorWorldEntity,
+        bound: Bound,
+        distance: (BoundIntersection) -> Double
+    ): Double {
+        var collided = false
+        var shortenBy = 0.0
+        for (other in world.getCollidableObjects(bound)) {
+            // The agent's entity is not moved during a run, so skip it wherever the index has it
+            if (other === agent) continue
+            val intersection = bound.intersect(other)
+            if (intersection.intersect && (!collided || distance(intersection) < shortenBy)) {
+                collided = true
+                shortenBy = distance(intersection)
+            }
+        }
+        return shortenBy
+    }
+
+    /**
+     * Compute the sensor values at the agent's new position, as the sensors' update methods do.
+     */
+    private fun sense(index: Int) {
+        val lane = lanes[index]
+        val offset = index * sensorStride
+        for (k in lane.sensors.indices) {
+            val angle = (heading[index] + sensorTheta[offset + k]).toRadian()
+            val sensorX = x[index] + sensorRadius[offset + k] * cos(angle)
+            val sensorY = y[index] - sensorRadius[offset + k] * sin(angle)
+            sensorValues[offset + k] = when (val sensor = lane.sensors[k]) {
+                is ObjectSensor -> objectValue(lane, sensor, index, sensorX, sensorY)
+                is SmellSensor -> smellValue(lane, sensorX, sensorY)
+                else -> 0.0
+            }
+        }
+    }
+
+    private fun objectValue(lane: Lane, sensor: ObjectSensor, index: Int, sensorX: Double, sensorY: Double): Double {
+        val decayFunction = sensor.decayFunction
+        var value = 0.0
+        val location = point(sensorX, sensorY)
+        for (other in lane.world.getEntitiesNear(location, decayFunction.maxDistance)) {
+            if (other === lane.agent || other.entityType != sensor.getObjectType()) continue
+            value += sensor.baseValue * decayFunction.getScalingFactor(distance(sensorX, sensorY, other.x, other.y))
+        }
+        // The agent itself, at its current position rather than where the index has it
+        if (lane.agent.entityType == sensor.getObjectType()) {
+            val distance = distance(sensorX, sensorY, x[index], y[index])
+            if (distance <= decayFunction.maxDistance) {
+                value += sensor.baseValue * decayFunction.getScalingFactor(distance)
+            }
+        }
+        return value
+    }
+
+    private fun smellValue(lane: Lane, sensorX: Double, sensorY: Double): Double {
+        val world = lane.world
+        val location = point(sensorX, sensorY)
+        var result = DoubleArray(world.getMaxSmellDimension(lane.agent))
+        for (other in world.getEntitiesNear(location, world.maxSmellDistance)) {
+            if (other === lane.agent) continue
+            val stimulus = other.smellSource.getStimulus(distance(other.x, other.y, sensorX, sensorY))
+            if (stimulus.size > result.size) {
+                result = result.copyOf(stimulus.size)
+            }
+            for (i in stimulus.indices) {
+                result[i] += stimulus[i]
+            }
+        }
+        return if (result.size == 1) result[0] else result.sum()
+    }
+
+    /**
+     * Apply the output activations as [StraightMovement] and [Turning] do: straight movement sets the speed for the
+     * next iteration and turning changes the heading right away.
+     */
+    private fun effect(index: Int) {
+        val lane = lanes[index]
+        val offset = index * outputStride
+        for (k in lane.effectors.indices) {
+            val amount = outputValues[offset + k]
+            if (lane.effectors[k] is StraightMovement) {
+                speed[index] = amount * effectorFactor[offset + k]
+            } else {
+                heading[index] = normalizeHeading(heading[index] + effectorFactor[offset + k] * amount)
+            }
+        }
+    }
+
+    /**
+     * Copy the agents' state back to their entities.
+     */
+    private fun writeBack() {
+        for (i in lanes.indices) {
+            val agent = lanes[i].agent
+            agent.setLocation(x[i], y[i])
+            agent.heading = heading[i]
+            agent.speed = speed[i]
+            lanes[i].world.entityMoved(agent)
+        }
+    }
+
+    /**
+     * Same distance as [org.simbrain.util.math.SimbrainMath.distance], so sensor values match the sensors'.
+     */
+    private fun distance(x1: Double, y1: Double, x2: Double, y2: Double) = sqrt((x1 - x2).pow(2) + (y1 - y2).pow(2))
+
+    private fun normalizeHeading(value: Double) = ((value % 360.0) + 360.0) % 360.0
+
+    /**
+     * The value a default coupling would read from a sensor.
+     */
+    private val Sensor.value: Double
+        get() = when (this) {
+            is SmellSensor -> currentScalarValue
+            is ObjectSensor -> currentValue
+            else -> 0.0
+        }
+
+}
@@ -98,26 +98,16 @@ class OdorWorldEntity @JvmOverloads constructor(
         val dx = cos(heading.toRadian()) * speed
         val dy = -sin(heading.toRadian()) * speed
 
-        val bounds = world.collidableObjects.filter { it !== this }
-
         val directionX = if (dx > 0) 1 else -1
         val directionY = if (dy > 0) 1 else -1
 
         val moveInX = Bound(x + dx, y, width, height)
 
-        val distanceXShortenBy = bounds
-            .associateWith { moveInX.intersect(it) }
-            .filter { it.value.intersect }
-            .minByOrNull { it.value.dx }
-            ?.apply { events.collided.fireAndForget(key) }?.value?.dx ?: 0.0
+        val distanceXShortenBy = closestCollision(moveInX) { it.dx }
 
         val moveInY = Bound(x + (dx - distanceXShortenBy * directionX), y + dy, width, height)
 
-        val distanceYShortenBy = bounds
-            .associateWith { moveInY.intersect(it) }
-            .filter { it.value.intersect }
-            .minByOrNull { it.value.dy }
-            ?.apply { events.collided.fireAndForget(key) }?.value?.dy ?: 0.0
+        val distanceYShortenBy = closestCollision(moveInY) { it.dy }
 
         val newX = x + (dx - distanceXShortenBy * directionX)
         val newY = y + (dy - distanceYShortenBy * directionY)
@@ -129,7 +119,27 @@ class OdorWorldEntity @JvmOverloads constructor(
         } else {
             point(newX, newY)
         }
+        world.entityMoved(this)
+
+    }
 
+    /**
+     * Returns the distance the provided movement bound should be shortened by to avoid the closest collision, or 0 if
+     * there is no collision. Fires [EntityEvents2.collided] for the object collided with.
+     */
+    private inline fun closestCollision(bound: Bound, distance: (BoundIntersection) -> Double): Double {
+        var collidedWith: Bounded? = null
+        var shortenBy = 0.0
+        for (other in world.getCollidableObjects(bound)) {
+            if (other === this) continue
+            val intersection = bound.intersect(other)
+            if (intersection.intersect && (collidedWith == null || distance(intersection) < shortenBy)) {
+                collidedWith = other
+                shortenBy = distance(intersection)
+            }
+        }
+        collidedWith?.let { events.collided.fireAndForget(it) }
+        return shortenBy
     }
 
     fun update() {
@@ -221,7 +231,7 @@ class OdorWorldEntity @JvmOverloads constructor(
     }
 
     fun getEntitiesInRadius(radius: Double): List<OdorWorldEntity> {
-        return world.entityList
+        return world.getEntitiesNear(location, radius)
             .filter { it !== this }
             .filter { it.location.distance(location) <= radius }
     }
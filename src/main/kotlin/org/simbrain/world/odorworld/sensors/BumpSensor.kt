@@ -46,7 +46,7 @@ class BumpSensor(theta: Double = DEFAULT_THETA, radius: Double = DEFAULT_RADIUS)
             parent.width + sensorSize,
             parent.height + sensorSize
         )
-        val collided = parent.world.collidableObjects
+        val collided = parent.world.getCollidableObjects(bound)
             .stream()
             .filter { it: Bounded -> it !== parent }
             .anyMatch { it: Bounded? -> bound.intersect(it!!).intersect }
@@ -35,7 +35,7 @@ class ObjectSensor @JvmOverloads constructor(
     override fun update(parent: OdorWorldEntity) {
         currentValue = 0.0
         val sensorLocation = computeAbsoluteLocation(parent)
-        for (otherEntity in parent.world.entityList) {
+        for (otherEntity in parent.world.getEntitiesNear(sensorLocation, decayFunction.maxDistance)) {
             if (otherEntity.entityType == objectType) {
                 val scaleFactor = decayFunction.getScalingFactor(
                     SimbrainMath.distance(sensorLocation, otherEntity.location)
@@ -55,6 +55,8 @@ class ObjectSensor @JvmOverloads constructor(
     override val name: String
         get() = "Object Sensor"
 
+    fun getObjectType() = objectType
+
     fun setObjectType(objectType: EntityType) {
         this.objectType = objectType
     }
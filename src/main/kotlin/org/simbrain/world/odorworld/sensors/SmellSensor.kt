@@ -19,7 +19,6 @@
 package org.simbrain.world.odorworld.sensors
 
 import org.simbrain.util.math.SimbrainMath
-import org.simbrain.util.sum
 import org.simbrain.workspace.Producible
 import org.simbrain.world.odorworld.entities.OdorWorldEntity
 
@@ -41,14 +40,25 @@ class SmellSensor @JvmOverloads constructor(
     var smellVector = DoubleArray(0)
 
     /**
-     * Update the smell vector by iterating over entities and adding up their distance-scaled smell vectors.
+     * Update the smell vector by adding up the distance-scaled smell vectors of nearby entities. Entities beyond the
+     * range of every smell source in the world contribute nothing and are skipped. The vector is as long as the
+     * longest smell vector in the world, or longer if a nearby source has grown since the world last cached that.
      */
     override fun update(parent: OdorWorldEntity) {
-        smellVector = parent.world.entityList
-            .filter { it != parent } // Don't smell yourself
-            .map { Pair(it.smellSource, SimbrainMath.distance(it.location, computeAbsoluteLocation(parent))) }
-            .map { (smellSource, distance) -> smellSource.getStimulus(distance) }
-            .sum()
+        val world = parent.world
+        val sensorLocation = computeAbsoluteLocation(parent)
+        var result = DoubleArray(world.getMaxSmellDimension(parent))
+        for (entity in world.getEntitiesNear(sensorLocation, world.maxSmellDistance)) {
+            if (entity === parent) continue // Don't smell yourself
+            val stimulus = entity.smellSource.getStimulus(SimbrainMath.distance(entity.location, sensorLocation))
+            if (stimulus.size > result.size) {
+                result = result.copyOf(stimulus.size)
+            }
+            for (i in stimulus.indices) {
+                result[i] += stimulus[i]
+            }
+        }
+        smellVector = result
     }
 
     /**
@@ -3,8 +3,6 @@ package org.simbrain.world.odorworld.sensors
 import org.simbrain.util.UserParameter
 import org.simbrain.util.decayfunctions.DecayFunction
 import org.simbrain.util.decayfunctions.LinearDecayFunction
-import org.simbrain.util.piccolo.*
-import org.simbrain.util.plus
 import org.simbrain.world.odorworld.entities.OdorWorldEntity
 
 /**
@@ -29,34 +27,35 @@ class TileSensor @JvmOverloads constructor(
      */
     @UserParameter(label = "Decay Function", isObjectType = true, showDetails = false, order = 15)
     override var decayFunction: DecayFunction = LinearDecayFunction(70.0)
-        set(value) {
-            field = value
-            relativeGridCoordinates = null // invalidate pre-computed grid coordinates
-        }
 
     /**
-     * Cached relative grid coordinates this sensor should check
+     * If true, read the sensor value from a field precomputed for the tile map, interpolated between tile centers.
+     * Faster for large dispersions, but only approximates the sum over nearby tiles.
      */
-    private var relativeGridCoordinates: List<GridCoordinate>? = null
+    @UserParameter(
+        label = "Use precomputed field",
+        description = "Interpolate a field precomputed for the tile map instead of summing over nearby tiles. " +
+                "Faster, but approximate.",
+        order = 20
+    )
+    var usePrecomputedField = false
 
     override var showDispersion = false
 
     override fun update(parent: OdorWorldEntity) {
-        currentValue = 0.0
         val sensorLocation = computeAbsoluteLocation(parent)
-        currentValue = with(parent.world.tileMap) {
-            getRelativeGridLocationsInRadius(decayFunction.dispersion)
-                .map { it + sensorLocation.asPixelCoordinate().toGridCoordinate() }
-                .map { it.asGridCoordinate() to getTileStackAt(it.x.toInt(), it.y.toInt()) }
-                .filter { (_, tiles) -> tiles.any { it.type == tileType } }
-                .map { (pos) -> pos.toPixelCoordinate().distance(sensorLocation) }
-                .sumOf { decayFunction.getScalingFactor(it) * baseValue }
+        val fields = parent.world.tileMap.tileTypeFields
+        currentValue = if (usePrecomputedField) {
+            fields.interpolate(tileType, sensorLocation, decayFunction, baseValue)
+        } else {
+            fields.sumDecayedDistances(tileType, sensorLocation, decayFunction, baseValue)
         }
     }
 
     override fun copy(): TileSensor {
         return TileSensor().applyCommonCopy().apply {
             tileType = this@TileSensor.tileType
+            usePrecomputedField = this@TileSensor.usePrecomputedField
             decayFunction = this@TileSensor.decayFunction.copy() as DecayFunction
         }
     }
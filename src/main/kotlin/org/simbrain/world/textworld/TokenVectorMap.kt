@@ -27,11 +27,10 @@ class TokenVectorMap(
     /**
      * N-Tree (optimized to find vectors near a given vector) associating vectors with tokens.
      */
-    private val treeMap = NTree(size).apply {
-        tokensMap.forEach { (token, i) ->
-            add(DataPoint(tokenVectorMatrix.row(i), token))
-        }
-    }
+    private val treeMap = NTree(
+        tokenVectorMatrix.ncol(),
+        tokensMap.map { (token, i) -> DataPoint(tokenVectorMatrix.row(i), token) }
+    )
 
     init {
         if (tokens.size != tokenVectorMatrix.nrows()) {
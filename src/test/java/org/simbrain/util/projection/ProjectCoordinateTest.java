@@ -11,6 +11,7 @@ public class ProjectCoordinateTest {
         Projector proj = new Projector(5);
         proj.addDatapoint(new DataPointColored(new double[]{1,0,0,0,0}));
         proj.addDatapoint(new DataPointColored(new double[]{0,1,0,0,0}));
+        proj.awaitIngestion();
 
         // Check the first two items in a downstairs projection
         proj.setProjectionMethod("Coordinate Projection");
@@ -21,6 +21,7 @@ public class ProjectPCATest {
         proj.addDatapoint(new DataPoint(new double[]{-1, -1, 1}));
         proj.addDatapoint(new DataPoint(new double[]{-2, -1, 2}));
         proj.addDatapoint(new DataPoint(new double[]{-3, -2, 1}));
+        proj.awaitIngestion();
 
         // Reference interpoint distances based on sklearn PCA
         double largestInterpointDist = 2.2360679774997894;
@@ -2,7 +2,15 @@ package org.simbrain.util.projection;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ProjectorTest {
 
@@ -22,4 +30,79 @@ public class ProjectorTest {
         assertEquals(5, proj.getDimensions());
 
     }
-}
\ No newline at end of file
+
+    private static List<double[]> randomPoints(int n) {
+        Random random = new Random(42);
+        List<double[]> points = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            points.add(random.doubles(5).toArray());
+        }
+        return points;
+    }
+
+    @Test
+    public void asynchronousIngestionIsDefaultTest() {
+        Projector proj = new Projector(5);
+        assertTrue(proj.isAsynchronousIngestion());
+        proj.setAsynchronousIngestion(false);
+        assertFalse(proj.isAsynchronousIngestion());
+    }
+
+    @Test
+    public void asynchronousIngestionTest() {
+        Projector proj = new Projector(5);
+        proj.setAsynchronousIngestion(true);
+        List<double[]> points = randomPoints(30);
+        points.forEach(p -> proj.addDatapoint(new DataPointColored(p)));
+        proj.awaitIngestion();
+
+        assertEquals(30, proj.getNumPoints());
+        ProjectionSnapshot snapshot = proj.getSnapshot();
+        assertEquals(30, snapshot.getSize());
+        for (int i = 0; i < points.size(); i++) {
+            assertArrayEquals(points.get(i), snapshot.getPoint(i).getData());
+        }
+    }
+
+    @Test
+    public void batchMatchesSequentialTest() {
+        List<double[]> points = randomPoints(20);
+        Projector sequential = new Projector(5);
+        sequential.setAsynchronousIngestion(false);
+        points.forEach(p -> sequential.addDatapoint(new DataPointColored(p)));
+        Projector batch = new Projector(5);
+        List<DataPoint> batchPoints = new ArrayList<>();
+        points.forEach(p -> batchPoints.add(new DataPointColored(p)));
+        batch.addDatapoints(batchPoints);
+
+        assertEquals(sequential.getNumPoints(), batch.getNumPoints());
+        assertEquals(Arrays.deepToString(sequential.getDownstairs().getDoubleArray()),
+                Arrays.deepToString(batch.getDownstairs().getDoubleArray()));
+    }
+
+    @Test
+    public void snapshotsOfAddedPointsShareCoordinatesTest() {
+        Projector proj = new Projector(5);
+        proj.setAsynchronousIngestion(false);
+        proj.setProjectionMethod("Incremental PCA");
+        // Keep the components fixed, so earlier points are not projected again
+        ((ProjectIncrementalPCA) proj.getProjectionMethod()).setRefitInterval(1000);
+        ((ProjectIncrementalPCA) proj.getProjectionMethod()).setDriftThreshold(Double.POSITIVE_INFINITY);
+        List<double[]> points = randomPoints(21);
+        points.subList(0, 20).forEach(p -> proj.addDatapoint(new DataPointColored(p)));
+        ProjectionSnapshot before = proj.getSnapshot();
+        proj.addDatapoint(new DataPointColored(points.get(20)));
+        ProjectionSnapshot after = proj.getSnapshot();
+
+        // The earlier snapshot is unchanged, and the new one adds the new point
+        assertEquals(20, before.getSize());
+        assertEquals(21, after.getSize());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(before.getX(i), after.getX(i));
+            assertEquals(before.getY(i), after.getY(i));
+        }
+        double[] projected = proj.getDownstairs().getPoint(20).getData();
+        assertEquals(projected[0], after.getX(20));
+        assertEquals(projected[1], after.getY(20));
+    }
+}
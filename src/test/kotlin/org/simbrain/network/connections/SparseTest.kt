@@ -78,4 +78,16 @@ class SparseTest {
 
     }
 
+    @Test
+    fun `networks with the same seed make the same connections`() {
+        fun connect(): List<Pair<Int, Int>> {
+            val network = Network()
+            network.randomSeed = 42
+            val neurons = List(20) { Neuron(network) }
+            network.addNetworkModels(neurons)
+            return Sparse(connectionDensity = .3).connectNeurons(network, neurons, neurons)
+                .map { neurons.indexOf(it.source) to neurons.indexOf(it.target) }
+        }
+        assertEquals(connect(), connect())
+    }
 }
\ No newline at end of file
@@ -0,0 +1,125 @@
+package org.simbrain.network.core
+
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import org.simbrain.network.connections.AllToAll
+import org.simbrain.network.groups.NeuronGroup
+import org.simbrain.network.subnetworks.LMSNetwork
+
+class NetworkCachedListTest {
+
+    val net = Network()
+
+    @Test
+    fun `added models are listed`() {
+        val neurons = List(1000) { net.addNeuron() }
+        assertEquals(neurons, net.flatNeuronList)
+        assertEquals(1000, net.prioritySortedNeuronList.size)
+        assertEquals(1000, net.allModels.size)
+    }
+
+    @Test
+    fun `lists read while adding are current and appended to`() {
+        val first = net.addNeuron()
+        val before = net.flatNeuronList
+        val second = net.addNeuron()
+        assertEquals(listOf(first, second), net.flatNeuronList)
+        assertEquals(listOf(first), before)
+        net.addSynapse(first, second)
+        assertSame(net.flatNeuronList, net.flatNeuronList)
+    }
+
+    @Test
+    fun `neurons added after groups keep the rebuilt order`() {
+        val n1 = net.addNeuron()
+        val ng = NeuronGroup(net, 2).also { net.addNetworkModel(it) }
+        assertEquals(listOf(n1) + ng.neuronList, net.flatNeuronList)
+        val n2 = net.addNeuron()
+        assertEquals(listOf(n1, n2) + ng.neuronList, net.flatNeuronList)
+    }
+
+    @Test
+    fun `free models added after groups are listed before group members`() {
+        val ng1 = NeuronGroup(net, 2).also { net.addNetworkModel(it) }
+        val ng2 = NeuronGroup(net, 2).also { net.addNetworkModel(it) }
+        val sg = SynapseGroup2(ng1, ng2, AllToAll()).also { net.addNetworkModel(it) }
+        assertEquals(sg.synapses.toList(), net.flatSynapseList)
+        val n = net.addNeuron()
+        val s = net.addSynapse(n, ng1.neuronList.first())
+        assertEquals(listOf(n) + ng1.neuronList + ng2.neuronList, net.flatNeuronList)
+        assertEquals(listOf(s) + sg.synapses, net.flatSynapseList)
+        assertEquals(net.flatNeuronList, net.prioritySortedNeuronList)
+        assertSame(net.flatNeuronList, net.flatNeuronList)
+    }
+
+    @Test
+    fun `priority sort is deferred until the batch returns`() {
+        val n1 = net.addNeuron()
+        assertEquals(listOf(n1), net.prioritySortedNeuronList)
+        val (n2, n3) = net.batch {
+            val added = List(2) { net.addNeuron() }
+            assertEquals(listOf(n1) + added, net.flatNeuronList)
+            assertEquals(listOf(n1), net.prioritySortedNeuronList)
+            added
+        }
+        assertEquals(listOf(n1, n2, n3), net.prioritySortedNeuronList)
+    }
+
+    @Test
+    fun `flat lists follow additions and deletions`() {
+        val n1 = net.addNeuron()
+        val n2 = net.addNeuron()
+        val before = net.flatNeuronList
+        assertSame(before, net.flatNeuronList)
+        val s = net.addSynapse(n1, n2)
+        assertEquals(listOf(s), net.flatSynapseList)
+        n1.delete()
+        assertEquals(listOf(n2), net.flatNeuronList)
+        assertEquals(listOf(n2), net.prioritySortedNeuronList)
+        assertEquals(listOf(n1, n2), before)
+    }
+
+    @Test
+    fun `group neurons and synapses are listed`() {
+        val ng1 = NeuronGroup(net, 3).also { net.addNetworkModel(it) }
+        val ng2 = NeuronGroup(net, 2).also { net.addNetworkModel(it) }
+        assertEquals(5, net.flatNeuronList.size)
+        val sg = SynapseGroup2(ng1, ng2, AllToAll())
+        net.addNetworkModel(sg)
+        assertEquals(6, net.flatSynapseList.size)
+        sg.removeSynapse(sg.synapses.first())
+        assertEquals(5, net.flatSynapseList.size)
+        ng1.neuronList.forEach { assertSame(ng1, it.parentGroup) }
+    }
+
+    @Test
+    fun `models added to a subnetwork are listed`() {
+        val lms = LMSNetwork(net, 2, 3).also { net.addNetworkModel(it) }
+        assertTrue(net.flatNeuronList.isEmpty())
+        val ng = NeuronGroup(net, 4)
+        lms.addModel(ng)
+        assertEquals(ng.neuronList, net.flatNeuronList)
+        ng.delete()
+        assertTrue(net.flatNeuronList.isEmpty())
+    }
+
+    @Test
+    fun `priority list is sorted when priorities change`() {
+        val (n1, n2, n3) = List(3) { net.addNeuron() }
+        assertEquals(listOf(n1, n2, n3), net.prioritySortedNeuronList)
+        n1.updatePriority = 2
+        n3.updatePriority = -1
+        assertEquals(listOf(n3, n2, n1), net.prioritySortedNeuronList)
+    }
+
+    @Test
+    fun `removed models are no longer updated asynchronously`() {
+        val modelList = NetworkModelList()
+        val ng = NeuronGroup(net, 2)
+        modelList.add(ng)
+        assertEquals(listOf(ng), modelList.all)
+        modelList.remove(ng)
+        assertTrue(modelList.getAsyncModels().isEmpty())
+        assertTrue(modelList.all.isEmpty())
+    }
+}
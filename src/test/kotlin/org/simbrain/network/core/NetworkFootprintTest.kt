@@ -0,0 +1,65 @@
+package org.simbrain.network.core
+
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Assumptions.assumeTrue
+import org.junit.jupiter.api.Test
+import org.simbrain.network.util.EmptyScalarData
+import org.simbrain.workspace.updater.PerformanceMonitor
+
+/**
+ * Measures the bytes allocated per free neuron and synapse, as an upper bound on what each one keeps.
+ */
+class NetworkFootprintTest {
+
+    val net = Network()
+
+    private fun <T> bytesPer(count: Int, create: (Int) -> T): Double {
+        val thread = Thread.currentThread()
+        val before = PerformanceMonitor.allocatedBytes(thread)
+        assumeTrue(before >= 0, "Allocation counting is not supported")
+        val created = List(count) { create(it) }
+        val bytes = PerformanceMonitor.allocatedBytes(thread) - before
+        assertEquals(count, created.size)
+        return bytes.toDouble() / count
+    }
+
+    @Test
+    fun `neurons and synapses are compact`() {
+        val neurons = List(200) { Neuron(net) }
+        // Warm up class loading and caches before measuring
+        bytesPer(1000) { Neuron(net) }
+        Synapse(neurons[0], neurons[1])
+
+        val perNeuron = bytesPer(10_000) { Neuron(net) }
+        val perSynapse = bytesPer(100 * 100) { Synapse(neurons[it / 100], neurons[100 + it % 100]) }
+        // About 1170 bytes per neuron and 720 per synapse on JDK 17 with compressed oops: the events objects take 616
+        // and 512, a neuron's LinearRule with its noise generators about 360, and the rest is the models themselves,
+        // their fan in and fan out collections and entries. The budgets leave about 20% on top.
+        assertTrue(perNeuron < 1400, "$perNeuron bytes per neuron")
+        assertTrue(perSynapse < 875, "$perSynapse bytes per synapse")
+    }
+
+    @Test
+    fun `default rules are shared`() {
+        val (n1, n2, n3) = List(3) { Neuron(net) }
+        val s1 = Synapse(n1, n2)
+        val s2 = Synapse(n2, n3).also { it.learningRule = s1.learningRule }
+        assertSame(s1.learningRule, s2.learningRule)
+        assertSame(s1.spikeResponder, s2.spikeResponder)
+        assertSame(EmptyScalarData.INSTANCE, s1.dataHolder)
+        assertSame(s1.learningRule, Synapse(s1).learningRule)
+    }
+
+    @Test
+    fun `saved synapses share default rules when opened`() {
+        val (n1, n2) = List(2) { Neuron(net) }
+        net.addNetworkModels(n1, n2)
+        net.addSynapse(n1, n2)
+        val copy = net.copy()
+        val synapse = copy.freeSynapses.first()
+        assertSame(Synapse.DEFAULT_SPIKE_RESPONDER, synapse.spikeResponder)
+        assertSame(EmptyScalarData.INSTANCE, synapse.dataHolder)
+        assertEquals(n2.id, synapse.target.id)
+        assertEquals(listOf(synapse), synapse.target.fanIn)
+    }
+}
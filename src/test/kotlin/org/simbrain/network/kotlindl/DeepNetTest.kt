@@ -0,0 +1,53 @@
+package org.simbrain.network.kotlindl
+
+import org.jetbrains.kotlinx.dl.api.core.activation.Activations
+import org.junit.jupiter.api.Assertions.assertArrayEquals
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+import org.simbrain.network.core.Network
+
+class DeepNetTest {
+
+    private val deepNet = DeepNet(
+        Network(),
+        arrayListOf(
+            TFInputLayer(3),
+            TFDenseLayer(4).apply { activations = Activations.Tanh },
+            TFDenseLayer(2).apply { activations = Activations.Linear }
+        )
+    ).apply {
+        deepNetLayers.init()
+        outputProbabilities = true
+    }
+
+    private val samples = List(5) { i -> DoubleArray(3) { j -> (i + 1) * 0.3 * (j - 1) } }
+
+    private fun runUpdates(inputs: List<DoubleArray>) = inputs.map {
+        deepNet.addInputs(it)
+        deepNet.update()
+        deepNet.outputArray.copyOf()
+    }
+
+    @Test
+    fun `predict batch matches per-sample updates`() {
+        val single = runUpdates(samples)
+        val batched = deepNet.predictBatch(samples.map { s -> FloatArray(3) { s[it].toFloat() } }.toTypedArray())
+        assertEquals(samples.size, batched.size)
+        single.zip(batched).forEach { (expected, actual) ->
+            assertArrayEquals(expected, actual.map { it.toDouble() }.toDoubleArray(), 1e-5)
+        }
+    }
+
+    @Test
+    fun `batched updates match per-sample updates after the lag`() {
+        val single = runUpdates(samples)
+        deepNet.inferenceBatchSize = 2
+        val batched = runUpdates(samples + samples.take(1))
+        // The first result is sent once the first batch is full, so outputs lag the inputs by one update
+        assertArrayEquals(DoubleArray(2), batched[0])
+        for (i in samples.indices) {
+            assertArrayEquals(single[i], batched[i + 1], 1e-5)
+        }
+        assertEquals(single.last().indices.maxByOrNull { single.last()[it] }, deepNet.prediction)
+    }
+}
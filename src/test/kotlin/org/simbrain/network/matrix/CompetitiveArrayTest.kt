@@ -0,0 +1,144 @@
+package org.simbrain.network.matrix
+
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import org.simbrain.network.connections.AllToAll
+import org.simbrain.network.core.Network
+import org.simbrain.network.core.SynapseGroup2
+import org.simbrain.network.groups.NeuronGroup
+import org.simbrain.network.subnetworks.CompetitiveGroup
+import org.simbrain.network.subnetworks.SOMGroup
+import org.simbrain.network.subnetworks.WinnerTakeAll
+import kotlin.random.Random
+
+/**
+ * Checks that the competitive arrays pick the same winners and learn the same weights as the corresponding groups.
+ */
+class CompetitiveArrayTest {
+
+    val net = Network()
+    val random = Random(42)
+    val numInputs = 4
+    val numUnits = 9
+
+    val inputGroup = NeuronGroup(net, numInputs).also { net.addNetworkModel(it) }
+    val inputArray = NeuronArray(net, numInputs)
+
+    private fun randomWeights(normalize: Boolean) = Array(numUnits) {
+        val row = DoubleArray(numInputs) { random.nextDouble() }
+        if (normalize) row.map { it / row.sum() }.toDoubleArray() else row
+    }
+
+    private fun connect(group: NeuronGroup, weights: Array<DoubleArray>) {
+        net.addNetworkModel(group)
+        net.addNetworkModel(SynapseGroup2(inputGroup, group, AllToAll()))
+        group.neuronList.forEachIndexed { i, neuron ->
+            neuron.fanIn.forEach { it.strength = weights[i][inputGroup.neuronList.indexOf(it.source)] }
+        }
+    }
+
+    private fun connect(array: NeuronArray, weights: Array<DoubleArray>) =
+        WeightMatrix(net, inputArray, array).apply { setWeights(weights) }
+
+    private fun setInputs() {
+        val inputs = DoubleArray(numInputs) { random.nextDouble() }
+        inputGroup.neuronList.forEachIndexed { i, neuron -> neuron.activation = inputs[i] }
+        inputArray.setActivations(inputs)
+    }
+
+    private fun assertSameWeights(group: NeuronGroup, weightMatrix: WeightMatrix) {
+        group.neuronList.forEachIndexed { i, neuron ->
+            neuron.fanIn.forEach {
+                val j = inputGroup.neuronList.indexOf(it.source)
+                assertEquals(it.strength, weightMatrix.weightMatrix.get(i, j), 1e-12)
+            }
+        }
+    }
+
+    private fun NeuronGroup.winnerIndex(winValue: Double = 1.0) = neuronList.indexOfFirst { it.activation == winValue }
+
+    @Test
+    fun `competitive array matches group`() {
+        for (method in CompetitiveGroup.UpdateMethod.values()) {
+            val weights = randomWeights(true)
+            val group = CompetitiveGroup(net, numUnits).apply { updateMethod = method; useLeakyLearning = true }
+            connect(group, weights)
+            val array = CompetitiveArray(net, numUnits).apply { updateMethod = method; isUseLeakyLearning = true }
+            val weightMatrix = connect(array, weights)
+            repeat(50) {
+                setInputs()
+                group.update()
+                array.updateInputs()
+                array.update()
+                assertEquals(group.winnerIndex(), array.winner)
+                assertArrayEquals(group.activations, array.activationArray, 0.0)
+            }
+            assertSameWeights(group, weightMatrix)
+        }
+    }
+
+    @Test
+    fun `som array matches group`() {
+        val weights = randomWeights(false)
+        val group = SOMGroup(net, numUnits).apply { initNeighborhoodSize = 60.0 }
+        connect(group, weights)
+        group.applyLayout()
+        val array = SOMArray(net, numUnits).apply { initNeighborhoodSize = 60.0 }
+        val weightMatrix = connect(array, weights)
+        val winners = mutableSetOf<Int>()
+        repeat(100) {
+            setInputs()
+            group.update()
+            array.update()
+            assertEquals(group.neuronList.indexOf(group.winner), array.winner)
+            winners.add(array.winner)
+        }
+        assertTrue(winners.size > 1)
+        assertEquals(group.alpha, array.alpha, 1e-12)
+        assertEquals(group.neighborhoodSize, array.neighborhoodSize, 1e-12)
+        assertSameWeights(group, weightMatrix)
+    }
+
+    @Test
+    fun `winner take all array matches group`() {
+        val weights = randomWeights(false)
+        val group = WinnerTakeAll(net, numUnits)
+        connect(group, weights)
+        val array = WinnerTakeAllArray(net, numUnits)
+        connect(array, weights)
+        repeat(50) {
+            setInputs()
+            group.neuronList.forEach { it.updateInputs() }
+            group.update()
+            array.updateInputs()
+            array.update()
+            assertEquals(group.winnerIndex(), array.winner)
+        }
+    }
+
+    @Test
+    fun `batch som moves rows to the mean of their inputs`() {
+        val input = NeuronArray(net, 2)
+        val som = SOMArray(net, 4).apply {
+            initNeighborhoodSize = 0.0
+            isBatchMode = true
+            batchSize = 3
+        }
+        val weightMatrix = WeightMatrix(net, input, som)
+        weightMatrix.setWeights(arrayOf(
+            doubleArrayOf(0.0, 0.0), doubleArrayOf(1.0, 0.0), doubleArrayOf(0.0, 1.0), doubleArrayOf(1.0, 1.0)))
+        val batch = listOf(doubleArrayOf(0.1, 0.1), doubleArrayOf(0.2, 0.0), doubleArrayOf(0.9, 0.1))
+        batch.forEachIndexed { k, inputs ->
+            // Weights don't change until the batch is complete
+            assertEquals(0.0, weightMatrix.weightMatrix.get(0, 0))
+            input.setActivations(inputs)
+            som.update()
+            assertEquals(listOf(0, 0, 1)[k], som.winner)
+        }
+        val expected = arrayOf(doubleArrayOf(0.15, 0.05), doubleArrayOf(0.9, 0.1),
+            doubleArrayOf(0.0, 1.0), doubleArrayOf(1.0, 1.0))
+        expected.forEachIndexed { i, row ->
+            assertArrayEquals(row, weightMatrix.weightMatrix.row(i), 1e-12)
+        }
+    }
+}
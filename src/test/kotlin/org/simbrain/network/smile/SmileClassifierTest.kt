@@ -7,8 +7,10 @@ import org.junit.jupiter.api.Test
 import org.simbrain.network.core.Network
 import org.simbrain.network.matrix.NeuronArray
 import org.simbrain.network.matrix.WeightMatrix
+import org.simbrain.network.smile.classifiers.KNNClassifier
 import org.simbrain.network.smile.classifiers.LogisticRegClassifier
 import org.simbrain.network.smile.classifiers.SVMClassifier
+import org.simbrain.network.trainers.ClassificationDataset
 import org.simbrain.util.Utils
 import org.simbrain.util.table.DataFrameWrapper
 import smile.classification.DecisionTree
@@ -130,6 +132,64 @@ class SmileClassifierTest {
     }
 
 
+    /**
+     * Two well separated clusters of 2d points, labelled 0 and 1.
+     */
+    private fun clusters(samplesPerClass: Int): ClassificationDataset {
+        val random = Random(42)
+        val features = Array(2 * samplesPerClass) { i ->
+            val center = if (i < samplesPerClass) 0.0 else 10.0
+            doubleArrayOf(center + random.nextDouble(), center + random.nextDouble())
+        }
+        return ClassificationDataset(2, 2, features.size).apply {
+            featureVectors = features
+            setIntegerTargets(IntArray(features.size) { if (it < samplesPerClass) 0 else 1 })
+        }
+    }
+
+    @Test
+    fun `test KNN search methods agree`() {
+        val data = clusters(200)
+        val queries = Array(50) { i -> doubleArrayOf(i / 5.0, 10 - i / 5.0) }
+        val predictions = KNNClassifier.SearchMethod.values().map { method ->
+            KNNClassifier(2, 2).apply {
+                k = 3
+                searchMethod = method
+                fit(data.featureVectors, data.getIntegerTargets())
+            }.predictBatch(queries).toList()
+        }
+        predictions.forEach { assertEquals(predictions[0], it) }
+    }
+
+    @Test
+    fun `test batch prediction matches single predictions`() {
+        val data = clusters(300)
+        val knn = KNNClassifier(2, 2).apply { fit(data.featureVectors, data.getIntegerTargets()) }
+        val batch = knn.predictBatch(data.featureVectors)
+        data.featureVectors.forEachIndexed { i, row -> assertEquals(knn.predict(row), batch[i]) }
+        assertEquals(1.0, knn.accuracy(data))
+    }
+
+    @Test
+    fun `test batch inputs from coupling`() {
+        net.addNetworkModel(xorSVM)
+        xorSVM.setBatchInputs(doubleArrayOf(0.0, 0.0, 0.0, 1.0, 0.0, 0.0))
+        assertArrayEquals(doubleArrayOf(1.0, 0.0, 0.0, 1.0), xorSVM.getBatchOutputs())
+    }
+
+    @Test
+    fun `test cross validation`() {
+        val data = clusters(20)
+        val knn = KNNClassifier(2, 2).apply { k = 1 }
+        assertEquals(1.0, knn.crossValidate(5, data))
+        // The classifier's own model is not touched
+        assertEquals(null, knn.model)
+
+        val ranked = searchHyperparameters(listOf(1, 3, 5).map { KNNClassifier(2, 2).apply { k = it } }, data)
+        assertEquals(3, ranked.size)
+        ranked.forEach { (_, accuracy) -> assertEquals(1.0, accuracy) }
+    }
+
     // @Test
     fun `test naive bayes`() {
         val nb = NaiveBayes(
@@ -0,0 +1,150 @@
+package org.simbrain.network.updaterules
+
+import org.junit.jupiter.api.Assertions.assertArrayEquals
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.simbrain.network.core.Network
+import org.simbrain.network.core.Neuron
+import org.simbrain.network.matrix.NeuronArray
+import org.simbrain.network.neuron_update_rules.HodgkinHuxleyRule
+import org.simbrain.network.util.HodgkinHuxleyData
+import org.simbrain.network.util.HodgkinHuxleyMatrixData
+import kotlin.math.abs
+import kotlin.math.exp
+import kotlin.math.roundToInt
+
+class HodgkinHuxleyTest {
+
+    /**
+     * Times (ms) at which a neuron driven by a constant current crosses 0 mV going up.
+     */
+    private fun spikeTimes(
+        method: IntegrationMethod,
+        timeStep: Double,
+        tables: Boolean,
+        current: Double = 10.0,
+        duration: Double = 50.0
+    ): List<Double> {
+        val net = Network().apply { this.timeStep = timeStep }
+        val neuron = Neuron(net, HodgkinHuxleyRule().apply {
+            integrationMethod = method
+            isUseRateTables = tables
+        })
+        neuron.forceSetActivation(-65.0)
+        val spikes = ArrayList<Double>()
+        val steps = (duration / timeStep).roundToInt()
+        for (step in 1..steps) {
+            val before = neuron.activation
+            neuron.addInputValue(current)
+            neuron.update()
+            if (before < 0 && neuron.activation >= 0) {
+                spikes.add(step * timeStep)
+            }
+        }
+        return spikes
+    }
+
+    private val reference by lazy { spikeTimes(IntegrationMethod.EULER, 0.001, false) }
+
+    private fun assertSpikesMatch(spikes: List<Double>, tolerance: Double) {
+        assertEquals(reference.size, spikes.size)
+        reference.zip(spikes).forEach { (expected, actual) -> assertEquals(expected, actual, tolerance) }
+    }
+
+    @Test
+    fun `constant current makes a regular spike train`() {
+        assertEquals(4, reference.size)
+        val intervals = reference.zipWithNext { a, b -> b - a }
+        intervals.zipWithNext { a, b -> assertEquals(a, b, 0.5) }
+    }
+
+    @Test
+    fun `exponential euler with tables at large time steps`() {
+        assertSpikesMatch(spikeTimes(IntegrationMethod.EXPONENTIAL_EULER, 0.025, true), 1.0)
+        // Euler is unstable at this time step
+        assertSpikesMatch(spikeTimes(IntegrationMethod.EXPONENTIAL_EULER, 0.1, true), 3.0)
+    }
+
+    @Test
+    fun `runge kutta 4`() {
+        assertSpikesMatch(spikeTimes(IntegrationMethod.RUNGE_KUTTA_4, 0.05, true), 0.1)
+    }
+
+    @Test
+    fun `adaptive runge kutta`() {
+        assertSpikesMatch(spikeTimes(IntegrationMethod.ADAPTIVE, 0.1, false), 0.15)
+    }
+
+    @Test
+    fun `no current stays at rest`() {
+        val net = Network().apply { timeStep = 0.1 }
+        val neuron = Neuron(net, HodgkinHuxleyRule())
+        neuron.forceSetActivation(-65.0)
+        repeat(1000) { neuron.update() }
+        assertEquals(-65.0, neuron.activation, 0.1)
+    }
+
+    @Test
+    fun `array matches free neurons`() {
+        val net = Network().apply { timeStep = 0.05 }
+        val currents = doubleArrayOf(0.0, 5.0, 10.0, 20.0)
+        val neurons = currents.map {
+            Neuron(net, HodgkinHuxleyRule()).apply { forceSetActivation(-65.0) }
+        }
+        val array = NeuronArray(net, currents.size)
+        array.updateRule = HodgkinHuxleyRule()
+        array.setActivations(DoubleArray(currents.size) { -65.0 })
+        repeat(400) {
+            neurons.forEachIndexed { i, neuron ->
+                neuron.addInputValue(currents[i])
+                neuron.update()
+            }
+            array.addInputs(currents)
+            array.update()
+        }
+        assertArrayEquals(neurons.map { it.activation }.toDoubleArray(), array.activations.col(0), 1e-9)
+        val gates = neurons.map { (it.dataHolder as HodgkinHuxleyData).n }.toDoubleArray()
+        assertArrayEquals(gates, (array.dataHolder as HodgkinHuxleyMatrixData).n, 1e-12)
+    }
+
+    @Test
+    fun `lookup table matches rates`() {
+        val table = LookupTable(-150.0, 100.0, 0.05, HodgkinHuxleyRule::alphaM, HodgkinHuxleyRule::betaH)
+        val out = DoubleArray(2)
+        var v = -100.0
+        while (v < 60) {
+            table.lookup(v, out)
+            assertEquals(HodgkinHuxleyRule.alphaM(v), out[0], 1e-4)
+            assertEquals(HodgkinHuxleyRule.betaH(v), out[1], 1e-4)
+            assertEquals(out[1], table.lookup(v, 1), 1e-15)
+            v += 0.0137
+        }
+        // Outside the table the functions are computed
+        assertEquals(HodgkinHuxleyRule.alphaM(200.0), table.lookup(200.0, 0), 0.0)
+        // Near the removable singularity of alpha m
+        assertTrue(abs(HodgkinHuxleyRule.alphaM(-40.0) - 1.0) < 1e-9)
+    }
+
+    @Test
+    fun `adaptive steps match exponential decay`() {
+        val rate = 3.0
+        val system = object : OdeSystem {
+            override fun derivatives(t: Double, y: DoubleArray, dydt: DoubleArray) {
+                for (i in y.indices) dydt[i] = -rate * (i + 1) * y[i]
+            }
+        }
+        val integrator = OdeIntegrator(1e-8, 1e-10)
+        val y = doubleArrayOf(1.0, 2.0)
+        var t = 0.0
+        repeat(10) {
+            integrator.step(system, IntegrationMethod.ADAPTIVE, t, y, 0.5)
+            t += 0.5
+            if (t == 0.5) {
+                assertTrue(integrator.substepCount > 1)
+            }
+        }
+        assertEquals(exp(-rate * t), y[0], 1e-8)
+        assertEquals(2 * exp(-2 * rate * t), y[1], 1e-8)
+    }
+}
@@ -0,0 +1,139 @@
+package org.simbrain.network.updaterules
+
+import org.junit.jupiter.api.Assertions.assertArrayEquals
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.simbrain.network.core.Network
+import org.simbrain.network.core.Neuron
+import org.simbrain.network.core.Synapse
+import org.simbrain.network.matrix.NeuronArray
+import org.simbrain.network.matrix.WeightMatrix
+import org.simbrain.network.neuron_update_rules.KuramotoRule
+import org.simbrain.network.util.KuramotoMatrixData
+import kotlin.math.PI
+import kotlin.math.sin
+import kotlin.random.Random
+
+class KuramotoTest {
+
+    val net = Network().apply { timeStep = 0.05 }
+
+    val random = Random(1)
+
+    /**
+     * One synchronous step of the per-neuron rule, summing over every pair.
+     */
+    private fun reference(
+        theta: DoubleArray,
+        frequencies: DoubleArray,
+        sourceTheta: DoubleArray,
+        weights: Array<DoubleArray>
+    ) = DoubleArray(theta.size) { i ->
+        var sum = 0.0
+        var fanIn = 0
+        for (j in sourceTheta.indices) {
+            if (weights[i][j] != 0.0) {
+                sum += weights[i][j] * sin(sourceTheta[j] - theta[i])
+                fanIn++
+            }
+        }
+        (theta[i] + net.timeStep * (frequencies[i] + sum / maxOf(fanIn, 1))) % (2 * PI)
+    }
+
+    private fun oscillators(size: Int, config: KuramotoRule.() -> Unit = {}): NeuronArray {
+        val array = NeuronArray(net, size)
+        array.updateRule = KuramotoRule().apply {
+            isClipped = false
+            config()
+        }
+        (array.dataHolder as KuramotoMatrixData).naturalFrequencies = DoubleArray(size) { 1 + random.nextDouble() }
+        array.setActivations(DoubleArray(size) { random.nextDouble() * 2 * PI })
+        return array
+    }
+
+    private val NeuronArray.phases get() = activations.col(0)
+
+    private val NeuronArray.frequencies get() = (dataHolder as KuramotoMatrixData).naturalFrequencies
+
+    @Test
+    fun `mean field matches all to all coupling`() {
+        val array = oscillators(50) {
+            meanField = true
+            couplingStrength = 2.0
+        }
+        val weights = Array(50) { i -> DoubleArray(50) { j -> if (i == j) 0.0 else 2.0 } }
+        val expected = reference(array.phases, array.frequencies, array.phases, weights)
+        array.update()
+        assertArrayEquals(expected, array.phases, 1e-9)
+    }
+
+    @Test
+    fun `sparse weight matrix from another array`() {
+        val source = oscillators(200)
+        val target = oscillators(150)
+        val wm = WeightMatrix(net, source, target)
+        net.addNetworkModels(source, target, wm)
+        val weights = Array(150) { DoubleArray(200) { if (random.nextDouble() < 0.05) random.nextDouble(-1.0, 1.0) else 0.0 } }
+        wm.setWeights(weights)
+        assertTrue(wm.sparseWeights.isCompressed)
+        val expected = reference(target.phases, target.frequencies, source.phases, weights)
+        target.update()
+        assertArrayEquals(expected, target.phases, 1e-9)
+    }
+
+    @Test
+    fun `dense recurrent weight matrix`() {
+        val array = oscillators(100)
+        val wm = WeightMatrix(net, array, array)
+        net.addNetworkModels(array, wm)
+        val weights = Array(100) { DoubleArray(100) { random.nextDouble(-1.0, 1.0) } }
+        wm.setWeights(weights)
+        assertTrue(!wm.sparseWeights.isCompressed)
+        val expected = reference(array.phases, array.frequencies, array.phases, weights)
+        net.update()
+        assertArrayEquals(expected, array.phases, 1e-9)
+    }
+
+    @Test
+    fun `array matches free neurons`() {
+        val weights = doubleArrayOf(0.0, 0.5, -0.3, 0.8)
+        val phases = doubleArrayOf(0.3, 1.2, 2.5, 4.0)
+        val neurons = phases.map { phase ->
+            Neuron(net, KuramotoRule().apply { isClipped = false; naturalFrequency = 1.5 }).also {
+                it.forceSetActivation(phase)
+            }
+        }
+        net.addNetworkModels(neurons)
+        net.addNetworkModels((1..3).map { j -> Synapse(neurons[j], neurons[0], weights[j]) })
+        neurons[0].update()
+
+        val array = NeuronArray(net, 4)
+        array.updateRule = KuramotoRule().apply { isClipped = false; naturalFrequency = 1.5 }
+        array.setActivations(phases)
+        val wm = WeightMatrix(net, array, array)
+        net.addNetworkModels(array, wm)
+        wm.setWeights(Array(4) { i -> if (i == 0) weights else DoubleArray(4) })
+        array.update()
+
+        assertEquals(neurons[0].activation, array.phases[0], 1e-12)
+    }
+
+    @Test
+    fun `strong coupling synchronizes`() {
+        val coupled = oscillators(2000) {
+            meanField = true
+            couplingStrength = 2.0
+        }
+        val uncoupled = oscillators(2000) {
+            meanField = true
+            couplingStrength = 0.0
+        }
+        repeat(1000) {
+            coupled.update()
+            uncoupled.update()
+        }
+        assertTrue((coupled.dataHolder as KuramotoMatrixData).orderParameter > 0.95)
+        assertTrue((uncoupled.dataHolder as KuramotoMatrixData).orderParameter < 0.2)
+    }
+}
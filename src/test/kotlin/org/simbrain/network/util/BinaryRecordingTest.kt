@@ -0,0 +1,55 @@
+package org.simbrain.network.util
+
+import org.junit.jupiter.api.Assertions.assertArrayEquals
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.io.File
+
+class BinaryRecordingTest {
+
+    @Test
+    fun `activations are read back by row and column`(@TempDir dir: File) {
+        val file = File(dir, "acts.sbr")
+        val rows = 1000
+        BinaryRecordingWriter(file, false, 5, 8).use { writer ->
+            repeat(rows) { t -> writer.addActivations(t * 0.5, DoubleArray(5) { it + t * 10.0 }) }
+        }
+        RecordingReader(file).use { reader ->
+            assertEquals(rows.toLong(), reader.rowCount)
+            assertEquals(5, reader.neuronCount)
+            assertEquals(499.5, reader.getTime(999))
+            assertArrayEquals(doubleArrayOf(7770.0, 7771.0, 7772.0, 7773.0, 7774.0), reader.getRow(777))
+            assertArrayEquals(DoubleArray(rows) { 3 + it * 10.0 }, reader.getColumn(3))
+            val slice = reader.getRows(10, 20)
+            assertEquals(10, slice.size)
+            assertEquals(152.0, slice[5][2])
+        }
+    }
+
+    @Test
+    fun `floats are stored in single precision`(@TempDir dir: File) {
+        val file = File(dir, "floats.sbr")
+        BinaryRecordingWriter(file, false, 2, 4).use { it.addActivations(0.0, doubleArrayOf(0.1, -2.0)) }
+        RecordingReader(file).use { reader ->
+            assertEquals(1L, reader.rowCount)
+            assertEquals(0.1f.toDouble(), reader.getValue(0, 0))
+            assertEquals(-2.0, reader.getValue(0, 1))
+        }
+    }
+
+    @Test
+    fun `spike indices span several blocks`(@TempDir dir: File) {
+        val file = File(dir, "spikes.sbr")
+        val rows = 3000
+        BinaryRecordingWriter(file, true, 100, 4).use { writer ->
+            repeat(rows) { t -> writer.addSpikes(t.toDouble()) { it % 7 == t % 7 } }
+        }
+        RecordingReader(file).use { reader ->
+            assertEquals(true, reader.isSpikes)
+            assertEquals(rows.toLong(), reader.rowCount)
+            assertArrayEquals((0 until 100).filter { it % 7 == 2500 % 7 }.toIntArray(), reader.getSpikes(2500))
+            assertEquals(2999.0, reader.getTime(2999))
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package org.simbrain.plot.rasterchart
+
+import org.jfree.data.Range
+import org.junit.jupiter.api.Assertions.assertArrayEquals
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+
+class SpikeRasterStoreTest {
+
+    @Test
+    fun `store keeps newest steps`() {
+        val store = SpikeRasterStore(10)
+        repeat(25) { store.add(it.toDouble(), intArrayOf(it, it + 1), 2) }
+        assertEquals(10, store.stepCount)
+        assertEquals(20L, store.spikeCount)
+        assertEquals(15.0, store.firstTime)
+        assertEquals(24.0, store.lastTime)
+        assertArrayEquals(intArrayOf(15, 16), store.getSpikes(0))
+        assertArrayEquals(intArrayOf(24, 25), store.getSpikes(9))
+    }
+
+    @Test
+    fun `spike buffer grows past its initial size`() {
+        val store = SpikeRasterStore(100)
+        val all = IntArray(500) { it }
+        repeat(50) { store.add(it.toDouble(), all, if (it % 2 == 0) 500 else 0) }
+        assertEquals(50, store.stepCount)
+        assertEquals(25 * 500L, store.spikeCount)
+        assertArrayEquals(all, store.getSpikes(48))
+        assertEquals(0, store.getSpikes(49).size)
+        assertEquals(0, store.minIndex)
+        assertEquals(499, store.maxIndex)
+    }
+
+    @Test
+    fun `boolean spikes are stored as indices`() {
+        val store = SpikeRasterStore(10)
+        store.add(3.0, booleanArrayOf(false, true, false, true))
+        assertArrayEquals(intArrayOf(1, 3), store.getSpikes(0))
+        assertEquals(3.0, store.getTime(0))
+    }
+
+    @Test
+    fun `visit only reads steps in range`() {
+        val store = SpikeRasterStore(1000)
+        repeat(1000) { store.add(it.toDouble(), intArrayOf(it % 7), 1) }
+        val times = mutableListOf<Double>()
+        store.visit(100.0, 110.0) { time, _ -> times.add(time) }
+        assertEquals((100..110).map { it.toDouble() }, times)
+    }
+
+    @Test
+    fun `shrinking max steps drops oldest`() {
+        val store = SpikeRasterStore(100)
+        repeat(100) { store.add(it.toDouble(), intArrayOf(it), 1) }
+        store.maxSteps = 10
+        assertEquals(10, store.stepCount)
+        assertArrayEquals(intArrayOf(90), store.getSpikes(0))
+        store.add(100.0, intArrayOf(100), 1)
+        assertEquals(91.0, store.firstTime)
+    }
+
+    @Test
+    fun `dataset reports bounds from stores`() {
+        val dataset = SpikeRasterDataset(100)
+        dataset.addSeries("1")
+        dataset.addSeries("2")
+        dataset.add(0, 5.0, intArrayOf(3, 8), 2)
+        dataset.add(1, 9.0, booleanArrayOf(false, false, true))
+        assertEquals(5.0, dataset.getDomainLowerBound(false))
+        assertEquals(9.0, dataset.getDomainUpperBound(false))
+        assertEquals(2.0, dataset.getRangeLowerBound(false))
+        assertEquals(8.0, dataset.getRangeUpperBound(false))
+        assertEquals(0, dataset.getItemCount(0))
+    }
+
+    @Test
+    fun `range bounds cover only stored steps in the x range`() {
+        val dataset = SpikeRasterDataset(3)
+        dataset.addSeries("1")
+        dataset.add(0, 0.0, intArrayOf(100), 1)
+        repeat(3) { dataset.add(0, it + 1.0, intArrayOf(it + 5), 1) }
+        assertEquals(5.0, dataset.getRangeLowerBound(false))
+        assertEquals(7.0, dataset.getRangeUpperBound(false))
+        val range = dataset.getRangeBounds(listOf("1"), Range(2.0, 2.0), false)
+        assertEquals(6.0, range.lowerBound)
+        assertEquals(6.0, range.upperBound)
+    }
+
+    @Test
+    fun `raster spikes are saved`() {
+        val model = RasterModel { 0 }
+        model.dataset.add(0, 1.0, intArrayOf(2, 4), 2)
+        model.dataset.add(0, 2.0, intArrayOf(), 0)
+        model.dataset.add(0, 3.0, intArrayOf(7), 1)
+        model.storeSteps()
+        val xml = RasterModel.getXStream().toXML(model)
+        model.clearStoredSteps()
+        val store = (RasterModel.getXStream().fromXML(xml) as RasterModel).dataset.getStore(0)
+        assertEquals(3, store.stepCount)
+        assertEquals(2.0, store.getTime(1))
+        assertArrayEquals(intArrayOf(2, 4), store.getSpikes(0))
+        assertArrayEquals(intArrayOf(), store.getSpikes(1))
+        assertArrayEquals(intArrayOf(7), store.getSpikes(2))
+    }
+}
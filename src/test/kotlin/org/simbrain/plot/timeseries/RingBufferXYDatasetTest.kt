@@ -0,0 +1,116 @@
+package org.simbrain.plot.timeseries
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import kotlin.math.sin
+
+class RingBufferXYDatasetTest {
+
+    @Test
+    fun `ring buffer keeps newest points`() {
+        val dataset = RingBufferXYDataset(100)
+        val series = dataset.addSeries("a")
+        repeat(250) { dataset.add(series, it.toDouble(), it * 2.0) }
+        assertEquals(100, series.itemCount)
+        assertEquals(150.0, series.getX(0))
+        assertEquals(498.0, series.getY(99))
+        assertEquals(150.0, dataset.getDomainLowerBound(false))
+        assertEquals(249.0, dataset.getDomainUpperBound(false))
+    }
+
+    @Test
+    fun `min max decimation keeps extremes`() {
+        val dataset = RingBufferXYDataset(10_000)
+        val series = dataset.addSeries("a")
+        repeat(10_000) { dataset.add(series, it.toDouble(), if (it == 7777) 10.0 else sin(it / 100.0)) }
+        dataset.setView(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 100)
+        val n = dataset.getItemCount(0)
+        assertTrue(n <= 200)
+        assertEquals(10.0, (0 until n).maxOf { dataset.getYValue(0, it) })
+        assertEquals(0.0, dataset.getXValue(0, 0))
+        assertEquals(9999.0, dataset.getXValue(0, n - 1))
+    }
+
+    @Test
+    fun `lttb decimates to view width`() {
+        val dataset = RingBufferXYDataset(10_000)
+        val series = dataset.addSeries("a")
+        repeat(10_000) { dataset.add(series, it.toDouble(), sin(it / 100.0)) }
+        dataset.decimation = RingBufferXYDataset.Decimation.LTTB
+        dataset.setView(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 100)
+        assertEquals(100, dataset.getItemCount(0))
+    }
+
+    @Test
+    fun `view is cut to visible domain`() {
+        val dataset = RingBufferXYDataset(1000)
+        val series = dataset.addSeries("a")
+        repeat(1000) { dataset.add(series, it.toDouble(), 0.0) }
+        dataset.setView(100.0, 200.0, 500)
+        val n = dataset.getItemCount(0)
+        // Includes the points at or just past each edge so lines reach the edges
+        assertEquals(99.0, dataset.getXValue(0, 0))
+        assertEquals(200.0, dataset.getXValue(0, n - 1))
+    }
+
+    @Test
+    fun `spilled history can be viewed`() {
+        val dataset = RingBufferXYDataset(100)
+        dataset.isSpillToDisk = true
+        val series = dataset.addSeries("a")
+        repeat(1000) { dataset.add(series, it.toDouble(), it.toDouble()) }
+        assertEquals(100, series.itemCount)
+        assertEquals(900, series.spilledCount)
+        dataset.setView(10.0, 20.0, 500)
+        assertEquals(9.0, dataset.getYValue(0, 0))
+        dataset.removeAllSeries()
+    }
+
+    @Test
+    fun `add all appends to each series`() {
+        val dataset = RingBufferXYDataset()
+        val a = dataset.addSeries("a")
+        val b = dataset.addSeries("b")
+        dataset.addAll(1.0, doubleArrayOf(.5, -.5))
+        assertEquals(.5, a.getY(0))
+        assertEquals(-.5, b.getY(0))
+        assertEquals(-.5, dataset.getRangeLowerBound(false))
+        assertEquals(.5, dataset.getRangeUpperBound(false))
+    }
+
+    @Test
+    fun `range bounds drop a spike once it leaves a small window`() {
+        val dataset = RingBufferXYDataset(100)
+        val series = dataset.addSeries("a")
+        repeat(300) { dataset.add(series, it.toDouble(), if (it == 250) 10.0 else 0.0) }
+        assertEquals(10.0, dataset.getRangeUpperBound(false))
+        repeat(100) { dataset.add(series, 300.0 + it, 0.0) }
+        assertEquals(0.0, dataset.getRangeUpperBound(false))
+    }
+
+    @Test
+    fun `range bounds ignore dropped part of oldest block`() {
+        val dataset = RingBufferXYDataset(1000)
+        val series = dataset.addSeries("a")
+        repeat(1100) { dataset.add(series, it.toDouble(), if (it == 50) -10.0 else it / 1000.0) }
+        assertEquals(.1, dataset.getRangeLowerBound(false))
+        assertEquals(1.099, dataset.getRangeUpperBound(false))
+    }
+
+    @Test
+    fun `time series points and names are saved`() {
+        val model = TimeSeriesModel { 0 }
+        model.removeAllScalarTimeSeries()
+        model.addScalarTimeSeries("Activation")
+        repeat(5) { model.addData(0, it.toDouble(), it * 2.0) }
+        model.storePoints()
+        val xml = TimeSeriesPlotComponent.getTimeSeriesXStream().toXML(model)
+        model.clearStoredPoints()
+        val loaded = TimeSeriesPlotComponent.getTimeSeriesXStream().fromXML(xml) as TimeSeriesModel
+        val series = loaded.timeSeriesList[0].series
+        assertEquals("Activation", series.key)
+        assertEquals(5, series.itemCount)
+        assertEquals(8.0, series.getY(4))
+    }
+}
@@ -28,6 +28,13 @@ class MathKtTest {
         assertEquals(2.0, oneHot[2])
     }
 
+    @Test
+    fun `test argmax`() {
+        assertEquals(2, floatArrayOf(.1f, .2f, .7f, 0f).argmax())
+        assertEquals(0, floatArrayOf(.5f, .5f).argmax())
+        assertEquals(-1, floatArrayOf().argmax())
+    }
+
     @Test
     fun `test geometric progression`() {
         val seq = createGeometricProgression(1.0, 2.0).takeWhile { it < 2000 }.toList()
@@ -0,0 +1,100 @@
+package org.simbrain.util
+
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.runBlocking
+import org.junit.jupiter.api.Assertions.assertArrayEquals
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNotEquals
+import org.junit.jupiter.api.Test
+import org.simbrain.network.core.Network
+import org.simbrain.network.core.Neuron
+import org.simbrain.network.matrix.NeuronArray
+import org.simbrain.network.neuron_update_rules.LinearRule
+import org.simbrain.util.stats.distributions.*
+
+class SimbrainRandomTest {
+
+    @Test
+    fun `same seed gives same numbers`() {
+        val a = RandomStream(42)
+        val b = RandomStream(42)
+        repeat(100) { assertEquals(a.nextDouble(), b.nextDouble()) }
+        assertNotEquals(RandomStream(42).nextLong(), RandomStream(43).nextLong())
+    }
+
+    @Test
+    fun `split streams do not depend on order or draws`() {
+        val a = RandomStream(7)
+        val b = RandomStream(7)
+        val a1 = a.split("one").nextLong()
+        val a2 = a.split("two").nextLong()
+        repeat(10) { b.nextDouble() }
+        val b2 = b.split("two").nextLong()
+        val b1 = b.split("one").nextLong()
+        assertEquals(a1, b1)
+        assertEquals(a2, b2)
+        assertNotEquals(a1, a2)
+    }
+
+    @Test
+    fun `distributions sample reproducibly from a stream`() {
+        val distributions = listOf(
+            NormalDistribution(1.0, 2.0),
+            UniformRealDistribution(-1.0, 1.0),
+            UniformIntegerDistribution(),
+            ExponentialDistribution(),
+            GammaDistribution(),
+            LogNormalDistribution(),
+            ParetoDistribution(),
+            PoissonDistribution(),
+            TwoValued()
+        )
+        distributions.forEach { dist ->
+            val a = RandomStream(3)
+            val b = RandomStream(3)
+            repeat(20) { assertEquals(dist.sampleDouble(a), dist.sampleDouble(b), dist.name) }
+        }
+    }
+
+    private fun network(seed: Long) = Network().apply {
+        randomSeed = seed
+        val neurons = List(50) { Neuron(this, LinearRule().apply { addNoise = true }) }
+        addNetworkModels(neurons)
+        addNetworkModels(NeuronArray(this, 100))
+    }
+
+    private val Network.arrays get() = getModels(NeuronArray::class.java).toList()
+
+    private val Network.activations
+        get() = (freeNeurons.map { it.activation } + arrays.flatMap { it.activations.col(0).toList() }).toDoubleArray()
+
+    private fun Network.randomize() {
+        freeNeurons.forEach { it.randomize() }
+        arrays.forEach { it.randomize() }
+    }
+
+    @Test
+    fun `networks with the same seed randomize the same way`() {
+        val a = network(11).apply { randomize() }
+        val b = network(11).apply { randomize() }
+        val c = network(12).apply { randomize() }
+        assertArrayEquals(a.activations, b.activations)
+        assertNotEquals(a.activations.toList(), c.activations.toList())
+    }
+
+    @Test
+    fun `noise does not depend on update order`() {
+        val a = network(5)
+        val b = network(5)
+        repeat(10) {
+            a.freeNeurons.forEach { it.addInputValue(1.0) }
+            a.freeNeurons.forEach { it.update() }
+            runBlocking(Dispatchers.Default) {
+                b.freeNeurons.toList().reversed().map { async { it.addInputValue(1.0); it.update() } }.awaitAll()
+            }
+        }
+        assertArrayEquals(a.activations, b.activations)
+    }
+}
@@ -0,0 +1,146 @@
+package org.simbrain.util.geneticalgorithm2
+
+import com.thoughtworks.xstream.security.ForbiddenClassException
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.runBlocking
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.junit.jupiter.api.io.TempDir
+import org.simbrain.workspace.Workspace
+import java.io.File
+import kotlin.random.Random
+
+class SumGenotype(seed: Long = Random.nextLong()) : Genotype2 {
+
+    override val random: Random = Random(seed)
+
+    var nodes = chromosome2(3) { add(nodeGene2 { activation = 1.0 }) }
+
+    var connections = chromosome2(1) { add(connectionGene2(nodes[0], nodes[1]) { strength = 0.5 }) }
+
+    fun copy() = SumGenotype(random.nextLong()).apply {
+        val current = this@SumGenotype
+        nodes = current.nodes.copy()
+        connections = current.connections.copy()
+    }
+}
+
+/**
+ * Fitness is the sum of the neuron activations and synapse strengths in the genotype, so it can be checked without
+ * building anything.
+ */
+class SumSim(override val genotype: SumGenotype = SumGenotype()) : DistributableEvoSim {
+
+    override val factory = SumSimFactory::class.java
+
+    override fun mutate() {
+        genotype.nodes.forEach { it.mutate { activation += 1.0 } }
+    }
+
+    override suspend fun build() {}
+
+    override fun visualize(workspace: Workspace) = this
+
+    override fun copy() = SumSim(genotype.copy())
+
+    override suspend fun eval() = genotype.nodes.sumOf { it.template.activation } +
+            genotype.connections.sumOf { it.template.strength }
+}
+
+class SumSimFactory : EvoSimFactory {
+    override fun create(genotype: Genotype2) = SumSim(genotype as SumGenotype)
+}
+
+/**
+ * Sim whose evaluation takes longer than the backend waits for it.
+ */
+class SlowSim(override val genotype: SumGenotype = SumGenotype()) : DistributableEvoSim {
+
+    override val factory = SlowSimFactory::class.java
+
+    override fun mutate() {}
+
+    override suspend fun build() {}
+
+    override fun visualize(workspace: Workspace) = this
+
+    override fun copy() = SlowSim(genotype.copy())
+
+    override suspend fun eval(): Double {
+        delay(60_000)
+        return 0.0
+    }
+}
+
+class SlowSimFactory : EvoSimFactory {
+    override fun create(genotype: Genotype2) = SlowSim(genotype as SumGenotype)
+}
+
+class DistributedEvaluationTest {
+
+    private fun population() = List(6) { i -> SumSim().apply { repeat(i) { mutate() } } }
+
+    @Test
+    fun `worker processes compute the same fitness as the local scheduler`() {
+        DistributedEvaluationBackend(localWorkers = 2).use { backend ->
+            val sims = population()
+            val expected = runBlocking { EvaluationScheduler().evaluate(sims) }
+            assertEquals(listOf(3.5, 6.5, 9.5, 12.5, 15.5, 18.5), expected)
+            assertEquals(expected, runBlocking { backend.evaluate(sims) })
+        }
+    }
+
+    @Test
+    fun `evaluation survives a crashed worker`() {
+        DistributedEvaluationBackend(localWorkers = 2).use { backend ->
+            val sims = population()
+            val expected = runBlocking { backend.evaluate(sims) }
+            backend.localProcesses.first().destroyForcibly().waitFor()
+            assertEquals(expected, runBlocking { backend.evaluate(sims) })
+        }
+    }
+
+    @Test
+    fun `evolution resumes from a checkpoint`(@TempDir dir: File) {
+        val checkpoint = EvolutionCheckpoint(File(dir, "checkpoint.xml"))
+        val generations = mutableListOf<Int>()
+        fun evolve(until: Int) = runBlocking {
+            evaluator2(
+                populatingFunction = { SumSim() },
+                populationSize = 10,
+                eliminationRatio = 0.5,
+                stoppingFunction = { generation >= until },
+                peek = { generations.add(generation) },
+                checkpoint = checkpoint
+            )
+        }
+        evolve(2)
+        val resumed = evolve(4)
+        assertEquals(listOf(1, 2, 3, 4), generations)
+        // Every generation improves on the previous best, since all mutations increase fitness
+        val best = runBlocking { resumed.maxOf { it.eval() } }
+        assertTrue(best > 3.5 + 3 * 3)
+    }
+
+    @Test
+    fun `workers that don't answer in time are dropped and the sim is retried`() {
+        DistributedEvaluationBackend(localWorkers = 2, maxAttempts = 2, readTimeoutMillis = 500).use { backend ->
+            val failure = assertThrows<DistributedEvaluationException> {
+                runBlocking { backend.evaluate(listOf(SlowSim())) }
+            }
+            assertEquals("Evaluation failed on 2 workers", failure.message)
+        }
+    }
+
+    @Test
+    fun `genotype xstream rejects types outside the allowlist`() {
+        val xml = "<java.beans.EventHandler><target class=\"java.lang.ProcessBuilder\"/></java.beans.EventHandler>"
+        assertThrows<ForbiddenClassException> { getGenotypeXStream().fromXML(xml) }
+        // Genotypes still round trip
+        val genotype = SumGenotype()
+        val copy = getGenotypeXStream().let { it.fromXML(it.toXML(genotype)) } as SumGenotype
+        assertEquals(genotype.nodes.size, copy.nodes.size)
+    }
+}
@@ -12,6 +12,7 @@ import org.simbrain.network.core.Neuron
 import org.simbrain.network.core.activations
 
 import org.simbrain.workspace.Workspace
+import java.util.concurrent.atomic.AtomicInteger
 
 class GeneticsTest {
 
@@ -48,6 +49,32 @@ class GeneticsTest {
 
     }
 
+    @Test
+    fun `survivor fitness is reused unless reevaluation is requested`() {
+        fun countEvaluations(reevaluate: Boolean): Int {
+            val evaluations = AtomicInteger()
+            val sim = evolutionarySimulation {
+                val ints = chromosome(1) { intGene() }
+                onBuild {
+                    +ints
+                }
+                onEval {
+                    evaluations.incrementAndGet()
+                    ints.getProducts().first().toDouble()
+                }
+            }
+            evaluator(sim) {
+                reevaluateSurvivors = reevaluate
+                maxConcurrentEvaluations = 4
+                runUntil { generation == 3 }
+            }.start().best
+            return evaluations.get()
+        }
+        // 100 agents, half of them survive each generation
+        assertEquals(200, countEvaluations(false))
+        assertEquals(300, countEvaluations(true))
+    }
+
     @Test
     fun `node copy copies neuron properties correctly`() {
         val node = nodeGene() {
@@ -1,15 +1,32 @@
 package org.simbrain.util.projection
 
-import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.*
 import org.junit.jupiter.api.Test
+import kotlin.random.Random
 
 class NTreeTest {
 
-    var ntree: NTree = NTree(10)
+    var ntree: NTree = NTree(2)
     var p1 = DataPoint(doubleArrayOf(1.0, 0.0))
     var p2 = DataPoint(doubleArrayOf(0.5, 0.0))
     var p3 = DataPoint(doubleArrayOf(0.0, 0.0))
 
+    private val random = Random(7)
+
+    /**
+     * Random points, with some coordinates repeated so that there are ties on the split dimensions.
+     */
+    private fun randomPoints(n: Int, dims: Int) = List(n) {
+        DataPoint(DoubleArray(dims) { if (random.nextInt(4) == 0) random.nextInt(3).toDouble() else random.nextDouble() })
+    }
+
+    /**
+     * Indices of the k closest points by linear search, ties broken by index.
+     */
+    private fun bruteForceClosest(points: List<DataPoint>, k: Int, query: DataPoint) = points.indices
+        .sortedWith(compareBy<Int> { NTree.getDistance(points[it], query) }.thenBy { it })
+        .take(k)
+
     @Test
     fun `test closest point`() {
         ntree.add(p1)
@@ -18,5 +35,53 @@ class NTreeTest {
         assertEquals(p3, ntree.getClosestPoint(DataPoint(doubleArrayOf(0.0, 0.1))))
     }
 
-}
+    @Test
+    fun `closest points match a linear search`() {
+        val points = randomPoints(1000, 3)
+        val incremental = NTree(3).apply { points.forEach { add(it) } }
+        val bulk = NTree(3, points)
+        repeat(50) {
+            val query = randomPoints(1, 3).first()
+            val expected = bruteForceClosest(points, 10, query)
+            assertEquals(expected, incremental.getClosestIndices(10, query).toList())
+            assertEquals(expected, bulk.getClosestIndices(10, query).toList())
+        }
+    }
+
+    @Test
+    fun `closest points contain no duplicates`() {
+        val tree = NTree(2)
+        repeat(200) { tree.add(DataPoint(doubleArrayOf(1.0, 1.0))) }
+        tree.add(DataPoint(doubleArrayOf(0.0, 0.0)))
+        val closest = tree.getClosestIndices(5, DataPoint(doubleArrayOf(1.0, 1.0)))
+        assertEquals(listOf(0, 1, 2, 3, 4), closest.toList())
+        assertEquals(201, tree.getClosestIndices(500, p3).distinct().size)
+        assertEquals(200, tree.getClosestIndices(1, p3).single())
+    }
 
+    @Test
+    fun `set moves a point`() {
+        val points = randomPoints(300, 2)
+        val tree = NTree(2, points)
+        val moved = DataPoint(doubleArrayOf(10.0, 10.0))
+        tree.set(17, moved)
+        assertEquals(moved, tree.get(17))
+        assertEquals(17, tree.getClosestIndices(1, DataPoint(doubleArrayOf(9.0, 9.0))).single())
+        assertEquals(300, tree.size())
+    }
+
+    @Test
+    fun `is unique finds points within tolerance`() {
+        val tree = NTree(2, randomPoints(500, 2))
+        tree.add(DataPoint(doubleArrayOf(5.0, 5.0)))
+        assertEquals(500, tree.getIndex(tree.isUnique(DataPoint(doubleArrayOf(5.05, 5.0)), 0.1)))
+        assertNull(tree.isUnique(DataPoint(doubleArrayOf(5.2, 5.0)), 0.1))
+        assertNull(tree.isUnique(DataPoint(doubleArrayOf(5.0, 5.0)), -1.0))
+    }
+
+    @Test
+    fun `points must match the tree dimension`() {
+        assertThrows(IllegalArgumentException::class.java) { NTree(3).add(p1) }
+    }
+
+}
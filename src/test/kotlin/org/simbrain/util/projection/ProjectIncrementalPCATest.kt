@@ -0,0 +1,84 @@
+package org.simbrain.util.projection
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import smile.projection.PCA
+import kotlin.math.abs
+import kotlin.random.Random
+
+class ProjectIncrementalPCATest {
+
+    private val random = Random(42)
+
+    /**
+     * Points with well separated variances along each axis.
+     */
+    private fun randomPoint() = doubleArrayOf(5.0, 3.0, 1.0, 0.5, 0.2).map { it * random.nextDouble(-1.0, 1.0) }
+        .toDoubleArray()
+
+    private fun incrementalProjector(): Pair<Projector, ProjectIncrementalPCA> {
+        val projector = Projector(5).apply { isAsynchronousIngestion = false }
+        val method = ProjectIncrementalPCA(projector)
+        projector.setProjectionMethod(method)
+        return projector to method
+    }
+
+    @Test
+    fun `incremental pca matches batch pca when refitting every point`() {
+        val (projector, method) = incrementalProjector()
+        method.refitInterval = 1
+        method.refitFraction = 0.0
+        repeat(40) { projector.addDatapoint(DataPointColored(randomPoint())) }
+
+        val expected = PCA.fit(projector.upstairs.doubleArray).apply { setProjection(2) }
+            .project(projector.upstairs.doubleArray)
+        val actual = projector.downstairs.doubleArray
+        assertEquals(expected.size, actual.size)
+        // Components are only defined up to sign
+        for (c in 0..1) {
+            val sign = if (expected[0][c] * actual[0][c] < 0) -1.0 else 1.0
+            expected.indices.forEach { i -> assertEquals(expected[i][c], sign * actual[i][c], 1e-4) }
+        }
+    }
+
+    @Test
+    fun `between refits new points are projected onto the current components`() {
+        val (projector, method) = incrementalProjector()
+        method.refitInterval = 1000
+        method.driftThreshold = Double.POSITIVE_INFINITY
+        repeat(20) { projector.addDatapoint(DataPointColored(randomPoint())) }
+        val components = method.components.map { it.clone() }
+        val before = projector.downstairs.doubleArray
+
+        repeat(5) { projector.addDatapoint(DataPointColored(randomPoint())) }
+
+        // No refit, so existing points and components are unchanged
+        assertEquals(components.map { it.toList() }, method.components.map { it.toList() })
+        val after = projector.downstairs.doubleArray
+        before.indices.forEach { assertEquals(before[it].toList(), after[it].toList()) }
+        assertEquals(25, after.size)
+        // The new points project onto the same components; differences between projected points only depend on them
+        val i = 24
+        val j = 0
+        for (c in 0..1) {
+            val diff = (0 until 5).sumOf { d ->
+                (projector.upstairs.getComponent(i, d) - projector.upstairs.getComponent(j, d)) * components[c][d]
+            }
+            assertEquals(diff, after[i][c] - after[j][c], 1e-9)
+        }
+
+        method.refitInterval = 1
+        projector.addDatapoint(DataPointColored(randomPoint()))
+        assertTrue(components.zip(method.components).any { (old, new) -> old.zip(new).any { (a, b) -> abs(a - b) > 0 } })
+    }
+
+    @Test
+    fun `refits are spaced further apart as the dataset grows`() {
+        val (projector, method) = incrementalProjector()
+        repeat(5000) { projector.addDatapoint(DataPointColored(randomPoint())) }
+        // Every 50 points at first, then every 10% of the points: about 10 + log(10) / log(1.1) refits
+        assertTrue(method.fitCount in 20..50, "${method.fitCount} refits")
+        assertEquals(5000, projector.downstairs.numPoints)
+    }
+}
@@ -0,0 +1,136 @@
+package org.simbrain.util.table
+
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.io.File
+
+class ColumnarDataWrapperTest {
+
+    @TempDir
+    lateinit var directory: File
+
+    private fun file(name: String, text: String) = File(directory, name).apply { writeText(text) }
+
+    @Test
+    fun `csv columns get inferred types`() {
+        val table = readCsv(file("types.csv", "a,b,c,d\n1,2.5,x,3\n2,3,\"y, z\",\n# comment\n\n-4,1e2,w,5\n"))
+        assertEquals(listOf("a", "b", "c", "d"), table.columns.map { it.name })
+        assertEquals(
+            listOf(Column.DataType.DoubleType, Column.DataType.DoubleType, Column.DataType.StringType,
+                Column.DataType.DoubleType),
+            table.columns.map { it.type }
+        )
+        assertEquals(3, table.rowCount)
+        assertEquals(-4.0, table.getValueAt(2, 0))
+        assertEquals(100.0, table.getValueAt(2, 1))
+        assertEquals("y, z", table.getValueAt(1, 2))
+        assertTrue((table.getValueAt(1, 3) as Double).isNaN())
+    }
+
+    @Test
+    fun `csv without header`() {
+        val table = readCsv(file("plain.csv", "1,2\r\n3,4\r\n"))
+        assertEquals(2, table.rowCount)
+        assertArrayEquals(doubleArrayOf(1.0, 3.0), table.getDoubleColumn(0))
+    }
+
+    @Test
+    fun `int column becomes string column`() {
+        val table = readCsv(file("mixed.csv", "1\n2\nthree\n"), header = false)
+        assertEquals(Column.DataType.StringType, table.columns[0].type)
+        assertEquals(listOf("1", "2", "three"), table.getStringColumn(0).toList())
+    }
+
+    @Test
+    fun `csv numbers are parsed exactly`() {
+        val values = listOf(
+            "0.1", "-2.5e-3", "+7", "1.", ".25", "123456789012345", "0.1234567890123456789", "1e300",
+            "2.2250738585072014E-308", "-0", "NaN", "3.4028235e38", "0.000000000000000000000001"
+        )
+        val table = readCsv(file("numbers.csv", values.joinToString("\n")), header = false)
+        assertEquals(Column.DataType.DoubleType, table.columns[0].type)
+        assertArrayEquals(values.map { it.toDouble() }.toDoubleArray(), table.getDoubleColumn(0))
+        assertEquals(-0.0, table.getDoubleColumn(0)[9])
+    }
+
+    @Test
+    fun `arff attributes and data`() {
+        val table = readArff(
+            file(
+                "iris.arff", """
+                % Comment
+                @RELATION iris
+                @ATTRIBUTE sepallength NUMERIC
+                @ATTRIBUTE 'petal width' REAL
+                @ATTRIBUTE class {Iris-setosa,Iris-versicolor}
+
+                @DATA
+                5.1,0.2,Iris-setosa
+                7.0,?,'Iris-versicolor'
+                """.trimIndent()
+            )
+        )
+        assertEquals(listOf("sepallength", "petal width", "class"), table.columns.map { it.name })
+        assertEquals(2, table.rowCount)
+        assertEquals(7.0, table.getValueAt(1, 0))
+        assertTrue((table.getValueAt(1, 1) as Double).isNaN())
+        assertEquals("Iris-versicolor", table.getValueAt(1, 2))
+    }
+
+    @Test
+    fun `matrix view shares storage`() {
+        val table = createFromDoubleArray(arrayOf(doubleArrayOf(1.0, 2.0), doubleArrayOf(3.0, 4.0)))
+        val matrix = table.asMatrix()
+        assertEquals(3.0, matrix[1, 0])
+        matrix[0, 1] = 5.0
+        assertEquals(5.0, table.getValueAt(0, 1))
+        table.setValueAt(6.0, 1, 1)
+        assertEquals(6.0, matrix[1, 1])
+    }
+
+    @Test
+    fun `matrix view includes int columns`() {
+        val table = createFromDoubleArray(arrayOf(doubleArrayOf(1.5, 2.0), doubleArrayOf(3.5, 4.0)))
+        table.columns[1].type = Column.DataType.IntType
+        val matrix = table.asMatrix()
+        assertEquals(2, matrix.ncols())
+        assertEquals(4.0, matrix[1, 1])
+        assertEquals(Column.DataType.DoubleType, table.columns[1].type)
+    }
+
+    @Test
+    fun `matrix view skips non-double columns`() {
+        val table = readCsv(file("labels.csv", "x,y,label\n0.5,1.5,a\n2.5,3.5,b\n"))
+        val matrix = table.asMatrix()
+        assertEquals(2, matrix.ncols())
+        assertEquals(3.5, matrix[1, 1])
+        assertArrayEquals(doubleArrayOf(2.5, 3.5), table.get2DDoubleArray(listOf(0, 1))[1])
+    }
+
+    @Test
+    fun `rows and columns can be edited`() {
+        val table = createFromDoubleArray(arrayOf(doubleArrayOf(1.0, 2.0), doubleArrayOf(3.0, 4.0)))
+        table.insertRow(1)
+        table.insertRowAtBottom()
+        table.addRow(listOf(7.0, 8.0))
+        assertEquals(5, table.rowCount)
+        assertArrayEquals(doubleArrayOf(1.0, 0.0, 3.0, 0.0, 7.0), table.getDoubleColumn(0))
+        table.deleteRow(1)
+        table.insertColumn(1, "Labels", Column.DataType.StringType)
+        table.setValueAt("b", 1, 1)
+        assertEquals(3, table.columnCount)
+        assertEquals("b", table.getValueAt(1, 1))
+        assertArrayEquals(doubleArrayOf(2.0, 4.0, 0.0, 8.0), table.getDoubleColumn(2))
+        table.deleteColumn(0)
+        assertArrayEquals(doubleArrayOf(2.0, 4.0, 0.0, 8.0), table.getDoubleColumn(1))
+    }
+
+    @Test
+    fun `changing a column type converts its values`() {
+        val table = createFromDoubleArray(arrayOf(doubleArrayOf(1.7), doubleArrayOf(3.2)))
+        table.columns[0].type = Column.DataType.IntType
+        assertEquals(1, table.getValueAt(0, 0))
+        assertArrayEquals(intArrayOf(1, 3), table.getIntColumn(0))
+    }
+}
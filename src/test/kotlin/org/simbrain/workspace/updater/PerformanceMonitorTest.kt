@@ -0,0 +1,89 @@
+package org.simbrain.workspace.updater
+
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import org.simbrain.network.core.Network
+import org.simbrain.network.core.Neuron
+import org.simbrain.network.matrix.NeuronArray
+import java.io.File
+import kotlin.math.abs
+
+class PerformanceMonitorTest {
+
+    @AfterEach
+    fun disable() {
+        PerformanceMonitor.enabled = false
+        PerformanceMonitor.reset()
+    }
+
+    @Test
+    fun `histogram percentiles are within bucket width`() {
+        val histogram = LatencyHistogram()
+        (1L..100_000L).forEach { histogram.record(it * 10) }
+        assertEquals(100_000, histogram.count)
+        assertEquals(10, histogram.min)
+        assertEquals(1_000_000, histogram.max)
+        for (percent in listOf(1.0, 50.0, 90.0, 99.0, 99.9)) {
+            val expected = percent / 100 * 1_000_000
+            assertTrue(abs(histogram.percentile(percent) - expected) / expected < 0.03, "p$percent")
+        }
+        assertEquals(500_005.0, histogram.mean, 1e-6)
+    }
+
+    @Test
+    fun `small values are exact`() {
+        val histogram = LatencyHistogram()
+        listOf(0L, 1L, 5L, 5L, 63L).forEach { histogram.record(it) }
+        assertEquals(5, histogram.percentile(50.0))
+        assertEquals(63, histogram.percentile(100.0))
+    }
+
+    @Test
+    fun `nothing is recorded when disabled`() {
+        assertEquals(3, PerformanceMonitor.measure("disabled") { 3 })
+        assertTrue(PerformanceMonitor.metrics.isEmpty())
+    }
+
+    @Test
+    fun `measurements are recorded by identifier`() {
+        PerformanceMonitor.enabled = true
+        repeat(10) {
+            PerformanceMonitor.measure("block", "Allocating block", "Test") { DoubleArray(1000) }
+        }
+        val metric = PerformanceMonitor.metrics["block"]!!
+        assertEquals("Allocating block", metric.name)
+        assertEquals(10, metric.latency.count)
+        if (PerformanceMonitor.allocatedBytes(Thread.currentThread()) >= 0) {
+            assertTrue(metric.allocatedBytes.sum() >= 10 * 8000)
+        }
+    }
+
+    @Test
+    fun `network models are measured`() {
+        val net = Network()
+        net.addNetworkModels(List(20) { Neuron(net) })
+        val array = NeuronArray(net, 10).apply { label = "Array" }
+        net.addNetworkModels(array)
+        PerformanceMonitor.enabled = true
+        repeat(5) { net.update() }
+        assertEquals(5, PerformanceMonitor.metrics[array]!!.latency.count)
+        val neurons = PerformanceMonitor.metrics.values.first { it.name == "Neuron updates" }
+        assertEquals(100, neurons.latency.count)
+        assertTrue(PerformanceMonitor.report().contains("Array"))
+    }
+
+    @Test
+    fun `metrics export to csv`(@TempDir directory: File) {
+        PerformanceMonitor.enabled = true
+        PerformanceMonitor.measure("a", "First, with comma") { }
+        PerformanceMonitor.countEvent("NetworkEvents2", 2)
+        val file = File(directory, "metrics.csv")
+        PerformanceMonitor.exportCsv(file)
+        val lines = file.readLines()
+        assertTrue(lines[0].startsWith("category,name,count"))
+        assertTrue(lines[1].startsWith("Update,\"First, with comma\",1,"))
+        assertTrue(lines[2].startsWith("Event,\"NetworkEvents2\",1"))
+    }
+}
@@ -0,0 +1,123 @@
+package org.simbrain.workspace.updater
+
+import kotlinx.coroutines.runBlocking
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+import org.simbrain.workspace.*
+import java.io.OutputStream
+
+class UpdateSchedulerTest {
+
+    class Cell : AttributeContainer {
+        var input = 0.0
+        var value = 0.0
+
+        @Producible
+        fun getOutput() = value
+
+        @Consumable
+        fun setInput(input: Double) {
+            this.input += input
+        }
+
+        override val id: String
+            get() = "cell"
+    }
+
+    /**
+     * Each update sets its value to the sum of its inputs plus one, and clears the inputs.
+     */
+    class CellComponent(name: String, private val sleep: Long = 0) : WorkspaceComponent(name) {
+        val cell = Cell()
+        val history = mutableListOf<Double>()
+        val times = mutableListOf<Int>()
+
+        override fun save(output: OutputStream, format: String?) {}
+
+        override fun getAttributeContainers() = listOf<AttributeContainer>(cell)
+
+        override fun update() {
+            Thread.sleep(sleep)
+            cell.value = cell.input + 1
+            cell.input = 0.0
+            history.add(cell.value)
+            times.add(workspace.time)
+        }
+    }
+
+    /**
+     * A chain a -> b -> c with a shortcut a -> c and a feedback c -> a, plus an unconnected slow component.
+     */
+    private fun runWorkspace(
+        iterations: Int,
+        useScheduler: Boolean,
+        setUp: (Workspace, List<CellComponent>) -> Unit = { _, _ -> }
+    ): Pair<Workspace, List<CellComponent>> {
+        val workspace = Workspace()
+        val components = listOf(
+            CellComponent("a"), CellComponent("b"), CellComponent("c"), CellComponent("slow", sleep = 2)
+        )
+        components.forEach { workspace.addWorkspaceComponent(it) }
+        val (a, b, c) = components
+        with(workspace.couplingManager) {
+            a.cell.getProducer("getOutput") couple b.cell.getConsumer("setInput")
+            b.cell.getProducer("getOutput") couple c.cell.getConsumer("setInput")
+            a.cell.getProducer("getOutput") couple c.cell.getConsumer("setInput")
+            c.cell.getProducer("getOutput") couple a.cell.getConsumer("setInput")
+        }
+        if (useScheduler) {
+            with(workspace.updater.updateManager) {
+                clear()
+                addAction(DependencyUpdateAction(workspace.updater))
+            }
+        }
+        setUp(workspace, components)
+        runBlocking { workspace.iterateSuspend(iterations) }
+        return workspace to components
+    }
+
+    @Test
+    fun `scheduled updates match updating all components at once`() {
+        val (_, expected) = runWorkspace(30, useScheduler = false)
+        val (workspace, actual) = runWorkspace(30, useScheduler = true)
+        expected.zip(actual).forEach { (e, a) -> assertEquals(e.history, a.history, e.name) }
+        assertEquals(30, workspace.time)
+    }
+
+    @Test
+    fun `components read the time of the iteration they are running`() {
+        val (_, components) = runWorkspace(30, useScheduler = true)
+        components.forEach { assertEquals((1..30).toList(), it.times, it.name) }
+    }
+
+    @Test
+    fun `non-removable actions run when nothing is ahead`() {
+        val seen = mutableListOf<List<Int>>()
+        val (_, components) = runWorkspace(30, useScheduler = true) { workspace, components ->
+            workspace.updater.updateManager.addNonRemovableAction(updateAction {
+                seen.add(listOf(workspace.time) + components.map { it.history.size })
+            })
+        }
+        assertEquals((1..30).map { t -> List(components.size + 1) { t } }, seen)
+    }
+
+    @Test
+    fun `single scheduled update action matches update all`() {
+        val workspace = Workspace()
+        val a = CellComponent("a")
+        val b = CellComponent("b")
+        workspace.addWorkspaceComponent(a)
+        workspace.addWorkspaceComponent(b)
+        with(workspace.couplingManager) {
+            a.cell.getProducer("getOutput") couple b.cell.getConsumer("setInput")
+        }
+        with(workspace.updater.updateManager) {
+            clear()
+            addAction(DependencyUpdateAction(workspace.updater))
+            addAction(UpdateComponent(b))
+        }
+        repeat(3) { workspace.simpleIterate() }
+        assertEquals(listOf(1.0, 1.0, 1.0), a.history)
+        assertEquals(listOf(1.0, 1.0, 2.0, 1.0, 2.0, 1.0), b.history)
+    }
+}
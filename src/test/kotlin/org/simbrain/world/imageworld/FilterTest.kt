@@ -0,0 +1,108 @@
+package org.simbrain.world.imageworld
+
+import org.junit.jupiter.api.Assertions.assertArrayEquals
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+import org.simbrain.world.imageworld.filters.Filter
+import org.simbrain.world.imageworld.filters.GrayOp
+import org.simbrain.world.imageworld.filters.IdentityOp
+import org.simbrain.world.imageworld.filters.ThresholdOp
+import java.awt.image.BufferedImage
+
+class FilterTest {
+
+    /**
+     * Left half one color, right half another.
+     */
+    private fun halves(left: Int, right: Int, type: Int = BufferedImage.TYPE_INT_RGB) =
+        BufferedImage(8, 4, type).apply {
+            for (x in 0 until 8) for (y in 0 until 4) setRGB(x, y, if (x < 4) left else right)
+        }
+
+    private fun album(vararg images: BufferedImage) = ImageAlbum().apply { images.forEach { addImage(it) } }
+
+    @Test
+    fun `identity filter at the image size copies pixels`() {
+        val image = halves(0x102030, 0xA0B0C0, BufferedImage.TYPE_3BYTE_BGR)
+        val filter = Filter("test", album(image), IdentityOp(), 8, 4)
+        val expected = IntArray(32) { image.getRGB(it % 8, it / 8) }
+        assertArrayEquals(expected, filter.rgbColor)
+        assertEquals(0x10 / 255.0, filter.red[0], 1e-9)
+        assertEquals(0xC0 / 255.0, filter.blue[7], 1e-9)
+    }
+
+    @Test
+    fun `scaling and pixel operations are applied together`() {
+        val filter = Filter("test", album(halves(0x000000, 0xFFFFFF)), ThresholdOp(0.5), 2, 2)
+        assertArrayEquals(doubleArrayOf(0.0, 1.0, 0.0, 1.0), filter.brightness, 1e-9)
+
+        val gray = Filter("gray", album(halves(0xFF0000, 0x0000FF)), GrayOp(), 2, 1)
+        assertEquals(0.2126, gray.red[0], 0.005)
+        assertEquals(gray.red[0], gray.green[0], 1e-9)
+        assertEquals(0.0722, gray.blue[1], 0.005)
+    }
+
+    @Test
+    fun `cached frames are refiltered after the image is drawn on`() {
+        val first = halves(0x000000, 0x000000)
+        val second = halves(0xFFFFFF, 0xFFFFFF)
+        val album = album(first, second)
+        val filter = Filter("test", album, IdentityOp(), 8, 4)
+        album.setFrame(0)
+        filter.updateFilter()
+        album.setFrame(1)
+        filter.updateFilter()
+        album.setFrame(0)
+        filter.updateFilter()
+        assertEquals(0.0, filter.brightness[0])
+
+        first.setRGB(0, 0, 0xFFFFFF)
+        album.fireImageModified()
+        filter.updateFilter()
+        assertEquals(1.0, filter.brightness[0], 1e-9)
+    }
+
+    @Test
+    fun `cached frames are refiltered after an operation parameter is set`() {
+        val album = album(halves(0x808080, 0x808080), halves(0x000000, 0x000000))
+        val op = ThresholdOp(0.9)
+        val filter = Filter("test", album, op, 8, 4)
+        album.setFrame(0)
+        filter.updateFilter()
+        assertEquals(0.0, filter.brightness[0])
+        op.threshold = 0.1
+        filter.updateFilter()
+        assertEquals(1.0, filter.brightness[0], 1e-9)
+    }
+
+    @Test
+    fun `alpha is kept unless the operation output is opaque`() {
+        val image = halves(0x80102030.toInt(), 0xFFA0B0C0.toInt(), BufferedImage.TYPE_INT_ARGB)
+        val color = Filter("color", album(image), IdentityOp(), 8, 4)
+        assertEquals(0x80102030.toInt(), color.rgbColor[0])
+        assertEquals(0xFFA0B0C0.toInt(), color.rgbColor[7])
+        val threshold = Filter("threshold", album(image), ThresholdOp(0.5), 8, 4)
+        assertEquals(0xFF000000.toInt(), threshold.rgbColor[0])
+    }
+
+    @Test
+    fun `frames are cached by index, not by image`() {
+        val album = album(halves(0x000000, 0x000000), halves(0xFFFFFF, 0xFFFFFF))
+        val filter = Filter("test", album, IdentityOp(), 8, 4)
+        album.setFrame(1)
+        filter.updateFilter()
+        album.setFrame(0)
+        filter.updateFilter()
+        // Loading other images invalidates the cache even though the frame indices are the same
+        album.loadImage(null as String?)
+        album.addImage(halves(0x808080, 0x808080))
+        album.addImage(halves(0x404040, 0x404040))
+        album.setFrame(0)
+        filter.updateFilter()
+        assertEquals(0x80 / 255.0, filter.red[0], 1e-9)
+        // An image that is not one of the frames is never served from the cache
+        album.loadImage(null as String?)
+        filter.updateFilter()
+        assertEquals(0.0, filter.red[0], 1e-9)
+    }
+}
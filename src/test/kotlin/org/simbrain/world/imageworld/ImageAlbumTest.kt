@@ -0,0 +1,92 @@
+package org.simbrain.world.imageworld
+
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.awt.image.BufferedImage
+import java.io.File
+import javax.imageio.ImageIO
+
+class ImageAlbumTest {
+
+    /**
+     * Write single-color images, with red channel 0, 10, 20...
+     */
+    private fun writeImages(dir: File, n: Int) = Array(n) { i ->
+        val image = BufferedImage(4, 3, BufferedImage.TYPE_INT_RGB)
+        for (x in 0 until 4) for (y in 0 until 3) image.setRGB(x, y, (i * 10) shl 16)
+        File(dir, "image$i.png").also { ImageIO.write(image, "png", it) }
+    }
+
+    private val ImageAlbum.red get() = (currentImage.getRGB(0, 0) shr 16) and 0xff
+
+    @Test
+    fun `lazy album decodes frames as they are shown`(@TempDir dir: File) {
+        val album = ImageAlbum()
+        album.cacheSize = 2
+        album.prefetchCount = 1
+        album.loadImages(writeImages(dir, 5), true)
+        assertTrue(album.isLazy)
+        assertEquals(5, album.numFrames)
+        assertEquals(0, album.red)
+        repeat(7) { album.nextFrame() }
+        assertEquals(2, album.frameIndex)
+        assertEquals(20, album.red)
+        album.previousFrame()
+        album.previousFrame()
+        album.previousFrame()
+        assertEquals(40, album.red)
+        album.setFrame(3)
+        assertEquals(30, album.red)
+    }
+
+    @Test
+    fun `albums are only loaded lazily on request`(@TempDir dir: File) {
+        val album = ImageAlbum()
+        album.loadImages(writeImages(dir, ImageAlbum.MAX_EAGER_FRAMES + 1))
+        assertFalse(album.isLazy)
+        // All frames are embedded when saved
+        val xml = ImageWorldComponent.getXStream().toXML(album)
+        assertTrue(Regex("<png>").findAll(xml).count() > ImageAlbum.MAX_EAGER_FRAMES)
+        assertFalse(xml.contains(dir.absolutePath))
+    }
+
+    @Test
+    fun `prefetches from before a clear are not cached`(@TempDir dir: File) {
+        val cache = ImageFrameCache(4)
+        val files = writeImages(dir, 3).toList()
+        cache.prefetch(files)
+        cache.clear()
+        // Give the loader time to finish whatever it had started
+        Thread.sleep(500)
+        files.forEach { assertFalse(cache.isCached(it)) }
+        // The cache still works afterwards
+        cache.prefetch(files)
+        assertEquals(10, (cache.get(files[1]).getRGB(0, 0) shr 16) and 0xff)
+        assertTrue(cache.isCached(files[1]))
+    }
+
+    @Test
+    fun `lazy albums are saved as file paths`(@TempDir dir: File) {
+        val album = ImageAlbum()
+        album.loadImages(writeImages(dir, 3), true)
+        val xml = ImageWorldComponent.getXStream().toXML(album)
+        assertTrue(xml.contains(File(dir, "image2.png").absolutePath))
+        // Only the current image is stored as image data
+        assertEquals(1, Regex("<png>").findAll(xml).count())
+
+        val copy = ImageWorldComponent.getXStream().fromXML(xml) as ImageAlbum
+        copy.nextFrame()
+        assertEquals(10, copy.red)
+    }
+
+    @Test
+    fun `albums saved before the cache get the default cache settings`() {
+        val xml = ImageWorldComponent.getXStream().toXML(ImageAlbum())
+            .replace(Regex("\\s*<cacheSize>\\d+</cacheSize>"), "")
+            .replace(Regex("\\s*<prefetchCount>\\d+</prefetchCount>"), "")
+        val album = ImageWorldComponent.getXStream().fromXML(xml) as ImageAlbum
+        assertEquals(32, album.cacheSize)
+        assertEquals(4, album.prefetchCount)
+    }
+}
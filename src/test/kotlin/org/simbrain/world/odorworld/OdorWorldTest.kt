@@ -4,9 +4,18 @@ import org.junit.jupiter.api.Assertions
 import org.junit.jupiter.api.Assertions.assertEquals
 import org.junit.jupiter.api.Assertions.assertNotNull
 import org.junit.jupiter.api.Test
+import org.simbrain.network.core.Network
+import org.simbrain.network.core.Neuron
+import org.simbrain.network.core.Synapse
+import org.simbrain.util.environment.SmellSource
+import org.simbrain.util.math.SimbrainMath
 import org.simbrain.util.point
+import org.simbrain.world.odorworld.effectors.StraightMovement
+import org.simbrain.world.odorworld.effectors.Turning
 import org.simbrain.world.odorworld.entities.EntityType
 import org.simbrain.world.odorworld.entities.OdorWorldEntity
+import org.simbrain.world.odorworld.sensors.ObjectSensor
+import org.simbrain.world.odorworld.sensors.SmellSensor
 import java.io.ByteArrayInputStream
 import java.io.InputStream
 import java.nio.charset.StandardCharsets
@@ -49,4 +58,149 @@ class OdorWorldTest {
         assertEquals(swiss.location, swiss2?.location)
     }
 
-}
\ No newline at end of file
+    @Test
+    fun `entity grid only returns nearby entities in list order`() {
+        val near = world.addEntity(100, 100, EntityType.SWISS)
+        val far = world.addEntity(400, 400, EntityType.SWISS)
+        val nearToo = world.addEntity(120, 90, EntityType.FISH)
+        val found = world.getEntitiesNear(point(100, 100), 50.0)
+        assertEquals(listOf(near, nearToo), found)
+        far.location = point(110, 110)
+        world.entityMoved(far)
+        assertEquals(listOf(near, far, nearToo), world.getEntitiesNear(point(100, 100), 50.0))
+    }
+
+    @Test
+    fun `sensors match full scan`() {
+        val mouse = world.addEntity(100, 100, EntityType.MOUSE)
+        val smellSensor = SmellSensor()
+        val objectSensor = ObjectSensor(EntityType.SWISS)
+        mouse.addSensor(smellSensor)
+        mouse.addSensor(objectSensor)
+        world.addEntity(160, 100, EntityType.SWISS, doubleArrayOf(1.0, 2.0))
+        world.addEntity(90, 150, EntityType.SWISS, doubleArrayOf(.5, .5))
+        world.addEntity(400, 400, EntityType.SWISS, doubleArrayOf(3.0, 3.0))
+        world.update()
+
+        val sensorLocation = smellSensor.computeAbsoluteLocation(mouse)
+        val expectedSmell = world.entityList
+            .filter { it !== mouse }
+            .map { it.smellSource.getStimulus(SimbrainMath.distance(it.location, sensorLocation)) }
+            .reduce { acc, stim -> DoubleArray(acc.size) { acc[it] + stim[it] } }
+        Assertions.assertArrayEquals(expectedSmell, smellSensor.smellVector)
+
+        val objectLocation = objectSensor.computeAbsoluteLocation(mouse)
+        val expectedObject = world.entityList
+            .filter { it.entityType == EntityType.SWISS }
+            .sumOf { objectSensor.baseValue * objectSensor.decayFunction.getScalingFactor(SimbrainMath.distance(objectLocation, it.location)) }
+        assertEquals(expectedObject, objectSensor.currentValue)
+    }
+
+    @Test
+    fun `smell sensors grow past the cached smell dimension`() {
+        val mouse = world.addEntity(100, 100, EntityType.MOUSE)
+        val smellSensor = SmellSensor()
+        mouse.addSensor(smellSensor)
+        val swiss = world.addEntity(120, 100, EntityType.SWISS, doubleArrayOf(1.0, 2.0))
+
+        // Before the first update nothing is cached
+        smellSensor.update(mouse)
+        assertEquals(2, smellSensor.smellVector.size)
+
+        world.update()
+        swiss.smellSource = SmellSource(doubleArrayOf(1.0, 2.0, 3.0))
+        smellSensor.update(mouse)
+        val sensorLocation = smellSensor.computeAbsoluteLocation(mouse)
+        Assertions.assertArrayEquals(
+            swiss.smellSource.getStimulus(SimbrainMath.distance(swiss.location, sensorLocation)),
+            smellSensor.smellVector
+        )
+    }
+
+    @Test
+    fun `batch lanes step worlds and networks without a workspace`() {
+        val batch = OdorWorldBatch(parallelism = 2)
+        repeat(3) { i ->
+            val world = OdorWorld()
+            val mouse = world.addEntity(100, 100, EntityType.MOUSE)
+            val sensor = ObjectSensor(EntityType.SWISS)
+            val straight = StraightMovement()
+            mouse.addSensor(sensor)
+            mouse.addEffector(straight)
+            val network = Network()
+            val input = Neuron(network)
+            val output = Neuron(network).apply {
+                isClamped = true
+                forceSetActivation(i.toDouble())
+            }
+            network.addNetworkModels(listOf(input, output))
+            batch.addLane(OdorWorldBatch.Lane(world, mouse, network, listOf(sensor), listOf(input), listOf(output), listOf(straight)))
+        }
+        batch.runBlocking(10)
+        assertEquals(10, batch.iteration)
+        assertEquals(100.0, batch.x[0])
+        // Effectors get the outputs one iteration after the first world update, as with couplings
+        assertEquals(109.0, batch.x[1])
+        assertEquals(118.0, batch.x[2])
+        // Agents are written back when the run ends
+        assertEquals(118.0, batch.getLane(2).agent.x)
+    }
+
+    /**
+     * A world with a mouse that senses and moves, some cheese to run into, and a flower to smell. The mouse's
+     * network feeds each sensor to one effector.
+     */
+    private fun createLane(seed: Int): OdorWorldBatch.Lane {
+        val world = OdorWorld()
+        val mouse = world.addEntity(100, 100, EntityType.MOUSE).apply { heading = 10.0 * seed }
+        world.addEntity(160, 110, EntityType.SWISS)
+        world.addEntity(60, 160, EntityType.FLOWER, doubleArrayOf(1.0, 0.5))
+        val objectSensor = ObjectSensor(EntityType.SWISS, 20.0, 45.0)
+        val smellSensor = SmellSensor(theta = -45.0, radius = 20.0)
+        val straight = StraightMovement()
+        val turning = Turning(Turning.LEFT)
+        mouse.addSensor(objectSensor)
+        mouse.addSensor(smellSensor)
+        mouse.addEffector(straight)
+        mouse.addEffector(turning)
+        val network = Network()
+        val inputs = List(2) { Neuron(network) }
+        val outputs = List(2) { Neuron(network) }
+        network.addNetworkModels(inputs + outputs)
+        network.addNetworkModels(listOf(
+            Synapse(inputs[0], outputs[0], 2.0 + seed),
+            Synapse(inputs[1], outputs[1], 5.0)
+        ))
+        return OdorWorldBatch.Lane(world, mouse, network, listOf(objectSensor, smellSensor), inputs, outputs,
+            listOf(straight, turning))
+    }
+
+    @Test
+    fun `batch lanes match worlds and networks updated one at a time`() {
+        val iterations = 50
+        val batch = OdorWorldBatch(parallelism = 2)
+        repeat(4) { batch.addLane(createLane(it)) }
+        batch.runBlocking(iterations)
+
+        repeat(4) { seed ->
+            val lane = createLane(seed)
+            val objectSensor = lane.sensors[0] as ObjectSensor
+            val smellSensor = lane.sensors[1] as SmellSensor
+            repeat(iterations) {
+                // What the default couplings do, in the order of UpdateAllAction
+                lane.inputs[0].addInputValue(objectSensor.currentValue)
+                lane.inputs[1].addInputValue(smellSensor.currentScalarValue)
+                (lane.effectors[0] as StraightMovement).amount = lane.outputs[0].activation
+                (lane.effectors[1] as Turning).amount = lane.outputs[1].activation
+                lane.world.update()
+                lane.network.update()
+            }
+            assertEquals(lane.agent.x, batch.x[seed], 1e-9)
+            assertEquals(lane.agent.y, batch.y[seed], 1e-9)
+            assertEquals(lane.agent.heading, batch.heading[seed], 1e-9)
+            assertEquals(objectSensor.currentValue, batch.sensorValues[seed * batch.sensorStride], 1e-9)
+            assertEquals(smellSensor.currentScalarValue, batch.sensorValues[seed * batch.sensorStride + 1], 1e-9)
+        }
+    }
+
+}
@@ -1,8 +1,12 @@
 package org.simbrain.world.odorworld
 
 import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
 import org.junit.jupiter.api.Test
+import org.simbrain.util.decayfunctions.LinearDecayFunction
 import org.simbrain.util.piccolo.*
+import org.simbrain.util.plus
+import org.simbrain.util.point
 
 class TileMapTest {
 
@@ -70,4 +74,27 @@ class TileMapTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    fun `tile type fields match summing over tile stacks`() {
+        val decay = LinearDecayFunction(100.0)
+        val location = point(150.0, 130.0)
+        fun reference() = with(world.tileMap) {
+            getRelativeGridLocationsInRadius(decay.dispersion)
+                .map { it + location.asPixelCoordinate().toGridCoordinate() }
+                .map { it.asGridCoordinate() to getTileStackAt(it.x.toInt(), it.y.toInt()) }
+                .filter { (_, tiles) -> tiles.any { it.type == "water" } }
+                .map { (pos) -> pos.toPixelCoordinate().distance(location) }
+                .sumOf { decay.getScalingFactor(it) }
+        }
+        world.tileMap.makeLake(GridCoordinate(3, 3), 3, 3)
+        val fields = world.tileMap.tileTypeFields
+        assertTrue(reference() > 0)
+        assertEquals(reference(), fields.sumDecayedDistances("water", location, decay, 1.0))
+
+        // Cache is invalidated when tiles change
+        world.tileMap.clear()
+        assertEquals(0.0, fields.sumDecayedDistances("water", location, decay, 1.0))
+        assertEquals(0.0, fields.interpolate("water", location, decay, 1.0))
+    }
+
+}